@@ -1,7 +1,5 @@
 package onl.oss.javafx.application;
 
-import javafx.animation.KeyFrame;
-import javafx.animation.Timeline;
 import javafx.application.Platform;
 import javafx.util.Duration;
 
@@ -32,11 +30,63 @@ public class FxApplicationThread {
 		Platform.runLater(runnable);
 	}
 
+	/**
+	 * JavaFX アプリケーション・スレッドで指定された Runnable を次のパルスで実行します。
+	 * <p>
+	 * {@link #runLater(Runnable)} と異なり、Runnable は {@link FxBatchDispatcher#getDefault()} のキューに蓄えられ、パルスごとにまとめて実行されます。
+	 * バックグラウンドから小さな更新を大量に投入する場合に使用してください。</p>
+	 *
+	 * @param runnable run メソッドが JavaFX アプリケーション・スレッドで実行される Runnable
+	 */
+	public static void runLaterBatched(Runnable runnable) {
+		FxBatchDispatcher.getDefault().execute(runnable);
+	}
+
+	/**
+	 * JavaFX アプリケーション・スレッドで指定された Runnable を次のパルスで実行します。
+	 * 同じキーで投入されたまだ実行されていない Runnable がある場合は、その Runnable を置き換えます。
+	 * <p>
+	 * ステータス・テキストや最新の計測値の表示など、最新の値だけが意味を持つ更新に使用してください。
+	 * 置き換えられた更新の数は {@link #getUpdateQueue()} の {@link FxUpdateQueue#getMergedCount()} で確認できます。</p>
+	 *
+	 * @param key キー
+	 * @param runnable run メソッドが JavaFX アプリケーション・スレッドで実行される Runnable
+	 */
+	public static void runLaterConflated(Object key, Runnable runnable) {
+		try {
+			UpdateQueueHolder.INSTANCE.post(key, runnable);
+		} catch(InterruptedException e) {
+			// 上限のないキューでは待機しないため、ここには到達しません。
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * JavaFX アプリケーション・スレッドの空き時間に、指定されたコールバックを実行します。
+	 * <p>
+	 * コールバックはパルスの処理が終わった後、次のパルスまでの残り時間の範囲で {@link FxIdleScheduler#getDefault()} によって実行されます。
+	 * スキンの事前生成やキャッシュの再構築など、急がない処理に使用してください。</p>
+	 *
+	 * @param callback 空き時間に JavaFX アプリケーション・スレッドで実行されるコールバック
+	 * @return コールバックをキャンセルするためのハンドル
+	 */
+	public static FxIdleScheduler.IdleRequest requestIdleCallback(FxIdleScheduler.IdleCallback callback) {
+		return FxIdleScheduler.getDefault().requestIdleCallback(callback);
+	}
+
+	/**
+	 * {@link #runLaterConflated(Object, Runnable)} が使用する、要素数に上限のない FxUpdateQueue を返します。
+	 *
+	 * @return runLaterConflated が使用する FxUpdateQueue
+	 */
+	public static FxUpdateQueue getUpdateQueue() {
+		return UpdateQueueHolder.INSTANCE;
+	}
+
 	/**
 	 * 指定時間経過後に、指定された Runnable を JavaFX アプリケーション・スレッドで実行します。
 	 * <p>
-	 * このメソッドの呼び出し自体はブロックされることなくすぐに復帰します。
-	 * このメソッドは JavaFX アプリケーション・スレッドから呼び出してください。</p>
+	 * このメソッドの呼び出し自体はブロックされることなくすぐに復帰します。</p>
 	 *
 	 * @param delayMillis Runnable を実行するまでの時間（ミリ秒）
 	 * @param runnable run メソッドが JavaFX アプリケーション・スレッドで実行される Runnable
@@ -49,7 +99,7 @@ public class FxApplicationThread {
 	 * 指定時間経過後に、指定された Runnable を JavaFX アプリケーション・スレッドで実行します。
 	 * <p>
 	 * このメソッドの呼び出し自体はブロックされることなくすぐに復帰します。
-	 * このメソッドは JavaFX アプリケーション・スレッドから呼び出してください。</p>
+	 * タイマーは {@link FxTimerWheel#getDefault()} で管理されます。実行をキャンセルする場合は {@link FxTimerWheel#schedule(Duration, Runnable)} を使用してください。</p>
 	 *
 	 * @param delay Runnable を実行するまでの時間。0ミリ秒以下の値を指定した場合、1ミリ秒後に実行されます。
 	 * @param runnable run メソッドが JavaFX アプリケーション・スレッドで実行される Runnable
@@ -58,9 +108,7 @@ public class FxApplicationThread {
 		if(delay.lessThanOrEqualTo(Duration.ZERO)) {
 			delay = Duration.ONE;
 		}
-		new Timeline(new KeyFrame(delay, onFinished -> {
-			runnable.run();
-		})).play();
+		FxTimerWheel.getDefault().schedule(delay, runnable);
 	}
 
 	/**
@@ -68,6 +116,8 @@ public class FxApplicationThread {
 	 * <p>
 	 * このメソッドはワーカースレッドから呼び出してください。
 	 * JavaFX アプリケーション・スレッドから呼び出した場合、Error がスローされます。</p>
+	 * <p>
+	 * 結果を返す処理やタイムアウトを指定して待機する場合は {@link FxExecutor#callAndWait(java.util.concurrent.Callable, long, java.util.concurrent.TimeUnit)} を使用してください。</p>
 	 *
 	 * @param runnable run メソッドが JavaFX アプリケーション・スレッドで実行される Runnable
 	 * @throws InterruptedException スレッドへの割り込みが発生した場合
@@ -95,4 +145,8 @@ public class FxApplicationThread {
 			throw new InvocationTargetException(throwable[0]);
 		}
 	}
+
+	private static class UpdateQueueHolder {
+		private static final FxUpdateQueue INSTANCE = new FxUpdateQueue();
+	}
 }
@@ -0,0 +1,185 @@
+package onl.oss.javafx.application;
+
+import javafx.animation.AnimationTimer;
+import javafx.application.Platform;
+import javafx.util.Duration;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * JavaFX アプリケーション・スレッドで実行する Runnable をまとめて、パルスごとに1回実行する Executor です。
+ * <p>
+ * {@link Platform#runLater(Runnable)} は呼び出しごとにイベント・キューにエントリーを追加してスレッドを起床させるため、
+ * バックグラウンドから小さな更新を大量に投入すると、キューが埋まってユーザー入力の処理が遅れます。
+ * FxBatchDispatcher は Runnable をロックフリーのキューに蓄え、パルスごとに1回だけまとめて実行します。</p>
+ * <p>
+ * 1回のパルスで実行する時間には上限（{@link #timeBudget(Duration)}）があり、上限を超えた Runnable は次のパルスに持ち越されます。
+ * Runnable は投入された順番に実行されます。Runnable がスローした例外はスレッドの UncaughtExceptionHandler に渡され、後続の Runnable は実行されます。</p>
+ *
+ */
+public final class FxBatchDispatcher implements Executor {
+
+	private final Queue<Runnable> queue = new ConcurrentLinkedQueue<>();
+	private final AtomicInteger pendingCount = new AtomicInteger();
+	private final AtomicBoolean isScheduled = new AtomicBoolean();
+	private final AnimationTimer timer = new AnimationTimer() {
+		@Override
+		public void handle(long now) {
+			drain();
+		}
+	};
+	private volatile long timeBudgetNanos = 8_000_000L;
+
+	// JavaFX アプリケーション・スレッドからのみアクセスします。
+	private long deadlineNanos = System.nanoTime();
+
+	private final LongAdder executedCount = new LongAdder();
+	private final LongAdder drainCount = new LongAdder();
+	private final LongAdder carryOverCount = new LongAdder();
+
+	/**
+	 * アプリケーション全体で共有する FxBatchDispatcher を返します。
+	 *
+	 * @return 共有の FxBatchDispatcher
+	 */
+	public static FxBatchDispatcher getDefault() {
+		return DefaultHolder.INSTANCE;
+	}
+
+	/**
+	 * 1回のパルスで Runnable を実行する時間の上限を設定します。既定値は 8 ミリ秒です。
+	 * 上限を超えた場合でも、各パルスで少なくとも1つの Runnable は実行されます。
+	 *
+	 * @param timeBudget 1回のパルスで Runnable を実行する時間の上限
+	 * @return この FxBatchDispatcher
+	 */
+	public FxBatchDispatcher timeBudget(Duration timeBudget) {
+		this.timeBudgetNanos = (long)(timeBudget.toMillis() * 1_000_000);
+		return this;
+	}
+
+	/**
+	 * 指定された Runnable を次のパルスで JavaFX アプリケーション・スレッドで実行します。
+	 * このメソッドは任意のスレッドから呼び出すことができます。
+	 *
+	 * @param runnable run メソッドが JavaFX アプリケーション・スレッドで実行される Runnable
+	 */
+	@Override
+	public void execute(Runnable runnable) {
+		if(runnable == null) {
+			throw new NullPointerException();
+		}
+		queue.offer(runnable);
+		pendingCount.incrementAndGet();
+		schedule();
+	}
+
+	/**
+	 * 実行待ちの Runnable の数を返します。
+	 *
+	 * @return 実行待ちの Runnable の数
+	 */
+	public int getPendingCount() {
+		return pendingCount.get();
+	}
+
+	/**
+	 * 実行した Runnable の総数を返します。
+	 *
+	 * @return 実行した Runnable の総数
+	 */
+	public long getExecutedCount() {
+		return executedCount.sum();
+	}
+
+	/**
+	 * Runnable をまとめて実行した回数を返します。
+	 *
+	 * @return Runnable をまとめて実行した回数
+	 */
+	public long getDrainCount() {
+		return drainCount.sum();
+	}
+
+	/**
+	 * 時間の上限に達したために Runnable を次のパルスに持ち越した回数を返します。
+	 *
+	 * @return Runnable を次のパルスに持ち越した回数
+	 */
+	public long getCarryOverCount() {
+		return carryOverCount.sum();
+	}
+
+	/**
+	 * 現在のパルスで Runnable を実行する時間の上限に達している場合に true を返します。
+	 * 多くの処理をまとめて実行する Runnable が、残りを次のパルスに持ち越すかどうかの判断に使用します。
+	 * JavaFX アプリケーション・スレッドから呼び出してください。
+	 *
+	 * @return 時間の上限に達している場合は true
+	 */
+	boolean isOverBudget() {
+		return System.nanoTime() - deadlineNanos >= 0;
+	}
+
+	@Override
+	public String toString() {
+		return "FxBatchDispatcher [pending=" + getPendingCount() + ", executed=" + getExecutedCount()
+				+ ", drains=" + getDrainCount() + ", carryOvers=" + getCarryOverCount() + "]";
+	}
+
+	private void schedule() {
+		if(isScheduled.compareAndSet(false, true)) {
+			if(Platform.isFxApplicationThread()) {
+				timer.start();
+			} else {
+				Platform.runLater(timer::start);
+			}
+		}
+	}
+
+	private void drain() {
+		long deadline = System.nanoTime() + timeBudgetNanos;
+		deadlineNanos = deadline;
+		// 実行中に投入された Runnable は次のパルスで実行して、1回の実行が終わらなくなることを防ぎます。
+		int count = pendingCount.get();
+		drainCount.increment();
+		for(int i = 0; i < count; i++) {
+			if(i > 0 && System.nanoTime() - deadline >= 0) {
+				carryOverCount.increment();
+				return;
+			}
+			Runnable runnable = queue.poll();
+			if(runnable == null) {
+				break;
+			}
+			pendingCount.decrementAndGet();
+			try {
+				runnable.run();
+			} catch(Throwable e) {
+				Thread thread = Thread.currentThread();
+				Thread.UncaughtExceptionHandler ueh = thread.getUncaughtExceptionHandler();
+				if(ueh != null) {
+					ueh.uncaughtException(thread, e);
+				}
+			}
+			executedCount.increment();
+		}
+		if(queue.isEmpty()) {
+			// キューが空になったらタイマーを停止し、停止までの間に投入された Runnable があれば再開します。
+			timer.stop();
+			isScheduled.set(false);
+			if(!queue.isEmpty() && isScheduled.compareAndSet(false, true)) {
+				timer.start();
+			}
+		}
+	}
+
+	private static class DefaultHolder {
+		private static final FxBatchDispatcher INSTANCE = new FxBatchDispatcher();
+	}
+}
@@ -0,0 +1,316 @@
+package onl.oss.javafx.application;
+
+import javafx.application.Platform;
+import javafx.util.Duration;
+
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * JavaFX アプリケーション・スレッドでタスクを実行する ScheduledExecutorService です。
+ * <p>
+ * 標準の Executor を受け取るライブラリーに渡して、コールバックを JavaFX アプリケーション・スレッドで実行させることができます。
+ * 遅延実行と繰り返し実行は {@link FxTimerWheel#getDefault()} で管理されます。</p>
+ * <p>
+ * {@link #callAndWait(Callable, long, TimeUnit)} はワーカースレッドから JavaFX アプリケーション・スレッドで処理を実行して結果を待ちます。
+ * JavaFX アプリケーション・スレッドから呼び出した場合はその場で実行します。
+ * 待ち時間は {@link #getWaitHistogram()} に記録されます。</p>
+ * <p>
+ * {@link #shutdown()} は新しいタスクの受け付けを停止するだけで、JavaFX アプリケーション・スレッドには影響しません。</p>
+ *
+ */
+public final class FxExecutor extends AbstractExecutorService implements ScheduledExecutorService {
+
+	private final AtomicInteger pendingCount = new AtomicInteger();
+	private final LatencyHistogram waitHistogram = new LatencyHistogram();
+	private volatile boolean isShutdown;
+
+	/**
+	 * アプリケーション全体で共有する FxExecutor を返します。
+	 *
+	 * @return 共有の FxExecutor
+	 */
+	public static FxExecutor getInstance() {
+		return InstanceHolder.INSTANCE;
+	}
+
+	private FxExecutor() {
+	}
+
+	@Override
+	public void execute(Runnable command) {
+		if(command == null) {
+			throw new NullPointerException();
+		}
+		if(isShutdown) {
+			throw new RejectedExecutionException("FxExecutor has been shut down.");
+		}
+		pendingCount.incrementAndGet();
+		Platform.runLater(() -> {
+			try {
+				command.run();
+			} finally {
+				completed();
+			}
+		});
+	}
+
+	/**
+	 * 指定した処理を JavaFX アプリケーション・スレッドで実行し、結果を返します。
+	 * <p>
+	 * JavaFX アプリケーション・スレッドから呼び出した場合はその場で実行します。
+	 * タイムアウトした場合、処理がまだ開始されていなければ処理はキャンセルされます。</p>
+	 *
+	 * @param callable JavaFX アプリケーション・スレッドで実行する処理
+	 * @param timeout 待機する最大時間
+	 * @param unit timeout の単位
+	 * @return 処理の結果
+	 * @throws InterruptedException 待機中に割り込みが発生した場合
+	 * @throws ExecutionException 処理が例外をスローした場合
+	 * @throws TimeoutException 待機時間内に処理が完了しなかった場合
+	 */
+	public <T> T callAndWait(Callable<T> callable, long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+		if(callable == null) {
+			throw new NullPointerException();
+		}
+		if(Platform.isFxApplicationThread()) {
+			try {
+				return callable.call();
+			} catch(Exception e) {
+				throw new ExecutionException(e);
+			}
+		}
+		long start = System.nanoTime();
+		FutureTask<T> future = new FutureTask<>(callable);
+		execute(future);
+		try {
+			return future.get(timeout, unit);
+		} catch(TimeoutException | InterruptedException e) {
+			future.cancel(false);
+			throw e;
+		} finally {
+			waitHistogram.record(System.nanoTime() - start);
+		}
+	}
+
+	/**
+	 * 指定した処理を JavaFX アプリケーション・スレッドで実行し、結果を返します。
+	 * JavaFX アプリケーション・スレッドから呼び出した場合はその場で実行します。
+	 *
+	 * @param callable JavaFX アプリケーション・スレッドで実行する処理
+	 * @return 処理の結果
+	 * @throws InterruptedException 待機中に割り込みが発生した場合
+	 * @throws ExecutionException 処理が例外をスローした場合
+	 */
+	public <T> T callAndWait(Callable<T> callable) throws InterruptedException, ExecutionException {
+		try {
+			return callAndWait(callable, Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+		} catch(TimeoutException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * {@link #callAndWait(Callable, long, TimeUnit)} で結果を待った時間のヒストグラムを返します。
+	 * JavaFX アプリケーション・スレッドからその場で実行した呼び出しは含まれません。
+	 *
+	 * @return 待ち時間のヒストグラム
+	 */
+	public LatencyHistogram getWaitHistogram() {
+		return waitHistogram;
+	}
+
+	@Override
+	public ScheduledFuture<?> schedule(Runnable command, long delay, TimeUnit unit) {
+		return schedule(callable(command), delay, unit);
+	}
+
+	@Override
+	public <V> ScheduledFuture<V> schedule(Callable<V> callable, long delay, TimeUnit unit) {
+		if(callable == null || unit == null) {
+			throw new NullPointerException();
+		}
+		checkShutdown();
+		ScheduledTask<V> task = new ScheduledTask<>(callable, unit.toNanos(delay), 0);
+		task.start();
+		return task;
+	}
+
+	@Override
+	public ScheduledFuture<?> scheduleAtFixedRate(Runnable command, long initialDelay, long period, TimeUnit unit) {
+		return schedulePeriodic(command, initialDelay, period, unit, true);
+	}
+
+	@Override
+	public ScheduledFuture<?> scheduleWithFixedDelay(Runnable command, long initialDelay, long delay, TimeUnit unit) {
+		return schedulePeriodic(command, initialDelay, delay, unit, false);
+	}
+
+	private ScheduledFuture<?> schedulePeriodic(Runnable command, long initialDelay, long period, TimeUnit unit, boolean isFixedRate) {
+		if(command == null || unit == null) {
+			throw new NullPointerException();
+		}
+		if(period <= 0) {
+			throw new IllegalArgumentException("period: " + period);
+		}
+		checkShutdown();
+		ScheduledTask<Void> task = new ScheduledTask<>(callable(command), unit.toNanos(initialDelay), isFixedRate ? unit.toNanos(period) : -unit.toNanos(period));
+		task.start();
+		return task;
+	}
+
+	@Override
+	public void shutdown() {
+		isShutdown = true;
+		synchronized (this) {
+			notifyAll();
+		}
+	}
+
+	@Override
+	public List<Runnable> shutdownNow() {
+		shutdown();
+		return List.of();
+	}
+
+	@Override
+	public boolean isShutdown() {
+		return isShutdown;
+	}
+
+	@Override
+	public boolean isTerminated() {
+		return isShutdown && pendingCount.get() == 0;
+	}
+
+	@Override
+	public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+		long deadline = System.nanoTime() + unit.toNanos(timeout);
+		synchronized (this) {
+			while(!isTerminated()) {
+				long remaining = deadline - System.nanoTime();
+				if(remaining <= 0) {
+					return false;
+				}
+				TimeUnit.NANOSECONDS.timedWait(this, remaining);
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public String toString() {
+		return "FxExecutor [pending=" + pendingCount.get() + ", shutdown=" + isShutdown + ", wait={" + waitHistogram + "}]";
+	}
+
+	private void checkShutdown() {
+		if(isShutdown) {
+			throw new RejectedExecutionException("FxExecutor has been shut down.");
+		}
+	}
+
+	private void completed() {
+		if(pendingCount.decrementAndGet() == 0 && isShutdown) {
+			synchronized (this) {
+				notifyAll();
+			}
+		}
+	}
+
+	private static <V> Callable<V> callable(Runnable command) {
+		if(command == null) {
+			throw new NullPointerException();
+		}
+		return () -> {
+			command.run();
+			return null;
+		};
+	}
+
+	/**
+	 * FxTimerWheel で実行される ScheduledFuture です。
+	 * period が正の場合は一定間隔、負の場合は実行終了から一定時間後に繰り返します。
+	 */
+	private final class ScheduledTask<V> extends FutureTask<V> implements ScheduledFuture<V> {
+
+		private final long period;
+		private volatile long deadlineNanos;
+		private volatile FxTimerWheel.Timeout timeout;
+
+		ScheduledTask(Callable<V> callable, long delayNanos, long period) {
+			super(callable);
+			this.period = period;
+			this.deadlineNanos = System.nanoTime() + Math.max(0, delayNanos);
+		}
+
+		void start() {
+			pendingCount.incrementAndGet();
+			FxTimerWheel wheel = FxTimerWheel.getDefault();
+			Duration delay = Duration.millis(Math.max(0, deadlineNanos - System.nanoTime()) / 1_000_000.0);
+			if(period > 0) {
+				timeout = wheel.scheduleAtFixedRate(delay, Duration.millis(period / 1_000_000.0), this::fire);
+			} else {
+				timeout = wheel.schedule(delay, this::fire);
+			}
+		}
+
+		private void fire() {
+			if(period == 0) {
+				run();
+				return;
+			}
+			if(isShutdown) {
+				// ScheduledThreadPoolExecutor と同様に、シャットダウン後は繰り返しのタスクを実行しません。
+				cancel(false);
+				return;
+			}
+			if(!runAndReset()) {
+				// 例外がスローされた場合やキャンセルされた場合は以降の実行をおこないません。
+				timeout.cancel();
+				return;
+			}
+			if(period > 0) {
+				deadlineNanos += period;
+			} else {
+				deadlineNanos = System.nanoTime() - period;
+				timeout = FxTimerWheel.getDefault().schedule(Duration.millis(-period / 1_000_000.0), this::fire);
+			}
+		}
+
+		@Override
+		protected void done() {
+			FxTimerWheel.Timeout timeout = this.timeout;
+			if(timeout != null) {
+				timeout.cancel();
+			}
+			completed();
+		}
+
+		@Override
+		public long getDelay(TimeUnit unit) {
+			return unit.convert(deadlineNanos - System.nanoTime(), TimeUnit.NANOSECONDS);
+		}
+
+		@Override
+		public int compareTo(Delayed other) {
+			if(other == this) {
+				return 0;
+			}
+			return Long.compare(getDelay(TimeUnit.NANOSECONDS), other.getDelay(TimeUnit.NANOSECONDS));
+		}
+	}
+
+	private static class InstanceHolder {
+		private static final FxExecutor INSTANCE = new FxExecutor();
+	}
+}
@@ -0,0 +1,339 @@
+package onl.oss.javafx.application;
+
+import javafx.animation.AnimationTimer;
+import javafx.application.Platform;
+import javafx.util.Duration;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 急がない処理を、パルスの処理が終わった後の空き時間に JavaFX アプリケーション・スレッドで実行するスケジューラーです。
+ * <p>
+ * スキンの事前生成やキャッシュの再構築、リストの整理のように JavaFX アプリケーション・スレッドで実行する必要があるものの急がない処理を
+ * {@link #requestIdleCallback(IdleCallback)} で投入すると、各パルスのレイアウトと描画の同期が終わった後、
+ * 次のパルスまでの残り時間の範囲で実行されます。1フレームで使用する時間には上限（{@link #frameBudget(Duration)}）があります。</p>
+ * <p>
+ * コールバックには {@link IdleDeadline} が渡されます。長い処理は {@link IdleDeadline#shouldYield()} が true を返したら処理を中断し、
+ * 残りの処理を再び {@link #requestIdleCallback(IdleCallback)} で投入してください。
+ * 空き時間のないフレームが続いてもコールバックを実行したい場合は、{@link #requestIdleCallback(IdleCallback, Duration)} でタイムアウトを指定します。</p>
+ * <p>
+ * コールバックは投入された順番に実行されます。コールバックがスローした例外はスレッドの UncaughtExceptionHandler に渡され、後続のコールバックは実行されます。</p>
+ *
+ */
+public final class FxIdleScheduler {
+
+	/**
+	 * 空き時間に JavaFX アプリケーション・スレッドで実行されるコールバックです。
+	 */
+	@FunctionalInterface
+	public interface IdleCallback {
+		void run(IdleDeadline deadline) throws Exception;
+	}
+
+	/**
+	 * コールバックが使用できる残り時間です。
+	 */
+	public static final class IdleDeadline {
+
+		private final long deadlineNanos;
+		private final boolean isTimedOut;
+
+		IdleDeadline(long deadlineNanos, boolean isTimedOut) {
+			this.deadlineNanos = deadlineNanos;
+			this.isTimedOut = isTimedOut;
+		}
+
+		/**
+		 * このフレームでコールバックが使用できる残り時間を返します。
+		 *
+		 * @return 残り時間。残り時間がない場合は {@link Duration#ZERO}
+		 */
+		public Duration getTimeRemaining() {
+			long remaining = deadlineNanos - System.nanoTime();
+			return remaining <= 0 ? Duration.ZERO : Duration.millis(remaining / 1_000_000.0);
+		}
+
+		/**
+		 * 残り時間がなくなり、コールバックが処理を中断するべき場合に true を返します。
+		 *
+		 * @return 処理を中断するべき場合は true
+		 */
+		public boolean shouldYield() {
+			return deadlineNanos - System.nanoTime() <= 0;
+		}
+
+		/**
+		 * 空き時間がないままタイムアウトに達したため、コールバックが実行された場合に true を返します。
+		 *
+		 * @return タイムアウトによって実行された場合は true
+		 */
+		public boolean isTimedOut() {
+			return isTimedOut;
+		}
+	}
+
+	/**
+	 * 投入したコールバックのハンドルです。
+	 *
+	 */
+	public static final class IdleRequest {
+
+		private final FxIdleScheduler scheduler;
+		private final IdleCallback callback;
+		private final AtomicBoolean isClaimed = new AtomicBoolean();
+		private volatile FxTimerWheel.Timeout timeout;
+		private volatile boolean isCancelled;
+
+		IdleRequest(FxIdleScheduler scheduler, IdleCallback callback) {
+			this.scheduler = scheduler;
+			this.callback = callback;
+		}
+
+		private boolean claim() {
+			if(!isClaimed.compareAndSet(false, true)) {
+				return false;
+			}
+			scheduler.pendingCount.decrementAndGet();
+			FxTimerWheel.Timeout timeout = this.timeout;
+			if(timeout != null) {
+				timeout.cancel();
+			}
+			return true;
+		}
+
+		/**
+		 * コールバックをキャンセルします。コールバックがまだ実行されていない場合、コールバックは実行されません。
+		 *
+		 * @return コールバックをキャンセルした場合は true、すでに実行済みまたはキャンセル済みの場合は false
+		 */
+		public boolean cancel() {
+			if(!claim()) {
+				return false;
+			}
+			isCancelled = true;
+			return true;
+		}
+
+		/**
+		 * コールバックがキャンセルされている場合に true を返します。
+		 *
+		 * @return コールバックがキャンセルされている場合は true
+		 */
+		public boolean isCancelled() {
+			return isCancelled;
+		}
+	}
+
+	// JavaFX のパルスの目標間隔です。javafx.animation.pulse システム・プロパティで変更されている場合はその値に従います。
+	private static final long FRAME_INTERVAL_NANOS = 1_000_000_000L / Math.max(1, Integer.getInteger("javafx.animation.pulse", 60));
+
+	private final Queue<IdleRequest> queue = new ConcurrentLinkedQueue<>();
+	private final AtomicInteger pendingCount = new AtomicInteger();
+	private final AtomicBoolean isScheduled = new AtomicBoolean();
+	private final AnimationTimer timer = new AnimationTimer() {
+		@Override
+		public void handle(long now) {
+			pulse(now);
+		}
+	};
+	private volatile long frameBudgetNanos = 4_000_000L;
+
+	// 以下のフィールドは JavaFX アプリケーション・スレッドからのみアクセスします。
+	private long pulseNanos;
+	private boolean isIdlePosted;
+
+	private final LongAdder executedCount = new LongAdder();
+	private final LongAdder timedOutCount = new LongAdder();
+	private final LongAdder idleFrameCount = new LongAdder();
+	private final LongAdder busyFrameCount = new LongAdder();
+
+	/**
+	 * アプリケーション全体で共有する FxIdleScheduler を返します。
+	 *
+	 * @return 共有の FxIdleScheduler
+	 */
+	public static FxIdleScheduler getDefault() {
+		return DefaultHolder.INSTANCE;
+	}
+
+	/**
+	 * 1フレームでコールバックを実行する時間の上限を設定します。既定値は 4 ミリ秒です。
+	 * 次のパルスまでの残り時間がこれより短い場合は、残り時間が上限になります。
+	 *
+	 * @param frameBudget 1フレームでコールバックを実行する時間の上限
+	 * @return この FxIdleScheduler
+	 */
+	public FxIdleScheduler frameBudget(Duration frameBudget) {
+		this.frameBudgetNanos = (long)(frameBudget.toMillis() * 1_000_000);
+		return this;
+	}
+
+	/**
+	 * 指定されたコールバックを、JavaFX アプリケーション・スレッドの空き時間に実行します。
+	 * このメソッドは任意のスレッドから呼び出すことができます。
+	 *
+	 * @param callback 空き時間に JavaFX アプリケーション・スレッドで実行されるコールバック
+	 * @return コールバックをキャンセルするためのハンドル
+	 */
+	public IdleRequest requestIdleCallback(IdleCallback callback) {
+		return requestIdleCallback(callback, null);
+	}
+
+	/**
+	 * 指定されたコールバックを、JavaFX アプリケーション・スレッドの空き時間に実行します。
+	 * 指定時間内に空き時間が得られなかった場合は、タイムアウトとしてコールバックを実行します。
+	 * このメソッドは任意のスレッドから呼び出すことができます。
+	 *
+	 * @param callback 空き時間に JavaFX アプリケーション・スレッドで実行されるコールバック
+	 * @param timeout 空き時間が得られなくてもコールバックを実行するまでの時間。null の場合はタイムアウトしません
+	 * @return コールバックをキャンセルするためのハンドル
+	 */
+	public IdleRequest requestIdleCallback(IdleCallback callback, Duration timeout) {
+		if(callback == null) {
+			throw new NullPointerException();
+		}
+		IdleRequest request = new IdleRequest(this, callback);
+		pendingCount.incrementAndGet();
+		queue.offer(request);
+		if(timeout != null) {
+			request.timeout = FxTimerWheel.getDefault().schedule(timeout, () -> {
+				if(request.claim()) {
+					timedOutCount.increment();
+					invoke(request, new IdleDeadline(System.nanoTime(), true));
+				}
+			});
+		}
+		schedule();
+		return request;
+	}
+
+	/**
+	 * 実行待ちのコールバックの数を返します。
+	 *
+	 * @return 実行待ちのコールバックの数
+	 */
+	public int getPendingCount() {
+		return pendingCount.get();
+	}
+
+	/**
+	 * 実行したコールバックの総数を返します。タイムアウトによって実行したコールバックを含みます。
+	 *
+	 * @return 実行したコールバックの総数
+	 */
+	public long getExecutedCount() {
+		return executedCount.sum();
+	}
+
+	/**
+	 * タイムアウトによって実行したコールバックの数を返します。
+	 *
+	 * @return タイムアウトによって実行したコールバックの数
+	 */
+	public long getTimedOutCount() {
+		return timedOutCount.sum();
+	}
+
+	/**
+	 * 空き時間にコールバックを実行したフレームの数を返します。
+	 *
+	 * @return コールバックを実行したフレームの数
+	 */
+	public long getIdleFrameCount() {
+		return idleFrameCount.sum();
+	}
+
+	/**
+	 * 空き時間がなかったためにコールバックを実行しなかったフレームの数を返します。
+	 *
+	 * @return コールバックを実行しなかったフレームの数
+	 */
+	public long getBusyFrameCount() {
+		return busyFrameCount.sum();
+	}
+
+	@Override
+	public String toString() {
+		return "FxIdleScheduler [pending=" + getPendingCount() + ", executed=" + getExecutedCount() + ", timedOut=" + getTimedOutCount()
+				+ ", idleFrames=" + getIdleFrameCount() + ", busyFrames=" + getBusyFrameCount() + "]";
+	}
+
+	private void schedule() {
+		if(isScheduled.compareAndSet(false, true)) {
+			if(Platform.isFxApplicationThread()) {
+				timer.start();
+			} else {
+				Platform.runLater(timer::start);
+			}
+		}
+	}
+
+	private void pulse(long now) {
+		pulseNanos = now;
+		// AnimationTimer はパルスの最初に呼び出されます。パルス中に投入した Runnable はレイアウトと描画の同期が終わった後に実行されます。
+		if(!isIdlePosted) {
+			isIdlePosted = true;
+			Platform.runLater(this::runIdle);
+		}
+	}
+
+	private void runIdle() {
+		isIdlePosted = false;
+		long start = System.nanoTime();
+		long remaining = Math.min(frameBudgetNanos, pulseNanos + FRAME_INTERVAL_NANOS - start);
+		if(remaining <= 0) {
+			busyFrameCount.increment();
+			return;
+		}
+		IdleDeadline deadline = new IdleDeadline(start + remaining, false);
+		// 実行中に投入されたコールバックは次のフレームで実行して、1回の実行が終わらなくなることを防ぎます。
+		int count = queue.size();
+		boolean isExecuted = false;
+		for(int i = 0; i < count && !deadline.shouldYield(); i++) {
+			IdleRequest request = queue.poll();
+			if(request == null) {
+				break;
+			}
+			if(!request.claim()) {
+				continue;
+			}
+			invoke(request, deadline);
+			isExecuted = true;
+		}
+		if(isExecuted) {
+			idleFrameCount.increment();
+		}
+		if(pendingCount.get() == 0) {
+			// 実行待ちのコールバックがなくなったらタイマーを停止し、停止までの間に投入されたコールバックがあれば再開します。
+			for(IdleRequest request; (request = queue.peek()) != null && request.isClaimed.get(); ) {
+				queue.poll();
+			}
+			timer.stop();
+			isScheduled.set(false);
+			if(pendingCount.get() > 0 && isScheduled.compareAndSet(false, true)) {
+				timer.start();
+			}
+		}
+	}
+
+	private void invoke(IdleRequest request, IdleDeadline deadline) {
+		try {
+			request.callback.run(deadline);
+		} catch(Throwable e) {
+			Thread thread = Thread.currentThread();
+			Thread.UncaughtExceptionHandler ueh = thread.getUncaughtExceptionHandler();
+			if(ueh != null) {
+				ueh.uncaughtException(thread, e);
+			}
+		}
+		executedCount.increment();
+	}
+
+	private static class DefaultHolder {
+		private static final FxIdleScheduler INSTANCE = new FxIdleScheduler();
+	}
+}
@@ -0,0 +1,314 @@
+package onl.oss.javafx.application;
+
+import javafx.application.Platform;
+import javafx.util.Duration;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 指定時間経過後に JavaFX アプリケーション・スレッドで Runnable を実行するタイマーです。
+ * <p>
+ * タイマーはハッシュ化されたタイマー・ホイール（一定間隔のティックごとのバケットを環状に並べたもの）で管理されます。
+ * 待機中のタイマーの数にかかわらず、次の期限まで待機するスレッドは1つだけで、期限が来たときだけ JavaFX アプリケーション・スレッドに処理を投入します。
+ * タイマーごとに Timeline を作成する場合と異なり、待機中にパルスが発生し続けることはありません。</p>
+ * <p>
+ * タイマーの精度はティックの間隔（{@value #TICK_MILLIS} ミリ秒）です。Runnable は期限の早い順に実行されます。
+ * タイマーの登録とキャンセルは任意のスレッドからおこなうことができます。</p>
+ *
+ */
+public final class FxTimerWheel {
+
+	/** ティックの間隔（ミリ秒）です。 */
+	public static final int TICK_MILLIS = 4;
+
+	private static final long TICK_NANOS = TICK_MILLIS * 1_000_000L;
+	private static final int WHEEL_SIZE = 512;
+	private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+
+	private final long origin = System.nanoTime();
+	private final AtomicLong sequence = new AtomicLong();
+	private final AtomicInteger pendingCount = new AtomicInteger();
+	private final Queue<Timeout> additions = new ConcurrentLinkedQueue<>();
+	private final ScheduledThreadPoolExecutor waker;
+
+	// 以下のフィールドは JavaFX アプリケーション・スレッドからのみアクセスします。
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	private final List<Timeout>[] wheel = new List[WHEEL_SIZE];
+	private long currentTick;
+
+	// 以下のフィールドは this で同期してアクセスします。
+	private long armedTick = Long.MAX_VALUE;
+	private ScheduledFuture<?> armedFuture;
+
+	/**
+	 * アプリケーション全体で共有する FxTimerWheel を返します。
+	 *
+	 * @return 共有の FxTimerWheel
+	 */
+	public static FxTimerWheel getDefault() {
+		return DefaultHolder.INSTANCE;
+	}
+
+	public FxTimerWheel() {
+		for(int i = 0; i < WHEEL_SIZE; i++) {
+			wheel[i] = new ArrayList<>();
+		}
+		waker = new ScheduledThreadPoolExecutor(1, runnable -> {
+			Thread thread = new Thread(runnable, "FxTimerWheel");
+			thread.setDaemon(true);
+			return thread;
+		});
+		waker.setRemoveOnCancelPolicy(true);
+	}
+
+	/**
+	 * 指定時間経過後に、指定された Runnable を JavaFX アプリケーション・スレッドで実行します。
+	 *
+	 * @param delay Runnable を実行するまでの時間
+	 * @param runnable run メソッドが JavaFX アプリケーション・スレッドで実行される Runnable
+	 * @return タイマーをキャンセルするためのハンドル
+	 */
+	public Timeout schedule(Duration delay, Runnable runnable) {
+		return schedule(delay, null, runnable);
+	}
+
+	/**
+	 * 指定時間経過後から一定間隔で、指定された Runnable を JavaFX アプリケーション・スレッドで繰り返し実行します。
+	 * 実行が間隔より遅れた場合、遅れた分の実行はまとめて1回になります。
+	 *
+	 * @param initialDelay 最初に Runnable を実行するまでの時間
+	 * @param period Runnable を実行する間隔
+	 * @param runnable run メソッドが JavaFX アプリケーション・スレッドで実行される Runnable
+	 * @return タイマーをキャンセルするためのハンドル
+	 */
+	public Timeout scheduleAtFixedRate(Duration initialDelay, Duration period, Runnable runnable) {
+		if(period == null) {
+			throw new NullPointerException();
+		}
+		if(period.lessThanOrEqualTo(Duration.ZERO)) {
+			throw new IllegalArgumentException("period: " + period);
+		}
+		return schedule(initialDelay, period, runnable);
+	}
+
+	/**
+	 * 実行待ちのタイマーの数を返します。繰り返しのタイマーはキャンセルされるまで含まれます。
+	 *
+	 * @return 実行待ちのタイマーの数
+	 */
+	public int getPendingCount() {
+		return pendingCount.get();
+	}
+
+	private Timeout schedule(Duration delay, Duration period, Runnable runnable) {
+		if(delay == null || runnable == null) {
+			throw new NullPointerException();
+		}
+		long delayNanos = Math.max(0, (long)(delay.toMillis() * 1_000_000));
+		long periodNanos = period == null ? 0 : (long)(period.toMillis() * 1_000_000);
+		Timeout timeout = new Timeout(this, runnable, System.nanoTime() + delayNanos, periodNanos, sequence.getAndIncrement());
+		pendingCount.incrementAndGet();
+		additions.offer(timeout);
+		arm(timeout.deadlineTick);
+		return timeout;
+	}
+
+	private long toTick(long nanos) {
+		return Math.floorDiv(nanos - origin, TICK_NANOS);
+	}
+
+	private long toDeadlineTick(long nanos) {
+		// 期限より前に実行しないように切り上げます。
+		return -Math.floorDiv(origin - nanos, TICK_NANOS);
+	}
+
+	private synchronized void arm(long tick) {
+		if(tick >= armedTick) {
+			return;
+		}
+		if(armedFuture != null) {
+			armedFuture.cancel(false);
+		}
+		armedTick = tick;
+		long delayNanos = origin + tick * TICK_NANOS - System.nanoTime();
+		armedFuture = waker.schedule(this::wake, Math.max(0, delayNanos), TimeUnit.NANOSECONDS);
+	}
+
+	private void wake() {
+		synchronized (this) {
+			armedTick = Long.MAX_VALUE;
+			armedFuture = null;
+		}
+		Platform.runLater(this::advance);
+	}
+
+	private void advance() {
+		long nowTick = toTick(System.nanoTime());
+		List<Timeout> due = new ArrayList<>();
+
+		for(Timeout timeout; (timeout = additions.poll()) != null; ) {
+			if(timeout.isCancelled) {
+				continue;
+			}
+			if(timeout.deadlineTick <= nowTick) {
+				due.add(timeout);
+			} else {
+				wheel[(int)(timeout.deadlineTick & WHEEL_MASK)].add(timeout);
+			}
+		}
+
+		// 前回から経過したティックのバケットを処理します。1周以上経過した場合はすべてのバケットを1回ずつ処理します。
+		long ticks = Math.min(nowTick - currentTick, WHEEL_SIZE);
+		for(long t = nowTick - ticks + 1; t <= nowTick; t++) {
+			for(Iterator<Timeout> it = wheel[(int)(t & WHEEL_MASK)].iterator(); it.hasNext(); ) {
+				Timeout timeout = it.next();
+				if(timeout.isCancelled) {
+					it.remove();
+				} else if(timeout.deadlineTick <= nowTick) {
+					it.remove();
+					due.add(timeout);
+				}
+			}
+		}
+		currentTick = Math.max(currentTick, nowTick);
+
+		due.sort(Comparator.comparingLong((Timeout timeout) -> timeout.deadlineNanos).thenComparingLong(timeout -> timeout.sequence));
+		for(Timeout timeout : due) {
+			if(timeout.periodNanos == 0 ? !timeout.expire() : timeout.isCancelled) {
+				continue;
+			}
+			try {
+				timeout.runnable.run();
+			} catch(Throwable e) {
+				Thread thread = Thread.currentThread();
+				Thread.UncaughtExceptionHandler ueh = thread.getUncaughtExceptionHandler();
+				if(ueh != null) {
+					ueh.uncaughtException(thread, e);
+				}
+			}
+			if(timeout.periodNanos > 0 && !timeout.isCancelled) {
+				long now = System.nanoTime();
+				long next = timeout.deadlineNanos + timeout.periodNanos;
+				if(next - now <= 0) {
+					next = now + timeout.periodNanos;
+				}
+				timeout.setDeadline(next);
+				wheel[(int)(Math.max(timeout.deadlineTick, currentTick + 1) & WHEEL_MASK)].add(timeout);
+			}
+		}
+
+		long nextTick = findNextTick();
+		if(nextTick != Long.MAX_VALUE) {
+			arm(nextTick);
+		}
+	}
+
+	private long findNextTick() {
+		// 1周分のバケットを近い順に調べ、見つからなければすべてのタイマーから最も早い期限を探します。
+		for(long t = currentTick + 1; t <= currentTick + WHEEL_SIZE; t++) {
+			for(Timeout timeout : wheel[(int)(t & WHEEL_MASK)]) {
+				if(!timeout.isCancelled && timeout.deadlineTick <= t) {
+					return t;
+				}
+			}
+		}
+		long min = Long.MAX_VALUE;
+		for(List<Timeout> bucket : wheel) {
+			for(Timeout timeout : bucket) {
+				if(!timeout.isCancelled) {
+					min = Math.min(min, timeout.deadlineTick);
+				}
+			}
+		}
+		return min;
+	}
+
+	/**
+	 * 登録したタイマーのハンドルです。
+	 *
+	 */
+	public static final class Timeout {
+
+		private final FxTimerWheel wheel;
+		private final Runnable runnable;
+		private final long periodNanos;
+		private final long sequence;
+		private volatile long deadlineNanos;
+		private volatile long deadlineTick;
+		private volatile boolean isCancelled;
+		private volatile boolean isExpired;
+
+		Timeout(FxTimerWheel wheel, Runnable runnable, long deadlineNanos, long periodNanos, long sequence) {
+			this.wheel = wheel;
+			this.runnable = runnable;
+			this.periodNanos = periodNanos;
+			this.sequence = sequence;
+			setDeadline(deadlineNanos);
+		}
+
+		private void setDeadline(long deadlineNanos) {
+			this.deadlineNanos = deadlineNanos;
+			this.deadlineTick = wheel.toDeadlineTick(deadlineNanos);
+		}
+
+		private boolean expire() {
+			synchronized (this) {
+				if(isCancelled || isExpired) {
+					return false;
+				}
+				isExpired = true;
+			}
+			wheel.pendingCount.decrementAndGet();
+			return true;
+		}
+
+		/**
+		 * タイマーをキャンセルします。Runnable がまだ実行されていない場合、Runnable は実行されません。
+		 * 繰り返しのタイマーの場合、以降の実行がおこなわれなくなります。
+		 *
+		 * @return タイマーをキャンセルした場合は true、すでに実行済みまたはキャンセル済みの場合は false
+		 */
+		public boolean cancel() {
+			synchronized (this) {
+				if(isCancelled || isExpired) {
+					return false;
+				}
+				isCancelled = true;
+			}
+			wheel.pendingCount.decrementAndGet();
+			return true;
+		}
+
+		/**
+		 * タイマーがキャンセルされている場合に true を返します。
+		 *
+		 * @return タイマーがキャンセルされている場合は true
+		 */
+		public boolean isCancelled() {
+			return isCancelled;
+		}
+
+		/**
+		 * 繰り返しでないタイマーの Runnable が実行された場合に true を返します。
+		 *
+		 * @return Runnable が実行された場合は true
+		 */
+		public boolean isExpired() {
+			return isExpired;
+		}
+	}
+
+	private static class DefaultHolder {
+		private static final FxTimerWheel INSTANCE = new FxTimerWheel();
+	}
+}
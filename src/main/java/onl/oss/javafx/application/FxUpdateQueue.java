@@ -0,0 +1,280 @@
+package onl.oss.javafx.application;
+
+import javafx.application.Platform;
+
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * JavaFX アプリケーション・スレッドに投入する更新処理を、キーごとにまとめたり上限を設けたりするキューです。
+ * <p>
+ * ステータス・テキストやカウンター、センサーの最新値のように最新の値だけが意味を持つ更新は、
+ * {@link #post(Object, Runnable)} でキーを指定して投入すると、まだ実行されていない同じキーの更新が置き換えられます。
+ * キューの要素数には上限を設定でき、上限に達したときの動作を {@link OverflowPolicy} で指定できます。</p>
+ * <p>
+ * キューに蓄えられた更新は {@link FxBatchDispatcher#getDefault()} を通じてパルスごとにまとめて実行されます。
+ * FxBatchDispatcher の時間の上限に達した場合、残りの更新は次のパルスに持ち越されます。
+ * キーを指定した更新は、そのキーで最初に投入された位置で、最後に投入された処理が実行されます。</p>
+ *
+ */
+public final class FxUpdateQueue {
+
+	/**
+	 * キューが上限に達したときの動作です。
+	 */
+	public enum OverflowPolicy {
+		/**
+		 * キューに空きができるまで投入したスレッドを待機させます。
+		 * JavaFX アプリケーション・スレッドから投入した場合は、待機する代わりにその場でキューの更新を実行します。
+		 */
+		BLOCK,
+		/**
+		 * 最も古い更新を破棄して、新しい更新を追加します。
+		 */
+		DROP_OLDEST,
+		/**
+		 * 新しい更新を破棄します。
+		 */
+		DROP_NEWEST
+	}
+
+	private final BlockingQueue<Slot> queue;
+	private final OverflowPolicy policy;
+	private final Map<Object, Slot> slots = new ConcurrentHashMap<>();
+	private final AtomicBoolean isScheduled = new AtomicBoolean();
+	private final LongAdder postedCount = new LongAdder();
+	private final LongAdder mergedCount = new LongAdder();
+	private final LongAdder droppedCount = new LongAdder();
+	private final LongAdder executedCount = new LongAdder();
+
+	/**
+	 * 要素数に上限のないキューを作成します。
+	 */
+	public FxUpdateQueue() {
+		this(Integer.MAX_VALUE, OverflowPolicy.BLOCK);
+	}
+
+	/**
+	 * 要素数に上限のあるキューを作成します。
+	 *
+	 * @param capacity キューの要素数の上限
+	 * @param policy キューが上限に達したときの動作
+	 */
+	public FxUpdateQueue(int capacity, OverflowPolicy policy) {
+		if(capacity < 1) {
+			throw new IllegalArgumentException("capacity: " + capacity);
+		}
+		if(policy == null) {
+			throw new NullPointerException();
+		}
+		this.queue = new LinkedBlockingQueue<>(capacity);
+		this.policy = policy;
+	}
+
+	/**
+	 * 更新処理を投入します。
+	 *
+	 * @param runnable run メソッドが JavaFX アプリケーション・スレッドで実行される Runnable
+	 * @return 更新処理を投入した場合は true、{@link OverflowPolicy#DROP_NEWEST} によって破棄した場合は false
+	 * @throws InterruptedException {@link OverflowPolicy#BLOCK} で待機中に割り込みが発生した場合
+	 */
+	public boolean post(Runnable runnable) throws InterruptedException {
+		if(runnable == null) {
+			throw new NullPointerException();
+		}
+		postedCount.increment();
+		return enqueue(new Slot(null, runnable));
+	}
+
+	/**
+	 * キーを指定して更新処理を投入します。同じキーのまだ実行されていない更新処理がある場合は置き換えます。
+	 *
+	 * @param key キー
+	 * @param runnable run メソッドが JavaFX アプリケーション・スレッドで実行される Runnable
+	 * @return 更新処理を投入または置き換えた場合は true、{@link OverflowPolicy#DROP_NEWEST} によって破棄した場合は false
+	 * @throws InterruptedException {@link OverflowPolicy#BLOCK} で待機中に割り込みが発生した場合
+	 */
+	public boolean post(Object key, Runnable runnable) throws InterruptedException {
+		if(key == null || runnable == null) {
+			throw new NullPointerException();
+		}
+		postedCount.increment();
+		Slot[] created = new Slot[1];
+		slots.compute(key, (k, slot) -> {
+			if(slot == null) {
+				slot = new Slot(key, runnable);
+				created[0] = slot;
+			} else {
+				slot.runnable = runnable;
+				mergedCount.increment();
+			}
+			return slot;
+		});
+		if(created[0] == null) {
+			return true;
+		}
+		boolean isEnqueued = enqueue(created[0]);
+		if(!isEnqueued) {
+			slots.remove(key, created[0]);
+		}
+		return isEnqueued;
+	}
+
+	/**
+	 * 実行待ちの更新処理の数を返します。キーごとにまとめられた更新処理は1つとして数えます。
+	 *
+	 * @return 実行待ちの更新処理の数
+	 */
+	public int getPendingCount() {
+		return queue.size();
+	}
+
+	/**
+	 * 投入された更新処理の総数を返します。
+	 *
+	 * @return 投入された更新処理の総数
+	 */
+	public long getPostedCount() {
+		return postedCount.sum();
+	}
+
+	/**
+	 * 同じキーの新しい更新処理に置き換えられた更新処理の数を返します。
+	 *
+	 * @return 置き換えられた更新処理の数
+	 */
+	public long getMergedCount() {
+		return mergedCount.sum();
+	}
+
+	/**
+	 * キューが上限に達したために破棄された更新処理の数を返します。
+	 *
+	 * @return 破棄された更新処理の数
+	 */
+	public long getDroppedCount() {
+		return droppedCount.sum();
+	}
+
+	/**
+	 * 実行された更新処理の総数を返します。
+	 *
+	 * @return 実行された更新処理の総数
+	 */
+	public long getExecutedCount() {
+		return executedCount.sum();
+	}
+
+	@Override
+	public String toString() {
+		return "FxUpdateQueue [pending=" + getPendingCount() + ", posted=" + getPostedCount() + ", merged=" + getMergedCount()
+				+ ", dropped=" + getDroppedCount() + ", executed=" + getExecutedCount() + "]";
+	}
+
+	private boolean enqueue(Slot slot) throws InterruptedException {
+		switch(policy) {
+			case BLOCK:
+				if(Platform.isFxApplicationThread()) {
+					// JavaFX アプリケーション・スレッドで待機するとキューが空かないため、その場で実行して空きを作ります。
+					while(!queue.offer(slot)) {
+						drain(false);
+					}
+				} else {
+					queue.put(slot);
+				}
+				break;
+			case DROP_OLDEST:
+				while(!queue.offer(slot)) {
+					Slot oldest = queue.poll();
+					if(oldest != null) {
+						if(oldest.key != null) {
+							slots.remove(oldest.key, oldest);
+						}
+						droppedCount.increment();
+					}
+				}
+				break;
+			case DROP_NEWEST:
+				if(!queue.offer(slot)) {
+					droppedCount.increment();
+					return false;
+				}
+				break;
+		}
+		schedule();
+		return true;
+	}
+
+	private void schedule() {
+		if(isScheduled.compareAndSet(false, true)) {
+			FxBatchDispatcher.getDefault().execute(() -> drain(true));
+		}
+	}
+
+	/**
+	 * キューの更新処理を実行します。
+	 *
+	 * @param isDispatched FxBatchDispatcher から呼び出された場合は true。
+	 *        false の場合（キューに空きを作るためにその場で実行する場合）はパルスの外なので、FxBatchDispatcher の時間の上限を確認しません。
+	 */
+	private void drain(boolean isDispatched) {
+		if(isDispatched) {
+			isScheduled.set(false);
+		}
+		FxBatchDispatcher dispatcher = FxBatchDispatcher.getDefault();
+		// 実行中に投入された更新処理は次のパルスで実行します。
+		for(int count = queue.size(), i = 0; i < count; i++) {
+			if(isDispatched && i > 0 && dispatcher.isOverBudget()) {
+				// FxBatchDispatcher の時間の上限を超えないように、残りの更新処理は次のパルスに持ち越します。
+				schedule();
+				return;
+			}
+			Slot slot = queue.poll();
+			if(slot == null) {
+				break;
+			}
+			Runnable runnable;
+			if(slot.key != null) {
+				Runnable[] taken = new Runnable[1];
+				slots.computeIfPresent(slot.key, (k, s) -> {
+					if(s != slot) {
+						return s;
+					}
+					taken[0] = s.runnable;
+					return null;
+				});
+				runnable = taken[0];
+				if(runnable == null) {
+					continue;
+				}
+			} else {
+				runnable = slot.runnable;
+			}
+			try {
+				runnable.run();
+			} catch(Throwable e) {
+				Thread thread = Thread.currentThread();
+				Thread.UncaughtExceptionHandler ueh = thread.getUncaughtExceptionHandler();
+				if(ueh != null) {
+					ueh.uncaughtException(thread, e);
+				}
+			}
+			executedCount.increment();
+		}
+	}
+
+	private static class Slot {
+
+		final Object key;
+		volatile Runnable runnable;
+
+		Slot(Object key, Runnable runnable) {
+			this.key = key;
+			this.runnable = runnable;
+		}
+	}
+}
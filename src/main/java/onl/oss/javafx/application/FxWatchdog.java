@@ -0,0 +1,335 @@
+package onl.oss.javafx.application;
+
+import javafx.util.Duration;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * JavaFX アプリケーション・スレッドの停止（応答しない状態）を検出するウォッチドッグです。
+ * <p>
+ * バックグラウンド・スレッドから一定間隔で {@link FxApplicationThread#runLater(Runnable)} を使って応答確認の Runnable を投入し、
+ * 閾値（{@link #threshold(Duration)}）を超えて実行されない場合に停止とみなして、JavaFX アプリケーション・スレッドのスタックトレースを取得します。
+ * 停止が続く場合は一定間隔（{@link #sampleInterval(Duration)}）でスタックトレースを繰り返し取得します。</p>
+ * <p>
+ * 停止が終わると、停止していた時間と取得したスタックトレースが {@link #onStall(StallListener)} で設定したリスナーに通知されます。
+ * リスナーを設定していない場合は {@link System.Logger} に警告として出力されます。
+ * 応答確認は同時に1つしか投入されず、スタックトレースは停止を検出したときだけ取得するため、常に有効にしておいても負荷はほとんどありません。</p>
+ * <p>
+ * JavaFX ランタイムの起動前に開始することもできます。起動するまでの間は応答確認を投入できないため、次の確認の間隔で投入を再試行します。
+ * JavaFX アプリケーション・スレッドは最初の応答確認が実行されたときに特定されるため、それより前に発生した停止のスタックトレースは取得できません。
+ * この場合、停止は応答時間のヒストグラムにだけ記録されます。</p>
+ * <pre>
+ * FxWatchdog watchdog = new FxWatchdog()
+ *         .threshold(Duration.millis(500))
+ *         .onStall(stall -&gt; log(stall))
+ *         .start();
+ * </pre>
+ *
+ */
+public final class FxWatchdog {
+
+	/**
+	 * JavaFX アプリケーション・スレッドの停止を通知するリスナーです。
+	 * ウォッチドッグのスレッドで呼び出されます。
+	 */
+	@FunctionalInterface
+	public interface StallListener {
+		void stalled(Stall stall) throws Exception;
+	}
+
+	/**
+	 * 検出した停止の情報です。
+	 *
+	 */
+	public static final class Stall {
+
+		private final long durationNanos;
+		private final boolean isEnded;
+		private final List<StackTraceElement[]> stackTraces;
+
+		Stall(long durationNanos, boolean isEnded, List<StackTraceElement[]> stackTraces) {
+			this.durationNanos = durationNanos;
+			this.isEnded = isEnded;
+			this.stackTraces = Collections.unmodifiableList(new ArrayList<>(stackTraces));
+		}
+
+		/**
+		 * 停止していた時間を返します。停止が続いている場合は、通知した時点までの時間です。
+		 *
+		 * @return 停止していた時間
+		 */
+		public Duration getDuration() {
+			return Duration.millis(durationNanos / 1_000_000.0);
+		}
+
+		/**
+		 * 停止が終わっている場合に true を返します。
+		 * 停止が長く続いてスタックトレースの取得数が上限に達した場合は、停止が続いている状態で一度通知されます。
+		 *
+		 * @return 停止が終わっている場合は true
+		 */
+		public boolean isEnded() {
+			return isEnded;
+		}
+
+		/**
+		 * 停止中に取得した JavaFX アプリケーション・スレッドのスタックトレースを、取得した順番に返します。
+		 *
+		 * @return スタックトレースのリスト
+		 */
+		public List<StackTraceElement[]> getStackTraces() {
+			return stackTraces;
+		}
+
+		/**
+		 * 取得したすべてのスタックトレースに共通する、呼び出し元から最も深いフレームまでのスタックトレースを返します。
+		 * 停止の間ずっと実行されていたメソッドを示すため、停止の原因を特定する手がかりになります。
+		 *
+		 * @return 共通のスタックトレース。最も深いフレームが先頭です
+		 */
+		public StackTraceElement[] getCommonStackTrace() {
+			if(stackTraces.isEmpty()) {
+				return new StackTraceElement[0];
+			}
+			StackTraceElement[] first = stackTraces.get(0);
+			int common = first.length;
+			for(StackTraceElement[] stackTrace : stackTraces) {
+				int n = 0;
+				while(n < common && n < stackTrace.length
+						&& first[first.length - 1 - n].equals(stackTrace[stackTrace.length - 1 - n])) {
+					n++;
+				}
+				common = n;
+			}
+			return Arrays.copyOfRange(first, first.length - common, first.length);
+		}
+
+		@Override
+		public String toString() {
+			StringBuilder sb = new StringBuilder();
+			sb.append(String.format("JavaFX Application Thread %s for %.0fms (%d samples)",
+					isEnded ? "stalled" : "is stalling", getDuration().toMillis(), stackTraces.size()));
+			StackTraceElement[] stackTrace = getCommonStackTrace();
+			if(stackTrace.length == 0 && !stackTraces.isEmpty()) {
+				stackTrace = stackTraces.get(stackTraces.size() - 1);
+			}
+			for(StackTraceElement element : stackTrace) {
+				sb.append(System.lineSeparator()).append("\tat ").append(element);
+			}
+			return sb.toString();
+		}
+	}
+
+	private volatile long thresholdNanos = 500_000_000L;
+	private volatile long probeIntervalNanos = 100_000_000L;
+	private volatile long sampleIntervalNanos = 500_000_000L;
+	private volatile int maxSamples = 10;
+	private volatile StallListener listener;
+
+	private final Runnable probe = this::answer;
+	private final LatencyHistogram responseHistogram = new LatencyHistogram();
+	private final LongAdder stallCount = new LongAdder();
+	private ScheduledThreadPoolExecutor executor;
+
+	// 以下のフィールドは応答確認の Runnable から書き込まれます。
+	private volatile Thread fxThread;
+	private volatile long answeredNanos;
+	private volatile boolean isAnswered;
+
+	// 以下のフィールドはウォッチドッグのスレッドからのみアクセスします。
+	private long sentNanos;
+	private boolean isOutstanding;
+	private final List<StackTraceElement[]> samples = new ArrayList<>();
+	private long lastSampleNanos;
+	private boolean isOngoingReported;
+
+	/**
+	 * 停止とみなす応答時間の閾値を設定します。既定値は 500 ミリ秒です。
+	 *
+	 * @param threshold 停止とみなす応答時間の閾値
+	 * @return この FxWatchdog
+	 */
+	public FxWatchdog threshold(Duration threshold) {
+		this.thresholdNanos = (long)(threshold.toMillis() * 1_000_000);
+		return this;
+	}
+
+	/**
+	 * 応答を確認する間隔を設定します。既定値は 100 ミリ秒です。停止の検出はこの間隔の精度でおこなわれます。
+	 * 変更は次に {@link #start()} を呼び出したときに反映されます。
+	 *
+	 * @param probeInterval 応答を確認する間隔
+	 * @return この FxWatchdog
+	 */
+	public FxWatchdog probeInterval(Duration probeInterval) {
+		if(probeInterval.lessThanOrEqualTo(Duration.ZERO)) {
+			throw new IllegalArgumentException("probeInterval: " + probeInterval);
+		}
+		this.probeIntervalNanos = (long)(probeInterval.toMillis() * 1_000_000);
+		return this;
+	}
+
+	/**
+	 * 停止が続く場合にスタックトレースを取得する間隔を設定します。既定値は 500 ミリ秒です。
+	 *
+	 * @param sampleInterval スタックトレースを取得する間隔
+	 * @return この FxWatchdog
+	 */
+	public FxWatchdog sampleInterval(Duration sampleInterval) {
+		this.sampleIntervalNanos = (long)(sampleInterval.toMillis() * 1_000_000);
+		return this;
+	}
+
+	/**
+	 * 1回の停止で取得するスタックトレースの数の上限を設定します。既定値は 10 です。
+	 *
+	 * @param maxSamples 1回の停止で取得するスタックトレースの数の上限
+	 * @return この FxWatchdog
+	 */
+	public FxWatchdog maxSamples(int maxSamples) {
+		if(maxSamples < 1) {
+			throw new IllegalArgumentException("maxSamples: " + maxSamples);
+		}
+		this.maxSamples = maxSamples;
+		return this;
+	}
+
+	/**
+	 * 停止を通知するリスナーを設定します。
+	 *
+	 * @param listener 停止を通知するリスナー
+	 * @return この FxWatchdog
+	 */
+	public FxWatchdog onStall(StallListener listener) {
+		this.listener = listener;
+		return this;
+	}
+
+	/**
+	 * 監視を開始します。すでに開始している場合は何もしません。
+	 *
+	 * @return この FxWatchdog
+	 */
+	public synchronized FxWatchdog start() {
+		if(executor == null) {
+			executor = new ScheduledThreadPoolExecutor(1, runnable -> {
+				Thread thread = new Thread(runnable, "FxWatchdog");
+				thread.setDaemon(true);
+				return thread;
+			});
+			executor.scheduleWithFixedDelay(this::tick, 0, probeIntervalNanos, TimeUnit.NANOSECONDS);
+		}
+		return this;
+	}
+
+	/**
+	 * 監視を停止します。
+	 */
+	public synchronized void stop() {
+		if(executor != null) {
+			executor.shutdownNow();
+			executor = null;
+		}
+	}
+
+	/**
+	 * 応答確認の Runnable が投入されてから実行されるまでの時間のヒストグラムを返します。
+	 *
+	 * @return 応答時間のヒストグラム
+	 */
+	public LatencyHistogram getResponseHistogram() {
+		return responseHistogram;
+	}
+
+	/**
+	 * 検出した停止の回数を返します。
+	 *
+	 * @return 検出した停止の回数
+	 */
+	public long getStallCount() {
+		return stallCount.sum();
+	}
+
+	@Override
+	public String toString() {
+		return "FxWatchdog [stalls=" + getStallCount() + ", response={" + responseHistogram + "}]";
+	}
+
+	private void answer() {
+		fxThread = Thread.currentThread();
+		answeredNanos = System.nanoTime();
+		isAnswered = true;
+	}
+
+	private void tick() {
+		long now = System.nanoTime();
+		if(isOutstanding) {
+			if(isAnswered) {
+				isOutstanding = false;
+				long latency = answeredNanos - sentNanos;
+				responseHistogram.record(latency);
+				if(!samples.isEmpty()) {
+					report(new Stall(latency, true, samples));
+					samples.clear();
+					isOngoingReported = false;
+				}
+			} else if(now - sentNanos >= thresholdNanos) {
+				sample(now);
+				return;
+			} else {
+				return;
+			}
+		}
+		sentNanos = now;
+		isAnswered = false;
+		isOutstanding = true;
+		try {
+			FxApplicationThread.runLater(probe);
+		} catch(IllegalStateException e) {
+			// JavaFX ランタイムが起動していない場合です。例外をスローすると以降の確認が実行されなくなるため、次の確認で再試行します。
+			isOutstanding = false;
+		}
+	}
+
+	private void sample(long now) {
+		Thread thread = fxThread;
+		if(thread == null) {
+			// まだ一度も応答がないため、JavaFX アプリケーション・スレッドを特定できません。
+			return;
+		}
+		if(samples.isEmpty()) {
+			stallCount.increment();
+		} else if(samples.size() >= maxSamples || now - lastSampleNanos < sampleIntervalNanos) {
+			return;
+		}
+		samples.add(thread.getStackTrace());
+		lastSampleNanos = now;
+		if(samples.size() >= maxSamples && !isOngoingReported) {
+			isOngoingReported = true;
+			report(new Stall(now - sentNanos, false, samples));
+		}
+	}
+
+	private void report(Stall stall) {
+		StallListener listener = this.listener;
+		if(listener == null) {
+			System.getLogger(FxWatchdog.class.getName()).log(System.Logger.Level.WARNING, stall.toString());
+			return;
+		}
+		try {
+			listener.stalled(stall);
+		} catch(Throwable e) {
+			Thread thread = Thread.currentThread();
+			Thread.UncaughtExceptionHandler ueh = thread.getUncaughtExceptionHandler();
+			if(ueh != null) {
+				ueh.uncaughtException(thread, e);
+			}
+		}
+	}
+}
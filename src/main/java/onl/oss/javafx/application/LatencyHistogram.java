@@ -0,0 +1,119 @@
+package onl.oss.javafx.application;
+
+import javafx.util.Duration;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 待ち時間や処理時間の分布を記録するヒストグラムです。
+ * <p>
+ * 値はナノ秒単位の2のべき乗ごとのバケットに数えられるため、記録の負荷が小さく、任意のスレッドから同時に記録できます。
+ * パーセンタイルはバケットの上限値で返されるため、実際の値より最大で2倍大きくなることがあります。</p>
+ *
+ */
+public final class LatencyHistogram {
+
+	private static final int BUCKETS = 64;
+
+	private final LongAdder[] counts = new LongAdder[BUCKETS];
+	private final LongAdder count = new LongAdder();
+	private final LongAdder totalNanos = new LongAdder();
+	private final AtomicLong maxNanos = new AtomicLong();
+
+	public LatencyHistogram() {
+		for(int i = 0; i < BUCKETS; i++) {
+			counts[i] = new LongAdder();
+		}
+	}
+
+	/**
+	 * 値を記録します。
+	 *
+	 * @param nanos 記録する値（ナノ秒）。負の値は 0 として記録されます
+	 */
+	public void record(long nanos) {
+		if(nanos < 0) {
+			nanos = 0;
+		}
+		// バケット i には 2^(i-1) 以上 2^i 未満の値を数えます。0 はバケット 0 に数えます。
+		counts[BUCKETS - Long.numberOfLeadingZeros(nanos)].increment();
+		count.increment();
+		totalNanos.add(nanos);
+		maxNanos.accumulateAndGet(nanos, Math::max);
+	}
+
+	/**
+	 * 記録した値の数を返します。
+	 *
+	 * @return 記録した値の数
+	 */
+	public long getCount() {
+		return count.sum();
+	}
+
+	/**
+	 * 記録した値の平均を返します。
+	 *
+	 * @return 記録した値の平均
+	 */
+	public Duration getMean() {
+		long count = this.count.sum();
+		return count == 0 ? Duration.ZERO : Duration.millis(totalNanos.sum() / 1_000_000.0 / count);
+	}
+
+	/**
+	 * 記録した値の最大値を返します。
+	 *
+	 * @return 記録した値の最大値
+	 */
+	public Duration getMax() {
+		return Duration.millis(maxNanos.get() / 1_000_000.0);
+	}
+
+	/**
+	 * 指定したパーセンタイルの値を返します。値はバケットの上限値で、最大値を超えることはありません。
+	 *
+	 * @param percentile パーセンタイル（0.0～100.0）
+	 * @return 指定したパーセンタイルの値
+	 */
+	public Duration getPercentile(double percentile) {
+		long[] snapshot = new long[BUCKETS];
+		long total = 0;
+		for(int i = 0; i < BUCKETS; i++) {
+			snapshot[i] = counts[i].sum();
+			total += snapshot[i];
+		}
+		if(total == 0) {
+			return Duration.ZERO;
+		}
+		long rank = (long)Math.ceil(total * Math.min(100.0, Math.max(0.0, percentile)) / 100.0);
+		long cumulative = 0;
+		for(int i = 0; i < BUCKETS; i++) {
+			cumulative += snapshot[i];
+			if(cumulative >= Math.max(1, rank)) {
+				long upper = (1L << i) - 1;
+				return Duration.millis(Math.min(upper, maxNanos.get()) / 1_000_000.0);
+			}
+		}
+		return getMax();
+	}
+
+	/**
+	 * 記録した値をすべて消去します。
+	 */
+	public void reset() {
+		for(LongAdder adder : counts) {
+			adder.reset();
+		}
+		count.reset();
+		totalNanos.reset();
+		maxNanos.set(0);
+	}
+
+	@Override
+	public String toString() {
+		return String.format("count=%d, mean=%.3fms, p50=%.3fms, p90=%.3fms, p99=%.3fms, max=%.3fms", getCount(), getMean().toMillis(),
+				getPercentile(50).toMillis(), getPercentile(90).toMillis(), getPercentile(99).toMillis(), getMax().toMillis());
+	}
+}
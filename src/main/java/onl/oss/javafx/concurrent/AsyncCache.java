@@ -0,0 +1,456 @@
+package onl.oss.javafx.concurrent;
+
+import javafx.application.Platform;
+import javafx.util.Duration;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 非同期に読み込んだ値をキャッシュします。
+ * <p>
+ * 同じキーの値が読み込み中の場合、後から要求した呼び出し元は新しい読み込みを開始せず、読み込み中の処理の結果を共有します。
+ * 読み込みは {@link AsyncTask} としてバックグラウンドで実行され、{@link #get(Object)} が返す CompletableFuture は JavaFX アプリケーション・スレッドで完了します。</p>
+ * <pre>
+ * AsyncCache&lt;String, Image&gt; cache = new AsyncCache&lt;String, Image&gt;(url -&gt; new Image(url, false))
+ *         .maximumSize(200)
+ *         .expireAfterWrite(Duration.minutes(10));
+ *
+ * cache.get(url).thenAccept(imageView::setImage);
+ * </pre>
+ * <p>
+ * 読み込んだ値は、要素数・重みの上限を超えると最も長く使用されていないものから破棄され、有効期間を過ぎると次にアクセスしたときに破棄されます。
+ * 読み込みに失敗した場合、値はキャッシュされず、次の要求で再び読み込まれます。</p>
+ *
+ */
+public class AsyncCache<K, V> {
+
+	private final Loader<K, V> loader;
+	private final Map<K, Entry<V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+	private long maximumSize = Long.MAX_VALUE;
+	private long maximumWeight = Long.MAX_VALUE;
+	private Weigher<? super K, ? super V> weigher;
+	private long expireAfterWriteNanos;
+	private Executor executor;
+	private long totalWeight;
+
+	private final LongAdder hitCount = new LongAdder();
+	private final LongAdder missCount = new LongAdder();
+	private final LongAdder joinCount = new LongAdder();
+	private final LongAdder loadSuccessCount = new LongAdder();
+	private final LongAdder loadFailureCount = new LongAdder();
+	private final LongAdder totalLoadNanos = new LongAdder();
+	private final LongAdder evictionCount = new LongAdder();
+
+	/**
+	 * キャッシュを作成します。
+	 *
+	 * @param loader キーに対応する値を読み込む処理。バックグラウンドで呼び出されます
+	 */
+	public AsyncCache(Loader<K, V> loader) {
+		if(loader == null) {
+			throw new NullPointerException();
+		}
+		this.loader = loader;
+	}
+
+	/**
+	 * キャッシュに保持する値の最大数を設定します。既定値は無制限です。
+	 *
+	 * @param maximumSize キャッシュに保持する値の最大数
+	 * @return このキャッシュ
+	 */
+	public synchronized AsyncCache<K, V> maximumSize(long maximumSize) {
+		if(maximumSize < 0) {
+			throw new IllegalArgumentException("maximumSize: " + maximumSize);
+		}
+		this.maximumSize = maximumSize;
+		trim();
+		return this;
+	}
+
+	/**
+	 * キャッシュに保持する値の重みの合計の上限を設定します。既定値は無制限です。
+	 * 画像のように値ごとにメモリー使用量が大きく異なる場合に、値の数ではなく大きさで上限を指定できます。
+	 *
+	 * @param maximumWeight 重みの合計の上限
+	 * @param weigher 値の重みを計算する処理
+	 * @return このキャッシュ
+	 */
+	public synchronized AsyncCache<K, V> maximumWeight(long maximumWeight, Weigher<? super K, ? super V> weigher) {
+		if(maximumWeight < 0) {
+			throw new IllegalArgumentException("maximumWeight: " + maximumWeight);
+		}
+		if(weigher == null) {
+			throw new NullPointerException();
+		}
+		if(!entries.isEmpty() && this.weigher != weigher) {
+			throw new IllegalStateException("weigher cannot be changed after values are cached.");
+		}
+		this.maximumWeight = maximumWeight;
+		this.weigher = weigher;
+		trim();
+		return this;
+	}
+
+	/**
+	 * 値を読み込んでから破棄するまでの有効期間を設定します。既定値は null（無期限）です。
+	 *
+	 * @param duration 有効期間
+	 * @return このキャッシュ
+	 */
+	public synchronized AsyncCache<K, V> expireAfterWrite(Duration duration) {
+		this.expireAfterWriteNanos = duration == null ? 0 : (long)(duration.toMillis() * 1_000_000);
+		return this;
+	}
+
+	/**
+	 * 値の読み込みに使用する Executor を設定します。既定値は null で、{@link AsyncTask#getDefaultExecutor()} を使用します。
+	 *
+	 * @param executor 値の読み込みに使用する Executor
+	 * @return このキャッシュ
+	 */
+	public synchronized AsyncCache<K, V> executor(Executor executor) {
+		this.executor = executor;
+		return this;
+	}
+
+	/**
+	 * キーに対応する値を返します。
+	 * <p>
+	 * 値がキャッシュされている場合は、JavaFX アプリケーション・スレッドから呼び出した場合は完了済みの CompletableFuture を返し、
+	 * それ以外のスレッドから呼び出した場合は JavaFX アプリケーション・スレッドで完了する CompletableFuture を返します。
+	 * 同じキーの値が読み込み中の場合はその結果を共有し、そうでなければ新しく読み込みを開始します。
+	 * 返された CompletableFuture をキャンセルしても、他の呼び出し元と共有している読み込みはキャンセルされません。</p>
+	 *
+	 * @param key キー
+	 * @return 値で完了する CompletableFuture
+	 */
+	public CompletableFuture<V> get(K key) {
+		if(key == null) {
+			throw new NullPointerException();
+		}
+		Entry<V> entry;
+		AsyncTask<V> task = null;
+		boolean isLoaded;
+		Executor executor;
+		synchronized (this) {
+			entry = entries.get(key);
+			if(entry != null && entry.isLoaded() && isExpired(entry, System.nanoTime())) {
+				remove(key);
+				evictionCount.increment();
+				entry = null;
+			}
+			if(entry == null) {
+				entry = new Entry<>();
+				entries.put(key, entry);
+				task = createTask(key, entry);
+			}
+			isLoaded = entry.isLoaded();
+			executor = this.executor != null ? this.executor : AsyncTask.getDefaultExecutor();
+		}
+		if(task != null) {
+			missCount.increment();
+			try {
+				task.submit(executor);
+			} catch(RuntimeException e) {
+				// Executor が実行を拒否した場合、読み込み中のままのエントリーが残らないように失敗として扱います。
+				loadFailureCount.increment();
+				fail(key, entry, e);
+			}
+		} else if(isLoaded) {
+			hitCount.increment();
+		} else {
+			joinCount.increment();
+		}
+		return completeOnFxApplicationThread(entry.future);
+	}
+
+	/**
+	 * キーに対応する値がキャッシュされている場合はその値を返し、そうでなければ null を返します。
+	 * このメソッドは読み込みを開始しません。
+	 *
+	 * @param key キー
+	 * @return キャッシュされている値
+	 */
+	public synchronized V getIfPresent(K key) {
+		Entry<V> entry = entries.get(key);
+		if(entry == null || !entry.isLoaded()) {
+			return null;
+		}
+		if(isExpired(entry, System.nanoTime())) {
+			remove(key);
+			evictionCount.increment();
+			return null;
+		}
+		hitCount.increment();
+		return entry.future.getNow(null);
+	}
+
+	/**
+	 * キーに対応する値をキャッシュから破棄します。
+	 * 読み込み中の場合、読み込みは継続されますが、結果はキャッシュされません。
+	 *
+	 * @param key キー
+	 */
+	public synchronized void invalidate(K key) {
+		remove(key);
+	}
+
+	/**
+	 * すべての値をキャッシュから破棄します。
+	 */
+	public synchronized void invalidateAll() {
+		entries.clear();
+		totalWeight = 0;
+	}
+
+	/**
+	 * キャッシュされている値と読み込み中の値の数を返します。
+	 *
+	 * @return キャッシュされている値と読み込み中の値の数
+	 */
+	public synchronized int size() {
+		return entries.size();
+	}
+
+	/**
+	 * キャッシュの統計情報を返します。
+	 *
+	 * @return キャッシュの統計情報
+	 */
+	public Statistics getStatistics() {
+		return new Statistics(hitCount.sum(), missCount.sum(), joinCount.sum(), loadSuccessCount.sum(),
+				loadFailureCount.sum(), totalLoadNanos.sum(), evictionCount.sum());
+	}
+
+	private AsyncTask<V> createTask(K key, Entry<V> entry) {
+		long start = System.nanoTime();
+		return AsyncTask.create(() -> loader.load(key))
+				.onSucceeded(value -> {
+					long now = System.nanoTime();
+					totalLoadNanos.add(now - start);
+					synchronized (this) {
+						// 読み込み中に破棄された場合はキャッシュしません。
+						if(entries.get(key) == entry) {
+							long weight;
+							try {
+								weight = weigher != null ? Math.max(0, weigher.weigh(key, value)) : 0;
+							} catch(RuntimeException e) {
+								// 重みを計算できない値はキャッシュせず、読み込みの失敗として扱います。
+								loadFailureCount.increment();
+								fail(key, entry, e);
+								return;
+							}
+							entry.isLoaded = true;
+							entry.loadedNanos = now;
+							entry.weight = weight;
+							totalWeight += entry.weight;
+							trim();
+						}
+					}
+					loadSuccessCount.increment();
+					entry.future.complete(value);
+				})
+				.onFailed(exception -> {
+					totalLoadNanos.add(System.nanoTime() - start);
+					loadFailureCount.increment();
+					fail(key, entry, exception);
+				});
+	}
+
+	private void fail(K key, Entry<V> entry, Throwable exception) {
+		synchronized (this) {
+			if(entries.get(key) == entry) {
+				entries.remove(key);
+			}
+		}
+		entry.future.completeExceptionally(exception);
+	}
+
+	private static <V> CompletableFuture<V> completeOnFxApplicationThread(CompletableFuture<V> shared) {
+		if(!shared.isDone() || Platform.isFxApplicationThread()) {
+			return shared.copy();
+		}
+		// 完了済みの CompletableFuture を返すと、thenAccept などの後続の処理が呼び出し元のスレッドで実行されるため、
+		// JavaFX アプリケーション・スレッドで完了する CompletableFuture を返します。
+		CompletableFuture<V> future = new CompletableFuture<>();
+		try {
+			Platform.runLater(() -> shared.whenComplete((value, exception) -> {
+				if(exception != null) {
+					future.completeExceptionally(exception);
+				} else {
+					future.complete(value);
+				}
+			}));
+		} catch(IllegalStateException e) {
+			// JavaFX ランタイムが起動していない場合は、呼び出し元のスレッドで完了します。
+			return shared.copy();
+		}
+		return future;
+	}
+
+	private boolean isExpired(Entry<V> entry, long now) {
+		return expireAfterWriteNanos > 0 && now - entry.loadedNanos >= expireAfterWriteNanos;
+	}
+
+	private void remove(K key) {
+		Entry<V> entry = entries.remove(key);
+		if(entry != null && entry.isLoaded()) {
+			totalWeight -= entry.weight;
+		}
+	}
+
+	private void trim() {
+		long now = System.nanoTime();
+		// アクセス順の LinkedHashMap なので、先頭から最も長く使用されていない順に走査されます。
+		for(Iterator<Entry<V>> it = entries.values().iterator(); it.hasNext(); ) {
+			if(entries.size() <= maximumSize && totalWeight <= maximumWeight && expireAfterWriteNanos == 0) {
+				break;
+			}
+			Entry<V> entry = it.next();
+			if(!entry.isLoaded()) {
+				continue;
+			}
+			if(entries.size() > maximumSize || totalWeight > maximumWeight || isExpired(entry, now)) {
+				it.remove();
+				totalWeight -= entry.weight;
+				evictionCount.increment();
+			}
+		}
+	}
+
+	private static class Entry<V> {
+
+		/** JavaFX アプリケーション・スレッドで完了します。 */
+		final CompletableFuture<V> future = new CompletableFuture<>();
+
+		boolean isLoaded;
+		long loadedNanos;
+		long weight;
+
+		boolean isLoaded() {
+			return isLoaded;
+		}
+	}
+
+	/**
+	 * キャッシュの統計情報です。
+	 *
+	 */
+	public static final class Statistics {
+
+		private final long hitCount;
+		private final long missCount;
+		private final long joinCount;
+		private final long loadSuccessCount;
+		private final long loadFailureCount;
+		private final long totalLoadNanos;
+		private final long evictionCount;
+
+		Statistics(long hitCount, long missCount, long joinCount, long loadSuccessCount, long loadFailureCount, long totalLoadNanos, long evictionCount) {
+			this.hitCount = hitCount;
+			this.missCount = missCount;
+			this.joinCount = joinCount;
+			this.loadSuccessCount = loadSuccessCount;
+			this.loadFailureCount = loadFailureCount;
+			this.totalLoadNanos = totalLoadNanos;
+			this.evictionCount = evictionCount;
+		}
+
+		/**
+		 * キャッシュされた値を返した回数を返します。
+		 *
+		 * @return キャッシュされた値を返した回数
+		 */
+		public long getHitCount() {
+			return hitCount;
+		}
+
+		/**
+		 * 新しく読み込みを開始した回数を返します。
+		 *
+		 * @return 新しく読み込みを開始した回数
+		 */
+		public long getMissCount() {
+			return missCount;
+		}
+
+		/**
+		 * 読み込み中の処理の結果を共有した回数を返します。
+		 *
+		 * @return 読み込み中の処理の結果を共有した回数
+		 */
+		public long getJoinCount() {
+			return joinCount;
+		}
+
+		/**
+		 * 要求のうち、新しく読み込みを開始しなかった割合（0.0～1.0）を返します。読み込み中の処理の結果を共有した要求も含まれます。
+		 *
+		 * @return ヒット率
+		 */
+		public double getHitRate() {
+			long requestCount = hitCount + missCount + joinCount;
+			return requestCount == 0 ? 1.0 : (double)(hitCount + joinCount) / requestCount;
+		}
+
+		/**
+		 * 読み込みに成功した回数を返します。
+		 *
+		 * @return 読み込みに成功した回数
+		 */
+		public long getLoadSuccessCount() {
+			return loadSuccessCount;
+		}
+
+		/**
+		 * 読み込みに失敗した回数を返します。
+		 *
+		 * @return 読み込みに失敗した回数
+		 */
+		public long getLoadFailureCount() {
+			return loadFailureCount;
+		}
+
+		/**
+		 * 読み込みの平均時間を返します。読み込みを開始してから結果が JavaFX アプリケーション・スレッドに届くまでの時間です。
+		 *
+		 * @return 読み込みの平均時間
+		 */
+		public Duration getAverageLoadTime() {
+			long count = loadSuccessCount + loadFailureCount;
+			return count == 0 ? Duration.ZERO : Duration.millis(totalLoadNanos / 1_000_000.0 / count);
+		}
+
+		/**
+		 * 要素数・重みの上限または有効期間によって破棄した値の数を返します。
+		 *
+		 * @return 破棄した値の数
+		 */
+		public long getEvictionCount() {
+			return evictionCount;
+		}
+
+		@Override
+		public String toString() {
+			return "hit=" + hitCount + ", miss=" + missCount + ", join=" + joinCount + String.format(", hitRate=%.3f", getHitRate())
+					+ ", loadSuccess=" + loadSuccessCount + ", loadFailure=" + loadFailureCount
+					+ String.format(", averageLoadTime=%.3fms", getAverageLoadTime().toMillis()) + ", eviction=" + evictionCount;
+		}
+	}
+
+	@FunctionalInterface
+	public interface Loader<K, V> {
+		V load(K key) throws Exception;
+	}
+
+	@FunctionalInterface
+	public interface Weigher<K, V> {
+		long weigh(K key, V value);
+	}
+}
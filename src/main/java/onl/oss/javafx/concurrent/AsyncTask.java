@@ -1,9 +1,15 @@
 package onl.oss.javafx.concurrent;
 
+import javafx.application.Platform;
 import javafx.concurrent.Task;
+import javafx.concurrent.Worker;
 import onl.oss.javafx.Unchecked;
 
 import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
 
 public class AsyncTask<V> extends Task<V> {
 
@@ -22,11 +28,15 @@ public class AsyncTask<V> extends Task<V> {
 		FAILED
 	}
 
+	private static volatile Executor defaultExecutor;
+
 	private Callable<V> callable;
+	private Pipeline pipeline;
 	private Cancel cancel;
 	private Success<V> success;
 	private Fail fail;
 	private Finish finish;
+	private volatile boolean isDiscarded;
 
 	public static AsyncTask<Void> create(Unchecked.Runnable runnable) {
 		return new AsyncTask<Void>(new Callable<Void>() {
@@ -46,6 +56,217 @@ public class AsyncTask<V> extends Task<V> {
 		this.callable = callable;
 	}
 
+	/**
+	 * {@link #start()} で使用する既定の Executor を設定します。
+	 * <p>
+	 * null を指定すると、CPU のコア数と同じ数のデーモン・スレッドを持つ {@link AsyncTaskExecutor} を使用します。
+	 * ブロックする入出力処理が中心の場合は {@link AsyncTaskExecutor#newVirtualThreadPerTaskExecutor(String)} を指定できます。</p>
+	 *
+	 * @param executor 既定の Executor
+	 */
+	public static void setDefaultExecutor(Executor executor) {
+		defaultExecutor = executor;
+	}
+
+	/**
+	 * {@link #start()} で使用する既定の Executor を返します。
+	 *
+	 * @return 既定の Executor
+	 */
+	public static Executor getDefaultExecutor() {
+		Executor executor = defaultExecutor;
+		return executor != null ? executor : DefaultExecutorHolder.INSTANCE;
+	}
+
+	/**
+	 * 仮想スレッドでタスクを実行する共有の {@link AsyncTaskExecutor} を返します。
+	 *
+	 * @return 仮想スレッドでタスクを実行する Executor
+	 */
+	public static AsyncTaskExecutor getVirtualThreadExecutor() {
+		return VirtualThreadExecutorHolder.INSTANCE;
+	}
+
+	/**
+	 * 既定の Executor でタスクを実行します。
+	 * onSucceeded などで指定したコールバックは JavaFX アプリケーション・スレッドで呼び出されます。
+	 *
+	 * @return このタスク
+	 */
+	public AsyncTask<V> start() {
+		return submit(getDefaultExecutor());
+	}
+
+	/**
+	 * 仮想スレッドでタスクを実行します。ファイルやネットワークの入出力などブロックする処理に適しています。
+	 *
+	 * @return このタスク
+	 */
+	public AsyncTask<V> startVirtual() {
+		return submit(getVirtualThreadExecutor());
+	}
+
+	/**
+	 * 指定した Executor でタスクを実行します。
+	 *
+	 * @param executor タスクを実行する Executor
+	 * @return このタスク
+	 */
+	public AsyncTask<V> submit(Executor executor) {
+		executor.execute(this);
+		return this;
+	}
+
+	/**
+	 * このタスクの結果をバックグラウンドで変換するタスクを返します。
+	 * <p>
+	 * 返されたタスクは、このタスクの処理に続けて同じワーカースレッドで変換処理を実行します。
+	 * 連続するバックグラウンド処理の間で JavaFX アプリケーション・スレッドを経由しないため、処理ごとのパルス待ちが発生しません。</p>
+	 * <p>
+	 * パイプラインは返されたタスクを開始して実行します。このタスク自体は開始しないでください。
+	 * onSucceeded などのコールバックはパイプラインの最後のタスクに指定します。
+	 * いずれかの処理が例外をスローするとパイプライン全体が失敗（{@link State#FAILED}）し、
+	 * キャンセルされると以降の処理は実行されずにキャンセル（{@link State#CANCELLED}）になります。</p>
+	 *
+	 * @param function 変換処理
+	 * @return 変換結果を返すタスク
+	 */
+	public <R> AsyncTask<R> thenApplyAsync(Function<? super V, ? extends R> function) {
+		return next(pipeline -> {
+			Callable<V> previous = asCallable(pipeline);
+			return () -> {
+				V value = previous.call();
+				pipeline.checkCancelled();
+				return function.apply(value);
+			};
+		});
+	}
+
+	/**
+	 * このタスクの結果を JavaFX アプリケーション・スレッドで処理するタスクを返します。
+	 * <p>
+	 * ワーカースレッドは JavaFX アプリケーション・スレッドでの処理が完了するまで待機し、
+	 * 返されたタスクはこのタスクの結果をそのまま後続の処理に渡します。
+	 * 途中経過の表示など、パイプラインの途中で UI を更新する場合に使用します。</p>
+	 *
+	 * @param consumer JavaFX アプリケーション・スレッドで実行する処理
+	 * @return このタスクの結果をそのまま返すタスク
+	 * @see #thenApplyAsync(Function)
+	 */
+	public AsyncTask<V> thenAcceptFx(Success<? super V> consumer) {
+		return next(pipeline -> {
+			Callable<V> previous = asCallable(pipeline);
+			return () -> {
+				V value = previous.call();
+				pipeline.checkCancelled();
+				runOnFxApplicationThread(() -> consumer.onSucceeded(value));
+				return value;
+			};
+		});
+	}
+
+	/**
+	 * このタスクの結果から作成した別のタスクを、同じワーカースレッドで続けて実行するタスクを返します。
+	 * <p>
+	 * 関数が返したタスクは新しいスレッドに投入されず、パイプラインのワーカースレッドで直接実行されます。
+	 * 関数が返したタスクに指定されたコールバックも通常どおり呼び出されます。
+	 * パイプラインがキャンセルされた場合、実行中のタスクもキャンセルされます。</p>
+	 *
+	 * @param function 後続のタスクを作成する関数
+	 * @return 後続のタスクの結果を返すタスク
+	 * @see #thenApplyAsync(Function)
+	 */
+	public <R> AsyncTask<R> thenCompose(Function<? super V, ? extends Task<R>> function) {
+		return next(pipeline -> {
+			Callable<V> previous = asCallable(pipeline);
+			return () -> {
+				V value = previous.call();
+				pipeline.checkCancelled();
+				Task<R> task = function.apply(value);
+				pipeline.inner = task;
+				try {
+					pipeline.checkCancelled();
+					task.run();
+					return task.get();
+				} catch(ExecutionException e) {
+					Throwable cause = e.getCause();
+					if(cause instanceof Exception) {
+						throw (Exception)cause;
+					}
+					throw e;
+				} finally {
+					pipeline.inner = null;
+				}
+			};
+		});
+	}
+
+	/** このタスクの処理をパイプラインの前段として呼び出す Callable を返します。
+	 * {@link #call()} をオーバーライドしたサブクラス（StreamingTask や ParallelTask など）でも、その処理が実行されます。
+	 * 前段として実行するタスク自体は開始もキャンセルもされないため、キャンセルはパイプラインで確認してください。
+	 */
+	Callable<V> asCallable(Pipeline pipeline) {
+		return this::call;
+	}
+
+	private <R> AsyncTask<R> next(Stage<R> stage) {
+		if(getState() != Worker.State.READY) {
+			throw new IllegalStateException("Task has already been started.");
+		}
+		Pipeline pipeline = this.pipeline != null ? this.pipeline : new Pipeline();
+		AsyncTask<R> next = new AsyncTask<>(stage.create(pipeline));
+		next.pipeline = pipeline;
+		pipeline.owner = next;
+		return next;
+	}
+
+	static void runOnFxApplicationThread(Unchecked.Runnable runnable) throws Exception {
+		if(Platform.isFxApplicationThread()) {
+			runnable.run();
+			return;
+		}
+		FutureTask<Void> future = new FutureTask<>(() -> {
+			runnable.run();
+			return null;
+		});
+		Platform.runLater(future);
+		try {
+			future.get();
+		} catch(ExecutionException e) {
+			Throwable cause = e.getCause();
+			if(cause instanceof Exception) {
+				throw (Exception)cause;
+			}
+			throw e;
+		}
+	}
+
+	/** 結果を通知しないようにします。
+	 * 破棄したタスクが成功または失敗した場合、onSucceeded や onFailed の代わりに onCancelled が呼び出されます。
+	 * {@link #cancel(boolean)} を JavaFX アプリケーション・スレッドで後からおこなう場合でも、古い結果が通知されないように、任意のスレッドから呼び出せます。
+	 */
+	void discard() {
+		isDiscarded = true;
+	}
+
+	boolean isDiscarded() {
+		return isDiscarded;
+	}
+
+	@Override
+	public boolean cancel(boolean mayInterruptIfRunning) {
+		Task<?> inner = pipeline != null ? pipeline.inner : null;
+		if(inner == null) {
+			return super.cancel(mayInterruptIfRunning);
+		}
+		// 割り込みによって実行中のタスクが失敗にならないように、割り込みは実行中のタスクのキャンセルでおこないます。
+		boolean isCancelled = super.cancel(false);
+		if(isCancelled) {
+			inner.cancel(mayInterruptIfRunning);
+		}
+		return isCancelled;
+	}
+
 	public AsyncTask<V> onSucceeded(Success<V> callback) {
 		this.success = callback;
 		return this;
@@ -73,6 +294,10 @@ public class AsyncTask<V> extends Task<V> {
 
 	@Override
 	protected void succeeded() {
+		if(isDiscarded) {
+			cancelled();
+			return;
+		}
 		Throwable exception = null;
 		try {
 			if (success != null) {
@@ -91,13 +316,7 @@ public class AsyncTask<V> extends Task<V> {
 				}
 			}
 			if(exception != null) {
-				Thread thread = Thread.currentThread();
-				Thread.UncaughtExceptionHandler ueh = thread.getUncaughtExceptionHandler();
-				if(ueh != null) {
-					ueh.uncaughtException(thread, exception);
-				} else {
-					rethrow(exception);
-				}
+				handleUncaughtException(exception);
 			}
 		}
 	}
@@ -122,19 +341,17 @@ public class AsyncTask<V> extends Task<V> {
 				}
 			}
 			if(exception != null) {
-				Thread thread = Thread.currentThread();
-				Thread.UncaughtExceptionHandler ueh = thread.getUncaughtExceptionHandler();
-				if(ueh != null) {
-					ueh.uncaughtException(thread, exception);
-				} else {
-					rethrow(exception);
-				}
+				handleUncaughtException(exception);
 			}
 		}
 	}
 
 	@Override
 	protected void failed() {
+		if(isDiscarded) {
+			cancelled();
+			return;
+		}
 		Throwable exception = null;
 		try {
 			if (fail != null) {
@@ -155,17 +372,43 @@ public class AsyncTask<V> extends Task<V> {
 				}
 			}
 			if(exception != null) {
-				Thread thread = Thread.currentThread();
-				Thread.UncaughtExceptionHandler ueh = thread.getUncaughtExceptionHandler();
-				if(ueh != null) {
-					ueh.uncaughtException(thread, exception);
-				} else {
-					rethrow(exception);
-				}
+				handleUncaughtException(exception);
 			}
 		}
 	}
 
+	/** パイプラインを構成するタスクが共有する状態です。
+	 */
+	static class Pipeline {
+
+		/** パイプラインの最後のタスク（実際に開始されるタスク）です。 */
+		volatile AsyncTask<?> owner;
+
+		/** thenCompose で実行中のタスクです。 */
+		volatile Task<?> inner;
+
+		boolean isCancelled() {
+			AsyncTask<?> owner = this.owner;
+			return owner != null && (owner.isCancelled() || owner.isDiscarded);
+		}
+
+		void checkCancelled() {
+			if(isCancelled()) {
+				throw new CancellationException();
+			}
+		}
+	}
+
+	@FunctionalInterface
+	private interface Stage<R> {
+		Callable<R> create(Pipeline pipeline);
+	}
+
+	@FunctionalInterface
+	public interface Function<T, R> {
+		R apply(T value) throws Exception;
+	}
+
 	@FunctionalInterface
 	public interface Success<V> {
 		void onSucceeded(V result) throws Exception;
@@ -186,6 +429,27 @@ public class AsyncTask<V> extends Task<V> {
 		void onFinished(State state) throws Exception;
 	}
 
+	private static class DefaultExecutorHolder {
+		private static final AsyncTaskExecutor INSTANCE = AsyncTaskExecutor.newFixedThreadPool("AsyncTask", Math.max(2, Runtime.getRuntime().availableProcessors()));
+	}
+
+	private static class VirtualThreadExecutorHolder {
+		private static final AsyncTaskExecutor INSTANCE = AsyncTaskExecutor.newVirtualThreadPerTaskExecutor("AsyncTask-Virtual");
+	}
+
+	/** コールバックがスローした例外を、現在のスレッドの UncaughtExceptionHandler に渡します。
+	 * UncaughtExceptionHandler がない場合は例外をそのままスローします。
+	 */
+	static void handleUncaughtException(Throwable exception) {
+		Thread thread = Thread.currentThread();
+		Thread.UncaughtExceptionHandler ueh = thread.getUncaughtExceptionHandler();
+		if(ueh != null) {
+			ueh.uncaughtException(thread, exception);
+		} else {
+			rethrow(exception);
+		}
+	}
+
 	@SuppressWarnings("unchecked")
 	private static <T extends Throwable> void rethrow(Throwable throwable) throws T {
 		throw (T)throwable;
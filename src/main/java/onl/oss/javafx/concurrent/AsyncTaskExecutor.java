@@ -0,0 +1,183 @@
+package onl.oss.javafx.concurrent;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * {@link AsyncTask} を実行する Executor です。
+ * <p>
+ * 実行待ちのタスク数（キューの深さ）、実行中のタスク数、スレッド数などの計測値を提供します。</p>
+ * <ul>
+ * <li>{@link #newFixedThreadPool(String, int)} … 一定数のデーモン・スレッドで実行します。CPU を使用する処理に適しています。</li>
+ * <li>{@link #newVirtualThreadPerTaskExecutor(String)} … タスクごとに仮想スレッドを作成して実行します。
+ *     ファイルやネットワークの入出力など、ブロックする処理を多数実行する場合に適しています。</li>
+ * </ul>
+ *
+ */
+public final class AsyncTaskExecutor implements Executor {
+
+	private final String name;
+	private final ExecutorService executor;
+	private final AtomicInteger queued = new AtomicInteger();
+	private final AtomicInteger running = new AtomicInteger();
+	private final AtomicInteger peakRunning = new AtomicInteger();
+	private final LongAdder submittedCount = new LongAdder();
+	private final LongAdder completedCount = new LongAdder();
+
+	private AsyncTaskExecutor(String name, ExecutorService executor) {
+		this.name = name;
+		this.executor = executor;
+	}
+
+	/**
+	 * 指定した数のデーモン・スレッドでタスクを実行する Executor を作成します。
+	 * スレッドは一定時間使用されないと終了し、必要になったときに再作成されます。
+	 *
+	 * @param name スレッド名の接頭辞
+	 * @param threads スレッドの最大数
+	 * @return Executor
+	 */
+	public static AsyncTaskExecutor newFixedThreadPool(String name, int threads) {
+		ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+				new LinkedBlockingQueue<>(), new DaemonThreadFactory(name));
+		executor.allowCoreThreadTimeOut(true);
+		return new AsyncTaskExecutor(name, executor);
+	}
+
+	/**
+	 * タスクごとに仮想スレッドを作成して実行する Executor を作成します。
+	 *
+	 * @param name スレッド名の接頭辞
+	 * @return Executor
+	 */
+	public static AsyncTaskExecutor newVirtualThreadPerTaskExecutor(String name) {
+		ThreadFactory factory = Thread.ofVirtual().name(name + "-", 1).factory();
+		return new AsyncTaskExecutor(name, Executors.newThreadPerTaskExecutor(factory));
+	}
+
+	@Override
+	public void execute(Runnable command) {
+		queued.incrementAndGet();
+		submittedCount.increment();
+		try {
+			executor.execute(() -> {
+				queued.decrementAndGet();
+				int n = running.incrementAndGet();
+				peakRunning.accumulateAndGet(n, Math::max);
+				try {
+					command.run();
+				} finally {
+					running.decrementAndGet();
+					completedCount.increment();
+				}
+			});
+		} catch(RuntimeException e) {
+			queued.decrementAndGet();
+			throw e;
+		}
+	}
+
+	/**
+	 * Executor の名前を返します。
+	 *
+	 * @return Executor の名前
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * 実行待ちのタスク数（キューの深さ）を返します。
+	 *
+	 * @return 実行待ちのタスク数
+	 */
+	public int getQueuedCount() {
+		return queued.get();
+	}
+
+	/**
+	 * 実行中のタスク数を返します。
+	 *
+	 * @return 実行中のタスク数
+	 */
+	public int getRunningCount() {
+		return running.get();
+	}
+
+	/**
+	 * 同時に実行されたタスク数の最大値を返します。
+	 *
+	 * @return 同時に実行されたタスク数の最大値
+	 */
+	public int getPeakRunningCount() {
+		return peakRunning.get();
+	}
+
+	/**
+	 * タスクを実行するために存在しているスレッドの数を返します。
+	 * 仮想スレッドの場合は実行中のタスク数と同じです。
+	 *
+	 * @return スレッドの数
+	 */
+	public int getThreadCount() {
+		if(executor instanceof ThreadPoolExecutor) {
+			return ((ThreadPoolExecutor)executor).getPoolSize();
+		}
+		return running.get();
+	}
+
+	/**
+	 * 投入されたタスクの総数を返します。
+	 *
+	 * @return 投入されたタスクの総数
+	 */
+	public long getSubmittedCount() {
+		return submittedCount.sum();
+	}
+
+	/**
+	 * 実行が完了したタスクの総数を返します。
+	 *
+	 * @return 実行が完了したタスクの総数
+	 */
+	public long getCompletedCount() {
+		return completedCount.sum();
+	}
+
+	/**
+	 * 新しいタスクの受け付けを停止します。実行中および実行待ちのタスクは実行されます。
+	 */
+	public void shutdown() {
+		executor.shutdown();
+	}
+
+	@Override
+	public String toString() {
+		return name + " [threads=" + getThreadCount() + ", running=" + getRunningCount() + ", queued=" + getQueuedCount()
+				+ ", completed=" + getCompletedCount() + "]";
+	}
+
+	static class DaemonThreadFactory implements ThreadFactory {
+
+		private final String name;
+		private final AtomicInteger count = new AtomicInteger();
+
+		DaemonThreadFactory(String name) {
+			this.name = name;
+		}
+
+		@Override
+		public Thread newThread(Runnable runnable) {
+			Thread thread = new Thread(runnable, name + "-" + count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+}
@@ -0,0 +1,331 @@
+package onl.oss.javafx.concurrent;
+
+import javafx.application.Platform;
+import javafx.beans.property.ReadOnlyDoubleProperty;
+import javafx.beans.property.ReadOnlyDoubleWrapper;
+import javafx.beans.value.ChangeListener;
+import javafx.concurrent.Task;
+import javafx.concurrent.Worker;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * 複数のタスクをまとめて実行し、その完了をひとつのコールバックで受け取るためのグループです。
+ * <p>
+ * {@link #allOf(List)} はすべてのタスクが成功すると成功し、いずれかのタスクが失敗またはキャンセルされると残りのタスクをキャンセルします。
+ * {@link #anyOf(List)} は最初に成功したタスクの結果で成功し、残りのタスクをキャンセルします。</p>
+ * <pre>
+ * AsyncTaskGroup.allOf(List.of(loadCustomer, loadOrders, loadHistory))
+ *         .onSucceeded(results -&gt; show(results))
+ *         .onFinished(state -&gt; progressBar.setVisible(false))
+ *         .start();
+ * </pre>
+ * <p>
+ * グループの状態はメンバーのタスクの状態の変化（JavaFX アプリケーション・スレッドで通知されます）によって更新されるため、
+ * 完了を待つためのスレッドは使用しません。
+ * onSucceeded などで指定したコールバックは、グループの完了時に JavaFX アプリケーション・スレッドで1回だけ呼び出されます。
+ * {@link #cancel()} はすべてのメンバーのタスクを割り込みありでキャンセルします。</p>
+ *
+ */
+public class AsyncTaskGroup<R> {
+
+	private enum Mode {
+		ALL_OF,
+		ANY_OF
+	}
+
+	private final Mode mode;
+	private final List<Task<?>> tasks;
+	private final ReadOnlyDoubleWrapper progress = new ReadOnlyDoubleWrapper(this, "progress", 0.0);
+	private final ChangeListener<Object> listener = (observable, oldValue, newValue) -> update();
+	private AsyncTask.Cancel cancel;
+	private AsyncTask.Success<R> success;
+	private AsyncTask.Fail fail;
+	private AsyncTask.Finish finish;
+	private volatile AsyncTask.State state;
+
+	/**
+	 * すべてのタスクが成功したときに成功するグループを作成します。
+	 * グループの結果は、タスクの結果をタスクと同じ順番に並べたリストです。
+	 *
+	 * @param tasks タスクのリスト
+	 * @return グループ
+	 */
+	public static <V> AsyncTaskGroup<List<V>> allOf(List<? extends Task<? extends V>> tasks) {
+		return new AsyncTaskGroup<>(Mode.ALL_OF, tasks);
+	}
+
+	/**
+	 * 最初に成功したタスクの結果で成功するグループを作成します。
+	 * すべてのタスクが失敗した場合、グループは最初に失敗したタスクの例外で失敗します。
+	 *
+	 * @param tasks タスクのリスト
+	 * @return グループ
+	 */
+	public static <V> AsyncTaskGroup<V> anyOf(List<? extends Task<? extends V>> tasks) {
+		return new AsyncTaskGroup<>(Mode.ANY_OF, tasks);
+	}
+
+	private AsyncTaskGroup(Mode mode, List<? extends Task<?>> tasks) {
+		if(tasks.isEmpty()) {
+			throw new IllegalArgumentException("tasks is empty.");
+		}
+		this.mode = mode;
+		this.tasks = Collections.unmodifiableList(new ArrayList<>(tasks));
+		// タスクのプロパティーは JavaFX アプリケーション・スレッドで更新されるため、リスナーの登録も JavaFX アプリケーション・スレッドでおこないます。
+		if(Platform.isFxApplicationThread()) {
+			attach();
+		} else {
+			Platform.runLater(this::attach);
+		}
+	}
+
+	private void attach() {
+		if(state != null) {
+			// リスナーを登録する前にキャンセルされています。
+			return;
+		}
+		for(Task<?> task : tasks) {
+			task.stateProperty().addListener(listener);
+			task.progressProperty().addListener(listener);
+		}
+		// 作成前やリスナーの登録前に完了しているタスクがある場合に備えて、現在の状態で1回更新します。
+		update();
+	}
+
+	/**
+	 * 既定の Executor で、まだ開始されていないメンバーのタスクを実行します。
+	 *
+	 * @return このグループ
+	 * @see AsyncTask#getDefaultExecutor()
+	 */
+	public AsyncTaskGroup<R> start() {
+		return submit(AsyncTask.getDefaultExecutor());
+	}
+
+	/**
+	 * 指定した Executor で、まだ開始されていないメンバーのタスクを実行します。
+	 *
+	 * @param executor タスクを実行する Executor
+	 * @return このグループ
+	 */
+	public AsyncTaskGroup<R> submit(Executor executor) {
+		for(Task<?> task : tasks) {
+			if(task.getState() == Worker.State.READY) {
+				executor.execute(task);
+			}
+		}
+		return this;
+	}
+
+	/**
+	 * すべてのメンバーのタスクを割り込みありでキャンセルします。グループはキャンセルされます。
+	 * <p>
+	 * JavaFX アプリケーション・スレッド以外から呼び出した場合、キャンセルは JavaFX アプリケーション・スレッドで後からおこなわれます。
+	 * この場合の戻り値はキャンセルを要求したことを示し、要求が処理される前にグループが完了した場合はキャンセルされません。</p>
+	 *
+	 * @return JavaFX アプリケーション・スレッドから呼び出した場合はグループの完了前にキャンセルしたときに true、
+	 *         それ以外のスレッドから呼び出した場合はグループの完了前にキャンセルを要求したときに true
+	 */
+	public boolean cancel() {
+		if(state != null) {
+			return false;
+		}
+		if(Platform.isFxApplicationThread()) {
+			complete(AsyncTask.State.CANCELLED, null, null);
+		} else {
+			// JavaFX アプリケーション・スレッド以外から割り込むと、メンバーのタスクがキャンセルより先に失敗として通知されることがあるため、
+			// キャンセルは JavaFX アプリケーション・スレッドでおこないます。
+			Platform.runLater(() -> complete(AsyncTask.State.CANCELLED, null, null));
+		}
+		return true;
+	}
+
+	public AsyncTaskGroup<R> onSucceeded(AsyncTask.Success<R> callback) {
+		this.success = callback;
+		return this;
+	}
+
+	public AsyncTaskGroup<R> onCancelled(AsyncTask.Cancel callback) {
+		this.cancel = callback;
+		return this;
+	}
+
+	public AsyncTaskGroup<R> onFailed(AsyncTask.Fail callback) {
+		this.fail = callback;
+		return this;
+	}
+
+	public AsyncTaskGroup<R> onFinished(AsyncTask.Finish callback) {
+		this.finish = callback;
+		return this;
+	}
+
+	/**
+	 * メンバーのタスクのリストを返します。
+	 *
+	 * @return メンバーのタスクのリスト
+	 */
+	public List<Task<?>> getTasks() {
+		return tasks;
+	}
+
+	/**
+	 * グループの状態を返します。グループが完了していない場合は null を返します。
+	 *
+	 * @return グループの状態
+	 */
+	public AsyncTask.State getState() {
+		return state;
+	}
+
+	/**
+	 * グループが完了している場合に true を返します。
+	 *
+	 * @return グループが完了している場合は true
+	 */
+	public boolean isDone() {
+		return state != null;
+	}
+
+	/**
+	 * メンバーのタスクの進捗を平均したグループの進捗（0.0～1.0）です。
+	 * 進捗が不定のタスクは 0.0、完了したタスクは 1.0 として計算されます。
+	 * 値は JavaFX アプリケーション・スレッドで更新されます。
+	 */
+	public ReadOnlyDoubleProperty progressProperty() {
+		return progress.getReadOnlyProperty();
+	}
+
+	public double getProgress() {
+		return progress.get();
+	}
+
+	private void update() {
+		if(state != null) {
+			return;
+		}
+		double total = 0.0;
+		int succeeded = 0;
+		int terminated = 0;
+		Task<?> firstSucceeded = null;
+		Throwable firstException = null;
+		boolean isAnyCancelled = false;
+		for(Task<?> task : tasks) {
+			switch(task.getState()) {
+				case SUCCEEDED:
+					succeeded++;
+					terminated++;
+					total += 1.0;
+					if(firstSucceeded == null) {
+						firstSucceeded = task;
+					}
+					break;
+				case FAILED:
+					terminated++;
+					total += 1.0;
+					if(firstException == null) {
+						firstException = task.getException();
+					}
+					break;
+				case CANCELLED:
+					terminated++;
+					total += 1.0;
+					isAnyCancelled = true;
+					break;
+				default:
+					total += Math.max(0.0, task.getProgress());
+			}
+		}
+		progress.set(total / tasks.size());
+
+		if(mode == Mode.ALL_OF) {
+			if(firstException != null) {
+				complete(AsyncTask.State.FAILED, null, firstException);
+			} else if(isAnyCancelled) {
+				complete(AsyncTask.State.CANCELLED, null, null);
+			} else if(succeeded == tasks.size()) {
+				List<Object> results = new ArrayList<>(tasks.size());
+				for(Task<?> task : tasks) {
+					results.add(task.getValue());
+				}
+				complete(AsyncTask.State.SUCCEEDED, Collections.unmodifiableList(results), null);
+			}
+		} else {
+			if(firstSucceeded != null) {
+				complete(AsyncTask.State.SUCCEEDED, firstSucceeded.getValue(), null);
+			} else if(terminated == tasks.size()) {
+				if(firstException != null) {
+					complete(AsyncTask.State.FAILED, null, firstException);
+				} else {
+					complete(AsyncTask.State.CANCELLED, null, null);
+				}
+			}
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private void complete(AsyncTask.State state, Object value, Throwable exception) {
+		if(this.state != null) {
+			return;
+		}
+		this.state = state;
+		for(Task<?> task : tasks) {
+			task.stateProperty().removeListener(listener);
+			task.progressProperty().removeListener(listener);
+		}
+		if(state == AsyncTask.State.SUCCEEDED) {
+			progress.set(1.0);
+		}
+		cancelAll();
+
+		Throwable uncaught = null;
+		try {
+			switch(state) {
+				case SUCCEEDED:
+					if(success != null) {
+						success.onSucceeded((R)value);
+					}
+					break;
+				case CANCELLED:
+					if(cancel != null) {
+						cancel.onCancelled();
+					}
+					break;
+				case FAILED:
+					if(fail != null) {
+						fail.onFailed(exception);
+					} else {
+						uncaught = exception;
+					}
+					break;
+			}
+		} catch(Throwable e) {
+			uncaught = e;
+		} finally {
+			if(finish != null) {
+				try {
+					finish.onFinished(state);
+				} catch(Throwable e) {
+					if(uncaught == null) {
+						uncaught = e;
+					}
+				}
+			}
+			if(uncaught != null) {
+				AsyncTask.handleUncaughtException(uncaught);
+			}
+		}
+	}
+
+	private void cancelAll() {
+		for(Task<?> task : tasks) {
+			if(!task.isDone()) {
+				task.cancel(true);
+			}
+		}
+	}
+}
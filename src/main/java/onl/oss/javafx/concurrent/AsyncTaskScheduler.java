@@ -0,0 +1,335 @@
+package onl.oss.javafx.concurrent;
+
+import javafx.application.Platform;
+import javafx.concurrent.Task;
+import javafx.util.Duration;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * キーごとに最新のタスクだけを実行するスケジューラーです。
+ * <p>
+ * 同じキーでタスクを投入すると、そのキーで以前に投入された実行待ちまたは実行中のタスクはキャンセルされます。
+ * インクリメンタル・サーチや選択に連動した詳細表示のように、入力のたびにタスクを開始する場合でも、
+ * 古いタスクが CPU を使い続けたり、古い結果が新しい結果を上書きしたりすることがありません。</p>
+ * <pre>
+ * scheduler.submit("search", AsyncTaskScheduler.Priority.HIGH, Duration.millis(250),
+ *         AsyncTask.create(() -&gt; search(text)).onSucceeded(result -&gt; show(result)));
+ * </pre>
+ * <p>
+ * 待機時間（デバウンス）を指定すると、タスクは待機時間が経過してから実行待ちになり、
+ * 待機中に同じキーで次のタスクが投入された場合は実行されずにキャンセルされます。
+ * 実行待ちのタスクは {@link Priority} の順番に実行されるため、ユーザーの操作に応答するタスクを先読みなどのバックグラウンド処理より優先できます。</p>
+ * <p>
+ * キャンセルされたタスクの onCancelled は通常どおり JavaFX アプリケーション・スレッドで呼び出されます。
+ * キャンセルが間に合わずに完了したタスクも、onSucceeded や onFailed の代わりに onCancelled が呼び出され、古い結果は通知されません。</p>
+ *
+ */
+public final class AsyncTaskScheduler {
+
+	/**
+	 * タスクの優先度です。
+	 */
+	public enum Priority {
+		/**
+		 * ユーザーの操作に応答して結果を表示するタスクなど、最優先で実行するタスクです。
+		 */
+		HIGH,
+		/**
+		 * 通常のタスクです。
+		 */
+		NORMAL,
+		/**
+		 * 先読みなど、他のタスクがないときに実行するタスクです。
+		 */
+		LOW
+	}
+
+	private final String name;
+	private final ThreadPoolExecutor executor;
+	private final ScheduledThreadPoolExecutor timer;
+	private final Map<Object, Entry> entries = new HashMap<>();
+	private final AtomicLong sequence = new AtomicLong();
+	private final LongAdder submittedCount = new LongAdder();
+	private final LongAdder supersededCount = new LongAdder();
+	private final LongAdder debouncedCount = new LongAdder();
+	private final LongAdder completedCount = new LongAdder();
+
+	/**
+	 * スケジューラーを作成します。
+	 *
+	 * @param name スレッド名の接頭辞
+	 * @param threads タスクを実行するスレッドの数
+	 */
+	public AsyncTaskScheduler(String name, int threads) {
+		if(threads < 1) {
+			throw new IllegalArgumentException("threads: " + threads);
+		}
+		this.name = name;
+		this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+				new PriorityBlockingQueue<>(), new AsyncTaskExecutor.DaemonThreadFactory(name));
+		this.executor.allowCoreThreadTimeOut(true);
+		this.timer = new ScheduledThreadPoolExecutor(1, new AsyncTaskExecutor.DaemonThreadFactory(name + "-Timer"));
+		this.timer.setRemoveOnCancelPolicy(true);
+	}
+
+	/**
+	 * タスクを通常の優先度で投入します。
+	 *
+	 * @param key キー。null の場合は他のタスクをキャンセルしません
+	 * @param task タスク
+	 * @return 投入したタスク
+	 */
+	public <V> AsyncTask<V> submit(Object key, AsyncTask<V> task) {
+		return submit(key, Priority.NORMAL, null, task);
+	}
+
+	/**
+	 * タスクを指定した優先度で投入します。
+	 *
+	 * @param key キー。null の場合は他のタスクをキャンセルしません
+	 * @param priority 優先度
+	 * @param task タスク
+	 * @return 投入したタスク
+	 */
+	public <V> AsyncTask<V> submit(Object key, Priority priority, AsyncTask<V> task) {
+		return submit(key, priority, null, task);
+	}
+
+	/**
+	 * タスクを指定した優先度と待機時間で投入します。
+	 * 同じキーで以前に投入されたタスクは、待機中・実行待ち・実行中のいずれの場合もキャンセルされます。
+	 *
+	 * @param key キー。null の場合は他のタスクをキャンセルしません
+	 * @param priority 優先度
+	 * @param debounce 実行待ちにするまでの待機時間。null または 0 の場合は待機しません
+	 * @param task タスク
+	 * @return 投入したタスク
+	 */
+	public <V> AsyncTask<V> submit(Object key, Priority priority, Duration debounce, AsyncTask<V> task) {
+		if(priority == null || task == null) {
+			throw new NullPointerException();
+		}
+		Entry entry = new Entry(key, priority, sequence.getAndIncrement(), task);
+		Entry previous = null;
+		synchronized (this) {
+			if(key != null) {
+				previous = entries.put(key, entry);
+				if(previous != null) {
+					// キャンセルは JavaFX アプリケーション・スレッドで後からおこなわれるため、その前に完了しても結果を通知しないようにします。
+					previous.task.discard();
+				}
+			}
+			if(debounce != null && debounce.greaterThan(Duration.ZERO)) {
+				entry.delay = timer.schedule(() -> enqueue(entry), (long)(debounce.toMillis() * 1_000_000), TimeUnit.NANOSECONDS);
+			}
+		}
+		submittedCount.increment();
+		if(previous != null) {
+			supersede(previous);
+		}
+		if(entry.delay == null) {
+			enqueue(entry);
+		}
+		return task;
+	}
+
+	/**
+	 * 指定したキーで投入されたタスクをキャンセルします。
+	 *
+	 * @param key キー
+	 * @return キャンセルするタスクがあった場合は true
+	 */
+	public boolean cancel(Object key) {
+		Entry entry;
+		synchronized (this) {
+			entry = entries.remove(key);
+			if(entry != null) {
+				entry.task.discard();
+			}
+		}
+		if(entry == null) {
+			return false;
+		}
+		discard(entry);
+		return true;
+	}
+
+	/**
+	 * キーを指定して投入されたすべてのタスクをキャンセルします。
+	 */
+	public void cancelAll() {
+		List<Entry> list;
+		synchronized (this) {
+			list = new ArrayList<>(entries.values());
+			entries.clear();
+			for(Entry entry : list) {
+				entry.task.discard();
+			}
+		}
+		for(Entry entry : list) {
+			discard(entry);
+		}
+	}
+
+	/**
+	 * スケジューラーの名前を返します。
+	 *
+	 * @return スケジューラーの名前
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * 実行待ちのタスク数を返します。待機中のタスクは含まれません。
+	 *
+	 * @return 実行待ちのタスク数
+	 */
+	public int getQueuedCount() {
+		return executor.getQueue().size();
+	}
+
+	/**
+	 * 実行中のタスク数を返します。
+	 *
+	 * @return 実行中のタスク数
+	 */
+	public int getRunningCount() {
+		return executor.getActiveCount();
+	}
+
+	/**
+	 * 投入されたタスクの総数を返します。
+	 *
+	 * @return 投入されたタスクの総数
+	 */
+	public long getSubmittedCount() {
+		return submittedCount.sum();
+	}
+
+	/**
+	 * 同じキーで新しいタスクが投入されたためにキャンセルされたタスクの数を返します。
+	 *
+	 * @return 新しいタスクによってキャンセルされたタスクの数
+	 */
+	public long getSupersededCount() {
+		return supersededCount.sum();
+	}
+
+	/**
+	 * 待機中にキャンセルされ、一度も実行待ちにならなかったタスクの数を返します。
+	 *
+	 * @return 待機中にキャンセルされたタスクの数
+	 */
+	public long getDebouncedCount() {
+		return debouncedCount.sum();
+	}
+
+	/**
+	 * 実行が完了したタスクの総数を返します。キャンセルされたタスクは含まれません。
+	 *
+	 * @return 実行が完了したタスクの総数
+	 */
+	public long getCompletedCount() {
+		return completedCount.sum();
+	}
+
+	/**
+	 * 新しいタスクの受け付けを停止します。待機中のタスクは実行されず、実行待ちおよび実行中のタスクは実行されます。
+	 */
+	public void shutdown() {
+		timer.shutdownNow();
+		executor.shutdown();
+	}
+
+	@Override
+	public String toString() {
+		return name + " [running=" + getRunningCount() + ", queued=" + getQueuedCount()
+				+ ", superseded=" + getSupersededCount() + ", completed=" + getCompletedCount() + "]";
+	}
+
+	private void enqueue(Entry entry) {
+		if(entry.task.isCancelled() || entry.task.isDiscarded()) {
+			return;
+		}
+		executor.execute(entry);
+	}
+
+	private void supersede(Entry entry) {
+		supersededCount.increment();
+		discard(entry);
+	}
+
+	private void discard(Entry entry) {
+		ScheduledFuture<?> delay = entry.delay;
+		if(delay != null && delay.cancel(false)) {
+			debouncedCount.increment();
+		}
+		executor.remove(entry);
+		cancel(entry.task);
+	}
+
+	private static void cancel(Task<?> task) {
+		if(task.isDone()) {
+			return;
+		}
+		// JavaFX アプリケーション・スレッド以外から割り込むと、タスクがキャンセルより先に失敗として通知されることがあるため、
+		// キャンセルは JavaFX アプリケーション・スレッドでおこないます。
+		if(Platform.isFxApplicationThread()) {
+			task.cancel(true);
+		} else {
+			Platform.runLater(() -> task.cancel(true));
+		}
+	}
+
+	private final class Entry implements Runnable, Comparable<Entry> {
+
+		final Object key;
+		final Priority priority;
+		final long sequence;
+		final AsyncTask<?> task;
+		volatile ScheduledFuture<?> delay;
+
+		Entry(Object key, Priority priority, long sequence, AsyncTask<?> task) {
+			this.key = key;
+			this.priority = priority;
+			this.sequence = sequence;
+			this.task = task;
+		}
+
+		@Override
+		public void run() {
+			try {
+				if(!task.isDiscarded()) {
+					task.run();
+				}
+			} finally {
+				if(!task.isDiscarded() && !task.isCancelled()) {
+					completedCount.increment();
+				}
+				if(key != null) {
+					synchronized (AsyncTaskScheduler.this) {
+						entries.remove(key, this);
+					}
+				}
+			}
+		}
+
+		@Override
+		public int compareTo(Entry other) {
+			int c = priority.compareTo(other.priority);
+			return c != 0 ? c : Long.compare(sequence, other.sequence);
+		}
+	}
+}
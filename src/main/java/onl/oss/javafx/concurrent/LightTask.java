@@ -0,0 +1,309 @@
+package onl.oss.javafx.concurrent;
+
+import javafx.application.Platform;
+import onl.oss.javafx.Unchecked;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 大量に実行する小さな処理のための軽量なタスクです。
+ * <p>
+ * {@link AsyncTask} は javafx.concurrent.Task を継承しているため、状態・値・例外・進捗・メッセージ・タイトルの
+ * JavaFX プロパティを持ち、状態が変わるたびに Platform.runLater で JavaFX アプリケーション・スレッドに通知します。
+ * LightTask は JavaFX プロパティを持たず、完了時に1回だけ JavaFX アプリケーション・スレッドでコールバックを呼び出します。</p>
+ * <p>
+ * コールバックには AsyncTask と同じ {@link AsyncTask.Success}、{@link AsyncTask.Fail}、{@link AsyncTask.Cancel}、{@link AsyncTask.Finish} を使用します。
+ * 進捗が必要な場合は {@link #create(Work)} で作成したタスクから {@link Context#updateProgress(long, long)} を呼び出し、
+ * {@link #onProgress(Progress)} で受け取ります。進捗の通知は、JavaFX アプリケーション・スレッドが処理するまでの間の更新がまとめられます。</p>
+ *
+ */
+public class LightTask<V> extends FutureTask<V> {
+
+	private final AtomicBoolean isProgressScheduled = new AtomicBoolean();
+	private volatile double progress = -1.0;
+	private volatile AsyncTask.Cancel cancel;
+	private volatile AsyncTask.Success<V> success;
+	private volatile AsyncTask.Fail fail;
+	private volatile AsyncTask.Finish finish;
+	private volatile Progress progressCallback;
+
+	public static LightTask<Void> create(Unchecked.Runnable runnable) {
+		return new LightTask<Void>(() -> {
+			runnable.run();
+			return null;
+		});
+	}
+
+	public static <V> LightTask<V> create(Callable<V> callable) {
+		return new LightTask<V>(callable);
+	}
+
+	public static <V> LightTask<V> create(Work<V> work) {
+		return new LightTask<V>(work);
+	}
+
+	public LightTask(Callable<V> callable) {
+		super(callable);
+	}
+
+	public LightTask(Work<V> work) {
+		this(new ContextCallable<>(work));
+	}
+
+	@SuppressWarnings("this-escape")
+	private LightTask(ContextCallable<V> callable) {
+		super(callable);
+		callable.task = this;
+	}
+
+	/**
+	 * 既定の Executor でタスクを実行します。
+	 *
+	 * @return このタスク
+	 * @see AsyncTask#getDefaultExecutor()
+	 */
+	public LightTask<V> start() {
+		return submit(AsyncTask.getDefaultExecutor());
+	}
+
+	/**
+	 * 仮想スレッドでタスクを実行します。
+	 *
+	 * @return このタスク
+	 * @see AsyncTask#getVirtualThreadExecutor()
+	 */
+	public LightTask<V> startVirtual() {
+		return submit(AsyncTask.getVirtualThreadExecutor());
+	}
+
+	/**
+	 * 指定した Executor でタスクを実行します。
+	 *
+	 * @param executor タスクを実行する Executor
+	 * @return このタスク
+	 */
+	public LightTask<V> submit(Executor executor) {
+		executor.execute(this);
+		return this;
+	}
+
+	public LightTask<V> onSucceeded(AsyncTask.Success<V> callback) {
+		this.success = callback;
+		return this;
+	}
+
+	public LightTask<V> onCancelled(AsyncTask.Cancel callback) {
+		this.cancel = callback;
+		return this;
+	}
+
+	public LightTask<V> onFailed(AsyncTask.Fail callback) {
+		this.fail = callback;
+		return this;
+	}
+
+	public LightTask<V> onFinished(AsyncTask.Finish callback) {
+		this.finish = callback;
+		return this;
+	}
+
+	/**
+	 * 進捗が更新されたときに JavaFX アプリケーション・スレッドで呼び出される処理を設定します。
+	 *
+	 * @param callback 進捗が更新されたときに呼び出される処理
+	 * @return このタスク
+	 */
+	public LightTask<V> onProgress(Progress callback) {
+		this.progressCallback = callback;
+		return this;
+	}
+
+	/**
+	 * 最後に報告された進捗（0.0～1.0）を返します。進捗が報告されていない場合は -1.0 を返します。
+	 *
+	 * @return 進捗
+	 */
+	public double getProgress() {
+		return progress;
+	}
+
+	/**
+	 * タスクの状態を返します。タスクが完了していない場合は null を返します。
+	 *
+	 * @return タスクの状態
+	 */
+	public AsyncTask.State getState() {
+		if(!isDone()) {
+			return null;
+		}
+		if(isCancelled()) {
+			return AsyncTask.State.CANCELLED;
+		}
+		try {
+			get();
+			return AsyncTask.State.SUCCEEDED;
+		} catch(ExecutionException | InterruptedException e) {
+			return AsyncTask.State.FAILED;
+		}
+	}
+
+	private void updateProgress(long workDone, long max) {
+		progress = max <= 0 ? -1.0 : Math.min(1.0, Math.max(0.0, (double)workDone / max));
+		if(progressCallback != null && isProgressScheduled.compareAndSet(false, true)) {
+			Platform.runLater(() -> {
+				isProgressScheduled.set(false);
+				Progress callback = progressCallback;
+				if(callback != null && !isDone()) {
+					try {
+						callback.onProgress(progress);
+					} catch(Throwable e) {
+						uncaughtException(e);
+					}
+				}
+			});
+		}
+	}
+
+	@Override
+	protected void done() {
+		if(Platform.isFxApplicationThread()) {
+			complete();
+		} else {
+			Platform.runLater(this::complete);
+		}
+	}
+
+	private void complete() {
+		AsyncTask.State state;
+		V value = null;
+		Throwable exception = null;
+		if(isCancelled()) {
+			state = AsyncTask.State.CANCELLED;
+		} else {
+			try {
+				value = get();
+				state = AsyncTask.State.SUCCEEDED;
+			} catch(ExecutionException e) {
+				state = AsyncTask.State.FAILED;
+				exception = e.getCause();
+			} catch(InterruptedException | CancellationException e) {
+				state = AsyncTask.State.CANCELLED;
+			}
+		}
+
+		Throwable uncaught = null;
+		try {
+			switch(state) {
+				case SUCCEEDED:
+					if(success != null) {
+						success.onSucceeded(value);
+					}
+					break;
+				case CANCELLED:
+					if(cancel != null) {
+						cancel.onCancelled();
+					}
+					break;
+				case FAILED:
+					if(fail != null) {
+						fail.onFailed(exception);
+					} else {
+						uncaught = exception;
+					}
+					break;
+			}
+		} catch(Throwable e) {
+			uncaught = e;
+		} finally {
+			if(finish != null) {
+				try {
+					finish.onFinished(state);
+				} catch(Throwable e) {
+					if(uncaught == null) {
+						uncaught = e;
+					}
+				}
+			}
+			if(uncaught != null) {
+				uncaughtException(uncaught);
+			}
+		}
+	}
+
+	private static void uncaughtException(Throwable exception) {
+		Thread thread = Thread.currentThread();
+		Thread.UncaughtExceptionHandler ueh = thread.getUncaughtExceptionHandler();
+		if(ueh != null) {
+			ueh.uncaughtException(thread, exception);
+		} else {
+			rethrow(exception);
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <T extends Throwable> void rethrow(Throwable throwable) throws T {
+		throw (T)throwable;
+	}
+
+	/**
+	 * {@link #create(Work)} で作成したタスクの処理に渡されるコンテキストです。
+	 *
+	 */
+	public interface Context {
+
+		/**
+		 * 進捗を報告します。
+		 *
+		 * @param workDone 完了した作業量
+		 * @param max 全体の作業量。0 以下の場合は進捗が不定であることを示します
+		 */
+		void updateProgress(long workDone, long max);
+
+		/**
+		 * タスクがキャンセルされている場合に true を返します。
+		 *
+		 * @return タスクがキャンセルされている場合は true
+		 */
+		boolean isCancelled();
+	}
+
+	@FunctionalInterface
+	public interface Work<V> {
+		V call(Context context) throws Exception;
+	}
+
+	@FunctionalInterface
+	public interface Progress {
+		void onProgress(double progress) throws Exception;
+	}
+
+	private static class ContextCallable<V> implements Callable<V>, Context {
+
+		private final Work<V> work;
+		private volatile LightTask<V> task;
+
+		ContextCallable(Work<V> work) {
+			this.work = work;
+		}
+
+		@Override
+		public V call() throws Exception {
+			return work.call(this);
+		}
+
+		@Override
+		public void updateProgress(long workDone, long max) {
+			task.updateProgress(workDone, max);
+		}
+
+		@Override
+		public boolean isCancelled() {
+			return task.isCancelled();
+		}
+	}
+}
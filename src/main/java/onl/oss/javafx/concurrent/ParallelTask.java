@@ -0,0 +1,261 @@
+package onl.oss.javafx.concurrent;
+
+import javafx.util.Duration;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 要素のリストを ForkJoinPool で分割して並列に処理し、部分的な結果を結合するタスクです。
+ * <p>
+ * 大きなファイルやデータセットの取り込みなど、CPU を使用する処理を1つの AsyncTask の call で実行すると1つのコアしか使用されません。
+ * ParallelTask は要素ごとの処理（mapper）を複数のコアで実行し、その結果を結合処理（combiner）で1つの結果にまとめます。</p>
+ * <pre>
+ * ParallelTask.create(lines, line -&gt; parse(line), (a, b) -&gt; a.merge(b))
+ *         .onSucceeded(summary -&gt; show(summary))
+ *         .start();
+ * </pre>
+ * <p>
+ * すべてのワーカーが処理した要素数の合計がタスクの進捗になります。進捗の更新は {@link #progressInterval(Duration)} の間隔に間引かれます。
+ * タスクがキャンセルされると、各ワーカーは次の要素を処理する前に処理を中断します。
+ * 結合処理は要素の順番を保った隣り合う部分結果に対して呼び出されますが、どの単位で結合されるかは決まっていません。
+ * 要素が空の場合、タスクの値は null になります。</p>
+ *
+ */
+public class ParallelTask<E, R> extends AsyncTask<R> {
+
+	private final List<? extends E> items;
+	private final Mapper<? super E, ? extends R> mapper;
+	private final Combiner<R> combiner;
+	private final LongAdder processedCount = new LongAdder();
+	private final AtomicLong lastProgressNanos = new AtomicLong();
+	private volatile ForkJoinPool pool;
+	private volatile int threshold;
+	private volatile long progressIntervalNanos = 50_000_000L;
+	private volatile Pipeline enclosingPipeline;
+	// 実行中のワーカーに処理の中断を伝えます。ForkJoinTask の cancel は実行中のワーカーを止めないため、各ワーカーがこのフラグを確認します。
+	private volatile boolean isAborted;
+
+	public static <E, R> ParallelTask<E, R> create(List<? extends E> items, Mapper<? super E, ? extends R> mapper, Combiner<R> combiner) {
+		return new ParallelTask<E, R>(items, mapper, combiner);
+	}
+
+	public ParallelTask(List<? extends E> items, Mapper<? super E, ? extends R> mapper, Combiner<R> combiner) {
+		super(null);
+		if(items == null || mapper == null || combiner == null) {
+			throw new NullPointerException();
+		}
+		this.items = items;
+		this.mapper = mapper;
+		this.combiner = combiner;
+	}
+
+	/**
+	 * 処理に使用する ForkJoinPool を設定します。既定値は {@link ForkJoinPool#commonPool()} です。
+	 *
+	 * @param pool 処理に使用する ForkJoinPool
+	 * @return このタスク
+	 */
+	public ParallelTask<E, R> pool(ForkJoinPool pool) {
+		this.pool = pool;
+		return this;
+	}
+
+	/**
+	 * これ以上分割せずに1つのワーカーで順番に処理する要素数を設定します。
+	 * 0 の場合（既定値）は、要素数と並列度から自動的に決定します。
+	 *
+	 * @param threshold 分割しない要素数
+	 * @return このタスク
+	 */
+	public ParallelTask<E, R> threshold(int threshold) {
+		if(threshold < 0) {
+			throw new IllegalArgumentException("threshold: " + threshold);
+		}
+		this.threshold = threshold;
+		return this;
+	}
+
+	/**
+	 * 進捗を更新する最小の間隔を設定します。既定値は 50 ミリ秒です。
+	 *
+	 * @param interval 進捗を更新する最小の間隔
+	 * @return このタスク
+	 */
+	public ParallelTask<E, R> progressInterval(Duration interval) {
+		this.progressIntervalNanos = (long)(interval.toMillis() * 1_000_000);
+		return this;
+	}
+
+	/**
+	 * 処理が完了した要素の数を返します。
+	 *
+	 * @return 処理が完了した要素の数
+	 */
+	public long getProcessedCount() {
+		return processedCount.sum();
+	}
+
+	@Override
+	protected R call() throws Exception {
+		int size = items.size();
+		if(size == 0) {
+			return null;
+		}
+		ForkJoinPool pool = this.pool != null ? this.pool : ForkJoinPool.commonPool();
+		int threshold = this.threshold;
+		if(threshold == 0) {
+			// ワーカーごとに複数の単位を割り当てて、処理時間のばらつきをワーク・スティーリングで吸収します。
+			threshold = Math.max(1, size / (pool.getParallelism() * 8));
+		}
+		updateProgress(0, size);
+		ForkJoinTask<R> root = pool.submit(new Chunk(0, size, threshold));
+		try {
+			R result = root.get();
+			updateProgress(size, size);
+			return result;
+		} catch(InterruptedException e) {
+			// 割り込みは実行中のワーカーに伝わらないため、各ワーカーはフラグを確認して処理を中断します。
+			isAborted = true;
+			root.cancel(false);
+			throw e;
+		} catch(ExecutionException e) {
+			Throwable cause = e.getCause();
+			while(cause instanceof MapperException && cause.getCause() != null) {
+				cause = cause.getCause();
+			}
+			if(cause instanceof Exception) {
+				throw (Exception)cause;
+			}
+			throw e;
+		}
+	}
+
+	@Override
+	Callable<R> asCallable(Pipeline pipeline) {
+		// パイプラインの前段として実行した場合、このタスクはキャンセルされないため、キャンセルはパイプラインで確認します。
+		enclosingPipeline = pipeline;
+		return this::call;
+	}
+
+	@Override
+	protected void cancelled() {
+		isAborted = true;
+		super.cancelled();
+	}
+
+	private boolean isAborted() {
+		if(isAborted || isCancelled()) {
+			return true;
+		}
+		Pipeline pipeline = enclosingPipeline;
+		return pipeline != null && pipeline.isCancelled();
+	}
+
+	private void processed(int count) {
+		processedCount.add(count);
+		long now = System.nanoTime();
+		long last = lastProgressNanos.get();
+		if(now - last >= progressIntervalNanos && lastProgressNanos.compareAndSet(last, now)) {
+			updateProgress(processedCount.sum(), items.size());
+		}
+	}
+
+	private class Chunk extends RecursiveTask<R> {
+
+		private static final long serialVersionUID = 1L;
+
+		private final int from;
+		private final int to;
+		private final int threshold;
+
+		Chunk(int from, int to, int threshold) {
+			this.from = from;
+			this.to = to;
+			this.threshold = threshold;
+		}
+
+		@Override
+		protected R compute() {
+			if(to - from <= threshold) {
+				return computeDirectly();
+			}
+			int middle = (from + to) >>> 1;
+			Chunk left = new Chunk(from, middle, threshold);
+			Chunk right = new Chunk(middle, to, threshold);
+			left.fork();
+			R rightResult = right.compute();
+			R leftResult = left.join();
+			return combine(leftResult, rightResult);
+		}
+
+		private R computeDirectly() {
+			List<R> results = new ArrayList<>(to - from);
+			int count = 0;
+			for(int i = from; i < to; i++) {
+				if(isAborted()) {
+					throw new CancellationException();
+				}
+				try {
+					results.add(mapper.apply(items.get(i)));
+				} catch(RuntimeException e) {
+					throw e;
+				} catch(Exception e) {
+					throw new MapperException(e);
+				}
+				// 要素ごとに進捗を更新するとカウンターの競合が増えるため、ある程度まとめて加算します。
+				if(++count == 64) {
+					processed(count);
+					count = 0;
+				}
+			}
+			if(count > 0) {
+				processed(count);
+			}
+			R result = results.get(0);
+			for(int i = 1; i < results.size(); i++) {
+				result = combine(result, results.get(i));
+			}
+			return result;
+		}
+
+		private R combine(R a, R b) {
+			try {
+				return combiner.combine(a, b);
+			} catch(RuntimeException e) {
+				throw e;
+			} catch(Exception e) {
+				throw new MapperException(e);
+			}
+		}
+	}
+
+	/** ワーカーで発生したチェック例外を call まで伝えるための例外です。
+	 */
+	private static class MapperException extends RuntimeException {
+
+		private static final long serialVersionUID = 1L;
+
+		MapperException(Throwable cause) {
+			super(cause);
+		}
+	}
+
+	@FunctionalInterface
+	public interface Mapper<E, R> {
+		R apply(E item) throws Exception;
+	}
+
+	@FunctionalInterface
+	public interface Combiner<R> {
+		R combine(R a, R b) throws Exception;
+	}
+}
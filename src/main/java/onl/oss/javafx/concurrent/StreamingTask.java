@@ -0,0 +1,235 @@
+package onl.oss.javafx.concurrent;
+
+import javafx.animation.AnimationTimer;
+import javafx.application.Platform;
+import javafx.collections.ObservableList;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * バックグラウンドで生成した結果を、少しずつ ObservableList に追加するタスクです。
+ * <p>
+ * ワーカースレッドで {@link Publisher#publish(Object)} した要素はバッファーに蓄えられ、
+ * JavaFX アプリケーション・スレッドでパルスごとに1回の addAll でリストに追加されます。
+ * 要素ごとに Platform.runLater を呼び出す場合と異なり、大量の要素を生成しても JavaFX アプリケーション・スレッドのキューがあふれることがなく、
+ * 完了を待ってから setAll する場合と異なり、最初の結果がすぐに表示されます。</p>
+ * <pre>
+ * StreamingTask.create(tableView.getItems(), publisher -&gt; {
+ *     try(Stream&lt;Row&gt; rows = query()) {
+ *         rows.forEach(publisher::publish);
+ *     }
+ * }).onSucceeded(count -&gt; status.setText(count + " 件")).start();
+ * </pre>
+ * <p>
+ * タスクの値は公開した要素の総数です。タスクが成功または失敗した場合、onSucceeded などのコールバックを呼び出す前に残りの要素をリストに追加します。
+ * キャンセルされた場合、まだ追加されていない要素は破棄され、それ以降の publish は {@link CancellationException} をスローします。</p>
+ *
+ */
+public class StreamingTask<T> extends AsyncTask<Long> {
+
+	private final ObservableList<? super T> target;
+	private final Producer<T> producer;
+	private final Object lock = new Object();
+	private final AtomicBoolean isScheduled = new AtomicBoolean();
+	private final AnimationTimer timer = new AnimationTimer() {
+		@Override
+		public void handle(long now) {
+			flush();
+		}
+	};
+	private final Publisher<T> publisher = new Publisher<>() {
+		@Override
+		public void publish(T item) {
+			checkCancelled();
+			synchronized (lock) {
+				buffer.add(item);
+				publishedCount++;
+			}
+			schedule();
+		}
+
+		@Override
+		public void publish(Collection<? extends T> items) {
+			checkCancelled();
+			synchronized (lock) {
+				buffer.addAll(items);
+				publishedCount += items.size();
+			}
+			schedule();
+		}
+	};
+	private List<T> buffer = new ArrayList<>();
+	private long publishedCount;
+	private volatile int maxItemsPerPulse = Integer.MAX_VALUE;
+	private volatile Pipeline enclosingPipeline;
+
+	public static <T> StreamingTask<T> create(ObservableList<? super T> target, Producer<T> producer) {
+		return new StreamingTask<T>(target, producer);
+	}
+
+	public StreamingTask(ObservableList<? super T> target, Producer<T> producer) {
+		super(null);
+		if(target == null || producer == null) {
+			throw new NullPointerException();
+		}
+		this.target = target;
+		this.producer = producer;
+	}
+
+	/**
+	 * 1回のパルスでリストに追加する要素の最大数を設定します。既定値は無制限です。
+	 * 要素の追加によってリストに関連付けられたビューの更新が重くなる場合に、1フレームあたりの処理量を制限できます。
+	 *
+	 * @param maxItemsPerPulse 1回のパルスでリストに追加する要素の最大数
+	 * @return このタスク
+	 */
+	public StreamingTask<T> maxItemsPerPulse(int maxItemsPerPulse) {
+		if(maxItemsPerPulse < 1) {
+			throw new IllegalArgumentException("maxItemsPerPulse: " + maxItemsPerPulse);
+		}
+		this.maxItemsPerPulse = maxItemsPerPulse;
+		return this;
+	}
+
+	/**
+	 * まだリストに追加されていない要素の数を返します。
+	 *
+	 * @return まだリストに追加されていない要素の数
+	 */
+	public int getPendingCount() {
+		synchronized (lock) {
+			return buffer.size();
+		}
+	}
+
+	@Override
+	protected Long call() throws Exception {
+		producer.produce(publisher);
+		synchronized (lock) {
+			return publishedCount;
+		}
+	}
+
+	@Override
+	Callable<Long> asCallable(Pipeline pipeline) {
+		// パイプラインの前段として実行した場合、このタスクは開始もキャンセルもされないため、キャンセルはパイプラインで確認します。
+		enclosingPipeline = pipeline;
+		return () -> {
+			// このタスクの succeeded() などが呼び出されないため、
+			// 後続の処理に進む前に、残りの要素をリストに追加（キャンセルされた場合は破棄）します。
+			try {
+				return call();
+			} finally {
+				runOnFxApplicationThread(() -> finish(!isStreamCancelled()));
+			}
+		};
+	}
+
+	@Override
+	protected void succeeded() {
+		finish(!isDiscarded());
+		super.succeeded();
+	}
+
+	@Override
+	protected void failed() {
+		finish(!isDiscarded());
+		super.failed();
+	}
+
+	@Override
+	protected void cancelled() {
+		finish(false);
+		super.cancelled();
+	}
+
+	private boolean isStreamCancelled() {
+		Pipeline pipeline = enclosingPipeline;
+		return pipeline != null ? pipeline.isCancelled() : isCancelled() || isDiscarded();
+	}
+
+	private void checkCancelled() {
+		if(isStreamCancelled()) {
+			throw new CancellationException();
+		}
+	}
+
+	private void schedule() {
+		if(isScheduled.compareAndSet(false, true)) {
+			Platform.runLater(timer::start);
+		}
+	}
+
+	private void flush() {
+		List<T> items;
+		boolean isEmpty;
+		synchronized (lock) {
+			int max = maxItemsPerPulse;
+			if(buffer.size() <= max) {
+				items = buffer;
+				buffer = new ArrayList<>();
+			} else {
+				List<T> head = buffer.subList(0, max);
+				items = new ArrayList<>(head);
+				head.clear();
+			}
+			isEmpty = buffer.isEmpty();
+		}
+		if(!items.isEmpty() && !isStreamCancelled()) {
+			target.addAll(items);
+		}
+		if(isEmpty) {
+			// バッファーが空になったらタイマーを停止し、停止までの間に公開された要素があれば再開します。
+			timer.stop();
+			isScheduled.set(false);
+			if(getPendingCount() > 0 && isScheduled.compareAndSet(false, true)) {
+				timer.start();
+			}
+		}
+	}
+
+	private void finish(boolean isFlush) {
+		timer.stop();
+		List<T> items;
+		synchronized (lock) {
+			items = buffer;
+			buffer = new ArrayList<>();
+		}
+		if(isFlush && !items.isEmpty()) {
+			target.addAll(items);
+		}
+	}
+
+	/**
+	 * ワーカースレッドで生成した要素を公開するためのインターフェースです。
+	 *
+	 */
+	public interface Publisher<T> {
+
+		/**
+		 * 要素を公開します。要素は次のパルスでリストに追加されます。
+		 *
+		 * @param item 要素
+		 * @throws CancellationException タスクがキャンセルされている場合
+		 */
+		void publish(T item);
+
+		/**
+		 * 複数の要素を公開します。要素は次のパルスでリストに追加されます。
+		 *
+		 * @param items 要素のコレクション
+		 * @throws CancellationException タスクがキャンセルされている場合
+		 */
+		void publish(Collection<? extends T> items);
+	}
+
+	@FunctionalInterface
+	public interface Producer<T> {
+		void produce(Publisher<T> publisher) throws Exception;
+	}
+}
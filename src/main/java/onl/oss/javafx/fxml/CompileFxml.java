@@ -0,0 +1,32 @@
+package onl.oss.javafx.fxml;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * コントローラー・クラスと同じ場所にある FXML をビルド時に Java コードへ変換することを指定します。
+ * <p>
+ * 注釈プロセッサー {@link FxmlProcessor} は、コントローラー・クラス Foo と同じパッケージにある Foo.fxml を読み込み、
+ * {@link FxmlFactory} を実装したクラス FooFxml を生成します。
+ * {@link Fxml#load(Object)} と {@link Fxml#load(Object, Object)} は、生成されたクラスが存在する場合は FXMLLoader の代わりにこれを使用します。</p>
+ * <p>
+ * Gradle では fx-util を annotationProcessor 構成にも追加してください。</p>
+ * <pre>
+ * dependencies {
+ *     implementation files('lib/fx-util.jar')
+ *     annotationProcessor files('lib/fx-util.jar')
+ * }
+ * </pre>
+ * <p>
+ * FXML がコンパイルに対応していない機能（fx:include、fx:script、式バインディング、リソース・バンドルなど）を使用している場合、
+ * 警告を出力してクラスの生成をスキップします。この場合、実行時は従来どおり FXMLLoader が使用されます。</p>
+ *
+ */
+@Documented
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.TYPE)
+public @interface CompileFxml {
+}
@@ -1,88 +1,98 @@
 package onl.oss.javafx.fxml;
 
+import javafx.application.Platform;
 import javafx.fxml.FXMLLoader;
-import javafx.scene.Node;
-import javafx.scene.Parent;
-import javafx.scene.control.ContextMenu;
-import javafx.scene.control.MenuBar;
-import javafx.scene.control.TextInputControl;
-import onl.oss.javafx.scene.control.ContextMenuUtil;
-import onl.oss.javafx.scene.control.HiDpiFixedInputMethodRequests;
+import javafx.util.Duration;
 
+import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStreamReader;
 import java.io.UncheckedIOException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 
 public class Fxml {
 
-    public static <T> T load(Class<?> cls) {
-        boolean isContextClassLoaderReplaced = false;
-        try {
-            isContextClassLoaderReplaced = setContextClassLoaderIfNeeded();
+    private static volatile Executor executor;
 
-            String fxmlFilename = cls.getSimpleName() + ".fxml";
-            FXMLLoader loader = new FXMLLoader(cls.getResource(fxmlFilename));
+    private static final ClassValue<Optional<FxmlFactory<Object>>> factories = new ClassValue<>() {
+        @Override
+        protected Optional<FxmlFactory<Object>> computeValue(Class<?> type) {
+            // @CompileFxml によって生成されたクラスがあれば使用します。
             try {
-                T obj = loader.load();
-                fix(obj);
-                return obj;
-            } catch (IOException e) {
-                throw new UncheckedIOException(e);
-            }
-
-        } finally {
-            if(isContextClassLoaderReplaced) {
-                Thread.currentThread().setContextClassLoader(null);
+                Class<?> factoryClass = Class.forName(type.getName() + FxmlProcessor.FACTORY_SUFFIX, true, type.getClassLoader());
+                if(FxmlFactory.class.isAssignableFrom(factoryClass)) {
+                    @SuppressWarnings("unchecked")
+                    FxmlFactory<Object> factory = (FxmlFactory<Object>)factoryClass.getDeclaredConstructor().newInstance();
+                    return Optional.of(factory);
+                }
+            } catch(ClassNotFoundException ignore) {
+            } catch(ReflectiveOperationException e) {
+                throw new IllegalStateException(e);
             }
+            return Optional.empty();
         }
+    };
+
+    public static <T> T load(Class<?> cls) {
+        String fxmlFilename = cls.getSimpleName() + ".fxml";
+        return loadImpl(cls.getResource(fxmlFilename), null, null);
     }
 
     public static <T> T load(Object root, Class<?> cls) {
-        boolean isContextClassLoaderReplaced = false;
-        try {
-            isContextClassLoaderReplaced = setContextClassLoaderIfNeeded();
-
-            String fxmlFilename = cls.getSimpleName() + ".fxml";
-            FXMLLoader loader = new FXMLLoader(cls.getResource(fxmlFilename));
-            loader.setRoot(root);
-            try {
-                T obj = loader.load();
-                fix(obj);
-                return obj;
-            } catch (IOException e) {
-                throw new UncheckedIOException(e);
-            }
-
-        } finally {
-            if(isContextClassLoaderReplaced) {
-                Thread.currentThread().setContextClassLoader(null);
-            }
-        }
+        String fxmlFilename = cls.getSimpleName() + ".fxml";
+        return loadImpl(cls.getResource(fxmlFilename), root, null);
     }
 
     public static <T> T load(Object controller) {
-        boolean isContextClassLoaderReplaced = false;
-        try {
-            isContextClassLoaderReplaced = setContextClassLoaderIfNeeded();
+        FxmlFactory<Object> factory = factories.get(controller.getClass()).orElse(null);
+        if(factory != null) {
+            return loadImpl(factory, null, controller);
+        }
 
-            String fxmlFilename = controller.getClass().getSimpleName() + ".fxml";
-            FXMLLoader loader = new FXMLLoader(controller.getClass().getResource(fxmlFilename));
-            loader.setController(controller);
-            try {
-                T obj = loader.load();
-                fix(obj);
-                return obj;
-            } catch (IOException e) {
-                throw new UncheckedIOException(e);
-            }
+        String fxmlFilename = controller.getClass().getSimpleName() + ".fxml";
+        return loadImpl(controller.getClass().getResource(fxmlFilename), null, controller);
+    }
 
-        } finally {
-            if(isContextClassLoaderReplaced) {
-                Thread.currentThread().setContextClassLoader(null);
+    public static <T> T load(Object root, Object controller) {
+        Class<?> cls = null;
+        if(controller != null) {
+            cls = controller.getClass();
+        } else if(root != null) {
+            cls = root.getClass();
+        } else {
+            throw new NullPointerException();
+        }
+
+        if(controller != null) {
+            FxmlFactory<Object> factory = factories.get(cls).orElse(null);
+            if(factory != null) {
+                return loadImpl(factory, root, controller);
             }
         }
+
+        String fxmlFilename = cls.getSimpleName() + ".fxml";
+        return loadImpl(cls.getResource(fxmlFilename), root, controller);
     }
 
-    public static <T> T load(Object root, Object controller) {
+    public static <T> T load(Object controller, String fxmlFilename) {
+        return loadImpl(controller.getClass().getResource(fxmlFilename), null, controller);
+    }
+
+    public static <T> T load(Object root, Object controller, String fxmlFilename) {
         Class<?> cls = null;
         if(controller != null) {
             cls = controller.getClass();
@@ -92,78 +102,226 @@ public class Fxml {
             throw new NullPointerException();
         }
 
-        boolean isContextClassLoaderReplaced = false;
-        try {
-            isContextClassLoaderReplaced = setContextClassLoaderIfNeeded();
+        return loadImpl(cls.getResource(fxmlFilename), root, controller);
+    }
 
-            String fxmlFilename = cls.getSimpleName() + ".fxml";
-            FXMLLoader loader = new FXMLLoader(cls.getResource(fxmlFilename));
-            if(root != null) {
-                loader.setRoot(root);
-            }
-            if(controller != null) {
-                loader.setController(controller);
-            }
+    /**
+     * 非同期ロードに使用する Executor を設定します。
+     * <p>
+     * null を指定すると既定の Executor（利用可能なプロセッサー数をスレッド数の上限とする、デーモン・スレッドのスレッド・プール）を使用します。</p>
+     *
+     * @param executor 非同期ロードに使用する Executor
+     */
+    public static void setExecutor(Executor executor) {
+        Fxml.executor = executor;
+    }
+
+    /**
+     * 非同期ロードに使用する Executor を返します。
+     *
+     * @return 非同期ロードに使用する Executor
+     */
+    public static Executor getExecutor() {
+        Executor e = executor;
+        return e != null ? e : DefaultExecutorHolder.INSTANCE;
+    }
+
+    /**
+     * {@link #load(Class)} をワーカースレッドで実行します。
+     * <p>
+     * ノードは JavaFX アプリケーション・スレッド以外で生成されます。
+     * 返された CompletableFuture は JavaFX アプリケーション・スレッドで完了するため、
+     * thenAccept などで登録したコールバックから生成されたノードをそのままシーンに追加できます。</p>
+     *
+     * @param cls FXML ファイルと同じ名前のクラス
+     * @return ロード結果のルート・オブジェクトで完了する CompletableFuture
+     */
+    public static <T> CompletableFuture<T> loadAsync(Class<?> cls) {
+        return loadAsync(getExecutor(), () -> load(cls));
+    }
+
+    /**
+     * {@link #load(Object)} をワーカースレッドで実行します。
+     *
+     * @param controller コントローラー
+     * @return ロード結果のルート・オブジェクトで JavaFX アプリケーション・スレッドで完了する CompletableFuture
+     */
+    public static <T> CompletableFuture<T> loadAsync(Object controller) {
+        return loadAsync(getExecutor(), () -> load(controller));
+    }
+
+    /**
+     * {@link #load(Object, Object)} をワーカースレッドで実行します。
+     *
+     * @param root ルート・オブジェクト
+     * @param controller コントローラー
+     * @return ロード結果のルート・オブジェクトで JavaFX アプリケーション・スレッドで完了する CompletableFuture
+     */
+    public static <T> CompletableFuture<T> loadAsync(Object root, Object controller) {
+        return loadAsync(getExecutor(), () -> load(root, controller));
+    }
+
+    /**
+     * {@link #load(Object, String)} をワーカースレッドで実行します。
+     *
+     * @param controller コントローラー
+     * @param fxmlFilename FXML ファイル名
+     * @return ロード結果のルート・オブジェクトで JavaFX アプリケーション・スレッドで完了する CompletableFuture
+     */
+    public static <T> CompletableFuture<T> loadAsync(Object controller, String fxmlFilename) {
+        return loadAsync(getExecutor(), () -> load(controller, fxmlFilename));
+    }
+
+    /**
+     * 指定した Executor でロードを実行します。
+     * <p>
+     * 例: {@code Fxml.loadAsync(executor, () -> Fxml.load(root, controller, "Other.fxml"))}</p>
+     *
+     * @param executor ロードを実行する Executor
+     * @param loader ロード処理
+     * @return ロード結果で JavaFX アプリケーション・スレッドで完了する CompletableFuture。JavaFX ランタイムが動作していない場合はワーカースレッドで完了します
+     */
+    public static <T> CompletableFuture<T> loadAsync(Executor executor, Supplier<T> loader) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        CompletableFuture.supplyAsync(loader, executor).whenComplete((obj, exception) -> {
+            Runnable completion = () -> {
+                if(exception != null) {
+                    Throwable cause = exception;
+                    if(cause instanceof CompletionException && cause.getCause() != null) {
+                        cause = cause.getCause();
+                    }
+                    future.completeExceptionally(cause);
+                } else {
+                    future.complete(obj);
+                }
+            };
             try {
-                T obj = loader.load();
-                fix(obj);
-                return obj;
+                Platform.runLater(completion);
+            } catch(IllegalStateException e) {
+                // JavaFX ランタイムが初期化されていないか終了している場合は、呼出し側が待ち続けないようにこのスレッドで完了します。
+                completion.run();
+            }
+        });
+        return future;
+    }
+
+    /**
+     * 指定したクラスに対応する FXML をバックグラウンドで事前にロードします。
+     * <p>
+     * {@link #load(Class)} と同じ規則（クラスと同じ場所にある「単純名 + .fxml」）で FXML を解決し、
+     * FXML の内容をキャッシュして、FXML が参照するクラスをロードして初期化します。@CompileFxml によって生成されたクラスがある場合は、そのクラスも初期化します。ノードは生成しません。
+     * アプリケーション起動後、次に開かれる可能性が高いウィンドウやダイアログを指定することで、初回表示を2回目以降と同じ速さにできます。</p>
+     * <p>
+     * 事前ロードは {@link #getExecutor()} のスレッドで、スレッドの優先度を下げて順番に実行されます。
+     * 返された CompletableFuture は JavaFX アプリケーション・スレッドで完了します。</p>
+     *
+     * @param classes FXML ファイルと同じ名前のクラス
+     * @return 各クラスの事前ロード結果のリストで完了する CompletableFuture
+     */
+    public static CompletableFuture<List<PreloadResult>> preload(Class<?>... classes) {
+        List<Class<?>> list = List.of(classes);
+        return loadAsync(getExecutor(), () -> preloadImpl(list));
+    }
+
+    /**
+     * 事前ロードするクラスの一覧ファイルに記載されたクラスに対応する FXML をバックグラウンドで事前にロードします。
+     * <p>
+     * 一覧ファイルには完全修飾クラス名を1行に1つずつ記述します。空行と # で始まる行は無視されます。</p>
+     * <pre>
+     * # 起動後に事前ロードするビュー
+     * com.example.SettingsDialog
+     * com.example.AboutDialog
+     * </pre>
+     *
+     * @param listLocation 一覧ファイルの場所
+     * @return 各クラスの事前ロード結果のリストで完了する CompletableFuture
+     * @see #preload(Class...)
+     */
+    public static CompletableFuture<List<PreloadResult>> preload(URL listLocation) {
+        return loadAsync(getExecutor(), () -> {
+            List<String> names = new ArrayList<>();
+            try(BufferedReader reader = new BufferedReader(new InputStreamReader(listLocation.openStream(), StandardCharsets.UTF_8))) {
+                String line;
+                while((line = reader.readLine()) != null) {
+                    line = line.trim();
+                    if(!line.isEmpty() && !line.startsWith("#")) {
+                        names.add(line);
+                    }
+                }
             } catch (IOException e) {
                 throw new UncheckedIOException(e);
             }
 
-        } finally {
-            if(isContextClassLoaderReplaced) {
-                Thread.currentThread().setContextClassLoader(null);
+            ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+            if(classLoader == null) {
+                classLoader = Fxml.class.getClassLoader();
             }
-        }
+            List<Class<?>> classes = new ArrayList<>();
+            List<PreloadResult> failures = new ArrayList<>();
+            for(String name : names) {
+                try {
+                    classes.add(Class.forName(name, false, classLoader));
+                } catch (ClassNotFoundException | LinkageError e) {
+                    failures.add(new PreloadResult(name, null, 0, e));
+                }
+            }
+            List<PreloadResult> results = preloadImpl(classes);
+            results.addAll(failures);
+            return results;
+        });
     }
 
-    public static <T> T load(Object controller, String fxmlFilename) {
+    private static List<PreloadResult> preloadImpl(List<Class<?>> classes) {
+        List<PreloadResult> results = new ArrayList<>();
+        Thread thread = Thread.currentThread();
+        int priority = thread.getPriority();
         boolean isContextClassLoaderReplaced = false;
         try {
+            thread.setPriority(Thread.MIN_PRIORITY);
             isContextClassLoaderReplaced = setContextClassLoaderIfNeeded();
 
-            FXMLLoader loader = new FXMLLoader(controller.getClass().getResource(fxmlFilename));
-            loader.setController(controller);
-            try {
-                T obj = loader.load();
-                fix(obj);
-                return obj;
-            } catch (IOException e) {
-                throw new UncheckedIOException(e);
+            for(Class<?> cls : classes) {
+                long start = System.nanoTime();
+                URL location = null;
+                Throwable exception = null;
+                try {
+                    Class.forName(cls.getName(), true, cls.getClassLoader());
+                    // 生成されたクラスを使用するのはコントローラーを指定したロードだけなので、FXML があれば常に事前ロードします。
+                    boolean hasFactory = factories.get(cls).isPresent();
+                    location = cls.getResource(cls.getSimpleName() + ".fxml");
+                    if(location != null) {
+                        FxmlCache.get(location).warmUp();
+                    } else if(!hasFactory) {
+                        throw new IOException(cls.getSimpleName() + ".fxml is not found.");
+                    }
+                } catch (Exception | LinkageError e) {
+                    exception = e;
+                }
+                results.add(new PreloadResult(cls.getName(), location, System.nanoTime() - start, exception));
             }
-
         } finally {
             if(isContextClassLoaderReplaced) {
-                Thread.currentThread().setContextClassLoader(null);
+                thread.setContextClassLoader(null);
             }
+            thread.setPriority(priority);
         }
+        return results;
     }
 
-    public static <T> T load(Object root, Object controller, String fxmlFilename) {
-        Class<?> cls = null;
-        if(controller != null) {
-            cls = controller.getClass();
-        } else if(root != null) {
-            cls = root.getClass();
-        } else {
-            throw new NullPointerException();
-        }
-
+    static <T> T loadImpl(URL location, Object root, Object controller) {
         boolean isContextClassLoaderReplaced = false;
         try {
             isContextClassLoaderReplaced = setContextClassLoaderIfNeeded();
 
-            FXMLLoader loader = new FXMLLoader(cls.getResource(fxmlFilename));
-            if(root != null) {
-                loader.setRoot(root);
-            }
-            if(controller != null) {
-                loader.setController(controller);
-            }
             try {
-                T obj = loader.load();
+                T obj;
+                if(location != null) {
+                    obj = FxmlCache.get(location).load(root, controller);
+                } else {
+                    // リソースが見つからない場合は従来どおり FXMLLoader に例外をスローさせます。
+                    FXMLLoader loader = new FXMLLoader();
+                    obj = loader.load();
+                }
                 fix(obj);
                 return obj;
             } catch (IOException e) {
@@ -177,6 +335,12 @@ public class Fxml {
         }
     }
 
+    private static <T> T loadImpl(FxmlFactory<Object> factory, Object root, Object controller) {
+        @SuppressWarnings("unchecked")
+        T obj = (T)factory.load(root, controller);
+        fix(obj);
+        return obj;
+    }
 
     private static boolean setContextClassLoaderIfNeeded() {
         //
@@ -205,19 +369,99 @@ public class Fxml {
     }
 
     private static void fix(Object obj) {
-        if (obj == null) {
-            return;
-        }
-        if (obj instanceof MenuBar) {
-            ContextMenuUtil.fix((MenuBar) obj);
-        } else if (obj instanceof ContextMenu) {
-            ContextMenuUtil.fix((ContextMenu) obj);
-        } else if (obj instanceof TextInputControl) {
-            HiDpiFixedInputMethodRequests.fix((TextInputControl) obj);
-        } else if (obj instanceof Parent) {
-            for (Node child : ((Parent) obj).getChildrenUnmodifiable()) {
-                fix(child);
-            }
+        FxmlFixers.apply(obj);
+    }
+
+    /**
+     * 事前ロードの結果です。
+     *
+     * @see #preload(Class...)
+     */
+    public static final class PreloadResult {
+
+        private final String name;
+        private final URL location;
+        private final long elapsedNanos;
+        private final Throwable exception;
+
+        PreloadResult(String name, URL location, long elapsedNanos, Throwable exception) {
+            this.name = name;
+            this.location = location;
+            this.elapsedNanos = elapsedNanos;
+            this.exception = exception;
+        }
+
+        /**
+         * 事前ロードしたクラスの完全修飾名を返します。
+         *
+         * @return クラス名
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * 事前ロードした FXML の場所を返します。FXML がなく、@CompileFxml によって生成されたクラスだけを初期化した場合は null を返します。
+         *
+         * @return FXML の場所
+         */
+        public URL getLocation() {
+            return location;
+        }
+
+        /**
+         * 事前ロードに要した時間を返します。
+         *
+         * @return 事前ロードに要した時間
+         */
+        public Duration getElapsedTime() {
+            return Duration.millis(elapsedNanos / 1_000_000.0);
+        }
+
+        /**
+         * 事前ロードに成功した場合に true を返します。
+         *
+         * @return 事前ロードに成功した場合は true
+         */
+        public boolean isWarmed() {
+            return exception == null;
+        }
+
+        /**
+         * 事前ロードに失敗した原因の例外を返します。成功した場合は null を返します。
+         *
+         * @return 事前ロードに失敗した原因の例外
+         */
+        public Throwable getException() {
+            return exception;
+        }
+
+        @Override
+        public String toString() {
+            return name + (exception == null ? " warmed in " : " failed in ") + String.format("%.1fms", elapsedNanos / 1_000_000.0)
+                    + (exception == null ? "" : " (" + exception + ")");
+        }
+    }
+
+    private static class DefaultExecutorHolder {
+        // 大量の非同期ロードが同時に要求されてもスレッドが際限なく増えないように、スレッド数をプロセッサー数までに制限します。
+        // 超過したロードはキューで待機し、アイドル状態のスレッドは一定時間後に終了します。
+        private static final ExecutorService INSTANCE = createExecutor();
+
+        private static ExecutorService createExecutor() {
+            int threads = Math.max(2, Runtime.getRuntime().availableProcessors());
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), new ThreadFactory() {
+                private final AtomicInteger count = new AtomicInteger();
+
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "Fxml-Loader-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+            executor.allowCoreThreadTimeOut(true);
+            return executor;
         }
     }
 }
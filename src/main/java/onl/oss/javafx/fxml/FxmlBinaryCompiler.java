@@ -0,0 +1,89 @@
+package onl.oss.javafx.fxml;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * FXML ファイルをバイナリー形式（拡張子 .fxmlb）に変換するビルド・ツールです。
+ * <p>
+ * 変換されたファイルを FXML ファイルと同じパッケージに配置すると、{@link Fxml} は FXMLLoader の代わりにバイナリー形式を使用してロードします。
+ * バイナリー形式が対応していない機能（スクリプト、式バインディング、fx:include など）を使用している FXML ファイルは変換されず、
+ * 実行時には従来どおり FXMLLoader が使用されます。</p>
+ * <pre>
+ * java -cp &lt;クラスパス&gt; onl.oss.javafx.fxml.FxmlBinaryCompiler &lt;出力ディレクトリ&gt; &lt;ソース・ディレクトリ&gt;...
+ * </pre>
+ * <p>
+ * FXML で使用する型はビルド時に解決されるため、アプリケーションのクラスをクラスパスに含めて実行する必要があります。</p>
+ *
+ */
+public final class FxmlBinaryCompiler {
+
+	/** バイナリー形式のファイルの拡張子に付加される接尾辞です。Hello.fxml は Hello.fxmlb に変換されます。 */
+	public static final String EXTENSION_SUFFIX = "b";
+
+	private FxmlBinaryCompiler() {
+	}
+
+	public static void main(String[] args) throws IOException {
+		if(args.length < 2) {
+			System.err.println("Usage: FxmlBinaryCompiler <output directory> <source directory>...");
+			System.exit(2);
+			return;
+		}
+		Path outputDirectory = Paths.get(args[0]);
+		ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+		int compiled = 0;
+		for(int i = 1; i < args.length; i++) {
+			Path sourceDirectory = Paths.get(args[i]);
+			if(!Files.isDirectory(sourceDirectory)) {
+				continue;
+			}
+			List<Path> files;
+			try(Stream<Path> stream = Files.walk(sourceDirectory)) {
+				files = stream
+						.filter(path -> Files.isRegularFile(path) && path.getFileName().toString().endsWith(".fxml"))
+						.collect(Collectors.toList());
+			}
+			for(Path file : files) {
+				Path relative = sourceDirectory.relativize(file);
+				Path output = outputDirectory.resolve(relative.toString() + EXTENSION_SUFFIX);
+				if(compile(file, output, classLoader)) {
+					compiled++;
+				} else {
+					System.out.println("skip: " + relative);
+				}
+			}
+		}
+		System.out.println(compiled + " FXML file(s) compiled.");
+	}
+
+	/** FXML ファイルをバイナリー形式に変換します。
+	 *
+	 * @param source FXML ファイル
+	 * @param output 出力ファイル
+	 * @param classLoader 型の解決に使用するクラスローダー
+	 * @return 変換した場合は true、バイナリー形式が対応していない機能が使用されているため変換しなかった場合は false
+	 * @throws IOException FXML ファイルの読み込み、解析、出力ファイルの書き込みに失敗した場合
+	 */
+	public static boolean compile(Path source, Path output, ClassLoader classLoader) throws IOException {
+		byte[] data;
+		try {
+			data = FxmlBinaryWriter.write(Files.readAllBytes(source), classLoader);
+		} catch(FxmlBinaryDocument.UnsupportedFxmlException e) {
+			System.out.println(source + ": " + e.getMessage());
+			Files.deleteIfExists(output);
+			return false;
+		}
+		Path parent = output.getParent();
+		if(parent != null) {
+			Files.createDirectories(parent);
+		}
+		Files.write(output, data);
+		return true;
+	}
+}
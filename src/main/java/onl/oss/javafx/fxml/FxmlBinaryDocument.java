@@ -0,0 +1,762 @@
+package onl.oss.javafx.fxml;
+
+import javafx.beans.DefaultProperty;
+import javafx.event.Event;
+import javafx.event.EventHandler;
+import javafx.fxml.LoadException;
+import javafx.util.Builder;
+import javafx.util.BuilderFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.lang.reflect.Array;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.TypeVariable;
+import java.lang.reflect.WildcardType;
+import java.net.URL;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * バイナリー形式の FXML 文書です。
+ * <p>
+ * {@link FxmlBinaryWriter} が出力した命令列を解釈してオブジェクト・グラフを生成します。
+ * XML の解析とインポートによる型の検索をおこなわないため、FXMLLoader よりも高速にロードできます。</p>
+ *
+ */
+final class FxmlBinaryDocument {
+
+	static final int MAGIC = 0x46584D42; // "FXMB"
+	static final String LOCATION_KEY = "location";
+	static final String RESOURCES_KEY = "resources";
+	static final int VERSION = 2;
+
+	static final int OP_END = 0;
+	static final int OP_INSTANCE = 1;
+	static final int OP_VALUE = 2;
+	static final int OP_CONSTANT = 3;
+	static final int OP_FACTORY = 4;
+	static final int OP_ROOT = 5;
+	static final int OP_REFERENCE = 6;
+	static final int OP_ID = 7;
+	static final int OP_CONTROLLER = 8;
+	static final int OP_PROPERTY = 9;
+	static final int OP_PROPERTY_LOCATION = 10;
+	static final int OP_STATIC_PROPERTY = 11;
+	static final int OP_STATIC_PROPERTY_LOCATION = 12;
+	static final int OP_EVENT_HANDLER = 13;
+	static final int OP_BEGIN_PROPERTY = 14;
+	static final int OP_BEGIN_STATIC_PROPERTY = 15;
+	static final int OP_BEGIN_DEFINE = 16;
+	static final int OP_TEXT = 17;
+	static final int OP_TEXT_LOCATION = 18;
+
+	@SuppressWarnings("serial")
+	static class UnsupportedFxmlException extends Exception {
+		UnsupportedFxmlException(String message) {
+			super(message);
+		}
+	}
+
+	private final URL location;
+	private final String[] strings;
+	private final String[] classNames;
+	private final byte[] code;
+	private volatile Class<?>[] classes;
+
+	private FxmlBinaryDocument(URL location, String[] strings, String[] classNames, byte[] code) {
+		this.location = location;
+		this.strings = strings;
+		this.classNames = classNames;
+		this.code = code;
+	}
+
+	/** バイナリー形式のデータを読み込みます。
+	 * データが壊れている場合や、元の FXML 文書と内容が一致しない場合は null を返します。
+	 *
+	 * @param location 元の FXML 文書の場所
+	 * @param source 元の FXML 文書の内容
+	 * @param data バイナリー形式のデータ
+	 * @return バイナリー形式の FXML 文書
+	 */
+	static FxmlBinaryDocument read(URL location, byte[] source, byte[] data) {
+		try {
+			DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+			if(in.readInt() != MAGIC || in.readUnsignedByte() != VERSION) {
+				return null;
+			}
+			CRC32 crc = new CRC32();
+			crc.update(source);
+			if(in.readInt() != (int)crc.getValue() || in.readInt() != source.length) {
+				return null;
+			}
+			String[] strings = new String[readVarInt(in)];
+			for(int i = 0; i < strings.length; i++) {
+				strings[i] = in.readUTF();
+			}
+			String[] classNames = new String[readVarInt(in)];
+			for(int i = 0; i < classNames.length; i++) {
+				classNames[i] = strings[readVarInt(in)];
+			}
+			byte[] code = new byte[readVarInt(in)];
+			in.readFully(code);
+			return new FxmlBinaryDocument(location, strings, classNames, code);
+		} catch(IOException | RuntimeException e) {
+			return null;
+		}
+	}
+
+	private static int readVarInt(DataInputStream in) throws IOException {
+		int value = 0;
+		for(int shift = 0; ; shift += 7) {
+			int b = in.readUnsignedByte();
+			value |= (b & 0x7F) << shift;
+			if((b & 0x80) == 0) {
+				return value;
+			}
+		}
+	}
+
+	/** 命令列が参照するすべてのクラスをロードして初期化します。
+	 *
+	 * @throws ClassNotFoundException クラスが見つからない場合
+	 */
+	void resolveClasses() throws ClassNotFoundException {
+		getClasses();
+	}
+
+	private Class<?>[] getClasses() throws ClassNotFoundException {
+		Class<?>[] classes = this.classes;
+		if(classes == null) {
+			ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+			classes = new Class<?>[classNames.length];
+			for(int i = 0; i < classes.length; i++) {
+				classes[i] = Class.forName(classNames[i], true, classLoader);
+			}
+			this.classes = classes;
+		}
+		return classes;
+	}
+
+	/** オブジェクト・グラフを生成します。
+	 *
+	 * @param root fx:root に対応するルート・オブジェクト
+	 * @param controller コントローラー
+	 * @param builderFactory ビルダー・ファクトリー
+	 * @return ルート・オブジェクト
+	 * @throws LoadException オブジェクト・グラフの生成に失敗した場合
+	 */
+	Object load(Object root, Object controller, BuilderFactory builderFactory) throws LoadException {
+		try {
+			return new Interpreter(root, controller, builderFactory).run();
+		} catch(LoadException e) {
+			throw e;
+		} catch(InvocationTargetException e) {
+			throw new LoadException(location + ": " + e.getCause(), e.getCause());
+		} catch(Exception e) {
+			throw new LoadException(location + ": " + e, e);
+		}
+	}
+
+	private static class Frame {
+	}
+
+	private static class InstanceFrame extends Frame {
+		Class<?> type;
+		Object value;
+		Builder<?> builder;
+		String id;
+		List<Object> defaultValues;
+		List<Object[]> staticProperties;
+	}
+
+	private static class PropertyFrame extends Frame {
+		Class<?> owner;
+		String name;
+		List<Object> values = new ArrayList<>();
+	}
+
+	private static class DefineFrame extends Frame {
+	}
+
+	private class Interpreter {
+
+		private final Object root;
+		private Object controller;
+		private FxmlInjector injector;
+		private final BuilderFactory builderFactory;
+		private final Map<String, Object> namespace = new HashMap<>();
+		private final Deque<Frame> stack = new ArrayDeque<>();
+		private int pc;
+
+		Interpreter(Object root, Object controller, BuilderFactory builderFactory) {
+			this.root = root;
+			this.controller = controller;
+			this.builderFactory = builderFactory;
+			// FXMLLoader と同様に、location と resources を名前空間に格納してコントローラーに注入します。
+			namespace.put(LOCATION_KEY, location);
+			namespace.put(RESOURCES_KEY, null);
+		}
+
+		private void setController(Object controller) throws LoadException {
+			FxmlInjector injector = FxmlInjector.of(controller.getClass());
+			if(!injector.isAvailable()) {
+				throw new LoadException("Cannot access members of " + controller.getClass().getName() + ".");
+			}
+			this.controller = controller;
+			this.injector = injector;
+			injector.inject(controller, LOCATION_KEY, namespace.get(LOCATION_KEY));
+			injector.inject(controller, RESOURCES_KEY, namespace.get(RESOURCES_KEY));
+		}
+
+		Object run() throws Exception {
+			if(controller != null) {
+				setController(controller);
+			}
+			Class<?>[] classes = getClasses();
+			Object result = null;
+			while(pc < code.length) {
+				int op = code[pc++];
+				switch(op) {
+					case OP_INSTANCE: {
+						InstanceFrame frame = new InstanceFrame();
+						frame.type = classes[operand()];
+						frame.builder = builderFactory.getBuilder(frame.type);
+						if(frame.builder == null) {
+							frame.value = frame.type.getConstructor().newInstance();
+						}
+						stack.push(frame);
+						break;
+					}
+					case OP_VALUE: {
+						Class<?> type = classes[operand()];
+						String value = strings[operand()];
+						push(type, type == String.class ? value : type.getMethod("valueOf", String.class).invoke(null, value));
+						break;
+					}
+					case OP_CONSTANT: {
+						Class<?> type = classes[operand()];
+						push(type, type.getField(strings[operand()]).get(null));
+						break;
+					}
+					case OP_FACTORY: {
+						Class<?> type = classes[operand()];
+						Object value = type.getMethod(strings[operand()]).invoke(null);
+						push(value.getClass(), value);
+						break;
+					}
+					case OP_ROOT: {
+						Class<?> type = classes[operand()];
+						if(root == null) {
+							throw new LoadException("Root hasn't been set. Use method setRoot() before load.");
+						}
+						if(!type.isInstance(root)) {
+							throw new LoadException("Root is not an instance of " + type.getName() + ".");
+						}
+						push(type, root);
+						break;
+					}
+					case OP_REFERENCE: {
+						String source = strings[operand()];
+						Object value = namespace.get(source);
+						if(value == null) {
+							throw new LoadException("Unable to resolve reference to " + source);
+						}
+						push(value.getClass(), value);
+						break;
+					}
+					case OP_ID: {
+						InstanceFrame frame = (InstanceFrame)stack.peek();
+						frame.id = strings[operand()];
+						if(frame.value != null) {
+							putId(frame.id, frame.value);
+						}
+						break;
+					}
+					case OP_CONTROLLER: {
+						Class<?> type = classes[operand()];
+						if(controller != null) {
+							throw new LoadException("Controller value already specified.");
+						}
+						setController(type.getConstructor().newInstance());
+						break;
+					}
+					case OP_PROPERTY:
+					case OP_PROPERTY_LOCATION: {
+						String name = strings[operand()];
+						String value = strings[operand()];
+						setProperty((InstanceFrame)stack.peek(), name, op == OP_PROPERTY_LOCATION ? FxmlFactory.resolveLocation(location, value) : value);
+						break;
+					}
+					case OP_STATIC_PROPERTY:
+					case OP_STATIC_PROPERTY_LOCATION: {
+						Class<?> owner = classes[operand()];
+						String name = strings[operand()];
+						String value = strings[operand()];
+						addStaticProperty((InstanceFrame)stack.peek(), owner, name, op == OP_STATIC_PROPERTY_LOCATION ? FxmlFactory.resolveLocation(location, value) : value);
+						break;
+					}
+					case OP_EVENT_HANDLER: {
+						String name = strings[operand()];
+						String methodName = strings[operand()];
+						setEventHandler((InstanceFrame)stack.peek(), name, methodName);
+						break;
+					}
+					case OP_BEGIN_PROPERTY: {
+						PropertyFrame frame = new PropertyFrame();
+						frame.name = strings[operand()];
+						stack.push(frame);
+						break;
+					}
+					case OP_BEGIN_STATIC_PROPERTY: {
+						PropertyFrame frame = new PropertyFrame();
+						frame.owner = classes[operand()];
+						frame.name = strings[operand()];
+						stack.push(frame);
+						break;
+					}
+					case OP_BEGIN_DEFINE: {
+						stack.push(new DefineFrame());
+						break;
+					}
+					case OP_TEXT:
+					case OP_TEXT_LOCATION: {
+						String value = strings[operand()];
+						((PropertyFrame)stack.peek()).values.add(op == OP_TEXT_LOCATION ? FxmlFactory.resolveLocation(location, value) : value);
+						break;
+					}
+					case OP_END: {
+						Frame frame = stack.pop();
+						if(frame instanceof InstanceFrame) {
+							Object value = endInstance((InstanceFrame)frame);
+							Frame parent = stack.peek();
+							if(parent == null) {
+								result = value;
+							} else if(parent instanceof InstanceFrame) {
+								addDefault((InstanceFrame)parent, value);
+							} else if(parent instanceof PropertyFrame) {
+								((PropertyFrame)parent).values.add(value);
+							}
+						} else if(frame instanceof PropertyFrame) {
+							PropertyFrame propertyFrame = (PropertyFrame)frame;
+							InstanceFrame parent = (InstanceFrame)stack.peek();
+							if(parent.builder != null && propertyFrame.owner == null && propertyFrame.values.size() > 1) {
+								setProperty(parent, propertyFrame.name, propertyFrame.values);
+								break;
+							}
+							for(Object value : propertyFrame.values) {
+								if(propertyFrame.owner != null) {
+									addStaticProperty(parent, propertyFrame.owner, propertyFrame.name, value);
+								} else {
+									setProperty(parent, propertyFrame.name, value);
+								}
+							}
+						}
+						break;
+					}
+					default:
+						throw new LoadException("Invalid instruction " + op);
+				}
+			}
+			if(injector != null) {
+				injector.initialize(controller, location, null);
+			}
+			return result;
+		}
+
+		private int operand() {
+			int value = 0;
+			for(int shift = 0; ; shift += 7) {
+				int b = code[pc++] & 0xFF;
+				value |= (b & 0x7F) << shift;
+				if((b & 0x80) == 0) {
+					return value;
+				}
+			}
+		}
+
+		private void push(Class<?> type, Object value) {
+			InstanceFrame frame = new InstanceFrame();
+			frame.type = type;
+			frame.value = value;
+			stack.push(frame);
+		}
+
+		private Object endInstance(InstanceFrame frame) throws Exception {
+			if(frame.builder != null) {
+				if(frame.defaultValues != null) {
+					String name = frame.type.getAnnotation(DefaultProperty.class).value();
+					setProperty(frame, name, frame.defaultValues.size() == 1 ? frame.defaultValues.get(0) : frame.defaultValues);
+				}
+				frame.value = frame.builder.build();
+				if(frame.id != null) {
+					putId(frame.id, frame.value);
+				}
+			}
+			if(frame.staticProperties != null) {
+				for(Object[] p : frame.staticProperties) {
+					setStaticProperty(frame.value, (Class<?>)p[0], (String)p[1], p[2]);
+				}
+			}
+			return frame.value;
+		}
+
+		private void putId(String id, Object value) throws Exception {
+			namespace.put(id, value);
+			Method setId = findMethod(value.getClass(), "setId", String.class);
+			if(setId != null) {
+				setId.invoke(value, id);
+			}
+			if(injector != null) {
+				injector.inject(controller, id, value);
+			}
+		}
+
+		private void addDefault(InstanceFrame parent, Object value) throws Exception {
+			if(parent.value instanceof Collection) {
+				@SuppressWarnings("unchecked")
+				Collection<Object> collection = (Collection<Object>)parent.value;
+				collection.add(value);
+				return;
+			}
+			DefaultProperty defaultProperty = parent.type.getAnnotation(DefaultProperty.class);
+			if(defaultProperty == null) {
+				throw new LoadException(parent.type.getName() + " does not have a default property.");
+			}
+			if(parent.builder != null) {
+				// ビルダーには既定プロパティーの値をまとめて設定します。
+				if(parent.defaultValues == null) {
+					parent.defaultValues = new ArrayList<>();
+				}
+				parent.defaultValues.add(value);
+				return;
+			}
+			setProperty(parent, defaultProperty.value(), value);
+		}
+
+		private void setProperty(InstanceFrame frame, String name, Object value) throws Exception {
+			if(frame.builder != null) {
+				@SuppressWarnings("unchecked")
+				Map<String, Object> map = (Map<String, Object>)frame.builder;
+				map.put(name, value);
+				return;
+			}
+			Object bean = frame.value;
+			for(Method setter : findMethods(bean.getClass(), "set" + capitalize(name), 1)) {
+				Object argument = coerce(value, setter.getParameterTypes()[0]);
+				if(argument != UNCONVERTIBLE) {
+					setter.invoke(bean, argument);
+					return;
+				}
+			}
+			Method getter = findGetter(bean.getClass(), name);
+			if(getter != null) {
+				Object property = getter.invoke(bean);
+				if(property instanceof Collection) {
+					@SuppressWarnings("unchecked")
+					Collection<Object> collection = (Collection<Object>)property;
+					Class<?> elementType = getElementType(getter);
+					if(value instanceof String && elementType != Object.class) {
+						// 読み取り専用のリスト・プロパティーにはカンマ区切りで複数の値を指定できます。
+						// 要素は FXMLLoader と同様にリストの要素の型に変換します。
+						for(String item : ((String)value).split(",")) {
+							collection.add(coerceElement(item.trim(), elementType, name));
+						}
+					} else if(value instanceof String) {
+						for(String item : ((String)value).split(",")) {
+							collection.add(item.trim());
+						}
+					} else {
+						collection.add(coerceElement(value, elementType, name));
+					}
+					return;
+				}
+				if(property instanceof Map && value instanceof Map) {
+					@SuppressWarnings("unchecked")
+					Map<Object, Object> map = (Map<Object, Object>)property;
+					map.putAll((Map<?, ?>)value);
+					return;
+				}
+			}
+			throw new LoadException("Cannot set property " + name + " of " + bean.getClass().getName() + ".");
+		}
+
+		private Object coerceElement(Object value, Class<?> elementType, String name) throws LoadException {
+			Object element = coerce(value, elementType);
+			if(element == UNCONVERTIBLE) {
+				throw new LoadException("Cannot add " + value + " to property " + name + ".");
+			}
+			return element;
+		}
+
+		private void addStaticProperty(InstanceFrame frame, Class<?> owner, String name, Object value) throws Exception {
+			if(frame.value != null && frame.builder == null) {
+				setStaticProperty(frame.value, owner, name, value);
+				return;
+			}
+			if(frame.staticProperties == null) {
+				frame.staticProperties = new ArrayList<>();
+			}
+			frame.staticProperties.add(new Object[] { owner, name, value });
+		}
+
+		private void setStaticProperty(Object target, Class<?> owner, String name, Object value) throws Exception {
+			for(Method setter : findMethods(owner, "set" + capitalize(name), 2)) {
+				if(Modifier.isStatic(setter.getModifiers()) && setter.getParameterTypes()[0].isInstance(target)) {
+					Object argument = coerce(value, setter.getParameterTypes()[1]);
+					if(argument != UNCONVERTIBLE) {
+						setter.invoke(null, target, argument);
+						return;
+					}
+				}
+			}
+			throw new LoadException("Cannot set static property " + owner.getSimpleName() + "." + name + ".");
+		}
+
+		private void setEventHandler(InstanceFrame frame, String name, String methodName) throws Exception {
+			if(injector == null) {
+				throw new LoadException("No controller specified.");
+			}
+			EventHandler<Event> eventHandler = injector.createEventHandler(controller, methodName);
+			if(eventHandler == null) {
+				throw new LoadException("Error resolving " + name + "='#" + methodName + "', either the event handler is not in the Namespace or there is an error in the script.");
+			}
+			setProperty(frame, name, eventHandler);
+		}
+	}
+
+	private static final Object UNCONVERTIBLE = new Object();
+
+	/** 値を指定した型に変換します。変換できない場合は UNCONVERTIBLE を返します。
+	 */
+	static Object coerce(Object value, Class<?> type) {
+		if(value == null) {
+			return type.isPrimitive() ? UNCONVERTIBLE : null;
+		}
+		Class<?> boxed = box(type);
+		if(boxed.isInstance(value)) {
+			return value;
+		}
+		if(value instanceof Number && Number.class.isAssignableFrom(boxed)) {
+			Number n = (Number)value;
+			if(boxed == Double.class) return n.doubleValue();
+			if(boxed == Float.class) return n.floatValue();
+			if(boxed == Long.class) return n.longValue();
+			if(boxed == Integer.class) return n.intValue();
+			if(boxed == Short.class) return n.shortValue();
+			if(boxed == Byte.class) return n.byteValue();
+		}
+		if(type.isArray()) {
+			return coerceArray(value, type.getComponentType());
+		}
+		if(!(value instanceof String)) {
+			return UNCONVERTIBLE;
+		}
+		String s = (String)value;
+		try {
+			if(boxed == Boolean.class) return Boolean.valueOf(s.trim());
+			if(boxed == Double.class) return Double.valueOf(s.trim());
+			if(boxed == Float.class) return Float.valueOf(s.trim());
+			if(boxed == Long.class) return Long.valueOf(s.trim());
+			if(boxed == Integer.class) return Integer.valueOf(s.trim());
+			if(boxed == Short.class) return Short.valueOf(s.trim());
+			if(boxed == Byte.class) return Byte.valueOf(s.trim());
+			if(boxed == Character.class) return s.length() == 1 ? (Object)s.charAt(0) : UNCONVERTIBLE;
+		} catch(NumberFormatException e) {
+			return UNCONVERTIBLE;
+		}
+		if(type.isEnum()) {
+			for(String candidate : new String[] { s, s.toUpperCase(Locale.ROOT), toUpperSnakeCase(s) }) {
+				for(Object constant : type.getEnumConstants()) {
+					if(((Enum<?>)constant).name().equals(candidate)) {
+						return constant;
+					}
+				}
+			}
+			return UNCONVERTIBLE;
+		}
+		try {
+			Method valueOf = type.getMethod("valueOf", String.class);
+			if(Modifier.isStatic(valueOf.getModifiers()) && type.isAssignableFrom(valueOf.getReturnType())) {
+				return valueOf.invoke(null, s);
+			}
+		} catch(NoSuchMethodException | IllegalAccessException | InvocationTargetException ignore) {
+		}
+		return UNCONVERTIBLE;
+	}
+
+	/** 値を配列に変換します。文字列はカンマ区切りの要素、リストは要素の並び、それ以外の値は要素が1つの配列として扱います。
+	 * 可変長引数の setter（SplitPane.setDividerPositions など）もこの変換で設定できます。
+	 */
+	private static Object coerceArray(Object value, Class<?> componentType) {
+		List<?> items;
+		if(value instanceof String) {
+			String s = ((String)value).trim();
+			items = s.isEmpty() ? List.of() : Arrays.asList(s.split(","));
+		} else if(value instanceof List) {
+			items = (List<?>)value;
+		} else {
+			items = List.of(value);
+		}
+		Object array = Array.newInstance(componentType, items.size());
+		for(int i = 0; i < items.size(); i++) {
+			Object item = items.get(i);
+			Object element = coerce(item instanceof String ? ((String)item).trim() : item, componentType);
+			if(element == UNCONVERTIBLE) {
+				return UNCONVERTIBLE;
+			}
+			Array.set(array, i, element);
+		}
+		return array;
+	}
+
+	/** 文字列の属性値から指定した型に変換できる場合に true を返します。{@link #coerce(Object, Class)} の変換規則に対応しています。
+	 */
+	static boolean isStringConvertible(Class<?> type) {
+		if(type.isArray()) {
+			return !type.getComponentType().isArray() && isStringConvertible(type.getComponentType());
+		}
+		Class<?> boxed = box(type);
+		if(boxed == String.class || boxed == Object.class || boxed == Character.class || boxed == Boolean.class
+				|| isPrimitiveNumber(boxed) || type.isEnum()) {
+			return true;
+		}
+		try {
+			Method valueOf = type.getMethod("valueOf", String.class);
+			return Modifier.isStatic(valueOf.getModifiers()) && type.isAssignableFrom(valueOf.getReturnType());
+		} catch(NoSuchMethodException e) {
+			return false;
+		}
+	}
+
+	/** 指定した型の値を、{@link #coerce(Object, Class)} で指定した型に変換できる場合に true を返します。
+	 */
+	static boolean isAssignable(Class<?> valueType, Class<?> type) {
+		if(valueType == String.class) {
+			return isStringConvertible(type);
+		}
+		Class<?> boxed = box(type);
+		if(boxed.isAssignableFrom(valueType)) {
+			return true;
+		}
+		if(Number.class.isAssignableFrom(valueType) && isPrimitiveNumber(boxed)) {
+			return true;
+		}
+		return type.isArray() && isAssignable(valueType, type.getComponentType());
+	}
+
+	private static boolean isPrimitiveNumber(Class<?> boxed) {
+		return boxed == Double.class || boxed == Float.class || boxed == Long.class
+				|| boxed == Integer.class || boxed == Short.class || boxed == Byte.class;
+	}
+
+	/** コレクションを返す getter の要素の型を返します。型引数から判別できない場合は Object を返します。
+	 */
+	static Class<?> getElementType(Method getter) {
+		Type type = getter.getGenericReturnType();
+		if(type instanceof ParameterizedType) {
+			ParameterizedType parameterizedType = (ParameterizedType)type;
+			Type rawType = parameterizedType.getRawType();
+			if(rawType instanceof Class && Collection.class.isAssignableFrom((Class<?>)rawType)
+					&& parameterizedType.getActualTypeArguments().length == 1) {
+				return getRawType(parameterizedType.getActualTypeArguments()[0]);
+			}
+		}
+		return Object.class;
+	}
+
+	private static Class<?> getRawType(Type type) {
+		if(type instanceof Class) {
+			return (Class<?>)type;
+		}
+		if(type instanceof ParameterizedType) {
+			return getRawType(((ParameterizedType)type).getRawType());
+		}
+		if(type instanceof WildcardType) {
+			return getRawType(((WildcardType)type).getUpperBounds()[0]);
+		}
+		if(type instanceof TypeVariable) {
+			return getRawType(((TypeVariable<?>)type).getBounds()[0]);
+		}
+		return Object.class;
+	}
+
+	private static Class<?> box(Class<?> type) {
+		if(!type.isPrimitive()) return type;
+		if(type == boolean.class) return Boolean.class;
+		if(type == double.class) return Double.class;
+		if(type == float.class) return Float.class;
+		if(type == long.class) return Long.class;
+		if(type == int.class) return Integer.class;
+		if(type == short.class) return Short.class;
+		if(type == byte.class) return Byte.class;
+		if(type == char.class) return Character.class;
+		return Void.class;
+	}
+
+	static String capitalize(String s) {
+		return s.isEmpty() ? s : Character.toUpperCase(s.charAt(0)) + s.substring(1);
+	}
+
+	private static String toUpperSnakeCase(String s) {
+		StringBuilder sb = new StringBuilder();
+		for(int i = 0; i < s.length(); i++) {
+			char c = s.charAt(i);
+			if(Character.isUpperCase(c) && i > 0) {
+				sb.append('_');
+			}
+			sb.append(c == '-' ? '_' : Character.toUpperCase(c));
+		}
+		return sb.toString();
+	}
+
+	//
+	// 型ごとの public メソッドの検索結果をキャッシュします。
+	//
+
+	private static final ClassValue<Map<String, List<Method>>> publicMethods = new ClassValue<>() {
+		@Override
+		protected Map<String, List<Method>> computeValue(Class<?> type) {
+			Map<String, List<Method>> map = new HashMap<>();
+			for(Method method : type.getMethods()) {
+				map.computeIfAbsent(method.getName() + "/" + method.getParameterCount(), k -> new ArrayList<>()).add(method);
+			}
+			return map;
+		}
+	};
+
+	static List<Method> findMethods(Class<?> type, String name, int parameterCount) {
+		List<Method> methods = publicMethods.get(type).get(name + "/" + parameterCount);
+		return methods != null ? methods : List.of();
+	}
+
+	private static Method findMethod(Class<?> type, String name, Class<?> parameterType) {
+		for(Method method : findMethods(type, name, 1)) {
+			if(method.getParameterTypes()[0] == parameterType) {
+				return method;
+			}
+		}
+		return null;
+	}
+
+	static Method findGetter(Class<?> type, String name) {
+		List<Method> methods = findMethods(type, "get" + capitalize(name), 0);
+		if(methods.isEmpty()) {
+			methods = findMethods(type, "is" + capitalize(name), 0);
+		}
+		return methods.isEmpty() ? null : methods.get(0);
+	}
+}
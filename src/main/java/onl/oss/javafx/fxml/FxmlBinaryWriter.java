@@ -0,0 +1,387 @@
+package onl.oss.javafx.fxml;
+
+import javafx.beans.DefaultProperty;
+import javafx.event.EventHandler;
+import javafx.fxml.JavaFXBuilderFactory;
+import javafx.util.BuilderFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * FXML 文書をバイナリー形式に変換します。
+ * <p>
+ * バイナリー形式は、文字列テーブル、解決済みクラス名のテーブル、フラットな命令列で構成されます。
+ * インポートによる型の解決はビルド時におこなわれるため、実行時にはクラス名の検索が不要になります。</p>
+ * <p>
+ * プロパティーの値はビルド時に対象の型に設定できることが検査されます。
+ * 検査に通らない FXML 文書はバイナリー形式に変換されず、実行時には FXMLLoader が使用されます。</p>
+ *
+ */
+final class FxmlBinaryWriter {
+
+	private final ClassLoader classLoader;
+	private final FxmlParser parser;
+	private final List<String> strings = new ArrayList<>();
+	private final Map<String, Integer> stringIndexes = new HashMap<>();
+	private final Map<String, Integer> classIndexes = new LinkedHashMap<>();
+	private final Map<String, Class<?>> idTypes = new HashMap<>();
+	private final ByteArrayOutputStream code = new ByteArrayOutputStream();
+	private final BuilderFactory builderFactory;
+
+	private FxmlBinaryWriter(FxmlParser parser, ClassLoader classLoader) {
+		this.parser = parser;
+		this.classLoader = classLoader;
+		this.builderFactory = new JavaFXBuilderFactory(classLoader);
+	}
+
+	/** FXML 文書をバイナリー形式に変換します。
+	 *
+	 * @param source FXML 文書
+	 * @param classLoader 型の解決に使用するクラスローダー
+	 * @return バイナリー形式のデータ
+	 * @throws IOException FXML 文書の解析に失敗した場合
+	 * @throws FxmlBinaryDocument.UnsupportedFxmlException バイナリー形式が対応していない機能が使用されている場合
+	 */
+	static byte[] write(byte[] source, ClassLoader classLoader) throws IOException, FxmlBinaryDocument.UnsupportedFxmlException {
+		FxmlParser parser = FxmlParser.parse(new ByteArrayInputStream(source));
+		if(parser.getInstructions().contains("language")) {
+			throw new FxmlBinaryDocument.UnsupportedFxmlException("Script language is not supported.");
+		}
+		FxmlBinaryWriter writer = new FxmlBinaryWriter(parser, classLoader);
+		writer.writeElement(parser.getRoot(), true);
+
+		CRC32 crc = new CRC32();
+		crc.update(source);
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		out.writeInt(FxmlBinaryDocument.MAGIC);
+		out.writeByte(FxmlBinaryDocument.VERSION);
+		out.writeInt((int)crc.getValue());
+		out.writeInt(source.length);
+		writeVarInt(out, writer.strings.size());
+		for(String s : writer.strings) {
+			out.writeUTF(s);
+		}
+		writeVarInt(out, writer.classIndexes.size());
+		for(String className : writer.classIndexes.keySet()) {
+			writeVarInt(out, writer.string(className));
+		}
+		writeVarInt(out, writer.code.size());
+		writer.code.writeTo(out);
+		out.flush();
+		return bytes.toByteArray();
+	}
+
+	/** 要素を命令列に変換します。
+	 * プロパティーの値は対象の型の setter または読み取り専用のコレクションに設定できることを検査し、
+	 * 実行時に設定できないプロパティーがある場合は UnsupportedFxmlException をスローして FXMLLoader にまかせます。
+	 *
+	 * @return 要素が生成する値の型
+	 */
+	private Class<?> writeElement(FxmlElement element, boolean isRoot) throws FxmlBinaryDocument.UnsupportedFxmlException {
+		Map<String, String> attributes = new LinkedHashMap<>(element.getAttributes());
+		String name = element.getName();
+		Class<?> type;
+		boolean isBuilder = false;
+		if(name.equals("fx:root")) {
+			if(!isRoot) {
+				throw unsupported(element, "fx:root must be the root element");
+			}
+			type = resolveType(attributes.remove("type"), element);
+			op(FxmlBinaryDocument.OP_ROOT);
+			operand(classIndex(type));
+		} else if(name.equals("fx:reference")) {
+			String source = attributes.remove("source");
+			type = idTypes.get(source);
+			if(type == null) {
+				throw unsupported(element, "Unknown fx:reference source \"" + source + "\"");
+			}
+			op(FxmlBinaryDocument.OP_REFERENCE);
+			operand(string(source));
+		} else if(element.isInstanceElement()) {
+			Class<?> elementType = resolveType(name, element);
+			type = elementType;
+			if(attributes.containsKey("fx:value")) {
+				String value = attributes.remove("fx:value");
+				if(elementType != String.class && !hasStaticMethod(elementType, "valueOf", String.class)) {
+					throw unsupported(element, elementType.getName() + " does not have valueOf(String)");
+				}
+				op(FxmlBinaryDocument.OP_VALUE);
+				operand(classIndex(elementType));
+				operand(string(value));
+			} else if(attributes.containsKey("fx:constant")) {
+				String constant = attributes.remove("fx:constant");
+				try {
+					type = elementType.getField(constant).getType();
+				} catch(NoSuchFieldException e) {
+					throw unsupported(element, "Constant " + elementType.getName() + "." + constant + " is not found");
+				}
+				op(FxmlBinaryDocument.OP_CONSTANT);
+				operand(classIndex(elementType));
+				operand(string(constant));
+			} else if(attributes.containsKey("fx:factory")) {
+				String factory = attributes.remove("fx:factory");
+				try {
+					type = elementType.getMethod(factory).getReturnType();
+				} catch(NoSuchMethodException e) {
+					throw unsupported(element, "Factory method " + elementType.getName() + "." + factory + "() is not found");
+				}
+				op(FxmlBinaryDocument.OP_FACTORY);
+				operand(classIndex(elementType));
+				operand(string(factory));
+			} else {
+				isBuilder = builderFactory.getBuilder(elementType) != null;
+				if(!isBuilder) {
+					try {
+						elementType.getConstructor();
+					} catch(NoSuchMethodException e) {
+						throw unsupported(element, elementType.getName() + " does not have a public default constructor");
+					}
+				}
+				op(FxmlBinaryDocument.OP_INSTANCE);
+				operand(classIndex(elementType));
+			}
+		} else {
+			throw unsupported(element, "<" + name + "> is not supported");
+		}
+
+		// fx:id でルートをコントローラーに注入できるように、fx:controller は属性の順番にかかわらず最初に処理します。
+		String controller = attributes.remove("fx:controller");
+		if(controller != null) {
+			if(!isRoot) {
+				throw unsupported(element, "fx:controller must be specified on the root element");
+			}
+			op(FxmlBinaryDocument.OP_CONTROLLER);
+			operand(classIndex(resolveType(controller, element)));
+		}
+
+		for(Map.Entry<String, String> attribute : attributes.entrySet()) {
+			String attributeName = attribute.getKey();
+			String value = attribute.getValue();
+			if(attributeName.equals("fx:id")) {
+				idTypes.put(value, type);
+				op(FxmlBinaryDocument.OP_ID);
+				operand(string(value));
+			} else if(attributeName.startsWith(FxmlElement.FX_PREFIX) || attributeName.indexOf(':') >= 0) {
+				throw unsupported(element, "Attribute " + attributeName + " is not supported");
+			} else if(attributeName.startsWith("on") && value.startsWith("#")) {
+				if(!isBuilder) {
+					checkProperty(type, attributeName, EventHandler.class, element);
+				}
+				op(FxmlBinaryDocument.OP_EVENT_HANDLER);
+				operand(string(attributeName));
+				operand(string(value.substring(1)));
+			} else if(attributeName.indexOf('.') > 0) {
+				int i = attributeName.lastIndexOf('.');
+				Class<?> owner = resolveType(attributeName.substring(0, i), element);
+				checkStaticProperty(owner, attributeName.substring(i + 1), type, String.class, element);
+				boolean isLocation = value.startsWith("@");
+				op(isLocation ? FxmlBinaryDocument.OP_STATIC_PROPERTY_LOCATION : FxmlBinaryDocument.OP_STATIC_PROPERTY);
+				operand(classIndex(owner));
+				operand(string(attributeName.substring(i + 1)));
+				operand(string(literal(value, element)));
+			} else {
+				if(!isBuilder) {
+					checkProperty(type, attributeName, String.class, element);
+				}
+				boolean isLocation = value.startsWith("@");
+				op(isLocation ? FxmlBinaryDocument.OP_PROPERTY_LOCATION : FxmlBinaryDocument.OP_PROPERTY);
+				operand(string(attributeName));
+				operand(string(literal(value, element)));
+			}
+		}
+
+		if(!element.getText().isEmpty()) {
+			throw unsupported(element, "Text content of an instance element is not supported");
+		}
+
+		for(FxmlElement child : element.getChildren()) {
+			String childName = child.getName();
+			if(child.isPropertyElement() || child.isStaticPropertyElement()) {
+				if(!child.getAttributes().isEmpty()) {
+					throw unsupported(child, "Attributes of a property element are not supported");
+				}
+				Class<?> owner = null;
+				String propertyName = childName;
+				if(child.isPropertyElement()) {
+					op(FxmlBinaryDocument.OP_BEGIN_PROPERTY);
+					operand(string(childName));
+				} else {
+					int i = childName.lastIndexOf('.');
+					owner = resolveType(childName.substring(0, i), child);
+					propertyName = childName.substring(i + 1);
+					op(FxmlBinaryDocument.OP_BEGIN_STATIC_PROPERTY);
+					operand(classIndex(owner));
+					operand(string(propertyName));
+				}
+				List<Class<?>> valueTypes = new ArrayList<>();
+				String text = child.getText();
+				if(!text.isEmpty()) {
+					if(!child.getChildren().isEmpty()) {
+						throw unsupported(child, "Mixed content is not supported");
+					}
+					op(text.startsWith("@") ? FxmlBinaryDocument.OP_TEXT_LOCATION : FxmlBinaryDocument.OP_TEXT);
+					operand(string(literal(text, child)));
+					valueTypes.add(String.class);
+				}
+				for(FxmlElement value : child.getChildren()) {
+					valueTypes.add(writeElement(value, false));
+				}
+				for(Class<?> valueType : valueTypes) {
+					if(owner != null) {
+						checkStaticProperty(owner, propertyName, type, valueType, child);
+					} else if(!isBuilder) {
+						checkProperty(type, propertyName, valueType, child);
+					}
+				}
+				op(FxmlBinaryDocument.OP_END);
+			} else if(childName.equals("fx:define")) {
+				op(FxmlBinaryDocument.OP_BEGIN_DEFINE);
+				for(FxmlElement defined : child.getChildren()) {
+					writeElement(defined, false);
+				}
+				op(FxmlBinaryDocument.OP_END);
+			} else {
+				Class<?> valueType = writeElement(child, false);
+				if(!isBuilder && !Collection.class.isAssignableFrom(type)) {
+					DefaultProperty defaultProperty = type.getAnnotation(DefaultProperty.class);
+					if(defaultProperty == null) {
+						throw unsupported(child, type.getName() + " does not have a default property");
+					}
+					checkProperty(type, defaultProperty.value(), valueType, child);
+				}
+			}
+		}
+		op(FxmlBinaryDocument.OP_END);
+		return type;
+	}
+
+	/** 実行時に {@link FxmlBinaryDocument} がプロパティーに値を設定できることを検査します。
+	 */
+	private static void checkProperty(Class<?> beanType, String name, Class<?> valueType, FxmlElement element) throws FxmlBinaryDocument.UnsupportedFxmlException {
+		if(valueType == null) {
+			throw unsupported(element, "Cannot determine the type of the value of property " + name);
+		}
+		for(Method setter : FxmlBinaryDocument.findMethods(beanType, "set" + FxmlBinaryDocument.capitalize(name), 1)) {
+			if(FxmlBinaryDocument.isAssignable(valueType, setter.getParameterTypes()[0])) {
+				return;
+			}
+		}
+		Method getter = FxmlBinaryDocument.findGetter(beanType, name);
+		if(getter != null) {
+			if(Collection.class.isAssignableFrom(getter.getReturnType())
+					&& FxmlBinaryDocument.isAssignable(valueType, FxmlBinaryDocument.getElementType(getter))) {
+				return;
+			}
+			if(Map.class.isAssignableFrom(getter.getReturnType()) && Map.class.isAssignableFrom(valueType)) {
+				return;
+			}
+		}
+		throw unsupported(element, "Cannot set property " + name + " of " + beanType.getName() + " to " + valueType.getName());
+	}
+
+	/** 実行時に {@link FxmlBinaryDocument} が静的プロパティーに値を設定できることを検査します。
+	 */
+	private static void checkStaticProperty(Class<?> owner, String name, Class<?> targetType, Class<?> valueType, FxmlElement element) throws FxmlBinaryDocument.UnsupportedFxmlException {
+		if(targetType != null && valueType != null) {
+			for(Method setter : FxmlBinaryDocument.findMethods(owner, "set" + FxmlBinaryDocument.capitalize(name), 2)) {
+				if(Modifier.isStatic(setter.getModifiers()) && setter.getParameterTypes()[0].isAssignableFrom(targetType)
+						&& FxmlBinaryDocument.isAssignable(valueType, setter.getParameterTypes()[1])) {
+					return;
+				}
+			}
+		}
+		throw unsupported(element, "Cannot set static property " + owner.getSimpleName() + "." + name);
+	}
+
+	private static boolean hasStaticMethod(Class<?> type, String name, Class<?>... parameterTypes) {
+		try {
+			return Modifier.isStatic(type.getMethod(name, parameterTypes).getModifiers());
+		} catch(NoSuchMethodException e) {
+			return false;
+		}
+	}
+
+	/** 属性値の接頭辞を取り除きます。式、バインディング、リソースの参照には対応していません。
+	 */
+	private static String literal(String value, FxmlElement element) throws FxmlBinaryDocument.UnsupportedFxmlException {
+		if(value.startsWith("\\")) {
+			return value.substring(1);
+		}
+		if(value.startsWith("@")) {
+			return value.substring(1);
+		}
+		if(value.startsWith("$") || value.startsWith("%") || value.startsWith("#")) {
+			throw unsupported(element, "Attribute value \"" + value + "\" is not supported");
+		}
+		return value;
+	}
+
+	private int classIndex(Class<?> type) {
+		Integer index = classIndexes.get(type.getName());
+		if(index == null) {
+			index = classIndexes.size();
+			classIndexes.put(type.getName(), index);
+			string(type.getName());
+		}
+		return index;
+	}
+
+	private Class<?> resolveType(String name, FxmlElement element) throws FxmlBinaryDocument.UnsupportedFxmlException {
+		if(name == null) {
+			throw unsupported(element, "Type is not specified");
+		}
+		Class<?> type = parser.resolveType(name, classLoader, false);
+		if(type == null) {
+			throw unsupported(element, "Cannot resolve type " + name);
+		}
+		return type;
+	}
+
+	private int string(String s) {
+		Integer index = stringIndexes.get(s);
+		if(index == null) {
+			index = strings.size();
+			strings.add(s);
+			stringIndexes.put(s, index);
+		}
+		return index;
+	}
+
+	private void op(int op) {
+		code.write(op);
+	}
+
+	private void operand(int value) {
+		while((value & ~0x7F) != 0) {
+			code.write((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		code.write(value);
+	}
+
+	private static void writeVarInt(DataOutputStream out, int value) throws IOException {
+		while((value & ~0x7F) != 0) {
+			out.writeByte((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		out.writeByte(value);
+	}
+
+	private static FxmlBinaryDocument.UnsupportedFxmlException unsupported(FxmlElement element, String message) {
+		return new FxmlBinaryDocument.UnsupportedFxmlException(message + " at line " + element.getLineNumber() + ".");
+	}
+}
@@ -0,0 +1,108 @@
+package onl.oss.javafx.fxml;
+
+import java.io.IOException;
+import java.net.URL;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * {@link Fxml} がロードした FXML リソースのキャッシュです。
+ * <p>
+ * キャッシュはリソースの URL をキーとして保持されます。
+ * 同じ FXML を繰り返しロードする場合、2回目以降はキャッシュされた内容からノードを生成し、コントローラーを注入します。</p>
+ * <p>
+ * 開発中に FXML ファイルを差し替えながら実行する場合は {@link #setEnabled(boolean)} でキャッシュを無効にするか、
+ * {@link #clear()} でキャッシュを破棄してください。</p>
+ *
+ */
+public final class FxmlCache {
+
+	// URL.equals と URL.hashCode は名前解決をおこなうことがあるため、キーには URL の文字列表現を使用します。
+	private static final Map<String, FxmlTemplate> templates = new ConcurrentHashMap<>();
+	private static final LongAdder hitCount = new LongAdder();
+	private static final LongAdder missCount = new LongAdder();
+	private static volatile boolean isEnabled = true;
+
+	private FxmlCache() {
+	}
+
+	static FxmlTemplate get(URL location) throws IOException {
+		if(!isEnabled) {
+			return new FxmlTemplate(location);
+		}
+		String key = location.toExternalForm();
+		FxmlTemplate template = templates.get(key);
+		if(template != null) {
+			hitCount.increment();
+			return template;
+		}
+		missCount.increment();
+		template = new FxmlTemplate(location);
+		FxmlTemplate existing = templates.putIfAbsent(key, template);
+		return existing != null ? existing : template;
+	}
+
+	/**
+	 * キャッシュが有効かどうかを設定します。既定値は true です。
+	 *
+	 * @param enabled キャッシュを有効にする場合は true
+	 */
+	public static void setEnabled(boolean enabled) {
+		isEnabled = enabled;
+		if(!enabled) {
+			templates.clear();
+		}
+	}
+
+	/**
+	 * キャッシュが有効な場合に true を返します。
+	 *
+	 * @return キャッシュが有効な場合は true
+	 */
+	public static boolean isEnabled() {
+		return isEnabled;
+	}
+
+	/**
+	 * キャッシュされている FXML リソースの数を返します。
+	 *
+	 * @return キャッシュされている FXML リソースの数
+	 */
+	public static int size() {
+		return templates.size();
+	}
+
+	/**
+	 * キャッシュを破棄します。ヒット数とミス数はリセットされません。
+	 */
+	public static void clear() {
+		templates.clear();
+	}
+
+	/**
+	 * キャッシュにヒットした回数を返します。
+	 *
+	 * @return キャッシュにヒットした回数
+	 */
+	public static long getHitCount() {
+		return hitCount.sum();
+	}
+
+	/**
+	 * キャッシュにヒットせず FXML リソースを読み込んだ回数を返します。
+	 *
+	 * @return キャッシュにヒットしなかった回数
+	 */
+	public static long getMissCount() {
+		return missCount.sum();
+	}
+
+	/**
+	 * ヒット数とミス数をリセットします。
+	 */
+	public static void resetStatistics() {
+		hitCount.reset();
+		missCount.reset();
+	}
+}
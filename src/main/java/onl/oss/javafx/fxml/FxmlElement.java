@@ -0,0 +1,93 @@
+package onl.oss.javafx.fxml;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * FXML 文書の要素です。
+ * <p>
+ * FXML 名前空間に属する要素名と属性名は "fx:" 接頭辞付きの名前に正規化されます。</p>
+ *
+ */
+final class FxmlElement {
+
+	static final String FX_PREFIX = "fx:";
+
+	private final String name;
+	private final int lineNumber;
+	private final Map<String, String> attributes = new LinkedHashMap<>();
+	private final List<FxmlElement> children = new ArrayList<>();
+	private final StringBuilder text = new StringBuilder();
+
+	FxmlElement(String name, int lineNumber) {
+		this.name = name;
+		this.lineNumber = lineNumber;
+	}
+
+	String getName() {
+		return name;
+	}
+
+	int getLineNumber() {
+		return lineNumber;
+	}
+
+	Map<String, String> getAttributes() {
+		return attributes;
+	}
+
+	List<FxmlElement> getChildren() {
+		return children;
+	}
+
+	String getText() {
+		return text.toString().trim();
+	}
+
+	void appendText(String s) {
+		text.append(s);
+	}
+
+	/** fx:root、fx:include などの FXML 名前空間の要素である場合に true を返します。
+	 *
+	 * @return FXML 名前空間の要素である場合は true
+	 */
+	boolean isFxElement() {
+		return name.startsWith(FX_PREFIX);
+	}
+
+	/** クラスのインスタンスを表す要素（Button、javafx.scene.control.Button など）である場合に true を返します。
+	 *
+	 * @return インスタンス要素である場合は true
+	 */
+	boolean isInstanceElement() {
+		return !isFxElement() && Character.isUpperCase(getLastSegment().charAt(0));
+	}
+
+	/** 静的プロパティー要素（GridPane.margin など）である場合に true を返します。
+	 *
+	 * @return 静的プロパティー要素である場合は true
+	 */
+	boolean isStaticPropertyElement() {
+		return !isFxElement() && name.indexOf('.') > 0 && !Character.isUpperCase(getLastSegment().charAt(0));
+	}
+
+	/** プロパティー要素（children、padding など）である場合に true を返します。
+	 *
+	 * @return プロパティー要素である場合は true
+	 */
+	boolean isPropertyElement() {
+		return !isFxElement() && name.indexOf('.') < 0 && !Character.isUpperCase(name.charAt(0));
+	}
+
+	private String getLastSegment() {
+		return name.substring(name.lastIndexOf('.') + 1);
+	}
+
+	@Override
+	public String toString() {
+		return "<" + name + "> (line " + lineNumber + ")";
+	}
+}
@@ -0,0 +1,41 @@
+package onl.oss.javafx.fxml;
+
+import java.net.MalformedURLException;
+import java.net.URL;
+
+/**
+ * FXML から生成されたノード・ファクトリーのインターフェースです。
+ * <p>
+ * このインターフェースの実装クラスは {@link FxmlProcessor} によって生成されます。
+ * 通常、アプリケーションがこのインターフェースを直接使用する必要はありません。</p>
+ *
+ * @param <C> コントローラーの型
+ */
+public interface FxmlFactory<C> {
+
+	/**
+	 * FXML で定義されたオブジェクト・グラフを生成し、コントローラーに注入します。
+	 *
+	 * @param root fx:root 要素に対応するルート・オブジェクト。fx:root を使用しない場合は null
+	 * @param controller コントローラー
+	 * @return ルート・オブジェクト
+	 * @throws java.io.UncheckedIOException fx:root を使用する FXML で root が null の場合や、root の型が異なる場合。原因は {@link javafx.fxml.LoadException} です
+	 */
+	Object load(Object root, C controller);
+
+	/**
+	 * FXML の場所を基準として相対パスを解決します。FXML 属性値の @ 接頭辞に相当します。
+	 *
+	 * @param location FXML の場所
+	 * @param path 相対パス
+	 * @return 解決された URL の文字列表現
+	 */
+	@SuppressWarnings("deprecation")
+	static String resolveLocation(URL location, String path) {
+		try {
+			return new URL(location, path).toExternalForm();
+		} catch(MalformedURLException e) {
+			throw new IllegalArgumentException(e);
+		}
+	}
+}
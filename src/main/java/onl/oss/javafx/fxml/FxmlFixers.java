@@ -0,0 +1,318 @@
+package onl.oss.javafx.fxml;
+
+import javafx.scene.Node;
+import javafx.scene.Parent;
+import javafx.scene.control.Accordion;
+import javafx.scene.control.ContextMenu;
+import javafx.scene.control.Control;
+import javafx.scene.control.MenuBar;
+import javafx.scene.control.ScrollPane;
+import javafx.scene.control.SplitPane;
+import javafx.scene.control.Tab;
+import javafx.scene.control.TabPane;
+import javafx.scene.control.TextInputControl;
+import javafx.scene.control.TitledPane;
+import javafx.scene.control.ToolBar;
+import javafx.util.Duration;
+import onl.oss.javafx.scene.control.ContextMenuUtil;
+import onl.oss.javafx.scene.control.HiDpiFixedInputMethodRequests;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * {@link Fxml} がロードしたオブジェクト・グラフに適用する修正処理（フィクサー）のレジストリーです。
+ * <p>
+ * ロード後のオブジェクト・グラフは1回の反復的な走査で処理され、各オブジェクトに型が一致するすべてのフィクサーが適用されます。
+ * 走査は子ノードに加えて、ScrollPane と TitledPane のコンテンツ、TabPane のタブとタブのコンテンツ、SplitPane と ToolBar のアイテム、
+ * Accordion のペイン、コントロールに設定されたコンテキスト・メニューにも到達します。</p>
+ * <p>
+ * 既定では次のフィクサーが登録されています。</p>
+ * <ul>
+ * <li>{@value #MENU_BAR} … MenuBar に {@link ContextMenuUtil#fix(MenuBar)} を適用します。</li>
+ * <li>{@value #CONTEXT_MENU} … ContextMenu に {@link ContextMenuUtil#fix(ContextMenu)} を適用します。</li>
+ * <li>{@value #TEXT_INPUT_CONTROL} … TextInputControl に {@link HiDpiFixedInputMethodRequests#fix(TextInputControl)} を適用します。</li>
+ * </ul>
+ *
+ */
+public final class FxmlFixers {
+
+	public static final String MENU_BAR = "MenuBar";
+	public static final String CONTEXT_MENU = "ContextMenu";
+	public static final String TEXT_INPUT_CONTROL = "TextInputControl";
+
+	private static volatile Fixer<?>[] fixers = new Fixer<?>[0];
+	private static volatile boolean isStatisticsEnabled;
+
+	static {
+		register(MENU_BAR, MenuBar.class, ContextMenuUtil::fix);
+		register(CONTEXT_MENU, ContextMenu.class, ContextMenuUtil::fix);
+		register(TEXT_INPUT_CONTROL, TextInputControl.class, HiDpiFixedInputMethodRequests::fix);
+	}
+
+	private FxmlFixers() {
+	}
+
+	/**
+	 * フィクサーを登録します。同じ名前のフィクサーが登録されている場合は置き換えます。
+	 * <p>
+	 * フィクサーは登録された順番に適用されます。
+	 * {@link Fxml#loadAsync(Object)} などでロードした場合、フィクサーはワーカースレッドで呼び出されます。</p>
+	 *
+	 * @param name フィクサーの名前
+	 * @param type フィクサーを適用するオブジェクトの型
+	 * @param fixer フィクサー
+	 */
+	public static synchronized <T> void register(String name, Class<T> type, Consumer<? super T> fixer) {
+		if(name == null || type == null || fixer == null) {
+			throw new NullPointerException();
+		}
+		List<Fixer<?>> list = new ArrayList<>(List.of(fixers));
+		Fixer<T> newFixer = new Fixer<>(name, type, fixer);
+		boolean isReplaced = false;
+		for(int i = 0; i < list.size(); i++) {
+			if(list.get(i).name.equals(name)) {
+				list.set(i, newFixer);
+				isReplaced = true;
+			}
+		}
+		if(!isReplaced) {
+			list.add(newFixer);
+		}
+		fixers = list.toArray(new Fixer<?>[0]);
+	}
+
+	/**
+	 * フィクサーの登録を解除します。
+	 *
+	 * @param name フィクサーの名前
+	 * @return フィクサーの登録を解除した場合は true
+	 */
+	public static synchronized boolean unregister(String name) {
+		List<Fixer<?>> list = new ArrayList<>(List.of(fixers));
+		boolean isRemoved = list.removeIf(fixer -> fixer.name.equals(name));
+		fixers = list.toArray(new Fixer<?>[0]);
+		return isRemoved;
+	}
+
+	/**
+	 * 登録されているフィクサーの名前のリストを返します。
+	 *
+	 * @return フィクサーの名前のリスト
+	 */
+	public static List<String> getNames() {
+		List<String> names = new ArrayList<>();
+		for(Fixer<?> fixer : fixers) {
+			names.add(fixer.name);
+		}
+		return names;
+	}
+
+	/**
+	 * フィクサーごとの処理時間の計測を有効にするかどうかを設定します。既定値は false です。
+	 * 適用したオブジェクトの数は計測の有効・無効にかかわらず常に記録されます。
+	 *
+	 * @param enabled 処理時間の計測を有効にする場合は true
+	 */
+	public static void setStatisticsEnabled(boolean enabled) {
+		isStatisticsEnabled = enabled;
+	}
+
+	/**
+	 * フィクサーごとの処理時間の計測が有効な場合に true を返します。
+	 *
+	 * @return 処理時間の計測が有効な場合は true
+	 */
+	public static boolean isStatisticsEnabled() {
+		return isStatisticsEnabled;
+	}
+
+	/**
+	 * フィクサーごとの統計情報を返します。
+	 *
+	 * @return フィクサーごとの統計情報のリスト
+	 */
+	public static List<Statistics> getStatistics() {
+		List<Statistics> list = new ArrayList<>();
+		for(Fixer<?> fixer : fixers) {
+			list.add(new Statistics(fixer.name, fixer.type, fixer.count.sum(), fixer.elapsedNanos.sum()));
+		}
+		return list;
+	}
+
+	/**
+	 * フィクサーごとの統計情報をリセットします。
+	 */
+	public static void resetStatistics() {
+		for(Fixer<?> fixer : fixers) {
+			fixer.count.reset();
+			fixer.elapsedNanos.reset();
+		}
+	}
+
+	/** 指定したオブジェクトとそこから到達できるすべてのオブジェクトにフィクサーを適用します。
+	 *
+	 * @param obj ロードしたオブジェクト・グラフのルート
+	 */
+	static void apply(Object obj) {
+		if(obj == null) {
+			return;
+		}
+		Fixer<?>[] fixers = FxmlFixers.fixers;
+		boolean isStatisticsEnabled = FxmlFixers.isStatisticsEnabled;
+		Set<Object> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+		Deque<Object> stack = new ArrayDeque<>();
+		stack.push(obj);
+		while(!stack.isEmpty()) {
+			Object o = stack.pop();
+			if(!visited.add(o)) {
+				continue;
+			}
+			for(Fixer<?> fixer : fixers) {
+				fixer.apply(o, isStatisticsEnabled);
+			}
+			pushChildren(o, stack);
+		}
+	}
+
+	private static void pushChildren(Object o, Deque<Object> stack) {
+		if(o instanceof Tab) {
+			Tab tab = (Tab)o;
+			push(stack, tab.getContextMenu());
+			push(stack, tab.getContent());
+			return;
+		}
+		if(!(o instanceof Node)) {
+			return;
+		}
+		if(o instanceof Control) {
+			push(stack, ((Control)o).getContextMenu());
+		}
+		// スキンが生成されるまで子ノードに含まれないコンテンツを走査します。
+		if(o instanceof ScrollPane) {
+			push(stack, ((ScrollPane)o).getContent());
+		} else if(o instanceof TitledPane) {
+			push(stack, ((TitledPane)o).getContent());
+		} else if(o instanceof TabPane) {
+			pushAll(stack, ((TabPane)o).getTabs());
+		} else if(o instanceof SplitPane) {
+			pushAll(stack, ((SplitPane)o).getItems());
+		} else if(o instanceof ToolBar) {
+			pushAll(stack, ((ToolBar)o).getItems());
+		} else if(o instanceof Accordion) {
+			pushAll(stack, ((Accordion)o).getPanes());
+		}
+		if(o instanceof Parent) {
+			pushAll(stack, ((Parent)o).getChildrenUnmodifiable());
+		}
+	}
+
+	private static void push(Deque<Object> stack, Object o) {
+		if(o != null) {
+			stack.push(o);
+		}
+	}
+
+	private static void pushAll(Deque<Object> stack, List<?> list) {
+		// 子ノードを順番どおりに処理するため、逆順にスタックに積みます。
+		for(int i = list.size() - 1; i >= 0; i--) {
+			push(stack, list.get(i));
+		}
+	}
+
+	private static class Fixer<T> {
+
+		final String name;
+		final Class<T> type;
+		final Consumer<? super T> consumer;
+		final LongAdder count = new LongAdder();
+		final LongAdder elapsedNanos = new LongAdder();
+
+		Fixer(String name, Class<T> type, Consumer<? super T> consumer) {
+			this.name = name;
+			this.type = type;
+			this.consumer = consumer;
+		}
+
+		void apply(Object o, boolean isStatisticsEnabled) {
+			if(!type.isInstance(o)) {
+				return;
+			}
+			if(isStatisticsEnabled) {
+				long start = System.nanoTime();
+				consumer.accept(type.cast(o));
+				elapsedNanos.add(System.nanoTime() - start);
+			} else {
+				consumer.accept(type.cast(o));
+			}
+			count.increment();
+		}
+	}
+
+	/**
+	 * フィクサーの統計情報です。
+	 *
+	 */
+	public static final class Statistics {
+
+		private final String name;
+		private final Class<?> type;
+		private final long count;
+		private final long elapsedNanos;
+
+		Statistics(String name, Class<?> type, long count, long elapsedNanos) {
+			this.name = name;
+			this.type = type;
+			this.count = count;
+			this.elapsedNanos = elapsedNanos;
+		}
+
+		/**
+		 * フィクサーの名前を返します。
+		 *
+		 * @return フィクサーの名前
+		 */
+		public String getName() {
+			return name;
+		}
+
+		/**
+		 * フィクサーを適用するオブジェクトの型を返します。
+		 *
+		 * @return フィクサーを適用するオブジェクトの型
+		 */
+		public Class<?> getType() {
+			return type;
+		}
+
+		/**
+		 * フィクサーを適用したオブジェクトの数を返します。
+		 *
+		 * @return フィクサーを適用したオブジェクトの数
+		 */
+		public long getCount() {
+			return count;
+		}
+
+		/**
+		 * フィクサーの処理時間の合計を返します。処理時間の計測が無効な間の処理時間は含まれません。
+		 *
+		 * @return フィクサーの処理時間の合計
+		 */
+		public Duration getElapsedTime() {
+			return Duration.millis(elapsedNanos / 1_000_000.0);
+		}
+
+		@Override
+		public String toString() {
+			return name + " [" + type.getSimpleName() + "] count=" + count + String.format(", elapsed=%.3fms", elapsedNanos / 1_000_000.0);
+		}
+	}
+}
@@ -0,0 +1,268 @@
+package onl.oss.javafx.fxml;
+
+import javafx.event.Event;
+import javafx.event.EventHandler;
+import javafx.fxml.FXML;
+import javafx.fxml.Initializable;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.ResourceBundle;
+
+/**
+ * コントローラーへのフィールドの注入とイベント・ハンドラー・メソッドの呼び出しをおこないます。
+ * <p>
+ * FXMLLoader はロードのたびにコントローラーのクラスをリフレクションで走査しますが、
+ * FxmlInjector はクラスごとに1回だけ @FXML フィールドとメソッドを解決し、MethodHandle としてキャッシュします。</p>
+ * <p>
+ * FXMLLoader と同様に、public または @FXML で注釈されたインスタンス・フィールドとメソッドが対象になります。
+ * 同じ名前のフィールドがスーパークラスにもある場合はすべてのフィールドに注入し、
+ * 同じ名前のメソッドがスーパークラスにもある場合はサブクラスのメソッドが優先されます。</p>
+ *
+ */
+public final class FxmlInjector {
+
+	private static final MethodType FIELD_SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+	private static final MethodType HANDLER_TYPE = MethodType.methodType(void.class, Object.class, Event.class);
+	private static final MethodType NO_ARG_TYPE = MethodType.methodType(void.class, Object.class);
+
+	private static final ClassValue<FxmlInjector> injectors = new ClassValue<>() {
+		@Override
+		protected FxmlInjector computeValue(Class<?> type) {
+			return new FxmlInjector(type);
+		}
+	};
+
+	/**
+	 * 指定したコントローラー・クラスの FxmlInjector を返します。
+	 *
+	 * @param controllerClass コントローラー・クラス
+	 * @return FxmlInjector
+	 */
+	public static FxmlInjector of(Class<?> controllerClass) {
+		return injectors.get(controllerClass);
+	}
+
+	private final Class<?> controllerClass;
+	private final boolean isAvailable;
+	private final Map<String, List<FieldSetter>> fields;
+	private final Map<String, MethodHandle> handlers;
+	private final Map<String, Class<?>> handlerEventTypes;
+	private final MethodHandle initialize;
+
+	private FxmlInjector(Class<?> controllerClass) {
+		this.controllerClass = controllerClass;
+		Map<String, List<FieldSetter>> fields = new HashMap<>();
+		Map<String, MethodHandle> handlers = new HashMap<>();
+		Map<String, Class<?>> handlerEventTypes = new HashMap<>();
+		Map<String, MethodHandle> noArgHandlers = new HashMap<>();
+		MethodHandle initialize = null;
+		boolean isAvailable = true;
+		try {
+			for(Class<?> c = controllerClass; c != null && c != Object.class; c = c.getSuperclass()) {
+				MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(c, MethodHandles.lookup());
+				for(Field field : c.getDeclaredFields()) {
+					if(Modifier.isStatic(field.getModifiers()) || Modifier.isFinal(field.getModifiers()) || !isInjectable(field.getModifiers(), field.isAnnotationPresent(FXML.class))) {
+						continue;
+					}
+					// FXMLLoader と同様に、スーパークラスの同じ名前のフィールドにも注入します。
+					MethodHandle setter = lookup.unreflectSetter(field).asType(FIELD_SETTER_TYPE);
+					fields.computeIfAbsent(field.getName(), k -> new ArrayList<>()).add(new FieldSetter(field, setter));
+				}
+				for(Method method : c.getDeclaredMethods()) {
+					if(Modifier.isStatic(method.getModifiers()) || method.isBridge() || !isInjectable(method.getModifiers(), method.isAnnotationPresent(FXML.class))) {
+						continue;
+					}
+					String name = method.getName();
+					if(method.getParameterCount() == 1 && Event.class.isAssignableFrom(method.getParameterTypes()[0])) {
+						if(!handlers.containsKey(name)) {
+							handlers.put(name, lookup.unreflect(method).asType(HANDLER_TYPE));
+							handlerEventTypes.put(name, method.getParameterTypes()[0]);
+						}
+					} else if(method.getParameterCount() == 0) {
+						if(!noArgHandlers.containsKey(name)) {
+							noArgHandlers.put(name, lookup.unreflect(method).asType(NO_ARG_TYPE));
+						}
+					}
+				}
+			}
+			for(Map.Entry<String, MethodHandle> entry : noArgHandlers.entrySet()) {
+				if(!handlers.containsKey(entry.getKey())) {
+					// 引数のないメソッドは (controller, event) を受け取るハンドルに変換して、呼び出し側の分岐をなくします。
+					handlers.put(entry.getKey(), MethodHandles.dropArguments(entry.getValue(), 1, Event.class));
+					handlerEventTypes.put(entry.getKey(), Event.class);
+				}
+			}
+			if(!Initializable.class.isAssignableFrom(controllerClass)) {
+				initialize = noArgHandlers.get("initialize");
+			}
+		} catch(IllegalAccessException | SecurityException e) {
+			// モジュールがパッケージを開いていない場合などは FXMLLoader の注入にまかせます。
+			isAvailable = false;
+		}
+		this.isAvailable = isAvailable;
+		this.fields = isAvailable ? fields : Collections.emptyMap();
+		this.handlers = isAvailable ? handlers : Collections.emptyMap();
+		this.handlerEventTypes = isAvailable ? handlerEventTypes : Collections.emptyMap();
+		this.initialize = isAvailable ? initialize : null;
+	}
+
+	private static boolean isInjectable(int modifiers, boolean hasFxmlAnnotation) {
+		return Modifier.isPublic(modifiers) || hasFxmlAnnotation;
+	}
+
+	/**
+	 * コントローラー・クラスのメンバーにアクセスできる場合に true を返します。
+	 * モジュールがコントローラーのパッケージを開いていない場合などは false を返します。
+	 *
+	 * @return コントローラー・クラスのメンバーにアクセスできる場合は true
+	 */
+	public boolean isAvailable() {
+		return isAvailable;
+	}
+
+	/**
+	 * コントローラー・クラスを返します。
+	 *
+	 * @return コントローラー・クラス
+	 */
+	public Class<?> getControllerClass() {
+		return controllerClass;
+	}
+
+	/**
+	 * 指定した名前のフィールドに値を注入します。
+	 * 同じ名前のフィールドがスーパークラスにもある場合は、すべてのフィールドに注入します。
+	 * フィールドが存在しない場合は何もしません。
+	 *
+	 * @param controller コントローラー
+	 * @param name フィールド名（fx:id）
+	 * @param value 値
+	 * @return 値を注入した場合は true
+	 * @throws IllegalArgumentException 値の型がフィールドの型と一致しない場合
+	 */
+	public boolean inject(Object controller, String name, Object value) {
+		List<FieldSetter> setters = fields.get(name);
+		if(setters == null) {
+			return false;
+		}
+		for(FieldSetter field : setters) {
+			if(!field.accepts(value)) {
+				throw new IllegalArgumentException("Can not set " + field.field.getType().getName() + " field "
+						+ field.field.getDeclaringClass().getName() + "." + name + " to " + (value == null ? "null value" : value.getClass().getName()));
+			}
+		}
+		for(FieldSetter field : setters) {
+			try {
+				field.setter.invokeExact(controller, value);
+			} catch(RuntimeException | Error e) {
+				throw e;
+			} catch(Throwable t) {
+				throw new IllegalStateException(t);
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * 名前空間（fx:id と値のマップ）の値をコントローラーのフィールドに注入します。
+	 *
+	 * @param controller コントローラー
+	 * @param namespace 名前空間
+	 * @throws IllegalArgumentException 値の型がフィールドの型と一致しない場合
+	 */
+	public void inject(Object controller, Map<String, Object> namespace) {
+		for(Map.Entry<String, List<FieldSetter>> entry : fields.entrySet()) {
+			Object value = namespace.get(entry.getKey());
+			if(value != null) {
+				inject(controller, entry.getKey(), value);
+			}
+		}
+	}
+
+	/**
+	 * 指定したメソッドを呼び出すイベント・ハンドラーを作成します。
+	 * <p>
+	 * イベントを引数に持つメソッドを優先し、見つからない場合は引数のないメソッドを使用します。
+	 * メソッドがスローしたチェック例外は RuntimeException にラップされます。
+	 * メソッドの引数の型と一致しないイベントを受け取った場合は IllegalArgumentException をスローします。</p>
+	 *
+	 * @param controller コントローラー
+	 * @param methodName メソッド名
+	 * @return イベント・ハンドラー。メソッドが見つからない場合は null
+	 */
+	public <T extends Event> EventHandler<T> createEventHandler(Object controller, String methodName) {
+		MethodHandle handler = handlers.get(methodName);
+		if(handler == null) {
+			return null;
+		}
+		Class<?> eventType = handlerEventTypes.get(methodName);
+		return event -> {
+			if(!eventType.isInstance(event)) {
+				throw new IllegalArgumentException("Event handler method " + controllerClass.getName() + "." + methodName
+						+ " cannot accept " + event.getClass().getName() + ".");
+			}
+			try {
+				handler.invokeExact(controller, (Event)event);
+			} catch(RuntimeException | Error e) {
+				throw e;
+			} catch(Throwable t) {
+				throw new RuntimeException(t);
+			}
+		};
+	}
+
+	/**
+	 * コントローラーの初期化メソッドを呼び出します。
+	 * <p>
+	 * コントローラーが {@link Initializable} を実装している場合は {@link Initializable#initialize(URL, ResourceBundle)} を、
+	 * そうでない場合は public または @FXML で注釈された引数のない initialize メソッドを呼び出します。</p>
+	 *
+	 * @param controller コントローラー
+	 * @param location FXML の場所
+	 * @param resources リソース・バンドル
+	 */
+	public void initialize(Object controller, URL location, ResourceBundle resources) {
+		if(controller instanceof Initializable) {
+			((Initializable)controller).initialize(location, resources);
+			return;
+		}
+		if(initialize != null) {
+			try {
+				initialize.invokeExact(controller);
+			} catch(RuntimeException | Error e) {
+				throw e;
+			} catch(Throwable t) {
+				throw new RuntimeException(t);
+			}
+		}
+	}
+
+	private static class FieldSetter {
+
+		final Field field;
+		final Class<?> type;
+		final MethodHandle setter;
+
+		FieldSetter(Field field, MethodHandle setter) {
+			Class<?> type = field.getType();
+			this.field = field;
+			this.type = type.isPrimitive() ? MethodType.methodType(type).wrap().returnType() : type;
+			this.setter = setter;
+		}
+
+		boolean accepts(Object value) {
+			return value == null ? !field.getType().isPrimitive() : type.isInstance(value);
+		}
+	}
+}
@@ -0,0 +1,167 @@
+package onl.oss.javafx.fxml;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * FXML 文書を {@link FxmlElement} のツリーに変換します。
+ * <p>
+ * FXMLLoader と異なり、型の解決やインスタンスの生成はおこないません。
+ * 事前コンパイルやバイナリー形式への変換など、ビルド時に FXML を解析する用途で使用します。</p>
+ *
+ */
+final class FxmlParser {
+
+	static final String FX_NAMESPACE_URI_PREFIX = "http://javafx.com/fxml";
+
+	private final List<String> imports = new ArrayList<>();
+	private final List<String> instructions = new ArrayList<>();
+	private FxmlElement root;
+
+	private FxmlParser() {
+	}
+
+	/** FXML 文書を解析します。
+	 *
+	 * @param in FXML 文書の入力ストリーム
+	 * @return 解析結果
+	 * @throws IOException FXML 文書の読み込みまたは解析に失敗した場合
+	 */
+	static FxmlParser parse(InputStream in) throws IOException {
+		FxmlParser parser = new FxmlParser();
+		try {
+			XMLInputFactory factory = XMLInputFactory.newFactory();
+			factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+			factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+			XMLStreamReader reader = factory.createXMLStreamReader(in);
+			try {
+				parser.read(reader);
+			} finally {
+				reader.close();
+			}
+		} catch(XMLStreamException e) {
+			throw new IOException(e);
+		}
+		if(parser.root == null) {
+			throw new IOException("Root element is not found.");
+		}
+		return parser;
+	}
+
+	/** import 処理命令で指定されたクラス名またはパッケージ名（末尾が .*）のリストを返します。
+	 *
+	 * @return インポートのリスト
+	 */
+	List<String> getImports() {
+		return imports;
+	}
+
+	/** import 以外の処理命令（language、compile など）のターゲット名のリストを返します。
+	 *
+	 * @return 処理命令のターゲット名のリスト
+	 */
+	List<String> getInstructions() {
+		return instructions;
+	}
+
+	FxmlElement getRoot() {
+		return root;
+	}
+
+	/** インポートと java.lang パッケージから型を解決します。
+	 * 入れ子になった型（Outer.Inner）にも対応します。
+	 *
+	 * @param name 要素名または完全修飾クラス名
+	 * @param classLoader 型の解決に使用するクラスローダー
+	 * @param initialize クラスを初期化する場合は true
+	 * @return 解決された型。解決できなかった場合は null
+	 */
+	Class<?> resolveType(String name, ClassLoader classLoader, boolean initialize) {
+		List<String> candidates = new ArrayList<>();
+		if(Character.isLowerCase(name.charAt(0))) {
+			candidates.add(name);
+		} else {
+			int i = name.indexOf('.');
+			String simpleName = i < 0 ? name : name.substring(0, i);
+			String nested = i < 0 ? "" : name.substring(i).replace('.', '$');
+			for(String i0 : imports) {
+				if(i0.endsWith(".*")) {
+					candidates.add(i0.substring(0, i0.length() - 1) + simpleName + nested);
+				} else if(i0.equals(simpleName) || i0.endsWith("." + simpleName)) {
+					candidates.add(i0 + nested);
+				}
+			}
+			candidates.add("java.lang." + simpleName + nested);
+		}
+		for(String candidate : candidates) {
+			try {
+				return Class.forName(candidate, initialize, classLoader);
+			} catch(ClassNotFoundException | LinkageError ignore) {
+			}
+		}
+		return null;
+	}
+
+	private void read(XMLStreamReader reader) throws XMLStreamException {
+		Deque<FxmlElement> stack = new ArrayDeque<>();
+		while(reader.hasNext()) {
+			switch(reader.next()) {
+				case XMLStreamConstants.PROCESSING_INSTRUCTION: {
+					String target = reader.getPITarget();
+					if("import".equals(target)) {
+						imports.add(reader.getPIData().trim());
+					} else {
+						instructions.add(target);
+					}
+					break;
+				}
+				case XMLStreamConstants.START_ELEMENT: {
+					String name = getName(reader.getNamespaceURI(), reader.getPrefix(), reader.getLocalName());
+					FxmlElement element = new FxmlElement(name, reader.getLocation().getLineNumber());
+					for(int i = 0; i < reader.getAttributeCount(); i++) {
+						String attributeName = getName(reader.getAttributeNamespace(i), reader.getAttributePrefix(i), reader.getAttributeLocalName(i));
+						element.getAttributes().put(attributeName, reader.getAttributeValue(i));
+					}
+					if(stack.isEmpty()) {
+						root = element;
+					} else {
+						stack.peek().getChildren().add(element);
+					}
+					stack.push(element);
+					break;
+				}
+				case XMLStreamConstants.CHARACTERS:
+				case XMLStreamConstants.CDATA: {
+					if(!stack.isEmpty()) {
+						stack.peek().appendText(reader.getText());
+					}
+					break;
+				}
+				case XMLStreamConstants.END_ELEMENT: {
+					stack.pop();
+					break;
+				}
+				default:
+					break;
+			}
+		}
+	}
+
+	private static String getName(String namespaceURI, String prefix, String localName) {
+		if(namespaceURI != null && namespaceURI.startsWith(FX_NAMESPACE_URI_PREFIX)) {
+			return FxmlElement.FX_PREFIX + localName;
+		}
+		if(prefix != null && !prefix.isEmpty()) {
+			return prefix + ":" + localName;
+		}
+		return localName;
+	}
+}
@@ -0,0 +1,1151 @@
+package onl.oss.javafx.fxml;
+
+import com.sun.source.util.TreePath;
+import com.sun.source.util.Trees;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.annotation.processing.SupportedOptions;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.ExecutableType;
+import javax.lang.model.type.PrimitiveType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.type.WildcardType;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardLocation;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * {@link CompileFxml} で注釈されたコントローラー・クラスの FXML を Java コードに変換する注釈プロセッサーです。
+ * <p>
+ * FXML はコントローラーのソースファイルと同じディレクトリ、ソースパス、
+ * またはオプション -Afxml.sourceDirs=dir1{@link File#pathSeparator}dir2 で指定したディレクトリから検索されます。</p>
+ * <p>
+ * 生成されるコードは、XML の解析、型の解決、リフレクションによるプロパティー設定とコントローラーへの注入をおこないません。
+ * 対応していない FXML の機能が含まれている場合は警告を出力し、その FXML のコードは生成しません。</p>
+ * <p>
+ * private など生成されるクラスから直接アクセスできない @FXML フィールドとメソッドは、
+ * クラスの初期化時に1回だけ作成する VarHandle と MethodHandle を通してアクセスします。
+ * スーパークラスのメンバーが別のモジュールにある場合、FXMLLoader と同様にそのパッケージを開く必要があります。</p>
+ *
+ */
+@SupportedAnnotationTypes("onl.oss.javafx.fxml.CompileFxml")
+@SupportedOptions(FxmlProcessor.SOURCE_DIRS_OPTION)
+public class FxmlProcessor extends AbstractProcessor {
+
+	/**
+	 * FXML を検索するディレクトリを指定するオプション名です。
+	 */
+	public static final String SOURCE_DIRS_OPTION = "fxml.sourceDirs";
+
+	/**
+	 * 生成されるクラスの名前の接尾辞です。
+	 */
+	public static final String FACTORY_SUFFIX = "Fxml";
+
+	@Override
+	public SourceVersion getSupportedSourceVersion() {
+		return SourceVersion.latestSupported();
+	}
+
+	@Override
+	public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+		for(Element element : roundEnv.getElementsAnnotatedWith(CompileFxml.class)) {
+			if(element.getKind() != ElementKind.CLASS) {
+				processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "@CompileFxml must be applied to a class.", element);
+				continue;
+			}
+			TypeElement controller = (TypeElement)element;
+			String fxmlFilename = controller.getSimpleName() + ".fxml";
+			try {
+				byte[] content = readFxml(controller, fxmlFilename);
+				if(content == null) {
+					warning(controller, fxmlFilename + " is not found. FXMLLoader will be used at runtime.");
+					continue;
+				}
+				FxmlParser parser = FxmlParser.parse(new ByteArrayInputStream(content));
+				Generator generator = new Generator(controller, fxmlFilename, parser);
+				String source = generator.generate();
+				JavaFileObject file = processingEnv.getFiler().createSourceFile(generator.getFactoryName(), controller);
+				try(Writer writer = file.openWriter()) {
+					writer.write(source);
+				}
+			} catch(UnsupportedFxmlException e) {
+				warning(controller, fxmlFilename + ": " + e.getMessage() + " FXMLLoader will be used at runtime.");
+			} catch(IOException e) {
+				processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, fxmlFilename + ": " + e.getMessage(), controller);
+			}
+		}
+		return true;
+	}
+
+	private void warning(Element element, String message) {
+		processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING, message, element);
+	}
+
+	private byte[] readFxml(TypeElement controller, String fxmlFilename) throws IOException {
+		// コントローラーのソースファイルと同じディレクトリから検索します。
+		try {
+			Trees trees = Trees.instance(processingEnv);
+			TreePath path = trees.getPath(controller);
+			if(path != null) {
+				URI uri = path.getCompilationUnit().getSourceFile().toUri();
+				if("file".equals(uri.getScheme())) {
+					Path file = Paths.get(uri).resolveSibling(fxmlFilename);
+					if(Files.isRegularFile(file)) {
+						return Files.readAllBytes(file);
+					}
+				}
+			}
+		} catch(IllegalArgumentException ignore) {
+			// javac 以外のコンパイラーでは Trees を使用できません。
+		}
+
+		String packageName = processingEnv.getElementUtils().getPackageOf(controller).getQualifiedName().toString();
+		try {
+			FileObject file = processingEnv.getFiler().getResource(StandardLocation.SOURCE_PATH, packageName, fxmlFilename);
+			try(InputStream in = file.openInputStream()) {
+				return in.readAllBytes();
+			}
+		} catch(IOException | IllegalArgumentException ignore) {
+		}
+
+		String sourceDirs = processingEnv.getOptions().get(SOURCE_DIRS_OPTION);
+		if(sourceDirs != null) {
+			for(String sourceDir : sourceDirs.split(File.pathSeparator)) {
+				Path file = Paths.get(sourceDir.trim(), packageName.split("\\.")).resolve(fxmlFilename);
+				if(Files.isRegularFile(file)) {
+					return Files.readAllBytes(file);
+				}
+			}
+		}
+		return null;
+	}
+
+	@SuppressWarnings("serial")
+	private static class UnsupportedFxmlException extends Exception {
+		UnsupportedFxmlException(String message) {
+			super(message);
+		}
+
+		UnsupportedFxmlException(FxmlElement element, String message) {
+			super(message + " at line " + element.getLineNumber() + ".");
+		}
+	}
+
+	/** 生成されたコードで、オブジェクトを保持するローカル変数の名前と型です。
+	 *
+	 */
+	private static class Value {
+		final String expression;
+		final TypeMirror type;
+
+		Value(String expression, TypeMirror type) {
+			this.expression = expression;
+			this.type = type;
+		}
+	}
+
+	private class Generator {
+
+		private final Elements elements = processingEnv.getElementUtils();
+		private final Types types = processingEnv.getTypeUtils();
+
+		private final TypeElement controller;
+		private final String fxmlFilename;
+		private final FxmlParser parser;
+		private final String packageName;
+		private final String factorySimpleName;
+		private final String controllerName;
+		private final StringBuilder methods = new StringBuilder();
+		private final StringBuilder handles = new StringBuilder();
+		private final Map<Element, String> handleNames = new HashMap<>();
+		private final Map<String, TypeMirror> ids = new HashMap<>();
+		private final TypeMirror objectType;
+		private final TypeMirror collectionType;
+		private boolean usesNamespace;
+		private int counter;
+
+		Generator(TypeElement controller, String fxmlFilename, FxmlParser parser) {
+			this.controller = controller;
+			this.fxmlFilename = fxmlFilename;
+			this.parser = parser;
+			this.packageName = elements.getPackageOf(controller).getQualifiedName().toString();
+			String binaryName = elements.getBinaryName(controller).toString();
+			this.factorySimpleName = (packageName.isEmpty() ? binaryName : binaryName.substring(packageName.length() + 1)) + FACTORY_SUFFIX;
+			this.controllerName = controller.getQualifiedName().toString();
+			this.objectType = elements.getTypeElement("java.lang.Object").asType();
+			this.collectionType = types.erasure(elements.getTypeElement("java.util.Collection").asType());
+		}
+
+		String getFactoryName() {
+			return packageName.isEmpty() ? factorySimpleName : packageName + "." + factorySimpleName;
+		}
+
+		String generate() throws UnsupportedFxmlException {
+			if(!controller.getTypeParameters().isEmpty()) {
+				throw new UnsupportedFxmlException("Generic controller class is not supported.");
+			}
+			for(Element e = controller; e.getKind() != ElementKind.PACKAGE; e = e.getEnclosingElement()) {
+				if(e.getModifiers().contains(Modifier.PRIVATE)) {
+					throw new UnsupportedFxmlException("Private controller class is not supported.");
+				}
+			}
+			if(parser.getInstructions().contains("language")) {
+				throw new UnsupportedFxmlException("Script language is not supported.");
+			}
+			FxmlElement root = parser.getRoot();
+			if(root.getAttributes().containsKey("fx:controller")) {
+				throw new UnsupportedFxmlException(root, "fx:controller is not supported");
+			}
+			usesNamespace = containsElement(root, "fx:reference");
+
+			StringBuilder body = new StringBuilder();
+			Value value = createChild(root, body);
+
+			if(types.isAssignable(controller.asType(), elements.getTypeElement("javafx.fxml.Initializable").asType())) {
+				line(body, "controller.initialize(LOCATION, null);");
+			} else {
+				ExecutableElement initialize = findControllerMethod("initialize", null);
+				if(initialize != null) {
+					if(isAccessibleFromFactory(initialize)) {
+						line(body, invoke("controller.initialize()", initialize));
+					} else {
+						line(body, wrap(methodHandle(initialize, root) + ".invoke(controller)"));
+					}
+				}
+			}
+			line(body, "return " + value.expression + ";");
+
+			StringBuilder sb = new StringBuilder();
+			if(!packageName.isEmpty()) {
+				sb.append("package ").append(packageName).append(";\n\n");
+			}
+			sb.append("@javax.annotation.processing.Generated(\"").append(FxmlProcessor.class.getName()).append("\")\n");
+			sb.append("public final class ").append(factorySimpleName)
+					.append(" implements onl.oss.javafx.fxml.FxmlFactory<").append(controllerName).append("> {\n\n");
+			sb.append("\tprivate static final java.net.URL LOCATION = ").append(controllerName)
+					.append(".class.getResource(").append(stringLiteral(fxmlFilename)).append(");\n\n");
+			if(handles.length() > 0) {
+				sb.append(handles).append("\n");
+			}
+			sb.append("\t@Override\n");
+			sb.append("\t@SuppressWarnings({\"rawtypes\", \"unchecked\", \"cast\", \"deprecation\"})\n");
+			sb.append("\tpublic Object load(Object root, ").append(controllerName).append(" controller) {\n");
+			if(usesNamespace) {
+				line(sb, "java.util.Map<String, Object> namespace = new java.util.HashMap<>();");
+			}
+			sb.append(body);
+			sb.append("\t}\n");
+			sb.append(methods);
+			sb.append("}\n");
+			return sb.toString();
+		}
+
+		/** 子要素を持つ要素はメソッドに分割し、持たない要素は呼出し元のメソッドに直接展開します。
+		 * 大きな FXML でメソッドのサイズ制限を超えないようにするためです。
+		 */
+		private Value createChild(FxmlElement element, StringBuilder body) throws UnsupportedFxmlException {
+			if(element.getChildren().isEmpty()) {
+				return createInstance(element, body);
+			}
+			String methodName = "create" + (counter++);
+			StringBuilder methodBody = new StringBuilder();
+			Value value = createInstance(element, methodBody);
+			String typeName = typeName(value.type);
+			String parameters = "Object root, " + controllerName + " controller" + (usesNamespace ? ", java.util.Map<String, Object> namespace" : "");
+			String arguments = "root, controller" + (usesNamespace ? ", namespace" : "");
+
+			methods.append("\n");
+			methods.append("\t@SuppressWarnings({\"rawtypes\", \"unchecked\", \"cast\", \"deprecation\"})\n");
+			methods.append("\tprivate static ").append(typeName).append(" ").append(methodName).append("(").append(parameters).append(") {\n");
+			methods.append(methodBody);
+			line(methods, "return " + value.expression + ";");
+			methods.append("\t}\n");
+
+			String var = "v" + (counter++);
+			line(body, typeName + " " + var + " = " + methodName + "(" + arguments + ");");
+			return new Value(var, value.type);
+		}
+
+		private Value createInstance(FxmlElement element, StringBuilder body) throws UnsupportedFxmlException {
+			Map<String, String> attributes = new java.util.LinkedHashMap<>(element.getAttributes());
+			String fxId = attributes.remove("fx:id");
+			TypeMirror type;
+			String expression;
+
+			if(element.getName().equals("fx:root")) {
+				if(element != parser.getRoot()) {
+					throw new UnsupportedFxmlException(element, "fx:root must be the root element");
+				}
+				type = types.erasure(resolveType(attributes.remove("type"), element).asType());
+				// FXMLLoader と同様に、ルートが設定されていない場合や型が異なる場合は LoadException をスローします。
+				line(body, "if(root == null) throw new java.io.UncheckedIOException(new javafx.fxml.LoadException("
+						+ stringLiteral("Root hasn't been set. Use method setRoot() before load.") + "));");
+				line(body, "if(!(root instanceof " + typeName(type) + ")) throw new java.io.UncheckedIOException(new javafx.fxml.LoadException("
+						+ stringLiteral("Root is not an instance of " + typeName(type) + ".") + "));");
+				expression = "(" + typeName(type) + ")root";
+			} else if(element.getName().equals("fx:reference")) {
+				String source = attributes.remove("source");
+				type = ids.get(source);
+				if(type == null) {
+					throw new UnsupportedFxmlException(element, "Unknown fx:reference source \"" + source + "\"");
+				}
+				expression = "(" + typeName(type) + ")namespace.get(" + stringLiteral(source) + ")";
+			} else if(element.isInstanceElement()) {
+				TypeElement typeElement = resolveType(element.getName(), element);
+				type = types.erasure(typeElement.asType());
+				if(attributes.containsKey("fx:value")) {
+					String value = attributes.remove("fx:value");
+					expression = convert(type, value);
+					if(expression == null) {
+						throw new UnsupportedFxmlException(element, "Cannot convert fx:value \"" + value + "\"");
+					}
+				} else if(attributes.containsKey("fx:constant")) {
+					String name = attributes.remove("fx:constant");
+					VariableElement field = findField(typeElement, name, true);
+					if(field == null || !isPublic(field)) {
+						throw new UnsupportedFxmlException(element, "Cannot resolve fx:constant \"" + name + "\"");
+					}
+					type = types.erasure(field.asType());
+					expression = typeName(typeElement.asType()) + "." + name;
+				} else if(attributes.containsKey("fx:factory")) {
+					String name = attributes.remove("fx:factory");
+					ExecutableElement method = findMethod(typeElement, name, 0, true);
+					if(method == null) {
+						throw new UnsupportedFxmlException(element, "Cannot resolve fx:factory \"" + name + "\"");
+					}
+					type = types.erasure(method.getReturnType());
+					expression = typeName(typeElement.asType()) + "." + name + "()";
+				} else {
+					expression = construct(typeElement, attributes, element);
+				}
+			} else {
+				throw new UnsupportedFxmlException(element, "<" + element.getName() + "> is not supported");
+			}
+
+			for(String name : attributes.keySet()) {
+				if(name.startsWith(FxmlElement.FX_PREFIX) || name.indexOf(':') >= 0) {
+					throw new UnsupportedFxmlException(element, "Attribute " + name + " is not supported");
+				}
+			}
+
+			String var = "v" + (counter++);
+			line(body, typeName(type) + " " + var + " = " + expression + ";");
+
+			if(fxId != null) {
+				ExecutableElement setId = findMethod(asTypeElement(type), "setId", 1, false);
+				if(setId != null && isString(setId.getParameters().get(0).asType())) {
+					line(body, var + ".setId(" + stringLiteral(fxId) + ");");
+				}
+				injectField(fxId, var, type, element, body);
+				ids.put(fxId, type);
+				if(usesNamespace) {
+					line(body, "namespace.put(" + stringLiteral(fxId) + ", " + var + ");");
+				}
+			}
+
+			for(Map.Entry<String, String> attribute : attributes.entrySet()) {
+				setAttribute(var, type, attribute.getKey(), attribute.getValue(), element, body);
+			}
+
+			if(!element.getText().isEmpty()) {
+				throw new UnsupportedFxmlException(element, "Text content of an instance element is not supported");
+			}
+
+			for(FxmlElement child : element.getChildren()) {
+				if(child.isPropertyElement()) {
+					if(!child.getAttributes().isEmpty()) {
+						throw new UnsupportedFxmlException(child, "Attributes of a property element are not supported");
+					}
+					setProperty(var, type, child.getName(), child, body);
+				} else if(child.isStaticPropertyElement()) {
+					setStaticProperty(var, type, child, body);
+				} else if(child.getName().equals("fx:define")) {
+					for(FxmlElement defined : child.getChildren()) {
+						createChild(defined, body);
+					}
+				} else if(child.isInstanceElement() || child.getName().equals("fx:reference")) {
+					Value value = createChild(child, body);
+					if(types.isAssignable(type, collectionType)) {
+						line(body, var + ".add(" + value.expression + ");");
+					} else {
+						String defaultProperty = getDefaultProperty(asTypeElement(type));
+						if(defaultProperty == null) {
+							throw new UnsupportedFxmlException(child, typeName(type) + " does not have a default property");
+						}
+						addOrSet(var, type, defaultProperty, value, child, body);
+					}
+				} else {
+					throw new UnsupportedFxmlException(child, "<" + child.getName() + "> is not supported");
+				}
+			}
+			return new Value(var, type);
+		}
+
+		/** 引数なしのコンストラクター、または @NamedArg で注釈されたコンストラクターでインスタンスを生成する式を返します。
+		 * コンストラクター引数として使用された属性は attributes から削除されます。
+		 */
+		private String construct(TypeElement typeElement, Map<String, String> attributes, FxmlElement element) throws UnsupportedFxmlException {
+			if(typeElement.getModifiers().contains(Modifier.ABSTRACT)) {
+				throw new UnsupportedFxmlException(element, typeElement.getQualifiedName() + " is abstract");
+			}
+			String typeName = typeName(types.erasure(typeElement.asType()));
+			ExecutableElement best = null;
+			int bestMatches = -1;
+			for(ExecutableElement constructor : ElementFilter.constructorsIn(typeElement.getEnclosedElements())) {
+				if(!isPublic(constructor)) {
+					continue;
+				}
+				if(constructor.getParameters().isEmpty()) {
+					if(bestMatches < 0) {
+						best = constructor;
+						bestMatches = 0;
+					}
+					continue;
+				}
+				int matches = 0;
+				boolean isNamed = true;
+				for(VariableElement parameter : constructor.getParameters()) {
+					String name = getNamedArg(parameter, "value");
+					if(name == null) {
+						isNamed = false;
+						break;
+					}
+					if(attributes.containsKey(name)) {
+						matches++;
+					}
+				}
+				if(isNamed && (matches > bestMatches || (matches == bestMatches && best != null && constructor.getParameters().size() < best.getParameters().size()))) {
+					best = constructor;
+					bestMatches = matches;
+				}
+			}
+			if(best == null) {
+				throw new UnsupportedFxmlException(element, "No usable constructor of " + typeName);
+			}
+			if(best.getParameters().isEmpty()) {
+				return "new " + typeName + "()";
+			}
+			List<String> arguments = new ArrayList<>();
+			for(VariableElement parameter : best.getParameters()) {
+				String name = getNamedArg(parameter, "value");
+				String value = attributes.remove(name);
+				if(value == null) {
+					value = getNamedArg(parameter, "defaultValue");
+				}
+				TypeMirror parameterType = types.erasure(parameter.asType());
+				String argument;
+				if(value == null || value.isEmpty()) {
+					argument = defaultValue(parameterType);
+				} else {
+					argument = convert(parameterType, resolvePrefix(value, element));
+					if(argument == null) {
+						throw new UnsupportedFxmlException(element, "Cannot convert \"" + value + "\" to " + parameterType);
+					}
+				}
+				arguments.add(argument);
+			}
+			return "new " + typeName + "(" + String.join(", ", arguments) + ")";
+		}
+
+		private void setAttribute(String var, TypeMirror type, String name, String value, FxmlElement element, StringBuilder body) throws UnsupportedFxmlException {
+			if(name.indexOf('.') > 0) {
+				int i = name.lastIndexOf('.');
+				TypeElement owner = resolveType(name.substring(0, i), element);
+				ExecutableElement setter = findStaticSetter(owner, name.substring(i + 1), type);
+				if(setter == null) {
+					throw new UnsupportedFxmlException(element, "Unknown static property " + name);
+				}
+				String argument = convert(types.erasure(setter.getParameters().get(1).asType()), resolvePrefix(value, element));
+				if(argument == null) {
+					throw new UnsupportedFxmlException(element, "Cannot convert \"" + value + "\" for " + name);
+				}
+				line(body, typeName(owner.asType()) + "." + setter.getSimpleName() + "(" + var + ", " + argument + ");");
+				return;
+			}
+			if(name.startsWith("on") && value.startsWith("#")) {
+				setEventHandler(var, type, name, value.substring(1), element, body);
+				return;
+			}
+
+			TypeElement typeElement = asTypeElement(type);
+			value = resolvePrefix(value, element);
+			for(ExecutableElement setter : findMethods(typeElement, "set" + capitalize(name), 1, false)) {
+				String argument = convert(memberParameterType(type, setter, 0), value);
+				if(argument != null) {
+					line(body, var + "." + setter.getSimpleName() + "(" + argument + ");");
+					return;
+				}
+			}
+			// 読み取り専用のリスト・プロパティーにはカンマ区切りで複数の値を指定できます。
+			ExecutableElement getter = findGetter(typeElement, name);
+			if(getter != null) {
+				TypeMirror returnType = memberReturnType(type, getter);
+				if(types.isAssignable(types.erasure(returnType), collectionType)) {
+					TypeMirror elementType = collectionElementType(returnType);
+					for(String item : value.split(",")) {
+						String argument = convert(elementType, resolvePrefix(item.trim(), element));
+						if(argument == null) {
+							throw new UnsupportedFxmlException(element, "Cannot convert \"" + item.trim() + "\" for " + name);
+						}
+						line(body, var + "." + getter.getSimpleName() + "().add(" + argument + ");");
+					}
+					return;
+				}
+			}
+			throw new UnsupportedFxmlException(element, "Cannot set property " + name + "=\"" + value + "\" of " + typeName(type));
+		}
+
+		private void setEventHandler(String var, TypeMirror type, String name, String methodName, FxmlElement element, StringBuilder body) throws UnsupportedFxmlException {
+			ExecutableElement setter = findMethod(asTypeElement(type), "set" + capitalize(name), 1, false);
+			if(setter == null) {
+				throw new UnsupportedFxmlException(element, "Unknown event handler property " + name);
+			}
+			TypeMirror handlerType = memberParameterType(type, setter, 0);
+			if(!(handlerType instanceof DeclaredType)
+					|| !((TypeElement)((DeclaredType)handlerType).asElement()).getQualifiedName().contentEquals("javafx.event.EventHandler")) {
+				throw new UnsupportedFxmlException(element, name + " is not an event handler property");
+			}
+			TypeMirror eventType = elements.getTypeElement("javafx.event.Event").asType();
+			List<? extends TypeMirror> typeArguments = ((DeclaredType)handlerType).getTypeArguments();
+			if(typeArguments.size() == 1) {
+				TypeMirror argument = typeArguments.get(0);
+				if(argument instanceof WildcardType) {
+					TypeMirror bound = ((WildcardType)argument).getSuperBound();
+					if(bound != null) {
+						eventType = bound;
+					}
+				} else if(argument.getKind() == TypeKind.DECLARED) {
+					eventType = argument;
+				}
+			}
+
+			// FxmlInjector と同様に、イベントを引数に持つメソッドを優先し、見つからない場合は引数のないメソッドを使用します。
+			ExecutableElement handler = findControllerMethod(methodName, eventType);
+			if(handler == null) {
+				handler = findControllerMethod(methodName, null);
+			}
+			if(handler == null) {
+				throw new UnsupportedFxmlException(element, "Controller method " + methodName + " is not found");
+			}
+			String argument = handler.getParameters().isEmpty() ? "" : "(" + typeName(handler.getParameters().get(0).asType()) + ")event";
+			String handlerExpression;
+			if(isAccessibleFromFactory(handler)) {
+				String call = "controller." + methodName + "(" + argument + ")";
+				handlerExpression = handler.getThrownTypes().isEmpty() ? call : "{ " + invoke(call, handler) + " }";
+			} else {
+				String call = methodHandle(handler, element) + ".invoke(controller" + (argument.isEmpty() ? "" : ", " + argument) + ")";
+				handlerExpression = "{ " + wrap(call) + " }";
+			}
+			line(body, var + "." + setter.getSimpleName() + "(event -> " + handlerExpression + ");");
+		}
+
+		private void setProperty(String var, TypeMirror type, String name, FxmlElement propertyElement, StringBuilder body) throws UnsupportedFxmlException {
+			String text = propertyElement.getText();
+			if(propertyElement.getChildren().isEmpty()) {
+				ExecutableElement setter = findMethod(asTypeElement(type), "set" + capitalize(name), 1, false);
+				String argument = setter == null ? null : convert(memberParameterType(type, setter, 0), resolvePrefix(text, propertyElement));
+				if(argument == null) {
+					throw new UnsupportedFxmlException(propertyElement, "Cannot set property " + name + " of " + typeName(type));
+				}
+				line(body, var + "." + setter.getSimpleName() + "(" + argument + ");");
+				return;
+			}
+			if(!text.isEmpty()) {
+				throw new UnsupportedFxmlException(propertyElement, "Mixed content is not supported");
+			}
+			for(FxmlElement child : propertyElement.getChildren()) {
+				if(!child.isInstanceElement() && !child.getName().equals("fx:reference")) {
+					throw new UnsupportedFxmlException(child, "<" + child.getName() + "> is not supported in a property element");
+				}
+				addOrSet(var, type, name, createChild(child, body), child, body);
+			}
+		}
+
+		private void addOrSet(String var, TypeMirror type, String name, Value value, FxmlElement element, StringBuilder body) throws UnsupportedFxmlException {
+			TypeElement typeElement = asTypeElement(type);
+			for(ExecutableElement setter : findMethods(typeElement, "set" + capitalize(name), 1, false)) {
+				if(types.isAssignable(value.type, types.erasure(memberParameterType(type, setter, 0)))) {
+					line(body, var + "." + setter.getSimpleName() + "(" + value.expression + ");");
+					return;
+				}
+			}
+			ExecutableElement getter = findGetter(typeElement, name);
+			if(getter != null) {
+				TypeMirror returnType = memberReturnType(type, getter);
+				if(types.isAssignable(types.erasure(returnType), collectionType)) {
+					TypeMirror elementType = collectionElementType(returnType);
+					if(!types.isAssignable(value.type, types.erasure(elementType))) {
+						throw new UnsupportedFxmlException(element, typeName(value.type) + " cannot be added to " + name);
+					}
+					line(body, var + "." + getter.getSimpleName() + "().add(" + value.expression + ");");
+					return;
+				}
+			}
+			throw new UnsupportedFxmlException(element, "Cannot set property " + name + " of " + typeName(type));
+		}
+
+		private void setStaticProperty(String var, TypeMirror type, FxmlElement propertyElement, StringBuilder body) throws UnsupportedFxmlException {
+			String name = propertyElement.getName();
+			int i = name.lastIndexOf('.');
+			TypeElement owner = resolveType(name.substring(0, i), propertyElement);
+			ExecutableElement setter = findStaticSetter(owner, name.substring(i + 1), type);
+			if(setter == null) {
+				throw new UnsupportedFxmlException(propertyElement, "Unknown static property " + name);
+			}
+			TypeMirror parameterType = types.erasure(setter.getParameters().get(1).asType());
+			String argument;
+			if(propertyElement.getChildren().isEmpty()) {
+				argument = convert(parameterType, resolvePrefix(propertyElement.getText(), propertyElement));
+			} else if(propertyElement.getChildren().size() == 1 && propertyElement.getText().isEmpty()) {
+				Value value = createChild(propertyElement.getChildren().get(0), body);
+				argument = types.isAssignable(value.type, parameterType) ? value.expression : null;
+			} else {
+				argument = null;
+			}
+			if(argument == null) {
+				throw new UnsupportedFxmlException(propertyElement, "Cannot set static property " + name);
+			}
+			line(body, typeName(owner.asType()) + "." + setter.getSimpleName() + "(" + var + ", " + argument + ");");
+		}
+
+		/** FXMLLoader と同様に、public または @FXML で注釈された同じ名前のフィールドがスーパークラスにもある場合は、すべてのフィールドに注入します。
+		 */
+		private void injectField(String fxId, String var, TypeMirror type, FxmlElement element, StringBuilder body) throws UnsupportedFxmlException {
+			for(TypeElement c = controller; c != null; c = superclassOf(c)) {
+				for(VariableElement field : ElementFilter.fieldsIn(c.getEnclosedElements())) {
+					if(!field.getSimpleName().contentEquals(fxId) || field.getModifiers().contains(Modifier.STATIC)
+							|| field.getModifiers().contains(Modifier.FINAL) || !(isPublic(field) || hasFxmlAnnotation(field))) {
+						continue;
+					}
+					if(!types.isAssignable(type, types.erasure(field.asType()))) {
+						throw new UnsupportedFxmlException(element, typeName(type) + " cannot be assigned to controller field "
+								+ c.getQualifiedName() + "." + fxId);
+					}
+					if(!isAccessibleFromFactory(field)) {
+						line(body, varHandle(field, element) + ".set(controller, " + var + ");");
+					} else if(c == controller) {
+						line(body, "controller." + fxId + " = " + var + ";");
+					} else {
+						// サブクラスの同じ名前のフィールドに隠されないように、宣言したクラスにキャストしてから代入します。
+						line(body, "((" + typeName(c.asType()) + ")controller)." + fxId + " = " + var + ";");
+					}
+				}
+			}
+		}
+
+		/** コントローラー・クラスとスーパークラスから、public または @FXML で注釈された指定した名前のメソッドを検索します。
+		 * サブクラスのメソッドが優先されます。eventType が null の場合は引数のないメソッドを、そうでない場合は eventType を受け取るメソッドを検索します。
+		 */
+		private ExecutableElement findControllerMethod(String name, TypeMirror eventType) {
+			for(TypeElement c = controller; c != null; c = superclassOf(c)) {
+				for(ExecutableElement method : ElementFilter.methodsIn(c.getEnclosedElements())) {
+					if(!method.getSimpleName().contentEquals(name) || method.getModifiers().contains(Modifier.STATIC)
+							|| !(isPublic(method) || hasFxmlAnnotation(method))) {
+						continue;
+					}
+					if(eventType == null ? method.getParameters().isEmpty()
+							: method.getParameters().size() == 1 && types.isAssignable(types.erasure(eventType), types.erasure(method.getParameters().get(0).asType()))) {
+						return method;
+					}
+				}
+			}
+			return null;
+		}
+
+		private TypeElement superclassOf(TypeElement typeElement) {
+			TypeElement superclass = asTypeElement(typeElement.getSuperclass());
+			if(superclass == null || superclass.getQualifiedName().contentEquals("java.lang.Object")) {
+				return null;
+			}
+			return superclass;
+		}
+
+		/** 生成されるクラスから直接アクセスできないフィールドの VarHandle を保持する static フィールドの名前を返します。
+		 */
+		private String varHandle(VariableElement field, FxmlElement element) throws UnsupportedFxmlException {
+			String handle = handleNames.get(field);
+			if(handle == null) {
+				TypeElement owner = (TypeElement)field.getEnclosingElement();
+				requireAccessibleType(owner.asType(), element);
+				requireAccessibleType(field.asType(), element);
+				handle = addHandle(field, "java.lang.invoke.VarHandle", "findVarHandle(" + typeName(owner.asType()) + ".class, "
+						+ stringLiteral(field.getSimpleName().toString()) + ", " + typeName(field.asType()) + ".class)");
+			}
+			return handle;
+		}
+
+		/** 生成されるクラスから直接アクセスできないメソッドの MethodHandle を保持する static フィールドの名前を返します。
+		 */
+		private String methodHandle(ExecutableElement method, FxmlElement element) throws UnsupportedFxmlException {
+			String handle = handleNames.get(method);
+			if(handle == null) {
+				TypeElement owner = (TypeElement)method.getEnclosingElement();
+				requireAccessibleType(owner.asType(), element);
+				StringBuilder methodType = new StringBuilder("java.lang.invoke.MethodType.methodType(");
+				TypeMirror returnType = method.getReturnType();
+				if(returnType.getKind() == TypeKind.VOID) {
+					methodType.append("void.class");
+				} else {
+					requireAccessibleType(returnType, element);
+					methodType.append(typeName(returnType)).append(".class");
+				}
+				for(VariableElement parameter : method.getParameters()) {
+					requireAccessibleType(parameter.asType(), element);
+					methodType.append(", ").append(typeName(parameter.asType())).append(".class");
+				}
+				methodType.append(")");
+				handle = addHandle(method, "java.lang.invoke.MethodHandle", "findVirtual(" + typeName(owner.asType()) + ".class, "
+						+ stringLiteral(method.getSimpleName().toString()) + ", " + methodType + ")");
+			}
+			return handle;
+		}
+
+		private String addHandle(Element member, String handleType, String find) {
+			if(handleNames.isEmpty()) {
+				methods.append("\n");
+				methods.append("\tprivate static java.lang.invoke.MethodHandles.Lookup lookup(Class<?> type) throws IllegalAccessException {\n");
+				methods.append("\t\treturn java.lang.invoke.MethodHandles.privateLookupIn(type, java.lang.invoke.MethodHandles.lookup());\n");
+				methods.append("\t}\n");
+			}
+			String handle = toUpperSnakeCase(member.getSimpleName().toString()) + "_" + handleNames.size();
+			String owner = typeName(member.getEnclosingElement().asType());
+			handleNames.put(member, handle);
+			handles.append("\tprivate static final ").append(handleType).append(" ").append(handle).append(";\n");
+			handles.append("\tstatic {\n");
+			handles.append("\t\ttry {\n");
+			handles.append("\t\t\t").append(handle).append(" = lookup(").append(owner).append(".class).").append(find).append(";\n");
+			handles.append("\t\t} catch(ReflectiveOperationException e) {\n");
+			handles.append("\t\t\tthrow new ExceptionInInitializerError(e);\n");
+			handles.append("\t\t}\n");
+			handles.append("\t}\n");
+			return handle;
+		}
+
+		/** 生成されるクラスでクラス・リテラルとして記述できない型の場合は UnsupportedFxmlException をスローします。
+		 */
+		private void requireAccessibleType(TypeMirror type, FxmlElement element) throws UnsupportedFxmlException {
+			TypeMirror erasure = types.erasure(type);
+			while(erasure.getKind() == TypeKind.ARRAY) {
+				erasure = ((ArrayType)erasure).getComponentType();
+			}
+			if(erasure.getKind() != TypeKind.DECLARED) {
+				return;
+			}
+			for(Element e = types.asElement(erasure); e.getKind() != ElementKind.PACKAGE; e = e.getEnclosingElement()) {
+				if(e.getModifiers().contains(Modifier.PRIVATE) || !(isPublic(e) || isSamePackage(e))) {
+					throw new UnsupportedFxmlException(element, typeName(type) + " is not accessible");
+				}
+			}
+		}
+
+		private TypeElement resolveType(String name, FxmlElement element) throws UnsupportedFxmlException {
+			if(name == null) {
+				throw new UnsupportedFxmlException(element, "Type is not specified");
+			}
+			TypeElement typeElement = null;
+			if(Character.isLowerCase(name.charAt(0))) {
+				typeElement = elements.getTypeElement(name);
+			} else {
+				int i = name.indexOf('.');
+				String simpleName = i < 0 ? name : name.substring(0, i);
+				String nested = i < 0 ? "" : name.substring(i);
+				for(String i0 : parser.getImports()) {
+					if(i0.endsWith(".*")) {
+						typeElement = elements.getTypeElement(i0.substring(0, i0.length() - 1) + simpleName + nested);
+					} else if(i0.equals(simpleName) || i0.endsWith("." + simpleName)) {
+						typeElement = elements.getTypeElement(i0 + nested);
+					}
+					if(typeElement != null) {
+						break;
+					}
+				}
+				if(typeElement == null) {
+					typeElement = elements.getTypeElement("java.lang." + name);
+				}
+			}
+			if(typeElement == null) {
+				throw new UnsupportedFxmlException(element, "Cannot resolve type " + name);
+			}
+			if(!isPublic(typeElement)) {
+				throw new UnsupportedFxmlException(element, typeElement.getQualifiedName() + " is not public");
+			}
+			return typeElement;
+		}
+
+		/** 属性値の接頭辞を解決します。@ は FXML の場所からの相対パスとして解決し、\ はエスケープとして取り除きます。
+		 * 式、バインディング、リソースの参照には対応していません。
+		 */
+		private String resolvePrefix(String value, FxmlElement element) throws UnsupportedFxmlException {
+			if(value.startsWith("\\")) {
+				return value.substring(1);
+			}
+			if(value.startsWith("@")) {
+				return LOCATION_MARKER + value.substring(1);
+			}
+			if(value.startsWith("$") || value.startsWith("%") || value.startsWith("#")) {
+				throw new UnsupportedFxmlException(element, "Attribute value \"" + value + "\" is not supported");
+			}
+			return value;
+		}
+
+		private static final String LOCATION_MARKER = "\u0000@";
+
+		/** 文字列を指定した型の値に変換する Java の式を返します。変換できない場合は null を返します。
+		 */
+		private String convert(TypeMirror target, String value) {
+			if(value.startsWith(LOCATION_MARKER)) {
+				if(!isString(target) && !types.isSameType(target, objectType)) {
+					return null;
+				}
+				return "onl.oss.javafx.fxml.FxmlFactory.resolveLocation(LOCATION, " + stringLiteral(value.substring(LOCATION_MARKER.length())) + ")";
+			}
+			if(target.getKind().isPrimitive()) {
+				return primitiveLiteral(target.getKind(), value);
+			}
+			if(target.getKind() != TypeKind.DECLARED) {
+				return null;
+			}
+			TypeElement typeElement = asTypeElement(target);
+			String qualifiedName = typeElement.getQualifiedName().toString();
+			if(qualifiedName.equals("java.lang.String") || qualifiedName.equals("java.lang.Object") || qualifiedName.equals("java.lang.CharSequence")) {
+				return stringLiteral(value);
+			}
+			try {
+				PrimitiveType primitiveType = types.unboxedType(target);
+				return primitiveLiteral(primitiveType.getKind(), value);
+			} catch(IllegalArgumentException ignore) {
+			}
+			if(typeElement.getKind() == ElementKind.ENUM) {
+				Set<String> constants = new HashSet<>();
+				for(Element e : typeElement.getEnclosedElements()) {
+					if(e.getKind() == ElementKind.ENUM_CONSTANT) {
+						constants.add(e.getSimpleName().toString());
+					}
+				}
+				for(String candidate : new String[] { value, value.toUpperCase(Locale.ROOT), toUpperSnakeCase(value) }) {
+					if(constants.contains(candidate)) {
+						return qualifiedName + "." + candidate;
+					}
+				}
+				return null;
+			}
+			for(ExecutableElement method : findMethods(typeElement, "valueOf", 1, true)) {
+				if(isString(method.getParameters().get(0).asType()) && types.isAssignable(types.erasure(method.getReturnType()), target)) {
+					return qualifiedName + ".valueOf(" + stringLiteral(value) + ")";
+				}
+			}
+			return null;
+		}
+
+		private String primitiveLiteral(TypeKind kind, String value) {
+			value = value.trim();
+			try {
+				switch(kind) {
+					case BOOLEAN:
+						return Boolean.toString(Boolean.parseBoolean(value));
+					case BYTE:
+						return "(byte)" + Byte.parseByte(value);
+					case SHORT:
+						return "(short)" + Short.parseShort(value);
+					case INT:
+						return Integer.toString(Integer.parseInt(value));
+					case LONG:
+						return Long.parseLong(value) + "L";
+					case CHAR:
+						return value.length() == 1 ? "(char)" + (int)value.charAt(0) : null;
+					case FLOAT: {
+						float f = Float.parseFloat(value);
+						if(Float.isNaN(f)) {
+							return "java.lang.Float.NaN";
+						} else if(Float.isInfinite(f)) {
+							return f > 0 ? "java.lang.Float.POSITIVE_INFINITY" : "java.lang.Float.NEGATIVE_INFINITY";
+						}
+						return f + "f";
+					}
+					case DOUBLE: {
+						double d = Double.parseDouble(value);
+						if(Double.isNaN(d)) {
+							return "java.lang.Double.NaN";
+						} else if(Double.isInfinite(d)) {
+							return d > 0 ? "java.lang.Double.POSITIVE_INFINITY" : "java.lang.Double.NEGATIVE_INFINITY";
+						}
+						return Double.toString(d);
+					}
+					default:
+						return null;
+				}
+			} catch(NumberFormatException e) {
+				return null;
+			}
+		}
+
+		private String defaultValue(TypeMirror type) {
+			switch(type.getKind()) {
+				case BOOLEAN:
+					return "false";
+				case BYTE:
+				case SHORT:
+				case INT:
+				case LONG:
+				case CHAR:
+				case FLOAT:
+				case DOUBLE:
+					return "(" + type + ")0";
+				default:
+					return "(" + typeName(type) + ")null";
+			}
+		}
+
+		private String getDefaultProperty(TypeElement typeElement) {
+			for(TypeElement t = typeElement; t != null; t = asTypeElement(t.getSuperclass())) {
+				for(AnnotationMirror annotation : t.getAnnotationMirrors()) {
+					if(((TypeElement)annotation.getAnnotationType().asElement()).getQualifiedName().contentEquals("javafx.beans.DefaultProperty")) {
+						for(Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : annotation.getElementValues().entrySet()) {
+							if(entry.getKey().getSimpleName().contentEquals("value")) {
+								return entry.getValue().getValue().toString();
+							}
+						}
+					}
+				}
+			}
+			return null;
+		}
+
+		private String getNamedArg(VariableElement parameter, String member) {
+			for(AnnotationMirror annotation : parameter.getAnnotationMirrors()) {
+				if(((TypeElement)annotation.getAnnotationType().asElement()).getQualifiedName().contentEquals("javafx.beans.NamedArg")) {
+					for(Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : elements.getElementValuesWithDefaults(annotation).entrySet()) {
+						if(entry.getKey().getSimpleName().contentEquals(member)) {
+							return entry.getValue().getValue().toString();
+						}
+					}
+				}
+			}
+			return null;
+		}
+
+		private TypeMirror collectionElementType(TypeMirror type) {
+			Deque<TypeMirror> queue = new ArrayDeque<>();
+			queue.add(type);
+			while(!queue.isEmpty()) {
+				TypeMirror t = queue.poll();
+				if(types.isSameType(types.erasure(t), collectionType)) {
+					List<? extends TypeMirror> arguments = ((DeclaredType)t).getTypeArguments();
+					if(arguments.size() == 1 && arguments.get(0).getKind() == TypeKind.DECLARED) {
+						return arguments.get(0);
+					}
+					return objectType;
+				}
+				queue.addAll(types.directSupertypes(t));
+			}
+			return objectType;
+		}
+
+		private TypeMirror memberParameterType(TypeMirror site, ExecutableElement method, int index) {
+			ExecutableType executableType = (ExecutableType)types.asMemberOf((DeclaredType)site, method);
+			return executableType.getParameterTypes().get(index);
+		}
+
+		private TypeMirror memberReturnType(TypeMirror site, ExecutableElement method) {
+			ExecutableType executableType = (ExecutableType)types.asMemberOf((DeclaredType)site, method);
+			return executableType.getReturnType();
+		}
+
+		private List<ExecutableElement> findMethods(TypeElement typeElement, String name, int parameterCount, boolean isStatic) {
+			List<ExecutableElement> list = new ArrayList<>();
+			if(typeElement == null) {
+				return list;
+			}
+			for(ExecutableElement method : ElementFilter.methodsIn(elements.getAllMembers(typeElement))) {
+				if(method.getSimpleName().contentEquals(name)
+						&& method.getParameters().size() == parameterCount
+						&& method.getModifiers().contains(Modifier.STATIC) == isStatic
+						&& isPublic(method)) {
+					list.add(method);
+				}
+			}
+			return list;
+		}
+
+		private ExecutableElement findMethod(TypeElement typeElement, String name, int parameterCount, boolean isStatic) {
+			List<ExecutableElement> list = findMethods(typeElement, name, parameterCount, isStatic);
+			return list.isEmpty() ? null : list.get(0);
+		}
+
+		private ExecutableElement findGetter(TypeElement typeElement, String name) {
+			ExecutableElement getter = findMethod(typeElement, "get" + capitalize(name), 0, false);
+			if(getter == null) {
+				getter = findMethod(typeElement, "is" + capitalize(name), 0, false);
+			}
+			return getter;
+		}
+
+		private ExecutableElement findStaticSetter(TypeElement owner, String name, TypeMirror targetType) {
+			for(ExecutableElement method : findMethods(owner, "set" + capitalize(name), 2, true)) {
+				if(types.isAssignable(targetType, types.erasure(method.getParameters().get(0).asType()))) {
+					return method;
+				}
+			}
+			return null;
+		}
+
+		private VariableElement findField(TypeElement typeElement, String name, boolean isStatic) {
+			for(VariableElement field : ElementFilter.fieldsIn(elements.getAllMembers(typeElement))) {
+				if(field.getSimpleName().contentEquals(name) && field.getModifiers().contains(Modifier.STATIC) == isStatic) {
+					return field;
+				}
+			}
+			return null;
+		}
+
+		/** 生成されるクラス（コントローラーと同じパッケージ）からアクセスできるメンバーである場合に true を返します。
+		 */
+		private boolean isAccessibleFromFactory(Element member) {
+			if(member.getModifiers().contains(Modifier.PRIVATE)) {
+				return false;
+			}
+			if(isPublic(member)) {
+				return isPublic(member.getEnclosingElement()) || isSamePackage(member);
+			}
+			return isSamePackage(member);
+		}
+
+		private boolean isSamePackage(Element member) {
+			PackageElement p = elements.getPackageOf(member);
+			return p.getQualifiedName().contentEquals(packageName);
+		}
+
+		private boolean hasFxmlAnnotation(Element element) {
+			for(AnnotationMirror annotation : element.getAnnotationMirrors()) {
+				if(((TypeElement)annotation.getAnnotationType().asElement()).getQualifiedName().contentEquals("javafx.fxml.FXML")) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+		private boolean isPublic(Element element) {
+			return element.getModifiers().contains(Modifier.PUBLIC);
+		}
+
+		private boolean isString(TypeMirror type) {
+			return type.getKind() == TypeKind.DECLARED && asTypeElement(type).getQualifiedName().contentEquals("java.lang.String");
+		}
+
+		private TypeElement asTypeElement(TypeMirror type) {
+			if(type == null || type.getKind() != TypeKind.DECLARED) {
+				return null;
+			}
+			return (TypeElement)types.asElement(type);
+		}
+
+		private String typeName(TypeMirror type) {
+			return types.erasure(type).toString();
+		}
+
+		/** メソッド呼出しの文を返します。チェック例外をスローするメソッドの場合は RuntimeException でラップします。
+		 */
+		private String invoke(String call, ExecutableElement method) {
+			if(method.getThrownTypes().isEmpty()) {
+				return call + ";";
+			}
+			return wrap(call);
+		}
+
+		/** チェック例外を RuntimeException でラップするメソッド呼出しの文を返します。
+		 */
+		private String wrap(String call) {
+			return "try { " + call + "; } catch(RuntimeException | Error e) { throw e; } catch(Throwable e) { throw new RuntimeException(e); }";
+		}
+
+		private boolean containsElement(FxmlElement element, String name) {
+			if(element.getName().equals(name)) {
+				return true;
+			}
+			for(FxmlElement child : element.getChildren()) {
+				if(containsElement(child, name)) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+		private void line(StringBuilder sb, String s) {
+			sb.append("\t\t").append(s).append("\n");
+		}
+	}
+
+	private static String capitalize(String s) {
+		return s.isEmpty() ? s : Character.toUpperCase(s.charAt(0)) + s.substring(1);
+	}
+
+	private static String toUpperSnakeCase(String s) {
+		StringBuilder sb = new StringBuilder();
+		for(int i = 0; i < s.length(); i++) {
+			char c = s.charAt(i);
+			if(Character.isUpperCase(c) && i > 0) {
+				sb.append('_');
+			}
+			sb.append(c == '-' ? '_' : Character.toUpperCase(c));
+		}
+		return sb.toString();
+	}
+
+	static String stringLiteral(String s) {
+		StringBuilder sb = new StringBuilder("\"");
+		for(int i = 0; i < s.length(); i++) {
+			char c = s.charAt(i);
+			switch(c) {
+				case '"': sb.append("\\\""); break;
+				case '\\': sb.append("\\\\"); break;
+				case '\n': sb.append("\\n"); break;
+				case '\r': sb.append("\\r"); break;
+				case '\t': sb.append("\\t"); break;
+				default:
+					if(c < 0x20 || c >= 0x7f) {
+						sb.append(String.format("\\u%04x", (int)c));
+					} else {
+						sb.append(c);
+					}
+			}
+		}
+		return sb.append('"').toString();
+	}
+}
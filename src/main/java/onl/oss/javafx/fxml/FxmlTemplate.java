@@ -0,0 +1,219 @@
+package onl.oss.javafx.fxml;
+
+import javafx.fxml.FXMLLoader;
+import javafx.fxml.JavaFXBuilderFactory;
+import javafx.fxml.LoadException;
+import javafx.util.Builder;
+import javafx.util.BuilderFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URL;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * FXML リソースを繰り返しロードするために必要な情報を保持します。
+ * <p>
+ * FXML ファイルの内容をメモリー上に保持し、型からビルダーへの解決結果を保持する BuilderFactory をロード間で共有します。
+ * これにより、2回目以降のロードではリソースの解決と読み込み、ビルダーの解決が省略されます。</p>
+ * <p>
+ * FXML ファイルと同じ場所にバイナリー形式のファイル（拡張子 .fxmlb）があり、その内容が FXML ファイルと一致する場合は、
+ * FXMLLoader の代わりにバイナリー形式の FXML 文書を使用してロードします。
+ * バイナリー形式のファイルがない場合は、最初のロード時に FXML 文書をメモリー上でバイナリー形式に変換して保持するため、
+ * 2回目以降のロードでは XML の解析も省略されます。バイナリー形式が対応していない機能を使用している FXML 文書は、毎回 FXMLLoader でロードします。</p>
+ *
+ */
+final class FxmlTemplate {
+
+	private final URL location;
+	private final byte[] content;
+	private final BuilderFactory builderFactory;
+	private volatile FxmlBinaryDocument binary;
+	private volatile boolean isBinaryResolved;
+	private volatile Boolean isControllerIndependent;
+
+	FxmlTemplate(URL location) throws IOException {
+		this.location = location;
+		try(InputStream in = location.openStream()) {
+			this.content = in.readAllBytes();
+		}
+		this.builderFactory = new SynchronizedBuilderFactory(new JavaFXBuilderFactory());
+		this.binary = readBinary(location, content);
+		this.isBinaryResolved = binary != null;
+	}
+
+	private static FxmlBinaryDocument readBinary(URL location, byte[] content) {
+		byte[] data;
+		try {
+			URL binaryLocation = URI.create(location.toExternalForm() + FxmlBinaryCompiler.EXTENSION_SUFFIX).toURL();
+			try(InputStream in = binaryLocation.openStream()) {
+				data = in.readAllBytes();
+			}
+		} catch(IOException | IllegalArgumentException e) {
+			return null;
+		}
+		return FxmlBinaryDocument.read(location, content, data);
+	}
+
+	URL getLocation() {
+		return location;
+	}
+
+	byte[] getContent() {
+		return content;
+	}
+
+	/** FXML 文書をメモリー上でバイナリー形式に変換します。バイナリー形式が対応していない機能を使用している場合は null を返します。
+	 */
+	private static FxmlBinaryDocument compileBinary(URL location, byte[] content) {
+		ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+		if(classLoader == null) {
+			classLoader = FxmlTemplate.class.getClassLoader();
+		}
+		try {
+			return FxmlBinaryDocument.read(location, content, FxmlBinaryWriter.write(content, classLoader));
+		} catch(IOException | FxmlBinaryDocument.UnsupportedFxmlException | RuntimeException e) {
+			return null;
+		}
+	}
+
+	/** バイナリー形式の FXML 文書を返します。
+	 * バイナリー形式のファイルが存在しないか、FXML ファイルと内容が一致しない場合は、最初の呼び出しで FXML 文書をバイナリー形式に変換します。
+	 * バイナリー形式が対応していない機能を使用している場合は null を返します。
+	 *
+	 * @return バイナリー形式の FXML 文書
+	 */
+	FxmlBinaryDocument getBinary() {
+		if(!isBinaryResolved) {
+			synchronized (this) {
+				if(!isBinaryResolved) {
+					binary = compileBinary(location, content);
+					isBinaryResolved = true;
+				}
+			}
+		}
+		return binary;
+	}
+
+	/** FXML 文書が参照するクラスを事前にロードして初期化します。
+	 * バイナリー形式がある場合は解決済みのクラス表を、ない場合は FXML 文書を解析して要素の型とコントローラーの型をロードします。
+	 *
+	 * @throws IOException FXML 文書の解析に失敗した場合
+	 * @throws ClassNotFoundException バイナリー形式が参照するクラスが見つからない場合
+	 */
+	void warmUp() throws IOException, ClassNotFoundException {
+		FxmlBinaryDocument binary = getBinary();
+		if(binary != null) {
+			binary.resolveClasses();
+			return;
+		}
+		ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+		FxmlParser parser = FxmlParser.parse(new ByteArrayInputStream(content));
+		Deque<FxmlElement> elements = new ArrayDeque<>();
+		elements.push(parser.getRoot());
+		while(!elements.isEmpty()) {
+			FxmlElement element = elements.pop();
+			if(element.isInstanceElement()) {
+				parser.resolveType(element.getName(), classLoader, true);
+			}
+			String controller = element.getAttributes().get("fx:controller");
+			if(controller != null) {
+				parser.resolveType(controller, classLoader, true);
+			}
+			for(FxmlElement child : element.getChildren()) {
+				elements.push(child);
+			}
+		}
+	}
+
+	FXMLLoader createLoader() {
+		return new FXMLLoader(location, null, builderFactory);
+	}
+
+	<T> T load(FXMLLoader loader) throws IOException {
+		return loader.load(new ByteArrayInputStream(content));
+	}
+
+	@SuppressWarnings("unchecked")
+	<T> T load(Object root, Object controller) throws IOException {
+		FxmlInjector injector = controller != null ? FxmlInjector.of(controller.getClass()) : null;
+		FxmlBinaryDocument binary = getBinary();
+		if(binary != null && (injector == null || injector.isAvailable())) {
+			return (T)binary.load(root, controller, builderFactory);
+		}
+		FXMLLoader loader = createLoader();
+		if(root != null) {
+			loader.setRoot(root);
+		}
+		if(injector != null && injector.isAvailable() && isControllerIndependent()) {
+			// FXML 文書がロード中にコントローラーを参照しない場合は、FXMLLoader にコントローラーを渡さずにロードして、
+			// キャッシュされた MethodHandle で名前空間の値をコントローラーに注入します。
+			T obj = load(loader);
+			try {
+				injector.inject(controller, loader.getNamespace());
+			} catch(IllegalArgumentException e) {
+				throw new LoadException(location + ": " + e.getMessage(), e);
+			}
+			injector.initialize(controller, location, null);
+			return obj;
+		}
+		if(controller != null) {
+			loader.setController(controller);
+		}
+		return load(loader);
+	}
+
+	/** FXML 文書がロード中にコントローラーを参照しない場合に true を返します。
+	 * イベント・ハンドラー（#）、$controller を含む式、fx:include、fx:controller、スクリプトを使用している場合は false を返します。
+	 */
+	private boolean isControllerIndependent() throws IOException {
+		Boolean b = isControllerIndependent;
+		if(b == null) {
+			FxmlParser parser = FxmlParser.parse(new ByteArrayInputStream(content));
+			b = !parser.getInstructions().contains("language");
+			Deque<FxmlElement> elements = new ArrayDeque<>();
+			elements.push(parser.getRoot());
+			while(b && !elements.isEmpty()) {
+				FxmlElement element = elements.pop();
+				if(element.getName().equals("fx:include") || element.getName().equals("fx:script")
+						|| element.getAttributes().containsKey("fx:controller") || refersController(element.getText())) {
+					b = false;
+				}
+				for(String value : element.getAttributes().values()) {
+					if(value.startsWith("#") || refersController(value)) {
+						b = false;
+					}
+				}
+				for(FxmlElement child : element.getChildren()) {
+					elements.push(child);
+				}
+			}
+			isControllerIndependent = b;
+		}
+		return b;
+	}
+
+	private static boolean refersController(String value) {
+		return value.startsWith("$") && value.contains("controller");
+	}
+
+	/** JavaFXBuilderFactory は内部に HashMap のキャッシュを持つため、ロード間で共有するときは同期化が必要です。
+	 *
+	 */
+	private static class SynchronizedBuilderFactory implements BuilderFactory {
+
+		private final BuilderFactory builderFactory;
+
+		SynchronizedBuilderFactory(BuilderFactory builderFactory) {
+			this.builderFactory = builderFactory;
+		}
+
+		@Override
+		public synchronized Builder<?> getBuilder(Class<?> type) {
+			return builderFactory.getBuilder(type);
+		}
+	}
+}
@@ -0,0 +1,287 @@
+package onl.oss.javafx.fxml;
+
+import javafx.application.Platform;
+import javafx.beans.property.BooleanProperty;
+import javafx.beans.property.ObjectProperty;
+import javafx.beans.property.ObjectPropertyBase;
+import javafx.beans.property.ReadOnlyBooleanProperty;
+import javafx.beans.property.ReadOnlyBooleanWrapper;
+import javafx.beans.property.ReadOnlyObjectProperty;
+import javafx.beans.property.ReadOnlyObjectWrapper;
+import javafx.beans.property.SimpleBooleanProperty;
+import javafx.beans.property.SimpleObjectProperty;
+import javafx.beans.property.SimpleStringProperty;
+import javafx.beans.property.StringProperty;
+import javafx.event.Event;
+import javafx.event.EventHandler;
+import javafx.event.EventType;
+import javafx.scene.Node;
+import javafx.scene.Scene;
+import javafx.scene.layout.StackPane;
+
+import java.net.MalformedURLException;
+import java.net.URI;
+import java.net.URL;
+
+/**
+ * 初めて表示されるときに FXML をロードするプレースホルダーです。
+ * <p>
+ * タブやウィザードのページなど、表示されるまで不要なサブビューを fx:include の代わりに LazyInclude で指定すると、
+ * 親の FXML をロードするときにはサブビューのノードは生成されず、
+ * LazyInclude がシーンに追加され、かつ LazyInclude とすべての祖先ノードが可視になった最初のパルスでロードされます。</p>
+ * <pre>
+ * &lt;?import onl.oss.javafx.fxml.LazyInclude?&gt;
+ * &lt;Tab text="詳細設定"&gt;
+ *   &lt;LazyInclude fx:id="advanced" source="@AdvancedPane.fxml" onLoaded="#onAdvancedLoaded"/&gt;
+ * &lt;/Tab&gt;
+ * </pre>
+ * <p>
+ * ロードが完了すると、ロードしたノードが LazyInclude の子ノードになり、{@link #LOADED} イベントが発生します。
+ * {@link #setController(Object)} でコントローラーを指定しなかった場合、サブビューの fx:controller が使用されます。</p>
+ * <p>
+ * ロードに失敗すると {@link #LOAD_FAILED} イベントが発生し、原因の例外を {@link #getException()} で取得できます。
+ * 非同期のロードに失敗し、{@link #setOnLoadFailed(EventHandler)} を設定していない場合、例外はスレッドの UncaughtExceptionHandler にも渡されます。
+ * 失敗した後は自動的にロードを繰り返さないため、再試行する場合は {@link #load()} を呼び出してください。</p>
+ *
+ */
+@SuppressWarnings("this-escape")
+public class LazyInclude extends StackPane {
+
+	/**
+	 * サブビューのロードが完了したことを示すイベント・タイプです。
+	 */
+	public static final EventType<Event> LOADED = new EventType<>(Event.ANY, "LAZY_INCLUDE_LOADED");
+
+	/**
+	 * サブビューのロードに失敗したことを示すイベント・タイプです。
+	 */
+	public static final EventType<Event> LOAD_FAILED = new EventType<>(Event.ANY, "LAZY_INCLUDE_LOAD_FAILED");
+
+	private final StringProperty source = new SimpleStringProperty(this, "source");
+	private final ObjectProperty<Object> controller = new SimpleObjectProperty<>(this, "controller");
+	private final BooleanProperty async = new SimpleBooleanProperty(this, "async");
+	private final ReadOnlyBooleanWrapper loaded = new ReadOnlyBooleanWrapper(this, "loaded");
+	private final ReadOnlyObjectWrapper<Throwable> exception = new ReadOnlyObjectWrapper<>(this, "exception");
+	private final ObjectProperty<EventHandler<Event>> onLoaded = new ObjectPropertyBase<>() {
+		@Override
+		protected void invalidated() {
+			setEventHandler(LOADED, get());
+		}
+
+		@Override
+		public Object getBean() {
+			return LazyInclude.this;
+		}
+
+		@Override
+		public String getName() {
+			return "onLoaded";
+		}
+	};
+	private final ObjectProperty<EventHandler<Event>> onLoadFailed = new ObjectPropertyBase<>() {
+		@Override
+		protected void invalidated() {
+			setEventHandler(LOAD_FAILED, get());
+		}
+
+		@Override
+		public Object getBean() {
+			return LazyInclude.this;
+		}
+
+		@Override
+		public String getName() {
+			return "onLoadFailed";
+		}
+	};
+
+	private final Runnable pulseListener = this::loadIfShowing;
+	private Scene registeredScene;
+	private boolean isLoading;
+	private Node content;
+
+	public LazyInclude() {
+		sceneProperty().addListener((observable, oldValue, newValue) -> {
+			unregisterPulseListener();
+			if(newValue != null && !isLoading) {
+				registeredScene = newValue;
+				newValue.addPreLayoutPulseListener(pulseListener);
+				Platform.requestNextPulse();
+			}
+		});
+	}
+
+	/** ロードする FXML の URL です。FXML では @ 接頭辞を付けて親の FXML からの相対パスで指定できます。 */
+	public final StringProperty sourceProperty() {
+		return source;
+	}
+
+	public final String getSource() {
+		return source.get();
+	}
+
+	public final void setSource(String value) {
+		source.set(value);
+	}
+
+	/** サブビューのコントローラーです。ロードする前に設定してください。 */
+	public final ObjectProperty<Object> controllerProperty() {
+		return controller;
+	}
+
+	public final Object getController() {
+		return controller.get();
+	}
+
+	public final void setController(Object value) {
+		controller.set(value);
+	}
+
+	/** true の場合、サブビューを {@link Fxml#getExecutor()} のスレッドでロードします。既定値は false です。 */
+	public final BooleanProperty asyncProperty() {
+		return async;
+	}
+
+	public final boolean isAsync() {
+		return async.get();
+	}
+
+	public final void setAsync(boolean value) {
+		async.set(value);
+	}
+
+	/** サブビューのロードが完了している場合に true になります。 */
+	public final ReadOnlyBooleanProperty loadedProperty() {
+		return loaded.getReadOnlyProperty();
+	}
+
+	public final boolean isLoaded() {
+		return loaded.get();
+	}
+
+	/** サブビューのロードが完了したときに呼び出されるイベント・ハンドラーです。 */
+	public final ObjectProperty<EventHandler<Event>> onLoadedProperty() {
+		return onLoaded;
+	}
+
+	public final EventHandler<Event> getOnLoaded() {
+		return onLoaded.get();
+	}
+
+	public final void setOnLoaded(EventHandler<Event> value) {
+		onLoaded.set(value);
+	}
+
+	/** サブビューのロードに失敗した原因の例外です。ロードに失敗していない場合は null です。 */
+	public final ReadOnlyObjectProperty<Throwable> exceptionProperty() {
+		return exception.getReadOnlyProperty();
+	}
+
+	public final Throwable getException() {
+		return exception.get();
+	}
+
+	/** サブビューのロードに失敗したときに呼び出されるイベント・ハンドラーです。 */
+	public final ObjectProperty<EventHandler<Event>> onLoadFailedProperty() {
+		return onLoadFailed;
+	}
+
+	public final EventHandler<Event> getOnLoadFailed() {
+		return onLoadFailed.get();
+	}
+
+	public final void setOnLoadFailed(EventHandler<Event> value) {
+		onLoadFailed.set(value);
+	}
+
+	/**
+	 * ロードしたサブビューのルート・ノードを返します。ロードが完了していない場合は null を返します。
+	 *
+	 * @return サブビューのルート・ノード
+	 */
+	@SuppressWarnings("unchecked")
+	public <T extends Node> T getContent() {
+		return (T)content;
+	}
+
+	/**
+	 * 表示を待たずにサブビューをロードします。ロード済みまたはロード中の場合は何もしません。
+	 * 前回のロードに失敗している場合は、再びロードを試みます。
+	 * このメソッドは JavaFX アプリケーション・スレッドから呼び出してください。
+	 */
+	public void load() {
+		if(isLoading) {
+			return;
+		}
+		isLoading = true;
+		exception.set(null);
+		unregisterPulseListener();
+
+		URL location;
+		try {
+			location = URI.create(getSource()).toURL();
+		} catch(IllegalArgumentException | NullPointerException | MalformedURLException e) {
+			isLoading = false;
+			throw new IllegalStateException("Invalid source: " + getSource(), e);
+		}
+		Object controller = getController();
+		if(isAsync()) {
+			Fxml.loadAsync(Fxml.getExecutor(), () -> Fxml.<Node>loadImpl(location, null, controller)).whenComplete((node, cause) -> {
+				if(cause != null) {
+					setFailed(cause);
+					// 失敗を処理するイベント・ハンドラーがない場合は、例外が埋もれないように UncaughtExceptionHandler に渡します。
+					Thread thread = Thread.currentThread();
+					Thread.UncaughtExceptionHandler ueh = thread.getUncaughtExceptionHandler();
+					if(ueh != null && getOnLoadFailed() == null) {
+						ueh.uncaughtException(thread, cause);
+					}
+					return;
+				}
+				setLoaded(node);
+			});
+		} else {
+			Node node;
+			try {
+				node = Fxml.loadImpl(location, null, controller);
+			} catch(RuntimeException | Error e) {
+				setFailed(e);
+				throw e;
+			}
+			setLoaded(node);
+		}
+	}
+
+	private void setFailed(Throwable e) {
+		// 再試行できるように、ロード中の状態を解除します。
+		isLoading = false;
+		exception.set(e);
+		fireEvent(new Event(this, this, LOAD_FAILED));
+	}
+
+	private void setLoaded(Node node) {
+		content = node;
+		getChildren().setAll(node);
+		loaded.set(true);
+		fireEvent(new Event(this, this, LOADED));
+	}
+
+	private void loadIfShowing() {
+		if(isLoading) {
+			unregisterPulseListener();
+			return;
+		}
+		for(Node node = this; node != null; node = node.getParent()) {
+			if(!node.isVisible()) {
+				return;
+			}
+		}
+		load();
+	}
+
+	private void unregisterPulseListener() {
+		if(registeredScene != null) {
+			registeredScene.removePreLayoutPulseListener(pulseListener);
+			registeredScene = null;
+		}
+	}
+}
@@ -0,0 +1,435 @@
+package onl.oss.javafx.fxml;
+
+import javafx.application.Platform;
+import javafx.beans.value.ChangeListener;
+import javafx.scene.Group;
+import javafx.scene.Node;
+import javafx.scene.Parent;
+import javafx.scene.Scene;
+import javafx.scene.control.Labeled;
+import javafx.scene.control.ScrollPane;
+import javafx.scene.control.SplitPane;
+import javafx.scene.control.Tab;
+import javafx.scene.control.TabPane;
+import javafx.scene.control.TitledPane;
+import javafx.scene.control.ToolBar;
+import javafx.scene.layout.Pane;
+import javafx.util.Duration;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * FXML でロードしたビュー（ルート・ノードとコントローラーの組）を再利用するためのプールです。
+ * <p>
+ * ドキュメントごとのパネルやアイテムごとのエディター、ポップアップなど、同じビューを繰り返し生成しては破棄する場合に、
+ * ノード・ツリーの生成とガベージ・コレクションの負荷を減らします。</p>
+ * <pre>
+ * ViewPool&lt;ItemEditor&gt; pool = new ViewPool&lt;&gt;(ItemEditor::new)
+ *         .maxSize(8)
+ *         .onReset(view -&gt; view.getController().clear());
+ *
+ * ViewPool.View&lt;ItemEditor&gt; view = pool.acquire();
+ * container.getChildren().add(view.getRoot()); // 親から取り除かれるとプールに返却されます。
+ * </pre>
+ * <p>
+ * ビューは {@link Fxml#load(Object)} でロードされます。
+ * 既定では、プールから取得したビューのルート・ノードが親ノードから取り除かれたときに自動的にプールに返却されます。
+ * ノードの移動（親ノードから取り除いてすぐに別の親ノードに追加する操作）で返却されないように、
+ * 返却するかどうかは JavaFX アプリケーション・スレッドで後から判定し、その時点で親ノードがない場合にだけ返却します。</p>
+ * <p>
+ * {@link #acquire()} は取得のたびに新しい {@link View} を返します。返却した後の View は無効になり、
+ * 同じノードが別の呼び出し元に再利用されていても、古い View の {@link View#release()} は何もしません。</p>
+ *
+ */
+public class ViewPool<C> {
+
+	private final Supplier<C> controllerFactory;
+	private final Deque<Entry<C>> idle = new ArrayDeque<>();
+	private int maxSize = 16;
+	private Duration maxIdleTime;
+	private boolean isReleaseOnDetach = true;
+	private Reset<C> reset;
+
+	private final LongAdder createdCount = new LongAdder();
+	private final LongAdder reusedCount = new LongAdder();
+	private final LongAdder evictedCount = new LongAdder();
+
+	/**
+	 * ビュー・プールを作成します。
+	 *
+	 * @param controllerFactory 新しいビューを生成するときにコントローラーを作成する Supplier
+	 */
+	public ViewPool(Supplier<C> controllerFactory) {
+		if(controllerFactory == null) {
+			throw new NullPointerException();
+		}
+		this.controllerFactory = controllerFactory;
+	}
+
+	/**
+	 * プールに保持するビューの最大数を設定します。既定値は 16 です。
+	 * 最大数を超えて返却されたビューは破棄されます。
+	 *
+	 * @param maxSize プールに保持するビューの最大数
+	 * @return このビュー・プール
+	 */
+	public synchronized ViewPool<C> maxSize(int maxSize) {
+		if(maxSize < 0) {
+			throw new IllegalArgumentException("maxSize: " + maxSize);
+		}
+		this.maxSize = maxSize;
+		trim();
+		return this;
+	}
+
+	/**
+	 * プールに保持したビューが使用されないまま経過できる最大時間を設定します。既定値は null（無制限）です。
+	 * 最大時間を超えたビューは、次にビューを取得または返却するときに破棄されます。
+	 *
+	 * @param maxIdleTime プールに保持したビューが使用されないまま経過できる最大時間
+	 * @return このビュー・プール
+	 */
+	public synchronized ViewPool<C> maxIdleTime(Duration maxIdleTime) {
+		this.maxIdleTime = maxIdleTime;
+		trim();
+		return this;
+	}
+
+	/**
+	 * ルート・ノードが親ノードから取り除かれたときに、ビューを自動的にプールに返却するかどうかを設定します。既定値は true です。
+	 *
+	 * @param releaseOnDetach ビューを自動的にプールに返却する場合は true
+	 * @return このビュー・プール
+	 */
+	public synchronized ViewPool<C> releaseOnDetach(boolean releaseOnDetach) {
+		this.isReleaseOnDetach = releaseOnDetach;
+		return this;
+	}
+
+	/**
+	 * プールに保持したビューを再利用する前に呼び出される処理を設定します。
+	 * 入力値や選択状態のクリアなど、ビューを初期状態に戻す処理を指定します。
+	 * この処理が例外をスローした場合、そのビューは破棄されます。
+	 *
+	 * @param callback ビューを再利用する前に呼び出される処理
+	 * @return このビュー・プール
+	 */
+	public synchronized ViewPool<C> onReset(Reset<C> callback) {
+		this.reset = callback;
+		return this;
+	}
+
+	/**
+	 * ビューを取得します。プールにビューがあれば再利用し、なければ新しいビューをロードします。
+	 * ビューを再利用する場合も、取得のたびに新しい View を返します。
+	 *
+	 * @return ビュー
+	 */
+	public View<C> acquire() {
+		while(true) {
+			Entry<C> entry;
+			Reset<C> reset;
+			synchronized (this) {
+				trim();
+				entry = idle.pollLast();
+				reset = this.reset;
+			}
+			if(entry == null) {
+				break;
+			}
+			View<C> view = new View<>(entry.instance);
+			try {
+				if(reset != null) {
+					reset.onReset(view);
+				}
+			} catch(Exception e) {
+				evictedCount.increment();
+				continue;
+			}
+			reusedCount.increment();
+			entry.instance.lease = view;
+			return view;
+		}
+
+		C controller = controllerFactory.get();
+		Node root = Fxml.load(controller);
+		Instance<C> instance = new Instance<>(this, root, controller);
+		View<C> view = new View<>(instance);
+		createdCount.increment();
+		instance.lease = view;
+		return view;
+	}
+
+	/**
+	 * ビューをプールに返却します。
+	 * <p>
+	 * ルート・ノードに親ノードがある場合は親ノードから取り除かれます。
+	 * 親ノードが Pane または Group の場合は子ノードから、ScrollPane、TitledPane、Tab の場合はコンテンツから、
+	 * SplitPane、ToolBar の場合はアイテムから、Labeled の場合はグラフィックから取り除きます。
+	 * それ以外の方法で配置されていて取り除けない場合や、シーンのルートに設定されている場合、ビューはプールに返却されずに破棄されます。
+	 * プールが最大数に達している場合も、ビューは破棄されます。
+	 * ルート・ノードが表示中のシーンに含まれている場合は JavaFX アプリケーション・スレッドから呼び出してください。</p>
+	 * <p>
+	 * すでに返却した View を指定した場合は何もしません。
+	 * 自動的に返却されたビューが別の呼び出し元に再利用されている場合でも、古い View で返却することはできません。</p>
+	 *
+	 * @param view ビュー
+	 */
+	public void release(View<C> view) {
+		if(view == null || view.instance.pool != this) {
+			return;
+		}
+		Instance<C> instance = view.instance;
+		synchronized (this) {
+			if(instance.lease != view) {
+				return;
+			}
+			// 自動返却の対象にならないように、先に使用中の状態を解除してから取り除きます。
+			instance.lease = null;
+		}
+		if(!detach(instance.root)) {
+			// 取り除けないビューを再利用すると、別の場所に配置したときに元の場所から消えてしまうため、破棄します。
+			evictedCount.increment();
+			return;
+		}
+		synchronized (this) {
+			idle.addLast(new Entry<>(instance, System.nanoTime()));
+			trim();
+		}
+	}
+
+	/**
+	 * プールに保持しているビューをすべて破棄します。
+	 */
+	public synchronized void clear() {
+		evictedCount.add(idle.size());
+		idle.clear();
+	}
+
+	/**
+	 * プールに保持しているビューの数を返します。
+	 *
+	 * @return プールに保持しているビューの数
+	 */
+	public synchronized int size() {
+		return idle.size();
+	}
+
+	/**
+	 * 新しくロードしたビューの数を返します。
+	 *
+	 * @return 新しくロードしたビューの数
+	 */
+	public long getCreatedCount() {
+		return createdCount.sum();
+	}
+
+	/**
+	 * プールから再利用したビューの数を返します。
+	 *
+	 * @return プールから再利用したビューの数
+	 */
+	public long getReusedCount() {
+		return reusedCount.sum();
+	}
+
+	/**
+	 * 最大数、最大時間、リセット処理の失敗、親ノードから取り除けなかったことによって破棄したビューの数を返します。
+	 *
+	 * @return 破棄したビューの数
+	 */
+	public long getEvictedCount() {
+		return evictedCount.sum();
+	}
+
+	private void trim() {
+		if(maxIdleTime != null) {
+			long deadline = System.nanoTime() - (long)(maxIdleTime.toMillis() * 1_000_000);
+			for(Iterator<Entry<C>> it = idle.iterator(); it.hasNext(); ) {
+				if(it.next().releasedNanos - deadline < 0) {
+					it.remove();
+					evictedCount.increment();
+				}
+			}
+		}
+		// 古いビューから破棄します。
+		while(idle.size() > maxSize) {
+			idle.pollFirst();
+			evictedCount.increment();
+		}
+	}
+
+	/** ノードを親ノードから取り除きます。取り除けなかった場合は false を返します。
+	 */
+	private static boolean detach(Node node) {
+		Scene scene = node.getScene();
+		if(scene != null && scene.getRoot() == node) {
+			return false;
+		}
+		Parent parent = node.getParent();
+		if(parent == null) {
+			return true;
+		}
+		// コントロールのコンテンツはスキン内部の Pane などに配置されるため、先に祖先のコントロールからコンテンツとして取り除きます。
+		// スキン内部のノードから直接取り除くと、コントロールがコンテンツとして保持し続けてしまいます。
+		for(Parent ancestor = parent; ancestor != null && node.getParent() != null; ancestor = ancestor.getParent()) {
+			removeContent(ancestor, node);
+		}
+		parent = node.getParent();
+		if(parent instanceof Pane) {
+			((Pane)parent).getChildren().remove(node);
+		} else if(parent instanceof Group) {
+			((Group)parent).getChildren().remove(node);
+		}
+		return node.getParent() == null;
+	}
+
+	private static void removeContent(Parent control, Node node) {
+		if(control instanceof ScrollPane) {
+			ScrollPane scrollPane = (ScrollPane)control;
+			if(scrollPane.getContent() == node) {
+				scrollPane.setContent(null);
+			}
+		} else if(control instanceof TitledPane) {
+			TitledPane titledPane = (TitledPane)control;
+			if(titledPane.getContent() == node) {
+				titledPane.setContent(null);
+			}
+		} else if(control instanceof TabPane) {
+			for(Tab tab : ((TabPane)control).getTabs()) {
+				if(tab.getContent() == node) {
+					tab.setContent(null);
+				}
+			}
+		} else if(control instanceof SplitPane) {
+			((SplitPane)control).getItems().remove(node);
+		} else if(control instanceof ToolBar) {
+			((ToolBar)control).getItems().remove(node);
+		} else if(control instanceof Labeled) {
+			Labeled labeled = (Labeled)control;
+			if(labeled.getGraphic() == node) {
+				labeled.setGraphic(null);
+			}
+		}
+	}
+
+	private void onDetached(View<C> view) {
+		boolean isReleaseOnDetach;
+		synchronized (this) {
+			isReleaseOnDetach = this.isReleaseOnDetach;
+		}
+		if(isReleaseOnDetach) {
+			release(view);
+		}
+	}
+
+	private static class Entry<C> {
+
+		final Instance<C> instance;
+		final long releasedNanos;
+
+		Entry(Instance<C> instance, long releasedNanos) {
+			this.instance = instance;
+			this.releasedNanos = releasedNanos;
+		}
+	}
+
+	/** プールが再利用するルート・ノードとコントローラーの組です。取得のたびに新しい {@link View} が割り当てられます。
+	 */
+	private static final class Instance<C> {
+
+		final ViewPool<C> pool;
+		final Node root;
+		final C controller;
+
+		/** 現在このビューを使用している View です。プールに保持している間は null です。 */
+		volatile View<C> lease;
+
+		Instance(ViewPool<C> pool, Node root, C controller) {
+			this.pool = pool;
+			this.root = root;
+			this.controller = controller;
+
+			ChangeListener<Parent> listener = (observable, oldValue, newValue) -> {
+				View<C> lease = this.lease;
+				if(oldValue != null && newValue == null && lease != null) {
+					// 別の親ノードへの移動や、スキンによるノードの付け替えの途中かもしれないため、判定を後回しにします。
+					try {
+						Platform.runLater(() -> checkDetached(lease));
+					} catch(IllegalStateException e) {
+						// JavaFX ランタイムが動作していない場合は後回しにできないため、すぐに判定します。
+						checkDetached(lease);
+					}
+				}
+			};
+			root.parentProperty().addListener(listener);
+		}
+
+		private void checkDetached(View<C> lease) {
+			// 判定までの間に返却されて別の呼び出し元に再利用された場合は、新しい View を返却しないようにします。
+			if(this.lease == lease && root.getParent() == null) {
+				pool.onDetached(lease);
+			}
+		}
+	}
+
+	/**
+	 * プールから取得したビューです。
+	 * <p>
+	 * 取得のたびに新しいインスタンスが返されます。返却した後の View は無効になり、{@link #release()} を呼び出しても何もしません。
+	 * ルート・ノードとコントローラーは別の呼び出し元に再利用されている可能性があるため、返却した後は使用しないでください。</p>
+	 *
+	 */
+	public static final class View<C> {
+
+		private final Instance<C> instance;
+
+		View(Instance<C> instance) {
+			this.instance = instance;
+		}
+
+		/**
+		 * ルート・ノードを返します。
+		 *
+		 * @return ルート・ノード
+		 */
+		@SuppressWarnings("unchecked")
+		public <T extends Node> T getRoot() {
+			return (T)instance.root;
+		}
+
+		/**
+		 * コントローラーを返します。
+		 *
+		 * @return コントローラー
+		 */
+		public C getController() {
+			return instance.controller;
+		}
+
+		/**
+		 * このビューが返却されていない場合に true を返します。
+		 *
+		 * @return このビューが返却されていない場合は true
+		 */
+		public boolean isInUse() {
+			return instance.lease == this;
+		}
+
+		/**
+		 * このビューをプールに返却します。すでに返却している場合は何もしません。
+		 */
+		public void release() {
+			instance.pool.release(this);
+		}
+	}
+
+	@FunctionalInterface
+	public interface Reset<C> {
+		void onReset(View<C> view) throws Exception;
+	}
+}
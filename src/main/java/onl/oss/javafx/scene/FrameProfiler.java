@@ -0,0 +1,379 @@
+package onl.oss.javafx.scene;
+
+import javafx.application.Platform;
+import javafx.beans.property.ReadOnlyDoubleProperty;
+import javafx.beans.property.ReadOnlyDoubleWrapper;
+import javafx.beans.property.ReadOnlyLongProperty;
+import javafx.beans.property.ReadOnlyLongWrapper;
+import javafx.beans.property.ReadOnlyObjectProperty;
+import javafx.beans.property.ReadOnlyObjectWrapper;
+import javafx.scene.Scene;
+import javafx.util.Duration;
+
+import java.util.Arrays;
+
+/**
+ * シーンのパルスの間隔とレイアウトにかかった時間を計測するプロファイラーです。
+ * <p>
+ * {@link #attach(Scene)} でシーンに取り付けると、シーンのプレ・レイアウトとポスト・レイアウトのパルス・リスナーで時刻を記録し、
+ * 直近のフレームの間隔（フレーム時間）とレイアウトにかかった時間をリング・バッファーに蓄えます。
+ * 記録はパルスごとに配列への書き込みだけでおこなわれ、集計は {@link #updateInterval(Duration)} ごとに1回だけおこなわれます。</p>
+ * <p>
+ * 集計した FPS とフレーム時間の p50/p99、落ちたフレームの数はプロパティで公開されるため、画面に表示したりリスナーで監視したりできます。
+ * {@link #snapshot()} でその時点の集計値をまとめて取得することもできます。</p>
+ * <p>
+ * 取り付けている間は、フレーム時間を連続して計測するためにパルスが毎フレーム要求されます。
+ * 重い画面の性能の低下を調べるときに有効にして、計測が終わったら {@link #detach()} で取り外してください。
+ * このクラスのメソッドは JavaFX アプリケーション・スレッドから呼び出してください。</p>
+ *
+ */
+public final class FrameProfiler {
+
+	/**
+	 * ある時点の集計値です。
+	 *
+	 */
+	public static final class Snapshot {
+
+		private final int frameCount;
+		private final double fps;
+		private final long[] frameTimes;
+		private final long[] layoutTimes;
+		private final long droppedFrames;
+		private final long totalFrames;
+
+		Snapshot(int frameCount, double fps, long[] frameTimes, long[] layoutTimes, long droppedFrames, long totalFrames) {
+			this.frameCount = frameCount;
+			this.fps = fps;
+			this.frameTimes = frameTimes;
+			this.layoutTimes = layoutTimes;
+			this.droppedFrames = droppedFrames;
+			this.totalFrames = totalFrames;
+		}
+
+		/**
+		 * 集計の対象になったフレームの数を返します。リング・バッファーの容量を超えることはありません。
+		 *
+		 * @return 集計の対象になったフレームの数
+		 */
+		public int getFrameCount() {
+			return frameCount;
+		}
+
+		/**
+		 * 直近の集計期間の FPS を返します。
+		 *
+		 * @return FPS
+		 */
+		public double getFps() {
+			return fps;
+		}
+
+		/**
+		 * フレーム時間の平均を返します。
+		 *
+		 * @return フレーム時間の平均
+		 */
+		public Duration getMeanFrameTime() {
+			return toDuration(frameCount == 0 ? 0 : Arrays.stream(frameTimes).sum() / frameCount);
+		}
+
+		/**
+		 * フレーム時間の指定したパーセンタイルの値を返します。
+		 *
+		 * @param percentile パーセンタイル（0.0～100.0）
+		 * @return フレーム時間の指定したパーセンタイルの値
+		 */
+		public Duration getFrameTime(double percentile) {
+			return toDuration(percentile(frameTimes, percentile));
+		}
+
+		/**
+		 * フレーム時間の最大値を返します。
+		 *
+		 * @return フレーム時間の最大値
+		 */
+		public Duration getMaxFrameTime() {
+			return toDuration(percentile(frameTimes, 100));
+		}
+
+		/**
+		 * レイアウトにかかった時間の指定したパーセンタイルの値を返します。
+		 * レイアウトにかかった時間には、CSS の適用とプレ・レイアウトおよびポスト・レイアウトのパルス・リスナーの実行時間が含まれます。
+		 *
+		 * @param percentile パーセンタイル（0.0～100.0）
+		 * @return レイアウトにかかった時間の指定したパーセンタイルの値
+		 */
+		public Duration getLayoutTime(double percentile) {
+			return toDuration(percentile(layoutTimes, percentile));
+		}
+
+		/**
+		 * レイアウトにかかった時間の最大値を返します。
+		 *
+		 * @return レイアウトにかかった時間の最大値
+		 */
+		public Duration getMaxLayoutTime() {
+			return toDuration(percentile(layoutTimes, 100));
+		}
+
+		/**
+		 * 取り付けてから（または {@link FrameProfiler#reset()} してから）落ちたフレームの総数を返します。
+		 *
+		 * @return 落ちたフレームの総数
+		 */
+		public long getDroppedFrames() {
+			return droppedFrames;
+		}
+
+		/**
+		 * 取り付けてから（または {@link FrameProfiler#reset()} してから）計測したフレームの総数を返します。
+		 *
+		 * @return 計測したフレームの総数
+		 */
+		public long getTotalFrames() {
+			return totalFrames;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("fps=%.1f, frame(p50=%.2fms, p99=%.2fms, max=%.2fms), layout(p50=%.2fms, p99=%.2fms, max=%.2fms), dropped=%d/%d",
+					fps, getFrameTime(50).toMillis(), getFrameTime(99).toMillis(), getMaxFrameTime().toMillis(),
+					getLayoutTime(50).toMillis(), getLayoutTime(99).toMillis(), getMaxLayoutTime().toMillis(), droppedFrames, totalFrames);
+		}
+
+		private static long percentile(long[] sorted, double percentile) {
+			if(sorted.length == 0) {
+				return 0;
+			}
+			int index = (int)Math.ceil(sorted.length * Math.min(100.0, Math.max(0.0, percentile)) / 100.0) - 1;
+			return sorted[Math.max(0, index)];
+		}
+
+		private static Duration toDuration(long nanos) {
+			return Duration.millis(nanos / 1_000_000.0);
+		}
+	}
+
+	private static final int DEFAULT_CAPACITY = 600;
+
+	// JavaFX のパルスの目標間隔です。javafx.animation.pulse システム・プロパティで変更されている場合はその値に従います。
+	private static final long FRAME_INTERVAL_NANOS = 1_000_000_000L / Math.max(1, Integer.getInteger("javafx.animation.pulse", 60));
+
+	private final Scene scene;
+	private final long[] frameTimes;
+	private final long[] layoutTimes;
+	private final Runnable preLayoutPulseListener = this::preLayout;
+	private final Runnable postLayoutPulseListener = this::postLayout;
+	private long updateIntervalNanos = 500_000_000L;
+
+	private int index;
+	private int size;
+	private long preLayoutNanos;
+	private long lastPulseNanos;
+	private long lastUpdateNanos;
+	private long framesSinceUpdate;
+	private long droppedFrames;
+	private long totalFrames;
+
+	private final ReadOnlyDoubleWrapper fps = new ReadOnlyDoubleWrapper(this, "fps");
+	private final ReadOnlyObjectWrapper<Duration> frameTimeP50 = new ReadOnlyObjectWrapper<>(this, "frameTimeP50", Duration.ZERO);
+	private final ReadOnlyObjectWrapper<Duration> frameTimeP99 = new ReadOnlyObjectWrapper<>(this, "frameTimeP99", Duration.ZERO);
+	private final ReadOnlyLongWrapper dropped = new ReadOnlyLongWrapper(this, "droppedFrames");
+
+	/**
+	 * 指定したシーンにプロファイラーを取り付けます。すでに取り付けられている場合は、そのプロファイラーを返します。
+	 * リング・バッファーには直近の 600 フレームが記録されます。
+	 *
+	 * @param scene シーン
+	 * @return シーンに取り付けたプロファイラー
+	 */
+	public static FrameProfiler attach(Scene scene) {
+		return attach(scene, DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * 指定したシーンにプロファイラーを取り付けます。すでに取り付けられている場合は、そのプロファイラーを返します。
+	 *
+	 * @param scene シーン
+	 * @param capacity リング・バッファーに記録するフレームの数
+	 * @return シーンに取り付けたプロファイラー
+	 */
+	public static FrameProfiler attach(Scene scene, int capacity) {
+		if(scene == null) {
+			throw new NullPointerException();
+		}
+		if(capacity < 1) {
+			throw new IllegalArgumentException("capacity: " + capacity);
+		}
+		checkFxApplicationThread();
+		FrameProfiler profiler = get(scene);
+		if(profiler == null) {
+			profiler = new FrameProfiler(scene, capacity);
+			scene.getProperties().put(FrameProfiler.class, profiler);
+			scene.addPreLayoutPulseListener(profiler.preLayoutPulseListener);
+			scene.addPostLayoutPulseListener(profiler.postLayoutPulseListener);
+			Platform.requestNextPulse();
+		}
+		return profiler;
+	}
+
+	/**
+	 * 指定したシーンに取り付けられているプロファイラーを返します。
+	 *
+	 * @param scene シーン
+	 * @return シーンに取り付けられているプロファイラー。取り付けられていない場合は null
+	 */
+	public static FrameProfiler get(Scene scene) {
+		return (FrameProfiler)scene.getProperties().get(FrameProfiler.class);
+	}
+
+	private FrameProfiler(Scene scene, int capacity) {
+		this.scene = scene;
+		this.frameTimes = new long[capacity];
+		this.layoutTimes = new long[capacity];
+	}
+
+	/**
+	 * プロファイラーをシーンから取り外します。プロパティは最後に集計した値のまま残ります。
+	 */
+	public void detach() {
+		checkFxApplicationThread();
+		scene.removePreLayoutPulseListener(preLayoutPulseListener);
+		scene.removePostLayoutPulseListener(postLayoutPulseListener);
+		scene.getProperties().remove(FrameProfiler.class, this);
+		lastPulseNanos = 0;
+	}
+
+	/**
+	 * プロパティを更新する間隔を設定します。既定値は 500 ミリ秒です。
+	 *
+	 * @param updateInterval プロパティを更新する間隔
+	 * @return この FrameProfiler
+	 */
+	public FrameProfiler updateInterval(Duration updateInterval) {
+		this.updateIntervalNanos = (long)(updateInterval.toMillis() * 1_000_000);
+		return this;
+	}
+
+	/**
+	 * 記録したフレームと落ちたフレームの数を消去します。
+	 */
+	public void reset() {
+		checkFxApplicationThread();
+		index = 0;
+		size = 0;
+		framesSinceUpdate = 0;
+		droppedFrames = 0;
+		totalFrames = 0;
+		lastUpdateNanos = lastPulseNanos;
+	}
+
+	/**
+	 * 現時点の集計値を返します。
+	 *
+	 * @return 現時点の集計値
+	 */
+	public Snapshot snapshot() {
+		checkFxApplicationThread();
+		long[] frameTimes = copy(this.frameTimes);
+		long[] layoutTimes = copy(this.layoutTimes);
+		Arrays.sort(frameTimes);
+		Arrays.sort(layoutTimes);
+		return new Snapshot(size, getFps(), frameTimes, layoutTimes, droppedFrames, totalFrames);
+	}
+
+	/** 直近の集計期間の FPS です。 */
+	public ReadOnlyDoubleProperty fpsProperty() {
+		return fps.getReadOnlyProperty();
+	}
+
+	public double getFps() {
+		return fps.get();
+	}
+
+	/** リング・バッファーに記録されたフレーム時間の p50 です。 */
+	public ReadOnlyObjectProperty<Duration> frameTimeP50Property() {
+		return frameTimeP50.getReadOnlyProperty();
+	}
+
+	public Duration getFrameTimeP50() {
+		return frameTimeP50.get();
+	}
+
+	/** リング・バッファーに記録されたフレーム時間の p99 です。 */
+	public ReadOnlyObjectProperty<Duration> frameTimeP99Property() {
+		return frameTimeP99.getReadOnlyProperty();
+	}
+
+	public Duration getFrameTimeP99() {
+		return frameTimeP99.get();
+	}
+
+	/** 取り付けてから（または {@link #reset()} してから）落ちたフレームの総数です。 */
+	public ReadOnlyLongProperty droppedFramesProperty() {
+		return dropped.getReadOnlyProperty();
+	}
+
+	public long getDroppedFrames() {
+		return dropped.get();
+	}
+
+	@Override
+	public String toString() {
+		return "FrameProfiler [" + snapshot() + "]";
+	}
+
+	private void preLayout() {
+		long now = System.nanoTime();
+		preLayoutNanos = now;
+		if(lastPulseNanos != 0) {
+			long interval = now - lastPulseNanos;
+			frameTimes[index] = interval;
+			// 目標間隔の何フレーム分かかったかを四捨五入で求め、1を超えた分を落ちたフレームとして数えます。
+			droppedFrames += Math.max(0, (interval + FRAME_INTERVAL_NANOS / 2) / FRAME_INTERVAL_NANOS - 1);
+			totalFrames++;
+			framesSinceUpdate++;
+		} else {
+			lastUpdateNanos = now;
+			frameTimes[index] = -1;
+		}
+		lastPulseNanos = now;
+	}
+
+	private void postLayout() {
+		long now = System.nanoTime();
+		if(frameTimes[index] >= 0) {
+			layoutTimes[index] = now - preLayoutNanos;
+			index = (index + 1) % frameTimes.length;
+			size = Math.min(size + 1, frameTimes.length);
+		}
+		if(now - lastUpdateNanos >= updateIntervalNanos) {
+			update(now);
+		}
+		// 次のフレームも計測するため、変更がなくてもパルスを要求します。
+		Platform.requestNextPulse();
+	}
+
+	private void update(long now) {
+		long[] sorted = copy(frameTimes);
+		Arrays.sort(sorted);
+		fps.set(framesSinceUpdate * 1_000_000_000.0 / (now - lastUpdateNanos));
+		frameTimeP50.set(Duration.millis(Snapshot.percentile(sorted, 50) / 1_000_000.0));
+		frameTimeP99.set(Duration.millis(Snapshot.percentile(sorted, 99) / 1_000_000.0));
+		dropped.set(droppedFrames);
+		framesSinceUpdate = 0;
+		lastUpdateNanos = now;
+	}
+
+	private long[] copy(long[] buffer) {
+		// リング・バッファーが一杯になる前は、先頭から size 個が記録済みの値です。
+		return Arrays.copyOf(buffer, size);
+	}
+
+	private static void checkFxApplicationThread() {
+		if(!Platform.isFxApplicationThread()) {
+			throw new IllegalStateException("Not on FX application thread; currentThread = " + Thread.currentThread().getName());
+		}
+	}
+}
@@ -1,5 +1,6 @@
 package onl.oss.javafx.scene.control;
 
+import javafx.application.Platform;
 import javafx.beans.property.ReadOnlyObjectProperty;
 import javafx.beans.value.ChangeListener;
 import javafx.beans.value.ObservableValue;
@@ -7,24 +8,36 @@ import javafx.collections.ListChangeListener;
 import javafx.collections.ObservableList;
 import javafx.event.EventHandler;
 import javafx.scene.Node;
+import javafx.scene.Scene;
 import javafx.scene.control.ContextMenu;
 import javafx.scene.control.Menu;
 import javafx.scene.control.MenuBar;
 import javafx.scene.control.MenuItem;
 import javafx.scene.input.MouseEvent;
+import javafx.stage.Window;
 import javafx.stage.WindowEvent;
 
+import java.util.Collections;
 import java.util.Map;
 import java.util.WeakHashMap;
 
+/**
+ * コンテキスト・メニューの振る舞いを修正します。
+ * <p>
+ * 各メソッドは任意のスレッドから呼び出すことができます。
+ * JavaFX アプリケーション・スレッド以外から呼び出された場合、表示中のウィンドウに含まれるノードの修正は JavaFX アプリケーション・スレッドで実行されます。</p>
+ *
+ */
 public class ContextMenuUtil {
 
-	private static Map<ObservableList<Menu>, ListChangeListener<Menu>> menuListChangeListeners = new WeakHashMap<>();
-	private static Map<ObservableList<MenuItem>, ListChangeListener<MenuItem>> menuItemListChangeListeners = new WeakHashMap<>();
-	private static Map<ReadOnlyObjectProperty<ContextMenu>, ChangeListener<ContextMenu>> parentPopupChangeListeners = new WeakHashMap<>();
-	private static Map<ContextMenu, EventHandler<WindowEvent>> contextMenuWindowShowingEventHandlers = new WeakHashMap<>();
-	private static Map<Node, EventHandler<MouseEvent>> menuItemNodeMouseExitedEventHandlers = new WeakHashMap<>();
-	private static Map<Node, EventHandler<MouseEvent>> menuItemNodeMouseReleasedEventFilters = new WeakHashMap<>();
+	// 登録済みリスナーの取得・削除・登録を一連の操作としておこなうため、各メソッドは ContextMenuUtil.class で同期化します。
+	// イベント・ハンドラー内から単独で削除される場合に備えて、マップ自体も同期化しておきます。
+	private static final Map<ObservableList<Menu>, ListChangeListener<Menu>> menuListChangeListeners = Collections.synchronizedMap(new WeakHashMap<>());
+	private static final Map<ObservableList<MenuItem>, ListChangeListener<MenuItem>> menuItemListChangeListeners = Collections.synchronizedMap(new WeakHashMap<>());
+	private static final Map<ReadOnlyObjectProperty<ContextMenu>, ChangeListener<ContextMenu>> parentPopupChangeListeners = Collections.synchronizedMap(new WeakHashMap<>());
+	private static final Map<ContextMenu, EventHandler<WindowEvent>> contextMenuWindowShowingEventHandlers = Collections.synchronizedMap(new WeakHashMap<>());
+	private static final Map<Node, EventHandler<MouseEvent>> menuItemNodeMouseExitedEventHandlers = Collections.synchronizedMap(new WeakHashMap<>());
+	private static final Map<Node, EventHandler<MouseEvent>> menuItemNodeMouseReleasedEventFilters = Collections.synchronizedMap(new WeakHashMap<>());
 
 	/**
 	 * 指定したメニューバーに関連するコンテキスト・メニューの振る舞いを修正します。
@@ -32,10 +45,14 @@ public class ContextMenuUtil {
 	 * @param menuBar メニューバー
 	 * @return メニューバー
 	 */
-	public static MenuBar fix(MenuBar menuBar) {
+	public static synchronized MenuBar fix(MenuBar menuBar) {
 		if(menuBar == null) {
 			return null;
 		}
+		if(isLive(menuBar.getScene())) {
+			Platform.runLater(() -> fix(menuBar));
+			return menuBar;
+		}
 		ObservableList<Menu> menus = menuBar.getMenus();
 		ListChangeListener<Menu> oldListChangeListener = menuListChangeListeners.get(menus);
 		if(oldListChangeListener != null) {
@@ -69,10 +86,14 @@ public class ContextMenuUtil {
 	 * @param menu メニュー
 	 * @return メニュー
 	 */
-	public static Menu fix(Menu menu) {
+	public static synchronized Menu fix(Menu menu) {
 		if(menu == null) {
 			return null;
 		}
+		if(isLive(menu.getParentPopup())) {
+			Platform.runLater(() -> fix(menu));
+			return menu;
+		}
 		ObservableList<MenuItem> menuItems = menu.getItems();
 		ListChangeListener<MenuItem> oldListChangeListener = menuItemListChangeListeners.get(menuItems);
 		if(oldListChangeListener != null) {
@@ -106,10 +127,14 @@ public class ContextMenuUtil {
 	 * @param menuItem メニューアイテム
 	 * @return メニューアイテム
 	 */
-	public static MenuItem fix(MenuItem menuItem) {
+	public static synchronized MenuItem fix(MenuItem menuItem) {
 		if(menuItem == null) {
 			return null;
 		}
+		if(isLive(menuItem.getParentPopup())) {
+			Platform.runLater(() -> fix(menuItem));
+			return menuItem;
+		}
 		ReadOnlyObjectProperty<ContextMenu> parentPopup = menuItem.parentPopupProperty();
 		ChangeListener<ContextMenu> oldChangeListener = parentPopupChangeListeners.get(parentPopup);
 		if(oldChangeListener != null) {
@@ -164,10 +189,14 @@ public class ContextMenuUtil {
 	 * @param hideOnMouseReleased マウスボタンを離した際にメニューアイテムが選択されていなければコンテキスト・メニューを非表示にするかどうかを指定します。
 	 * @return コンテキスト・メニュー
 	 */
-	public static ContextMenu fix(ContextMenu contextMenu, boolean hideOnMouseReleased) {
+	public static synchronized ContextMenu fix(ContextMenu contextMenu, boolean hideOnMouseReleased) {
 		if(contextMenu == null) {
 			return null;
 		}
+		if(isLive(contextMenu)) {
+			Platform.runLater(() -> fix(contextMenu, hideOnMouseReleased));
+			return contextMenu;
+		}
 		EventHandler<WindowEvent> oldEventHandler = contextMenuWindowShowingEventHandlers.get(contextMenu);
 		if(oldEventHandler != null) {
 			contextMenu.removeEventHandler(WindowEvent.WINDOW_SHOWING, oldEventHandler);
@@ -198,7 +227,7 @@ public class ContextMenuUtil {
 		return contextMenu;
 	}
 
-	private static void fixImpl(ContextMenu contextMenu, Node contextMenuNode, MenuItem menuItem, Node menuItemNode, boolean hideOnMouseReleased) {
+	private static synchronized void fixImpl(ContextMenu contextMenu, Node contextMenuNode, MenuItem menuItem, Node menuItemNode, boolean hideOnMouseReleased) {
 		if(contextMenu == null) {
 			return;
 		}
@@ -243,7 +272,7 @@ public class ContextMenuUtil {
 		menuItemNodeMouseReleasedEventFilters.put(menuItemNode, newEventFilter);
 	}
 
-	private static void removeListeners(ContextMenu contextMenu) {
+	private static synchronized void removeListeners(ContextMenu contextMenu) {
 		if(contextMenu == null) {
 			return;
 		}
@@ -258,7 +287,7 @@ public class ContextMenuUtil {
 		}
 	}
 
-	private static void removeListeners(Node menuItemNode) {
+	private static synchronized void removeListeners(Node menuItemNode) {
 		if(menuItemNode == null) {
 			return;
 		}
@@ -273,4 +302,14 @@ public class ContextMenuUtil {
 			menuItemNodeMouseReleasedEventFilters.remove(menuItemNode);
 		}
 	}
+
+	/** JavaFX アプリケーション・スレッド以外から、表示中のウィンドウに含まれるノードを操作しようとしている場合に true を返します。
+	 */
+	private static boolean isLive(Scene scene) {
+		return scene != null && isLive(scene.getWindow());
+	}
+
+	private static boolean isLive(Window window) {
+		return window != null && window.isShowing() && !Platform.isFxApplicationThread();
+	}
 }
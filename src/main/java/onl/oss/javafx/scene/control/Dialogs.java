@@ -25,7 +25,7 @@ import javafx.stage.Window;
 public class Dialogs {
 
 	protected static final Map<ButtonType, String> buttonTexts = new HashMap<ButtonType, String>();
-	private static double fontSize = 0;
+	private static volatile double fontSize = 0;
 
 	static {
 		String BASE_NAME = "com/sun/javafx/scene/control/skin/resources/controls";
@@ -140,6 +140,7 @@ public class Dialogs {
 			}
 		}
 
+		double fontSize = Dialogs.fontSize;
 		boolean isWindows = System.getProperty("os.name", "").toLowerCase().startsWith("windows");
 		if(isWindows) {
 			if(fontSize > 0) {
@@ -1,5 +1,6 @@
 package onl.oss.javafx.scene.control;
 
+import javafx.application.Platform;
 import javafx.collections.ObservableList;
 import javafx.geometry.Point2D;
 import javafx.scene.control.TextInputControl;
@@ -14,8 +15,7 @@ import java.awt.Toolkit;
  */
 public class HiDpiFixedInputMethodRequests implements InputMethodRequests {
 
-	private static Boolean isWindows = null;
-	private static Double scale = null;
+	private static final boolean isWindows = System.getProperty("os.name", "").toLowerCase().startsWith("windows");
 
 	public static void fix(TextInputControl control) {
 		if(control == null) {
@@ -24,6 +24,12 @@ public class HiDpiFixedInputMethodRequests implements InputMethodRequests {
 		if(!isWindows()) {
 			return;
 		}
+		// 表示中のコントロールのプロパティーは JavaFX アプリケーション・スレッドで操作します。
+		if(!Platform.isFxApplicationThread() && control.getScene() != null
+				&& control.getScene().getWindow() != null && control.getScene().getWindow().isShowing()) {
+			Platform.runLater(() -> fix(control));
+			return;
+		}
 		control.inputMethodRequestsProperty().addListener((observable, oldValue, newValue) -> {
 			if(newValue != null) {
 				InputMethodRequests inputMethodRequest = control.getInputMethodRequests();
@@ -35,17 +41,21 @@ public class HiDpiFixedInputMethodRequests implements InputMethodRequests {
 	}
 
 	private static boolean isWindows() {
-		// UIスレッドから呼ばれる前提なので同時実行制御不要です。
-		if(isWindows == null) {
-			String osName = System.getProperty("os.name", "").toLowerCase();
-			isWindows = osName.startsWith("windows");
-		}
 		return isWindows;
 	}
 
 	private static double getScale() {
-		// UIスレッドから呼ばれる前提なので同時実行制御不要です。
-		if(scale == null) {
+		// 初回呼び出し時に ScaleHolder が初期化されます。クラスの初期化は JVM によって同期化されるため、
+		// 複数のスレッドから呼び出されてもスケールの計算は1回だけおこなわれます。
+		return ScaleHolder.scale;
+	}
+
+	private static class ScaleHolder {
+
+		static final double scale = computeScale();
+
+		private static double computeScale() {
+			Double scale = null;
 			if(isWindows()) {
 				String uiScale = System.getProperty("glass.win.uiScale");
 				if(uiScale != null) {
@@ -70,8 +80,8 @@ public class HiDpiFixedInputMethodRequests implements InputMethodRequests {
 			if(scale == null) {
 				scale = 1.0;
 			}
+			return scale;
 		}
-		return scale;
 	}
 
 
@@ -0,0 +1,70 @@
+package onl.oss.javafx;
+
+import java.util.Locale;
+import java.util.concurrent.Callable;
+
+/**
+ * ベンチマーク・テストで処理時間を計測します。
+ * <p>
+ * ベンチマーク・テストは {@link #TAG} タグで注釈し、通常のテストでは実行しません。gradle benchmark で実行します。
+ * JMH のようなプロセスのフォークや統計処理はおこなわないため、結果は同じ環境で実行した処理どうしを比較する目安として扱ってください。</p>
+ */
+public final class Benchmark {
+
+	/** ベンチマーク・テストのタグです。 */
+	public static final String TAG = "benchmark";
+
+	private static final int ROUNDS = 5;
+
+	// 結果を使用しない処理が JIT コンパイラーに取り除かれないように、結果をここに集めます。
+	private static volatile int sink;
+
+	private Benchmark() {
+	}
+
+	/** ウォームアップの後に処理を繰り返し実行し、1回あたりの時間（ナノ秒）を返します。
+	 * 計測は複数回おこない、最も速かった回の平均を結果として標準出力に出力します。
+	 *
+	 * @param name 処理の名前
+	 * @param warmups ウォームアップの回数
+	 * @param iterations 1回の計測で処理を実行する回数
+	 * @param operation 処理
+	 * @return 1回あたりの時間（ナノ秒）
+	 */
+	public static double measure(String name, int warmups, int iterations, Callable<?> operation) throws Exception {
+		return measure(name, warmups, iterations, 1, operation);
+	}
+
+	/** ウォームアップの後に複数の処理をまとめておこなう操作を繰り返し実行し、処理1回あたりの時間（ナノ秒）を返します。
+	 * 完了を待機する必要がある非同期の処理などを計測するために使用します。
+	 *
+	 * @param name 処理の名前
+	 * @param warmups ウォームアップの回数
+	 * @param iterations 1回の計測で操作を実行する回数
+	 * @param operationsPerCall 1回の操作でおこなう処理の数
+	 * @param operation 操作
+	 * @return 処理1回あたりの時間（ナノ秒）
+	 */
+	public static double measure(String name, int warmups, int iterations, int operationsPerCall, Callable<?> operation) throws Exception {
+		int hash = 0;
+		for(int i = 0; i < warmups; i++) {
+			hash ^= System.identityHashCode(operation.call());
+		}
+		double best = Double.MAX_VALUE;
+		for(int round = 0; round < ROUNDS; round++) {
+			long start = System.nanoTime();
+			for(int i = 0; i < iterations; i++) {
+				hash ^= System.identityHashCode(operation.call());
+			}
+			best = Math.min(best, (double)(System.nanoTime() - start) / iterations / operationsPerCall);
+		}
+		sink ^= hash;
+		System.out.println(String.format(Locale.ROOT, "%-48s %,12.0f ns/op", name, best));
+		return best;
+	}
+
+	/** 2つの結果の比を標準出力に出力します。 */
+	public static void compare(String name, double baseline, double candidate) {
+		System.out.println(String.format(Locale.ROOT, "%-48s %12.1fx", name, baseline / candidate));
+	}
+}
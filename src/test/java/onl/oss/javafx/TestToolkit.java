@@ -0,0 +1,54 @@
+package onl.oss.javafx;
+
+import javafx.application.Platform;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * テストで使用する JavaFX ランタイムを起動し、JavaFX アプリケーション・スレッドとの同期をおこないます。
+ */
+public final class TestToolkit {
+
+	private TestToolkit() {
+	}
+
+	public static void start() throws InterruptedException {
+		CountDownLatch latch = new CountDownLatch(1);
+		try {
+			Platform.startup(latch::countDown);
+		} catch(IllegalStateException e) {
+			// 他のテストですでに起動しています。
+			latch.countDown();
+		}
+		assertTrue(latch.await(10, TimeUnit.SECONDS));
+		// テストで表示したウィンドウを閉じたときに JavaFX ランタイムが終了しないようにします。
+		Platform.setImplicitExit(false);
+	}
+
+	/** JavaFX アプリケーション・スレッドで処理を実行し、完了するまで待機します。 */
+	public static <T> T callAndWait(Callable<T> callable) throws Exception {
+		FutureTask<T> future = new FutureTask<>(callable);
+		Platform.runLater(future);
+		return future.get(10, TimeUnit.SECONDS);
+	}
+
+	/** JavaFX アプリケーション・スレッドのキューに投入済みの処理がすべて実行されるまで待機します。 */
+	public static void waitForFx() throws Exception {
+		callAndWait(() -> null);
+	}
+
+	/** 条件が満たされるまで待機します。 */
+	public static void await(BooleanSupplier condition) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+		while(!condition.getAsBoolean()) {
+			assertTrue(System.nanoTime() - deadline < 0, "timed out");
+			Thread.sleep(1);
+		}
+	}
+}
@@ -0,0 +1,114 @@
+package onl.oss.javafx.application;
+
+import javafx.application.Platform;
+import javafx.util.Duration;
+import onl.oss.javafx.TestToolkit;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FxBatchDispatcherTest {
+
+	@BeforeAll
+	static void startToolkit() throws InterruptedException {
+		TestToolkit.start();
+	}
+
+	@Test
+	void runsInOrderOnFxApplicationThread() throws Exception {
+		FxBatchDispatcher dispatcher = new FxBatchDispatcher();
+		List<Integer> executed = new CopyOnWriteArrayList<>();
+		AtomicBoolean isOffFxThread = new AtomicBoolean();
+		for(int i = 0; i < 100; i++) {
+			int n = i;
+			dispatcher.execute(() -> {
+				if(!Platform.isFxApplicationThread()) {
+					isOffFxThread.set(true);
+				}
+				executed.add(n);
+			});
+		}
+		TestToolkit.await(() -> dispatcher.getExecutedCount() == 100);
+		assertEquals(100, executed.size());
+		for(int i = 0; i < 100; i++) {
+			assertEquals(i, executed.get(i));
+		}
+		assertFalse(isOffFxThread.get());
+		assertEquals(0, dispatcher.getPendingCount());
+	}
+
+	@Test
+	void carriesOverWhenBudgetIsExceeded() throws Exception {
+		FxBatchDispatcher dispatcher = new FxBatchDispatcher().timeBudget(Duration.millis(1));
+		TestToolkit.callAndWait(() -> {
+			// JavaFX アプリケーション・スレッドで投入して、すべての Runnable が同じパルスの対象になるようにします。
+			for(int i = 0; i < 10; i++) {
+				dispatcher.execute(() -> sleep(3));
+			}
+			return null;
+		});
+		TestToolkit.await(() -> dispatcher.getExecutedCount() == 10);
+		// 時間の上限を超えても、各パルスで少なくとも1つは実行されます。
+		assertTrue(dispatcher.getCarryOverCount() >= 1, dispatcher.toString());
+		assertTrue(dispatcher.getDrainCount() >= 2, dispatcher.toString());
+	}
+
+	@Test
+	void runnableSubmittedDuringDrainRunsInNextPulse() throws Exception {
+		FxBatchDispatcher dispatcher = new FxBatchDispatcher();
+		List<String> executed = new CopyOnWriteArrayList<>();
+		List<Long> drains = new CopyOnWriteArrayList<>();
+		dispatcher.execute(() -> {
+			executed.add("first");
+			drains.add(dispatcher.getDrainCount());
+			dispatcher.execute(() -> {
+				executed.add("second");
+				drains.add(dispatcher.getDrainCount());
+			});
+		});
+		TestToolkit.await(() -> dispatcher.getExecutedCount() == 2);
+		assertEquals(List.of("first", "second"), executed);
+		assertTrue(drains.get(1) > drains.get(0), drains.toString());
+	}
+
+	@Test
+	void exceptionIsPassedToHandlerAndLaterRunnablesRun() throws Exception {
+		FxBatchDispatcher dispatcher = new FxBatchDispatcher();
+		List<Throwable> uncaught = new CopyOnWriteArrayList<>();
+		Thread.UncaughtExceptionHandler previous = TestToolkit.callAndWait(() -> {
+			Thread thread = Thread.currentThread();
+			Thread.UncaughtExceptionHandler ueh = thread.getUncaughtExceptionHandler();
+			thread.setUncaughtExceptionHandler((t, e) -> uncaught.add(e));
+			return ueh;
+		});
+		try {
+			AtomicBoolean isLaterRun = new AtomicBoolean();
+			dispatcher.execute(() -> {
+				throw new IllegalStateException("runnable");
+			});
+			dispatcher.execute(() -> isLaterRun.set(true));
+			TestToolkit.await(() -> dispatcher.getExecutedCount() == 2);
+			assertTrue(isLaterRun.get());
+			assertEquals(1, uncaught.size());
+			assertInstanceOf(IllegalStateException.class, uncaught.get(0));
+		} finally {
+			TestToolkit.callAndWait(() -> {
+				Thread.currentThread().setUncaughtExceptionHandler(previous);
+				return null;
+			});
+		}
+	}
+
+	private static void sleep(long millis) {
+		try {
+			Thread.sleep(millis);
+		} catch(InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
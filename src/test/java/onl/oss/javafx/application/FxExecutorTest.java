@@ -0,0 +1,132 @@
+package onl.oss.javafx.application;
+
+import javafx.application.Platform;
+import onl.oss.javafx.TestToolkit;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * FxExecutor は共有のインスタンスしかないため、シャットダウンは他のテストに影響しないようにここでは確認しません。
+ */
+class FxExecutorTest {
+
+	private final FxExecutor executor = FxExecutor.getInstance();
+
+	@BeforeAll
+	static void startToolkit() throws InterruptedException {
+		TestToolkit.start();
+	}
+
+	@Test
+	void executeRunsOnFxApplicationThread() throws Exception {
+		AtomicBoolean isFxThread = new AtomicBoolean();
+		CountDownLatch run = new CountDownLatch(1);
+		executor.execute(() -> {
+			isFxThread.set(Platform.isFxApplicationThread());
+			run.countDown();
+		});
+		assertTrue(run.await(10, TimeUnit.SECONDS));
+		assertTrue(isFxThread.get());
+	}
+
+	@Test
+	void callAndWaitReturnsResultAndRecordsWait() throws Exception {
+		long count = executor.getWaitHistogram().getCount();
+		assertTrue(executor.callAndWait(Platform::isFxApplicationThread));
+		assertEquals(count + 1, executor.getWaitHistogram().getCount());
+
+		ExecutionException e = assertThrows(ExecutionException.class, () -> executor.callAndWait(() -> {
+			throw new IllegalStateException("callable");
+		}));
+		assertInstanceOf(IllegalStateException.class, e.getCause());
+	}
+
+	@Test
+	void callAndWaitOnFxApplicationThreadRunsInline() throws Exception {
+		long count = executor.getWaitHistogram().getCount();
+		String result = TestToolkit.callAndWait(() -> executor.callAndWait(() -> "inline", 1, TimeUnit.MILLISECONDS));
+		assertEquals("inline", result);
+		assertEquals(count, executor.getWaitHistogram().getCount());
+	}
+
+	@Test
+	void callAndWaitTimeoutCancelsPendingCall() throws Exception {
+		CountDownLatch fxBlocked = new CountDownLatch(1);
+		CountDownLatch fxRelease = new CountDownLatch(1);
+		Platform.runLater(() -> {
+			fxBlocked.countDown();
+			try {
+				fxRelease.await();
+			} catch(InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		});
+		assertTrue(fxBlocked.await(10, TimeUnit.SECONDS));
+		AtomicBoolean isRun = new AtomicBoolean();
+		try {
+			assertThrows(TimeoutException.class, () -> executor.callAndWait(() -> isRun.getAndSet(true), 50, TimeUnit.MILLISECONDS));
+		} finally {
+			fxRelease.countDown();
+		}
+		TestToolkit.waitForFx();
+		assertFalse(isRun.get());
+	}
+
+	@Test
+	void scheduleRunsAfterDelay() throws Exception {
+		long start = System.nanoTime();
+		ScheduledFuture<Boolean> future = executor.schedule(Platform::isFxApplicationThread, 30, TimeUnit.MILLISECONDS);
+		assertTrue(future.get(10, TimeUnit.SECONDS));
+		assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 30);
+		assertTrue(future.isDone());
+	}
+
+	@Test
+	void cancelledScheduleDoesNotRun() throws Exception {
+		AtomicBoolean isRun = new AtomicBoolean();
+		ScheduledFuture<?> future = executor.schedule(() -> isRun.set(true), 30, TimeUnit.MILLISECONDS);
+		assertTrue(future.cancel(false));
+		CountDownLatch later = new CountDownLatch(1);
+		executor.schedule(later::countDown, 60, TimeUnit.MILLISECONDS);
+		assertTrue(later.await(10, TimeUnit.SECONDS));
+		assertFalse(isRun.get());
+	}
+
+	@Test
+	void fixedRateRepeatsUntilCancelled() throws Exception {
+		AtomicInteger count = new AtomicInteger();
+		ScheduledFuture<?> future = executor.scheduleAtFixedRate(count::incrementAndGet, 0, 10, TimeUnit.MILLISECONDS);
+		TestToolkit.await(() -> count.get() >= 3);
+		int countAtCancel = TestToolkit.callAndWait(() -> {
+			assertTrue(future.cancel(false));
+			return count.get();
+		});
+		Thread.sleep(50);
+		assertEquals(countAtCancel, count.get());
+		assertTrue(future.isCancelled());
+	}
+
+	@Test
+	void fixedDelayStopsAfterException() throws Exception {
+		AtomicInteger count = new AtomicInteger();
+		ScheduledFuture<?> future = executor.scheduleWithFixedDelay(() -> {
+			if(count.incrementAndGet() == 2) {
+				throw new IllegalStateException("second");
+			}
+		}, 0, 10, TimeUnit.MILLISECONDS);
+		ExecutionException e = assertThrows(ExecutionException.class, () -> future.get(10, TimeUnit.SECONDS));
+		assertInstanceOf(IllegalStateException.class, e.getCause());
+		Thread.sleep(50);
+		assertEquals(2, count.get());
+	}
+}
@@ -0,0 +1,109 @@
+package onl.oss.javafx.application;
+
+import javafx.application.Platform;
+import javafx.util.Duration;
+import onl.oss.javafx.TestToolkit;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FxIdleSchedulerTest {
+
+	@BeforeAll
+	static void startToolkit() throws InterruptedException {
+		TestToolkit.start();
+	}
+
+	@Test
+	void runsCallbacksInOrderWhenIdle() throws Exception {
+		FxIdleScheduler scheduler = new FxIdleScheduler();
+		List<Integer> executed = new CopyOnWriteArrayList<>();
+		AtomicBoolean isOffFxThread = new AtomicBoolean();
+		AtomicBoolean isTimedOut = new AtomicBoolean();
+		for(int i = 0; i < 5; i++) {
+			int n = i;
+			scheduler.requestIdleCallback(deadline -> {
+				if(!Platform.isFxApplicationThread()) {
+					isOffFxThread.set(true);
+				}
+				if(deadline.isTimedOut()) {
+					isTimedOut.set(true);
+				}
+				executed.add(n);
+			});
+		}
+		TestToolkit.await(() -> scheduler.getExecutedCount() == 5);
+		assertEquals(List.of(0, 1, 2, 3, 4), executed);
+		assertFalse(isOffFxThread.get());
+		assertFalse(isTimedOut.get());
+		assertEquals(0, scheduler.getPendingCount());
+		assertTrue(scheduler.getIdleFrameCount() >= 1);
+	}
+
+	@Test
+	void longCallbackDefersRemainingToNextFrame() throws Exception {
+		FxIdleScheduler scheduler = new FxIdleScheduler().frameBudget(Duration.millis(4));
+		List<Long> frames = new CopyOnWriteArrayList<>();
+		TestToolkit.callAndWait(() -> {
+			scheduler.requestIdleCallback(deadline -> {
+				frames.add(scheduler.getIdleFrameCount());
+				Thread.sleep(10);
+				assertTrue(deadline.shouldYield());
+				assertEquals(Duration.ZERO, deadline.getTimeRemaining());
+			});
+			scheduler.requestIdleCallback(deadline -> frames.add(scheduler.getIdleFrameCount()));
+			return null;
+		});
+		TestToolkit.await(() -> scheduler.getExecutedCount() == 2);
+		assertTrue(frames.get(1) > frames.get(0), frames.toString());
+	}
+
+	@Test
+	void cancelledCallbackDoesNotRun() throws Exception {
+		FxIdleScheduler scheduler = new FxIdleScheduler();
+		AtomicBoolean isRun = new AtomicBoolean();
+		CountDownLatch later = new CountDownLatch(1);
+		FxIdleScheduler.IdleRequest request = TestToolkit.callAndWait(() -> {
+			FxIdleScheduler.IdleRequest r = scheduler.requestIdleCallback(deadline -> isRun.set(true));
+			scheduler.requestIdleCallback(deadline -> later.countDown());
+			assertTrue(r.cancel());
+			return r;
+		});
+		assertTrue(later.await(10, TimeUnit.SECONDS));
+		TestToolkit.await(() -> scheduler.getPendingCount() == 0);
+		TestToolkit.waitForFx();
+		assertTrue(request.isCancelled());
+		assertFalse(request.cancel());
+		assertFalse(isRun.get());
+		assertEquals(1, scheduler.getExecutedCount());
+	}
+
+	@Test
+	void timeoutRunsCallbackWhenNoFrameIsIdle() throws Exception {
+		// 上限を 0 にして、すべてのフレームに空き時間がない状態にします。
+		FxIdleScheduler scheduler = new FxIdleScheduler().frameBudget(Duration.ZERO);
+		AtomicReference<FxIdleScheduler.IdleDeadline> received = new AtomicReference<>();
+		CountDownLatch run = new CountDownLatch(1);
+		scheduler.requestIdleCallback(deadline -> {
+			received.set(deadline);
+			run.countDown();
+		}, Duration.millis(50));
+		assertTrue(run.await(10, TimeUnit.SECONDS));
+		TestToolkit.waitForFx();
+		assertTrue(received.get().isTimedOut());
+		assertTrue(received.get().shouldYield());
+		assertEquals(1, scheduler.getTimedOutCount());
+		assertEquals(1, scheduler.getExecutedCount());
+		assertEquals(0, scheduler.getPendingCount());
+		assertTrue(scheduler.getBusyFrameCount() >= 1);
+		assertEquals(0, scheduler.getIdleFrameCount());
+	}
+}
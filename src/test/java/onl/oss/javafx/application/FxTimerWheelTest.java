@@ -0,0 +1,115 @@
+package onl.oss.javafx.application;
+
+import javafx.application.Platform;
+import javafx.util.Duration;
+import onl.oss.javafx.TestToolkit;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FxTimerWheelTest {
+
+	@BeforeAll
+	static void startToolkit() throws InterruptedException {
+		TestToolkit.start();
+	}
+
+	@Test
+	void runsInDeadlineOrderOnFxApplicationThread() throws Exception {
+		FxTimerWheel wheel = new FxTimerWheel();
+		List<String> executed = new CopyOnWriteArrayList<>();
+		List<Long> elapsed = new CopyOnWriteArrayList<>();
+		AtomicBoolean isOffFxThread = new AtomicBoolean();
+		long start = System.nanoTime();
+		for(String[] timer : new String[][] { { "c", "60" }, { "a", "20" }, { "b", "20" } }) {
+			wheel.schedule(Duration.millis(Integer.parseInt(timer[1])), () -> {
+				if(!Platform.isFxApplicationThread()) {
+					isOffFxThread.set(true);
+				}
+				executed.add(timer[0]);
+				elapsed.add(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+			});
+		}
+		assertEquals(3, wheel.getPendingCount());
+		TestToolkit.await(() -> executed.size() == 3);
+		// 同じ期限のタイマーは登録した順番に実行されます。
+		assertEquals(List.of("a", "b", "c"), executed);
+		assertTrue(elapsed.get(0) >= 20, elapsed.toString());
+		assertTrue(elapsed.get(2) >= 60, elapsed.toString());
+		assertFalse(isOffFxThread.get());
+		assertEquals(0, wheel.getPendingCount());
+	}
+
+	@Test
+	void cancelledTimerDoesNotRun() throws Exception {
+		FxTimerWheel wheel = new FxTimerWheel();
+		AtomicBoolean isRun = new AtomicBoolean();
+		CountDownLatch later = new CountDownLatch(1);
+		FxTimerWheel.Timeout timeout = wheel.schedule(Duration.millis(30), () -> isRun.set(true));
+		wheel.schedule(Duration.millis(60), later::countDown);
+
+		assertTrue(timeout.cancel());
+		assertFalse(timeout.cancel());
+		assertTrue(timeout.isCancelled());
+		assertTrue(later.await(10, TimeUnit.SECONDS));
+		assertFalse(isRun.get());
+		assertFalse(timeout.isExpired());
+		assertEquals(0, wheel.getPendingCount());
+	}
+
+	@Test
+	void expiredTimerCannotBeCancelled() throws Exception {
+		FxTimerWheel wheel = new FxTimerWheel();
+		CountDownLatch run = new CountDownLatch(1);
+		FxTimerWheel.Timeout timeout = wheel.schedule(Duration.ZERO, run::countDown);
+		assertTrue(run.await(10, TimeUnit.SECONDS));
+		assertTrue(timeout.isExpired());
+		assertFalse(timeout.cancel());
+		assertFalse(timeout.isCancelled());
+	}
+
+	@Test
+	void fixedRateRepeatsUntilCancelled() throws Exception {
+		FxTimerWheel wheel = new FxTimerWheel();
+		AtomicInteger count = new AtomicInteger();
+		FxTimerWheel.Timeout timeout = wheel.scheduleAtFixedRate(Duration.millis(10), Duration.millis(10), count::incrementAndGet);
+		TestToolkit.await(() -> count.get() >= 3);
+		assertEquals(1, wheel.getPendingCount());
+
+		// 実行中の Runnable と競合しないように、JavaFX アプリケーション・スレッドでキャンセルします。
+		int countAtCancel = TestToolkit.callAndWait(() -> {
+			assertTrue(timeout.cancel());
+			return count.get();
+		});
+		Thread.sleep(50);
+		assertEquals(countAtCancel, count.get());
+		assertEquals(0, wheel.getPendingCount());
+	}
+
+	@Test
+	void runsTimerBeyondOneWheelRotation() throws Exception {
+		// ホイール1周（512 ティック）より先の期限は、バケットを1周調べた後の全体の探索で見つかります。
+		FxTimerWheel wheel = new FxTimerWheel();
+		long delayMillis = 512L * FxTimerWheel.TICK_MILLIS + 100;
+		CountDownLatch run = new CountDownLatch(1);
+		long start = System.nanoTime();
+		wheel.schedule(Duration.millis(delayMillis), run::countDown);
+		assertTrue(run.await(delayMillis + 10_000, TimeUnit.MILLISECONDS));
+		assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= delayMillis);
+	}
+
+	@Test
+	void rejectsNonPositivePeriod() {
+		FxTimerWheel wheel = new FxTimerWheel();
+		assertThrows(IllegalArgumentException.class, () -> wheel.scheduleAtFixedRate(Duration.ZERO, Duration.ZERO, () -> {}));
+		assertThrows(NullPointerException.class, () -> wheel.schedule(Duration.ZERO, null));
+	}
+}
@@ -0,0 +1,104 @@
+package onl.oss.javafx.application;
+
+import onl.oss.javafx.TestToolkit;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FxUpdateQueueTest {
+
+	@BeforeAll
+	static void startToolkit() throws InterruptedException {
+		TestToolkit.start();
+	}
+
+	@Test
+	void mergesUpdatesWithSameKey() throws Exception {
+		FxUpdateQueue queue = new FxUpdateQueue();
+		List<String> executed = new CopyOnWriteArrayList<>();
+		TestToolkit.callAndWait(() -> {
+			// JavaFX アプリケーション・スレッドで投入して、途中で実行されないようにします。
+			queue.post("status", () -> executed.add("status1"));
+			queue.post(() -> executed.add("other"));
+			queue.post("status", () -> executed.add("status2"));
+			return null;
+		});
+		TestToolkit.await(() -> queue.getExecutedCount() == 2);
+		assertEquals(List.of("status2", "other"), executed);
+		assertEquals(1, queue.getMergedCount());
+	}
+
+	@Test
+	void dropOldestKeepsNewest() throws Exception {
+		FxUpdateQueue queue = new FxUpdateQueue(3, FxUpdateQueue.OverflowPolicy.DROP_OLDEST);
+		List<Integer> executed = new CopyOnWriteArrayList<>();
+		TestToolkit.callAndWait(() -> {
+			for(int i = 0; i < 10; i++) {
+				int n = i;
+				assertTrue(queue.post(() -> executed.add(n)));
+			}
+			return null;
+		});
+		TestToolkit.await(() -> queue.getPendingCount() == 0 && queue.getExecutedCount() == 3);
+		assertEquals(List.of(7, 8, 9), executed);
+		assertEquals(7, queue.getDroppedCount());
+	}
+
+	@Test
+	void dropNewestRejectsOverflow() throws Exception {
+		FxUpdateQueue queue = new FxUpdateQueue(3, FxUpdateQueue.OverflowPolicy.DROP_NEWEST);
+		List<Integer> executed = new CopyOnWriteArrayList<>();
+		TestToolkit.callAndWait(() -> {
+			for(int i = 0; i < 10; i++) {
+				int n = i;
+				assertEquals(i < 3, queue.post(() -> executed.add(n)));
+			}
+			// 破棄された更新は、同じキーの後続の更新として扱われません。
+			assertFalse(queue.post("key", () -> executed.add(-1)));
+			return null;
+		});
+		TestToolkit.await(() -> queue.getPendingCount() == 0 && queue.getExecutedCount() == 3);
+		assertEquals(List.of(0, 1, 2), executed);
+		assertEquals(8, queue.getDroppedCount());
+	}
+
+	@Test
+	void blockOnFxApplicationThreadDrainsWholeQueue() throws Exception {
+		FxUpdateQueue queue = new FxUpdateQueue(4, FxUpdateQueue.OverflowPolicy.BLOCK);
+		List<Integer> executed = new CopyOnWriteArrayList<>();
+		// FxBatchDispatcher が前回のパルスで使用した時間の上限が過ぎてから投入します。
+		TestToolkit.await(() -> FxBatchDispatcher.getDefault().getPendingCount() == 0);
+		Thread.sleep(50);
+		long executedAfterOverflow = TestToolkit.callAndWait(() -> {
+			for(int i = 0; i < 5; i++) {
+				int n = i;
+				queue.post(() -> executed.add(n));
+			}
+			return queue.getExecutedCount();
+		});
+		// 上限に達した時点のキューは、パルスの時間の上限に関係なくその場ですべて実行されます。
+		assertEquals(4, executedAfterOverflow);
+		TestToolkit.await(() -> queue.getExecutedCount() == 5);
+		assertEquals(List.of(0, 1, 2, 3, 4), executed);
+	}
+
+	@Test
+	void blockWaitsForSpaceOnWorkerThread() throws Exception {
+		FxUpdateQueue queue = new FxUpdateQueue(2, FxUpdateQueue.OverflowPolicy.BLOCK);
+		List<Integer> executed = new CopyOnWriteArrayList<>();
+		for(int i = 0; i < 100; i++) {
+			int n = i;
+			queue.post(() -> executed.add(n));
+		}
+		TestToolkit.await(() -> queue.getExecutedCount() == 100);
+		assertEquals(100, executed.size());
+		assertEquals(0, queue.getDroppedCount());
+		for(int i = 0; i < 100; i++) {
+			assertEquals(i, executed.get(i));
+		}
+	}
+}
@@ -0,0 +1,55 @@
+package onl.oss.javafx.application;
+
+import javafx.application.Platform;
+import javafx.util.Duration;
+import onl.oss.javafx.TestToolkit;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FxWatchdogTest {
+
+	@BeforeAll
+	static void startToolkit() throws InterruptedException {
+		TestToolkit.start();
+	}
+
+	@Test
+	void reportsStallWithStackTrace() throws Exception {
+		List<FxWatchdog.Stall> stalls = new CopyOnWriteArrayList<>();
+		FxWatchdog watchdog = new FxWatchdog()
+				.threshold(Duration.millis(100))
+				.probeInterval(Duration.millis(20))
+				.sampleInterval(Duration.millis(50))
+				.onStall(stalls::add)
+				.start();
+		try {
+			// 最初の応答確認で JavaFX アプリケーション・スレッドが特定されるまで待機します。
+			TestToolkit.await(() -> watchdog.getResponseHistogram().getCount() > 0);
+			Platform.runLater(FxWatchdogTest::block);
+			TestToolkit.await(() -> !stalls.isEmpty());
+		} finally {
+			watchdog.stop();
+		}
+		FxWatchdog.Stall stall = stalls.get(0);
+		assertTrue(stall.isEnded());
+		assertTrue(stall.getDuration().greaterThanOrEqualTo(Duration.millis(100)));
+		assertFalse(stall.getStackTraces().isEmpty());
+		assertTrue(Arrays.stream(stall.getCommonStackTrace()).anyMatch(e -> e.getMethodName().equals("block")),
+				Arrays.toString(stall.getCommonStackTrace()));
+		assertEquals(1, watchdog.getStallCount());
+	}
+
+	private static void block() {
+		try {
+			Thread.sleep(400);
+		} catch(InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
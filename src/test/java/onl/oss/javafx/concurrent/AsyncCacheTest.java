@@ -0,0 +1,113 @@
+package onl.oss.javafx.concurrent;
+
+import javafx.application.Platform;
+import onl.oss.javafx.TestToolkit;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AsyncCacheTest {
+
+	@BeforeAll
+	static void startToolkit() throws InterruptedException {
+		TestToolkit.start();
+	}
+
+	@Test
+	void sharesInFlightLoad() throws Exception {
+		AtomicInteger loads = new AtomicInteger();
+		CountDownLatch release = new CountDownLatch(1);
+		AsyncCache<String, String> cache = new AsyncCache<>(key -> {
+			loads.incrementAndGet();
+			release.await();
+			return key.toUpperCase();
+		});
+		List<CompletableFuture<String>> futures = new ArrayList<>();
+		for(int i = 0; i < 10; i++) {
+			futures.add(cache.get("a"));
+		}
+		release.countDown();
+		for(CompletableFuture<String> future : futures) {
+			assertEquals("A", future.get(10, TimeUnit.SECONDS));
+		}
+		assertEquals(1, loads.get());
+		AsyncCache.Statistics statistics = cache.getStatistics();
+		assertEquals(1, statistics.getMissCount());
+		assertEquals(9, statistics.getJoinCount());
+	}
+
+	@Test
+	void hitFromWorkerThreadCompletesOnFxApplicationThread() throws Exception {
+		AsyncCache<String, String> cache = new AsyncCache<>(String::toUpperCase);
+		assertEquals("A", cache.get("a").get(10, TimeUnit.SECONDS));
+		assertEquals("A", cache.getIfPresent("a"));
+
+		// JavaFX アプリケーション・スレッドを止めて、後続の処理を登録するまで完了しないようにします。
+		CountDownLatch fxBlocked = new CountDownLatch(1);
+		CountDownLatch fxRelease = new CountDownLatch(1);
+		Platform.runLater(() -> {
+			fxBlocked.countDown();
+			try {
+				fxRelease.await();
+			} catch(InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		});
+		assertTrue(fxBlocked.await(10, TimeUnit.SECONDS));
+		CompletableFuture<String> hit = cache.get("a");
+		assertFalse(hit.isDone());
+		CompletableFuture<Boolean> isFxThread = hit.thenApply(value -> Platform.isFxApplicationThread());
+		fxRelease.countDown();
+		assertTrue(isFxThread.get(10, TimeUnit.SECONDS));
+		assertEquals(2, cache.getStatistics().getHitCount());
+	}
+
+	@Test
+	void failureIsNotCached() throws Exception {
+		AtomicInteger loads = new AtomicInteger();
+		AsyncCache<String, String> cache = new AsyncCache<>(key -> {
+			if(loads.incrementAndGet() == 1) {
+				throw new IllegalStateException("first");
+			}
+			return key;
+		});
+		ExecutionException e = assertThrows(ExecutionException.class, () -> cache.get("a").get(10, TimeUnit.SECONDS));
+		assertInstanceOf(IllegalStateException.class, e.getCause());
+		assertEquals(0, cache.size());
+		assertEquals("a", cache.get("a").get(10, TimeUnit.SECONDS));
+		assertEquals(2, loads.get());
+	}
+
+	@Test
+	void rejectedLoadFailsAndIsRemoved() throws Exception {
+		AsyncCache<String, String> cache = new AsyncCache<String, String>(key -> key).executor(task -> {
+			throw new RejectedExecutionException("full");
+		});
+		ExecutionException e = assertThrows(ExecutionException.class, () -> cache.get("a").get(10, TimeUnit.SECONDS));
+		assertInstanceOf(RejectedExecutionException.class, e.getCause());
+		assertEquals(0, cache.size());
+	}
+
+	@Test
+	void evictsLeastRecentlyUsed() throws Exception {
+		AsyncCache<Integer, Integer> cache = new AsyncCache<Integer, Integer>(key -> key).maximumSize(2);
+		cache.get(1).get(10, TimeUnit.SECONDS);
+		cache.get(2).get(10, TimeUnit.SECONDS);
+		assertEquals(1, cache.getIfPresent(1));
+		cache.get(3).get(10, TimeUnit.SECONDS);
+		assertEquals(2, cache.size());
+		assertEquals(1, cache.getIfPresent(1));
+		assertNull(cache.getIfPresent(2));
+		assertEquals(3, cache.getIfPresent(3));
+	}
+}
@@ -0,0 +1,153 @@
+package onl.oss.javafx.concurrent;
+
+import javafx.application.Platform;
+import onl.oss.javafx.TestToolkit;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AsyncTaskGroupTest {
+
+	@BeforeAll
+	static void startToolkit() throws InterruptedException {
+		TestToolkit.start();
+	}
+
+	@Test
+	void allOfSucceedsWithResultsInOrder() throws Exception {
+		AtomicReference<List<Integer>> result = new AtomicReference<>();
+		AtomicBoolean isFxThread = new AtomicBoolean();
+		CountDownLatch succeeded = new CountDownLatch(1);
+		AsyncTaskGroup<List<Integer>> group = AsyncTaskGroup.<Integer>allOf(List.of(
+				AsyncTask.create(() -> {
+					Thread.sleep(50);
+					return 1;
+				}),
+				AsyncTask.create(() -> 2),
+				AsyncTask.create(() -> 3)
+		)).onSucceeded(value -> {
+			isFxThread.set(Platform.isFxApplicationThread());
+			result.set(value);
+			succeeded.countDown();
+		}).start();
+
+		assertTrue(succeeded.await(10, TimeUnit.SECONDS));
+		assertEquals(List.of(1, 2, 3), result.get());
+		assertTrue(isFxThread.get());
+		assertEquals(AsyncTask.State.SUCCEEDED, group.getState());
+		assertEquals(1.0, TestToolkit.callAndWait(group::getProgress));
+	}
+
+	@Test
+	void allOfFailureCancelsRemainingTasks() throws Exception {
+		CountDownLatch blockedCancelled = new CountDownLatch(1);
+		AsyncTask<Integer> blocked = AsyncTask.create(() -> {
+			Thread.sleep(60_000);
+			return 1;
+		}).onCancelled(blockedCancelled::countDown);
+		AtomicReference<Throwable> exception = new AtomicReference<>();
+		CountDownLatch failed = new CountDownLatch(1);
+		AsyncTaskGroup<List<Integer>> group = AsyncTaskGroup.<Integer>allOf(List.of(
+				blocked,
+				AsyncTask.create(() -> {
+					throw new IllegalStateException("member");
+				})
+		)).onFailed(e -> {
+			exception.set(e);
+			failed.countDown();
+		}).start();
+
+		assertTrue(failed.await(10, TimeUnit.SECONDS));
+		assertInstanceOf(IllegalStateException.class, exception.get());
+		assertEquals(AsyncTask.State.FAILED, group.getState());
+		assertTrue(blockedCancelled.await(10, TimeUnit.SECONDS));
+	}
+
+	@Test
+	void anyOfSucceedsWithFirstResultAndCancelsOthers() throws Exception {
+		CountDownLatch slowCancelled = new CountDownLatch(1);
+		AsyncTask<String> slow = AsyncTask.create(() -> {
+			Thread.sleep(60_000);
+			return "slow";
+		}).onCancelled(slowCancelled::countDown);
+		AtomicReference<String> result = new AtomicReference<>();
+		CountDownLatch succeeded = new CountDownLatch(1);
+		AsyncTaskGroup.<String>anyOf(List.of(
+				slow,
+				AsyncTask.create(() -> {
+					throw new IllegalStateException("failed first");
+				}),
+				AsyncTask.create(() -> {
+					Thread.sleep(50);
+					return "fast";
+				})
+		)).onSucceeded(value -> {
+			result.set(value);
+			succeeded.countDown();
+		}).start();
+
+		assertTrue(succeeded.await(10, TimeUnit.SECONDS));
+		assertEquals("fast", result.get());
+		assertTrue(slowCancelled.await(10, TimeUnit.SECONDS));
+	}
+
+	@Test
+	void anyOfFailsWhenAllTasksFail() throws Exception {
+		AtomicReference<Throwable> exception = new AtomicReference<>();
+		CountDownLatch failed = new CountDownLatch(1);
+		AsyncTaskGroup.<String>anyOf(List.of(
+				AsyncTask.<String>create(() -> {
+					throw new IllegalStateException("a");
+				}),
+				AsyncTask.<String>create(() -> {
+					throw new IllegalArgumentException("b");
+				})
+		)).onFailed(e -> {
+			exception.set(e);
+			failed.countDown();
+		}).start();
+
+		assertTrue(failed.await(10, TimeUnit.SECONDS));
+		assertInstanceOf(RuntimeException.class, exception.get());
+	}
+
+	@Test
+	void cancelFromWorkerThreadCancelsAllTasks() throws Exception {
+		CountDownLatch started = new CountDownLatch(2);
+		CountDownLatch membersCancelled = new CountDownLatch(2);
+		AsyncTask<Integer> a = AsyncTask.create(() -> {
+			started.countDown();
+			Thread.sleep(60_000);
+			return 1;
+		}).onCancelled(membersCancelled::countDown);
+		AsyncTask<Integer> b = AsyncTask.create(() -> {
+			started.countDown();
+			Thread.sleep(60_000);
+			return 2;
+		}).onCancelled(membersCancelled::countDown);
+		AtomicBoolean isSucceeded = new AtomicBoolean();
+		CountDownLatch cancelled = new CountDownLatch(1);
+		AtomicReference<AsyncTask.State> finishedState = new AtomicReference<>();
+		AsyncTaskGroup<List<Integer>> group = AsyncTaskGroup.<Integer>allOf(List.of(a, b))
+				.onSucceeded(value -> isSucceeded.set(true))
+				.onCancelled(cancelled::countDown)
+				.onFinished(finishedState::set)
+				.start();
+		assertTrue(started.await(10, TimeUnit.SECONDS));
+
+		assertTrue(group.cancel());
+		assertTrue(cancelled.await(10, TimeUnit.SECONDS));
+		assertTrue(membersCancelled.await(10, TimeUnit.SECONDS));
+		assertEquals(AsyncTask.State.CANCELLED, group.getState());
+		assertEquals(AsyncTask.State.CANCELLED, finishedState.get());
+		assertFalse(isSucceeded.get());
+		assertFalse(group.cancel());
+	}
+}
@@ -0,0 +1,164 @@
+package onl.oss.javafx.concurrent;
+
+import javafx.application.Platform;
+import javafx.util.Duration;
+import org.junit.jupiter.api.AfterEach;
+import onl.oss.javafx.TestToolkit;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AsyncTaskSchedulerTest {
+
+	private AsyncTaskScheduler scheduler;
+
+	@BeforeAll
+	static void startToolkit() throws InterruptedException {
+		TestToolkit.start();
+	}
+
+	@BeforeEach
+	void createScheduler() {
+		scheduler = new AsyncTaskScheduler("Test", 2);
+	}
+
+	@AfterEach
+	void shutdownScheduler() {
+		scheduler.shutdown();
+	}
+
+	@Test
+	void latestWins() throws Exception {
+		List<String> results = new CopyOnWriteArrayList<>();
+		CountDownLatch finished = new CountDownLatch(1);
+		for(int i = 0; i < 10; i++) {
+			String value = "v" + i;
+			scheduler.submit("key", AsyncTask.create(() -> {
+				Thread.sleep(20);
+				return value;
+			}).onSucceeded(results::add).onFinished(state -> {
+				if(value.equals("v9")) {
+					finished.countDown();
+				}
+			}));
+		}
+		assertTrue(finished.await(10, TimeUnit.SECONDS));
+		TestToolkit.waitForFx();
+		assertEquals(List.of("v9"), results);
+		assertEquals(9, scheduler.getSupersededCount());
+	}
+
+	@Test
+	void supersededTaskFinishingBeforeCancelDoesNotDeliver() throws Exception {
+		List<String> results = new CopyOnWriteArrayList<>();
+		List<String> cancelled = new CopyOnWriteArrayList<>();
+		CountDownLatch running = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		AsyncTask<String> stale = scheduler.submit("key", AsyncTask.create(() -> {
+			running.countDown();
+			release.await();
+			return "stale";
+		}).onSucceeded(results::add).onCancelled(() -> cancelled.add("stale")));
+		assertTrue(running.await(10, TimeUnit.SECONDS));
+
+		// JavaFX アプリケーション・スレッドを止めて、キャンセルが実行される前に古いタスクを完了させます。
+		CountDownLatch fxBlocked = new CountDownLatch(1);
+		CountDownLatch fxRelease = new CountDownLatch(1);
+		Platform.runLater(() -> {
+			fxBlocked.countDown();
+			try {
+				fxRelease.await();
+			} catch(InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		});
+		assertTrue(fxBlocked.await(10, TimeUnit.SECONDS));
+		CountDownLatch latest = new CountDownLatch(1);
+		scheduler.submit("key", AsyncTask.create(() -> "latest").onSucceeded(value -> {
+			results.add(value);
+			latest.countDown();
+		}));
+		release.countDown();
+		TestToolkit.await(stale::isDone);
+		fxRelease.countDown();
+
+		assertTrue(latest.await(10, TimeUnit.SECONDS));
+		TestToolkit.waitForFx();
+		assertEquals(List.of("latest"), results);
+		assertEquals(List.of("stale"), cancelled);
+		TestToolkit.await(() -> scheduler.getRunningCount() == 0);
+		assertEquals(1, scheduler.getCompletedCount());
+	}
+
+	@Test
+	void debouncedTaskIsNotRun() throws Exception {
+		List<String> results = new CopyOnWriteArrayList<>();
+		CountDownLatch finished = new CountDownLatch(2);
+		for(String value : new String[] { "first", "second" }) {
+			scheduler.submit("key", AsyncTaskScheduler.Priority.NORMAL, Duration.millis(100), AsyncTask.create(() -> {
+				results.add(value);
+				return value;
+			}).onFinished(state -> finished.countDown()));
+		}
+		assertTrue(finished.await(10, TimeUnit.SECONDS));
+		assertEquals(List.of("second"), results);
+		assertEquals(1, scheduler.getDebouncedCount());
+		TestToolkit.await(() -> scheduler.getRunningCount() == 0);
+		assertEquals(1, scheduler.getCompletedCount());
+	}
+
+	@Test
+	void cancelByKey() throws Exception {
+		CountDownLatch running = new CountDownLatch(1);
+		CountDownLatch cancelled = new CountDownLatch(1);
+		List<String> results = new CopyOnWriteArrayList<>();
+		scheduler.submit("key", AsyncTask.create(() -> {
+			running.countDown();
+			Thread.sleep(10_000);
+			return "value";
+		}).onSucceeded(results::add).onCancelled(cancelled::countDown));
+		assertTrue(running.await(10, TimeUnit.SECONDS));
+		assertTrue(scheduler.cancel("key"));
+		assertTrue(cancelled.await(10, TimeUnit.SECONDS));
+		assertFalse(scheduler.cancel("key"));
+		assertTrue(results.isEmpty());
+	}
+
+	@Test
+	void runsQueuedTasksByPriority() throws Exception {
+		// 実行順を確認するため、スレッドが1つのスケジューラーを使用します。
+		AsyncTaskScheduler single = new AsyncTaskScheduler("Priority", 1);
+		try {
+			CountDownLatch running = new CountDownLatch(1);
+			CountDownLatch release = new CountDownLatch(1);
+			single.submit(null, AsyncTask.create(() -> {
+				running.countDown();
+				release.await();
+				return null;
+			}));
+			assertTrue(running.await(10, TimeUnit.SECONDS));
+
+			List<String> order = new CopyOnWriteArrayList<>();
+			CountDownLatch finished = new CountDownLatch(4);
+			String[][] tasks = { { "low", "LOW" }, { "normal", "NORMAL" }, { "high1", "HIGH" }, { "high2", "HIGH" } };
+			for(String[] task : tasks) {
+				single.submit(null, AsyncTaskScheduler.Priority.valueOf(task[1]), AsyncTask.create(() -> {
+					order.add(task[0]);
+					return null;
+				}).onFinished(state -> finished.countDown()));
+			}
+			release.countDown();
+			assertTrue(finished.await(10, TimeUnit.SECONDS));
+			assertEquals(List.of("high1", "high2", "normal", "low"), order);
+		} finally {
+			single.shutdown();
+		}
+	}
+}
@@ -0,0 +1,172 @@
+package onl.oss.javafx.concurrent;
+
+import javafx.application.Platform;
+import onl.oss.javafx.TestToolkit;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AsyncTaskTest {
+
+	@BeforeAll
+	static void startToolkit() throws InterruptedException {
+		TestToolkit.start();
+	}
+
+	@Test
+	void pipelineRunsStagesOnOneWorkerThread() throws Exception {
+		List<Thread> workers = new CopyOnWriteArrayList<>();
+		AtomicBoolean isFxThread = new AtomicBoolean();
+		AtomicReference<String> result = new AtomicReference<>();
+		CountDownLatch succeeded = new CountDownLatch(1);
+		AsyncTask.create(() -> {
+			workers.add(Thread.currentThread());
+			return 20;
+		}).thenApplyAsync(value -> {
+			workers.add(Thread.currentThread());
+			return value + 1;
+		}).thenAcceptFx(value -> {
+			isFxThread.set(Platform.isFxApplicationThread());
+		}).thenApplyAsync(value -> {
+			workers.add(Thread.currentThread());
+			return "v" + value * 2;
+		}).onSucceeded(value -> {
+			result.set(value);
+			succeeded.countDown();
+		}).start();
+
+		assertTrue(succeeded.await(10, TimeUnit.SECONDS));
+		assertEquals("v42", result.get());
+		assertTrue(isFxThread.get());
+		assertEquals(3, workers.size());
+		assertEquals(1, workers.stream().distinct().count());
+		assertFalse(Platform.isFxApplicationThread());
+	}
+
+	@Test
+	void failureInStageFailsPipeline() throws Exception {
+		AtomicBoolean isLaterStageRun = new AtomicBoolean();
+		AtomicReference<Throwable> exception = new AtomicReference<>();
+		AtomicReference<AsyncTask.State> state = new AtomicReference<>();
+		CountDownLatch finished = new CountDownLatch(1);
+		AsyncTask.create(() -> 1)
+				.thenApplyAsync(value -> {
+					throw new IllegalStateException("stage");
+				})
+				.thenApplyAsync(value -> {
+					isLaterStageRun.set(true);
+					return value;
+				})
+				.onFailed(exception::set)
+				.onFinished(s -> {
+					state.set(s);
+					finished.countDown();
+				})
+				.start();
+
+		assertTrue(finished.await(10, TimeUnit.SECONDS));
+		assertEquals(AsyncTask.State.FAILED, state.get());
+		assertInstanceOf(IllegalStateException.class, exception.get());
+		assertFalse(isLaterStageRun.get());
+	}
+
+	@Test
+	void cancellingPipelineSkipsLaterStages() throws Exception {
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		AtomicBoolean isLaterStageRun = new AtomicBoolean();
+		AtomicBoolean isSucceeded = new AtomicBoolean();
+		CountDownLatch cancelled = new CountDownLatch(1);
+		AsyncTask<Integer> pipeline = AsyncTask.create(() -> {
+			started.countDown();
+			// 割り込みを無視して、キャンセル後も前段の処理が完了するようにします。
+			while(!release.await(10, TimeUnit.SECONDS)) {
+			}
+			return 1;
+		}).thenApplyAsync(value -> {
+			isLaterStageRun.set(true);
+			return value;
+		}).onSucceeded(value -> isSucceeded.set(true)).onCancelled(cancelled::countDown);
+		pipeline.start();
+		assertTrue(started.await(10, TimeUnit.SECONDS));
+
+		assertTrue(TestToolkit.<Boolean>callAndWait(() -> pipeline.cancel(false)));
+		release.countDown();
+		assertTrue(cancelled.await(10, TimeUnit.SECONDS));
+		TestToolkit.await(() -> pipeline.isDone());
+		Thread.sleep(50);
+		assertFalse(isLaterStageRun.get());
+		assertFalse(isSucceeded.get());
+	}
+
+	@Test
+	void composedTaskRunsOnPipelineThreadAndIsCancelledWithPipeline() throws Exception {
+		AtomicReference<Thread> firstThread = new AtomicReference<>();
+		AtomicReference<Thread> innerThread = new AtomicReference<>();
+		CountDownLatch innerStarted = new CountDownLatch(1);
+		CountDownLatch innerCancelled = new CountDownLatch(1);
+		CountDownLatch pipelineCancelled = new CountDownLatch(1);
+		AsyncTask<String> pipeline = AsyncTask.create(() -> {
+			firstThread.set(Thread.currentThread());
+			return 1;
+		}).thenCompose(value -> AsyncTask.create(() -> {
+			innerThread.set(Thread.currentThread());
+			innerStarted.countDown();
+			Thread.sleep(60_000);
+			return "inner";
+		}).onCancelled(innerCancelled::countDown)).onCancelled(pipelineCancelled::countDown);
+		pipeline.start();
+		assertTrue(innerStarted.await(10, TimeUnit.SECONDS));
+		assertSame(firstThread.get(), innerThread.get());
+
+		assertTrue(TestToolkit.<Boolean>callAndWait(pipeline::cancel));
+		assertTrue(innerCancelled.await(10, TimeUnit.SECONDS));
+		assertTrue(pipelineCancelled.await(10, TimeUnit.SECONDS));
+	}
+
+	@Test
+	void composedTaskResultCompletesPipeline() throws Exception {
+		AtomicReference<String> innerResult = new AtomicReference<>();
+		AtomicReference<String> result = new AtomicReference<>();
+		CountDownLatch succeeded = new CountDownLatch(1);
+		AsyncTask.create(() -> "a")
+				.thenCompose(value -> AsyncTask.create(() -> value + "b").onSucceeded(innerResult::set))
+				.onSucceeded(value -> {
+					result.set(value);
+					succeeded.countDown();
+				})
+				.start();
+
+		assertTrue(succeeded.await(10, TimeUnit.SECONDS));
+		assertEquals("ab", result.get());
+		TestToolkit.waitForFx();
+		assertEquals("ab", innerResult.get());
+	}
+
+	@Test
+	void startedTaskCannotBeChained() throws Exception {
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		AsyncTask<Integer> task = AsyncTask.create(() -> {
+			started.countDown();
+			release.await();
+			return 1;
+		}).start();
+		try {
+			assertTrue(started.await(10, TimeUnit.SECONDS));
+			// 状態の変化は JavaFX アプリケーション・スレッドで通知されるため、通知を待ってから確認します。
+			TestToolkit.waitForFx();
+			TestToolkit.callAndWait(() -> assertThrows(IllegalStateException.class, () -> task.thenApplyAsync(value -> value)));
+		} finally {
+			release.countDown();
+		}
+	}
+}
@@ -0,0 +1,64 @@
+package onl.oss.javafx.concurrent;
+
+import onl.oss.javafx.Benchmark;
+import onl.oss.javafx.TestToolkit;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 小さな処理を大量に実行したときの LightTask と AsyncTask の時間を比較します。
+ * どちらも既定の Executor で実行し、onSucceeded と onFinished のコールバックがすべて呼び出されるまでを計測します。
+ */
+@Tag(Benchmark.TAG)
+class LightTaskBenchmarkTest {
+
+	private static final int TASKS = 10_000;
+	private static final int WARMUPS = 10;
+	private static final int ITERATIONS = 3;
+
+	@BeforeAll
+	static void startToolkit() throws InterruptedException {
+		TestToolkit.start();
+	}
+
+	@Test
+	void lightTaskIsFasterThanAsyncTask() throws Exception {
+		LongAdder sum = new LongAdder();
+
+		double asyncTask = Benchmark.measure("AsyncTask", WARMUPS, ITERATIONS, TASKS, () -> {
+			CountDownLatch finished = new CountDownLatch(TASKS);
+			for(int i = 0; i < TASKS; i++) {
+				int value = i;
+				AsyncTask.create(() -> value)
+						.onSucceeded(sum::add)
+						.onFinished(state -> finished.countDown())
+						.start();
+			}
+			assertTrue(finished.await(60, TimeUnit.SECONDS));
+			return finished;
+		});
+		double lightTask = Benchmark.measure("LightTask", WARMUPS, ITERATIONS, TASKS, () -> {
+			CountDownLatch finished = new CountDownLatch(TASKS);
+			for(int i = 0; i < TASKS; i++) {
+				int value = i;
+				LightTask.create(() -> value)
+						.onSucceeded(sum::add)
+						.onFinished(state -> finished.countDown())
+						.start();
+			}
+			assertTrue(finished.await(60, TimeUnit.SECONDS));
+			return finished;
+		});
+		Benchmark.compare("AsyncTask / LightTask", asyncTask, lightTask);
+
+		assertEquals((WARMUPS + ITERATIONS * 5L) * 2 * ((long)TASKS * (TASKS - 1) / 2), sum.sum());
+		assertTrue(lightTask < asyncTask, () -> "LightTask " + lightTask + " ns/op, AsyncTask " + asyncTask + " ns/op");
+	}
+}
@@ -0,0 +1,130 @@
+package onl.oss.javafx.concurrent;
+
+import javafx.application.Platform;
+import onl.oss.javafx.TestToolkit;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LightTaskTest {
+
+	@BeforeAll
+	static void startToolkit() throws InterruptedException {
+		TestToolkit.start();
+	}
+
+	@Test
+	void succeededCallbacksRunOnFxApplicationThread() throws Exception {
+		AtomicReference<String> result = new AtomicReference<>();
+		AtomicBoolean isFxThread = new AtomicBoolean();
+		AtomicReference<AsyncTask.State> state = new AtomicReference<>();
+		CountDownLatch finished = new CountDownLatch(1);
+		LightTask<String> task = LightTask.create(() -> "value")
+				.onSucceeded(value -> {
+					isFxThread.set(Platform.isFxApplicationThread());
+					result.set(value);
+				})
+				.onFinished(s -> {
+					state.set(s);
+					finished.countDown();
+				})
+				.start();
+
+		assertTrue(finished.await(10, TimeUnit.SECONDS));
+		assertEquals("value", result.get());
+		assertTrue(isFxThread.get());
+		assertEquals(AsyncTask.State.SUCCEEDED, state.get());
+		assertEquals(AsyncTask.State.SUCCEEDED, task.getState());
+	}
+
+	@Test
+	void failedCallbackReceivesCause() throws Exception {
+		AtomicReference<Throwable> exception = new AtomicReference<>();
+		CountDownLatch finished = new CountDownLatch(1);
+		LightTask<?> task = LightTask.create(() -> {
+			throw new IllegalStateException("work");
+		}).onFailed(exception::set).onFinished(s -> finished.countDown()).start();
+
+		assertTrue(finished.await(10, TimeUnit.SECONDS));
+		assertInstanceOf(IllegalStateException.class, exception.get());
+		assertEquals(AsyncTask.State.FAILED, task.getState());
+	}
+
+	@Test
+	void cancelStopsWorkAndCallsCancelledOnce() throws Exception {
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch workStopped = new CountDownLatch(1);
+		AtomicBoolean isSucceeded = new AtomicBoolean();
+		List<AsyncTask.State> states = new CopyOnWriteArrayList<>();
+		CountDownLatch cancelled = new CountDownLatch(1);
+		LightTask<Integer> task = LightTask.<Integer>create(context -> {
+			started.countDown();
+			try {
+				while(!context.isCancelled()) {
+					Thread.onSpinWait();
+				}
+			} finally {
+				workStopped.countDown();
+			}
+			return 1;
+		}).onSucceeded(value -> isSucceeded.set(true))
+				.onCancelled(cancelled::countDown)
+				.onFinished(states::add)
+				.start();
+		assertTrue(started.await(10, TimeUnit.SECONDS));
+
+		assertTrue(task.cancel(false));
+		assertTrue(workStopped.await(10, TimeUnit.SECONDS));
+		assertTrue(cancelled.await(10, TimeUnit.SECONDS));
+		TestToolkit.waitForFx();
+		assertEquals(List.of(AsyncTask.State.CANCELLED), states);
+		assertFalse(isSucceeded.get());
+		assertEquals(AsyncTask.State.CANCELLED, task.getState());
+	}
+
+	@Test
+	void progressUpdatesAreCoalesced() throws Exception {
+		// JavaFX アプリケーション・スレッドを止めて、その間の進捗の更新が1回の通知にまとめられることを確認します。
+		CountDownLatch fxBlocked = new CountDownLatch(1);
+		CountDownLatch fxRelease = new CountDownLatch(1);
+		Platform.runLater(() -> {
+			fxBlocked.countDown();
+			try {
+				fxRelease.await();
+			} catch(InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		});
+		assertTrue(fxBlocked.await(10, TimeUnit.SECONDS));
+
+		List<Double> progress = new CopyOnWriteArrayList<>();
+		CountDownLatch updated = new CountDownLatch(1);
+		CountDownLatch finish = new CountDownLatch(1);
+		LightTask<Void> task = LightTask.<Void>create(context -> {
+			for(int i = 1; i <= 100; i++) {
+				context.updateProgress(i, 100);
+			}
+			updated.countDown();
+			finish.await();
+			return null;
+		}).onProgress(progress::add).start();
+		try {
+			assertTrue(updated.await(10, TimeUnit.SECONDS));
+			assertEquals(1.0, task.getProgress());
+			fxRelease.countDown();
+			TestToolkit.waitForFx();
+			assertEquals(List.of(1.0), progress);
+		} finally {
+			fxRelease.countDown();
+			finish.countDown();
+		}
+	}
+}
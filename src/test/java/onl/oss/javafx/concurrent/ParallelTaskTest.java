@@ -0,0 +1,80 @@
+package onl.oss.javafx.concurrent;
+
+import onl.oss.javafx.TestToolkit;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParallelTaskTest {
+
+	private static final List<Integer> ITEMS = IntStream.rangeClosed(1, 100_000).boxed().toList();
+
+	@BeforeAll
+	static void startToolkit() throws InterruptedException {
+		TestToolkit.start();
+	}
+
+	@Test
+	void combinesInOrder() throws Exception {
+		AtomicReference<Long> result = new AtomicReference<>();
+		CountDownLatch succeeded = new CountDownLatch(1);
+		ParallelTask.create(ITEMS, item -> (long)item, Long::sum).onSucceeded(value -> {
+			result.set(value);
+			succeeded.countDown();
+		}).start();
+		assertTrue(succeeded.await(10, TimeUnit.SECONDS));
+		assertEquals(100_000L * 100_001L / 2, result.get());
+	}
+
+	@Test
+	void cancellingPipelineStopsRunningChunks() throws Exception {
+		ForkJoinPool pool = new ForkJoinPool(2);
+		try {
+			ParallelTask<Integer, Long> parallel = ParallelTask.create(ITEMS, item -> {
+				Thread.sleep(1);
+				return (long)item;
+			}, Long::sum).pool(pool).threshold(1_000);
+			CountDownLatch finished = new CountDownLatch(1);
+			AsyncTask<Long> pipeline = parallel.thenApplyAsync(sum -> sum).onFinished(state -> finished.countDown());
+			pipeline.start();
+			TestToolkit.await(() -> parallel.getProcessedCount() > 0);
+
+			assertTrue(TestToolkit.<Boolean>callAndWait(pipeline::cancel));
+			assertTrue(finished.await(10, TimeUnit.SECONDS));
+			// 実行中のワーカーは次の要素を処理する前に中断するため、すぐにプールが空きます。
+			assertTrue(pool.awaitQuiescence(5, TimeUnit.SECONDS));
+			assertTrue(parallel.getProcessedCount() < ITEMS.size() / 2, "processed " + parallel.getProcessedCount());
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+
+	@Test
+	void cancellingTaskStopsRunningChunks() throws Exception {
+		ForkJoinPool pool = new ForkJoinPool(2);
+		try {
+			CountDownLatch cancelled = new CountDownLatch(1);
+			ParallelTask<Integer, Long> task = ParallelTask.create(ITEMS, item -> {
+				Thread.sleep(1);
+				return (long)item;
+			}, Long::sum).pool(pool).threshold(1_000);
+			task.onCancelled(cancelled::countDown).start();
+			TestToolkit.await(() -> task.getProcessedCount() > 0);
+
+			assertTrue(TestToolkit.<Boolean>callAndWait(task::cancel));
+			assertTrue(cancelled.await(10, TimeUnit.SECONDS));
+			assertTrue(pool.awaitQuiescence(5, TimeUnit.SECONDS));
+			assertTrue(task.getProcessedCount() < ITEMS.size() / 2, "processed " + task.getProcessedCount());
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+}
@@ -0,0 +1,78 @@
+package onl.oss.javafx.concurrent;
+
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.concurrent.Worker;
+import onl.oss.javafx.TestToolkit;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StreamingTaskTest {
+
+	@BeforeAll
+	static void startToolkit() throws InterruptedException {
+		TestToolkit.start();
+	}
+
+	@Test
+	void addsAllItemsBeforeSucceeded() throws Exception {
+		ObservableList<Integer> list = FXCollections.observableArrayList();
+		AtomicReference<Integer> sizeOnSucceeded = new AtomicReference<>();
+		CountDownLatch succeeded = new CountDownLatch(1);
+		StreamingTask.create(list, publisher -> {
+			for(int i = 0; i < 10_000; i++) {
+				publisher.publish(i);
+			}
+		}).onSucceeded(count -> {
+			assertEquals(10_000L, count);
+			sizeOnSucceeded.set(list.size());
+			succeeded.countDown();
+		}).start();
+		assertTrue(succeeded.await(10, TimeUnit.SECONDS));
+		assertEquals(10_000, sizeOnSucceeded.get());
+		assertEquals(9_999, list.get(9_999));
+	}
+
+	@Test
+	void cancellingPipelineStopsPublisherAndDiscardsBuffer() throws Exception {
+		ObservableList<Integer> list = FXCollections.observableArrayList();
+		AtomicReference<Throwable> thrown = new AtomicReference<>();
+		CountDownLatch published = new CountDownLatch(100);
+		CountDownLatch finished = new CountDownLatch(1);
+		AsyncTask<Long> pipeline = StreamingTask.<Integer>create(list, publisher -> {
+			try {
+				for(int i = 0; ; i++) {
+					publisher.publish(i);
+					published.countDown();
+					LockSupport.parkNanos(100_000);
+				}
+			} catch(CancellationException e) {
+				thrown.set(e);
+				throw e;
+			}
+		}).thenApplyAsync(count -> count).onFinished(state -> finished.countDown());
+		pipeline.start();
+		assertTrue(published.await(10, TimeUnit.SECONDS));
+
+		int sizeAtCancel = TestToolkit.callAndWait(() -> {
+			// 割り込みではなく publish のキャンセル確認で停止することを確認します。
+			assertTrue(pipeline.cancel(false));
+			return list.size();
+		});
+		assertTrue(finished.await(10, TimeUnit.SECONDS));
+		TestToolkit.await(() -> thrown.get() != null);
+		Thread.sleep(100);
+		TestToolkit.waitForFx();
+		assertInstanceOf(CancellationException.class, thrown.get());
+		assertEquals(Worker.State.CANCELLED, TestToolkit.callAndWait(pipeline::getState));
+		assertEquals(sizeAtCancel, TestToolkit.callAndWait(list::size));
+	}
+}
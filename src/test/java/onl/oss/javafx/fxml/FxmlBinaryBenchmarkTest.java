@@ -0,0 +1,74 @@
+package onl.oss.javafx.fxml;
+
+import javafx.fxml.FXMLLoader;
+import javafx.fxml.JavaFXBuilderFactory;
+import javafx.scene.layout.VBox;
+import onl.oss.javafx.Benchmark;
+import onl.oss.javafx.TestToolkit;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.InputStream;
+import java.net.URL;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * バイナリー形式（.fxmlb）の FXML 文書からのロードと FXMLLoader によるロードの時間を比較します。
+ */
+@Tag(Benchmark.TAG)
+class FxmlBinaryBenchmarkTest {
+
+	private static final int WARMUPS = 3_000;
+	private static final int ITERATIONS = 500;
+
+	@BeforeAll
+	static void startToolkit() throws InterruptedException {
+		TestToolkit.start();
+	}
+
+	@Test
+	void binaryLoadIsFasterThanFxmlLoader() throws Exception {
+		URL location = ParallelLoadTest.class.getResource("StressView.fxml");
+		byte[] content;
+		try(InputStream in = location.openStream()) {
+			content = in.readAllBytes();
+		}
+		// gradle の compileFxmlBinary タスクが出力するものと同じデータです。
+		byte[] data = FxmlBinaryWriter.write(content, FxmlBinaryBenchmarkTest.class.getClassLoader());
+		FxmlBinaryDocument binary = FxmlBinaryDocument.read(location, content, data);
+		assertNotNull(binary);
+		JavaFXBuilderFactory builderFactory = new JavaFXBuilderFactory();
+
+		FXMLLoader expectedLoader = new FXMLLoader(location);
+		expectedLoader.setController(new ParallelLoadTest.StressView());
+		VBox expected = expectedLoader.load();
+		ParallelLoadTest.StressView binaryController = new ParallelLoadTest.StressView();
+		VBox actual = (VBox)binary.load(null, binaryController, builderFactory);
+		assertEquals(expected.getChildren().size(), actual.getChildren().size());
+		assertSame(actual, binaryController.ok.getParent());
+		binaryController.ok.fire();
+		assertEquals(1, binaryController.clicks);
+
+		double loader = Benchmark.measure("FXMLLoader", WARMUPS, ITERATIONS, () -> {
+			FXMLLoader fxmlLoader = new FXMLLoader(location);
+			fxmlLoader.setController(new ParallelLoadTest.StressView());
+			return fxmlLoader.load();
+		});
+		double sharedLoader = Benchmark.measure("FXMLLoader (shared builder factory)", WARMUPS, ITERATIONS, () -> {
+			FXMLLoader fxmlLoader = new FXMLLoader(location, null, builderFactory);
+			fxmlLoader.setController(new ParallelLoadTest.StressView());
+			return fxmlLoader.load();
+		});
+		double binaryLoad = Benchmark.measure("FxmlBinaryDocument (.fxmlb)", WARMUPS, ITERATIONS,
+				() -> binary.load(null, new ParallelLoadTest.StressView(), builderFactory));
+		double fxmlLoad = Benchmark.measure("Fxml.load", WARMUPS, ITERATIONS,
+				() -> Fxml.load(new ParallelLoadTest.StressView()));
+		Benchmark.compare("FXMLLoader / .fxmlb", loader, binaryLoad);
+		Benchmark.compare("FXMLLoader (shared builder factory) / .fxmlb", sharedLoader, binaryLoad);
+
+		assertTrue(binaryLoad < loader, () -> "binary " + binaryLoad + " ns/op, FXMLLoader " + loader + " ns/op");
+		assertTrue(fxmlLoad < loader, () -> "Fxml.load " + fxmlLoad + " ns/op, FXMLLoader " + loader + " ns/op");
+	}
+}
@@ -0,0 +1,144 @@
+package onl.oss.javafx.fxml;
+
+import javafx.fxml.FXML;
+import javafx.fxml.FXMLLoader;
+import javafx.scene.control.Button;
+import javafx.scene.control.CheckBox;
+import javafx.scene.control.Label;
+import javafx.scene.control.TextArea;
+import javafx.scene.control.TextField;
+import javafx.scene.layout.VBox;
+import onl.oss.javafx.Benchmark;
+import onl.oss.javafx.TestToolkit;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * FxmlInjector による注入と、FXMLLoader と同じ方法でロードのたびにリフレクションでおこなう注入の時間を比較します。
+ */
+@Tag(Benchmark.TAG)
+class FxmlInjectorBenchmarkTest {
+
+	private static final int WARMUPS = 3_000;
+	private static final int ITERATIONS = 1_000;
+
+	public static class BaseView {
+		@FXML private Label title;
+	}
+
+	public static class InjectionView extends BaseView {
+		@FXML private Label title;
+		@FXML private TextField name;
+		@FXML private TextField mail;
+		@FXML private TextArea note;
+		@FXML private CheckBox agree;
+		@FXML private Button ok;
+		private boolean initialized;
+
+		@FXML
+		private void initialize() {
+			initialized = true;
+		}
+	}
+
+	@BeforeAll
+	static void startToolkit() throws InterruptedException {
+		TestToolkit.start();
+	}
+
+	@Test
+	void injectorIsFasterThanReflection() throws Exception {
+		URL location = FxmlInjectorBenchmarkTest.class.getResource("InjectionView.fxml");
+		FXMLLoader fxmlLoader = new FXMLLoader(location);
+		fxmlLoader.load();
+		Map<String, Object> namespace = fxmlLoader.getNamespace();
+		FxmlInjector injector = FxmlInjector.of(InjectionView.class);
+
+		InjectionView reflected = new InjectionView();
+		injectByReflection(reflected, namespace);
+		InjectionView injected = new InjectionView();
+		injector.inject(injected, namespace);
+		injector.initialize(injected, location, null);
+		assertSame(namespace.get("ok"), reflected.ok);
+		assertSame(namespace.get("ok"), injected.ok);
+		assertSame(namespace.get("title"), ((BaseView)injected).title);
+		assertTrue(reflected.initialized);
+		assertTrue(injected.initialized);
+
+		double reflection = Benchmark.measure("reflection (per load, like FXMLLoader)", WARMUPS, ITERATIONS, () -> {
+			InjectionView controller = new InjectionView();
+			injectByReflection(controller, namespace);
+			return controller;
+		});
+		double cached = Benchmark.measure("FxmlInjector", WARMUPS, ITERATIONS, () -> {
+			InjectionView controller = new InjectionView();
+			injector.inject(controller, namespace);
+			injector.initialize(controller, location, null);
+			return controller;
+		});
+		Benchmark.compare("reflection / FxmlInjector", reflection, cached);
+
+		// ロード全体では、FxmlTemplate がコントローラーを参照しない FXML 文書に使用する方法と比較します。
+		double loaderInjection = Benchmark.measure("FXMLLoader.setController", WARMUPS, ITERATIONS, () -> {
+			FXMLLoader loader = new FXMLLoader(location);
+			loader.setController(new InjectionView());
+			return loader.load();
+		});
+		double injectorInjection = Benchmark.measure("FXMLLoader + FxmlInjector", WARMUPS, ITERATIONS, () -> {
+			FXMLLoader loader = new FXMLLoader(location);
+			VBox root = loader.load();
+			InjectionView controller = new InjectionView();
+			injector.inject(controller, loader.getNamespace());
+			injector.initialize(controller, location, null);
+			return root;
+		});
+		Benchmark.compare("FXMLLoader.setController / FxmlInjector", loaderInjection, injectorInjection);
+
+		assertTrue(cached < reflection, () -> "FxmlInjector " + cached + " ns/op, reflection " + reflection + " ns/op");
+	}
+
+	/** FXMLLoader のコントローラーへの注入と同様に、クラス階層の @FXML メンバーを走査してアクセス可能にしてから注入します。
+	 */
+	private static void injectByReflection(Object controller, Map<String, Object> namespace) throws ReflectiveOperationException {
+		Map<String, List<Field>> fields = new HashMap<>();
+		Map<String, Method> methods = new HashMap<>();
+		for(Class<?> c = controller.getClass(); c != Object.class; c = c.getSuperclass()) {
+			for(Field field : c.getDeclaredFields()) {
+				if(!Modifier.isStatic(field.getModifiers()) && (Modifier.isPublic(field.getModifiers()) || field.isAnnotationPresent(FXML.class))) {
+					field.setAccessible(true);
+					fields.computeIfAbsent(field.getName(), k -> new ArrayList<>()).add(field);
+				}
+			}
+			for(Method method : c.getDeclaredMethods()) {
+				if(!Modifier.isStatic(method.getModifiers()) && (Modifier.isPublic(method.getModifiers()) || method.isAnnotationPresent(FXML.class))) {
+					method.setAccessible(true);
+					methods.putIfAbsent(method.getName(), method);
+				}
+			}
+		}
+		for(Map.Entry<String, Object> entry : namespace.entrySet()) {
+			List<Field> list = fields.get(entry.getKey());
+			if(list != null) {
+				for(Field field : list) {
+					field.set(controller, entry.getValue());
+				}
+			}
+		}
+		Method initialize = methods.get("initialize");
+		if(initialize != null && initialize.getParameterCount() == 0) {
+			initialize.invoke(controller);
+		}
+	}
+}
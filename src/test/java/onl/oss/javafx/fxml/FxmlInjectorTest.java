@@ -0,0 +1,88 @@
+package onl.oss.javafx.fxml;
+
+import javafx.event.ActionEvent;
+import javafx.event.Event;
+import javafx.event.EventHandler;
+import javafx.fxml.FXML;
+import javafx.scene.input.MouseEvent;
+import javafx.scene.shape.Rectangle;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FxmlInjectorTest {
+
+	public static class BaseController {
+		@FXML Rectangle shape;
+		@FXML int count;
+
+		Rectangle getBaseShape() {
+			return shape;
+		}
+	}
+
+	public static class Controller extends BaseController {
+		@FXML Rectangle shape;
+		ActionEvent action;
+		int clicks;
+
+		@FXML
+		void onAction(ActionEvent event) {
+			action = event;
+		}
+
+		@FXML
+		void onClick() {
+			clicks++;
+		}
+	}
+
+	@Test
+	void injectsFieldsInSuperclass() {
+		Controller controller = new Controller();
+		Rectangle rect = new Rectangle();
+		assertTrue(FxmlInjector.of(Controller.class).inject(controller, "shape", rect));
+		assertSame(rect, controller.shape);
+		assertSame(rect, controller.getBaseShape());
+	}
+
+	@Test
+	void injectsNamespace() {
+		Controller controller = new Controller();
+		Rectangle rect = new Rectangle();
+		FxmlInjector.of(Controller.class).inject(controller, Map.of("shape", rect, "count", 3, "unknown", "x"));
+		assertSame(rect, controller.shape);
+		assertSame(rect, controller.getBaseShape());
+		assertEquals(3, controller.count);
+	}
+
+	@Test
+	void rejectsValueOfWrongType() {
+		Controller controller = new Controller();
+		FxmlInjector injector = FxmlInjector.of(Controller.class);
+		assertThrows(IllegalArgumentException.class, () -> injector.inject(controller, "shape", "text"));
+		assertThrows(IllegalArgumentException.class, () -> injector.inject(controller, "count", null));
+		assertNull(controller.shape);
+		assertFalse(injector.inject(controller, "unknown", "text"));
+	}
+
+	@Test
+	void createsEventHandlers() {
+		Controller controller = new Controller();
+		FxmlInjector injector = FxmlInjector.of(Controller.class);
+
+		EventHandler<Event> onAction = injector.createEventHandler(controller, "onAction");
+		ActionEvent event = new ActionEvent();
+		onAction.handle(event);
+		assertSame(event, controller.action);
+		assertThrows(IllegalArgumentException.class, () -> onAction.handle(new Event(MouseEvent.ANY)));
+
+		EventHandler<Event> onClick = injector.createEventHandler(controller, "onClick");
+		onClick.handle(new Event(MouseEvent.ANY));
+		assertEquals(1, controller.clicks);
+
+		assertNull(injector.createEventHandler(controller, "missing"));
+	}
+}
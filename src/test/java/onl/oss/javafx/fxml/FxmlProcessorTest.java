@@ -0,0 +1,257 @@
+package onl.oss.javafx.fxml;
+
+import javafx.collections.ObservableList;
+import javafx.fxml.FXML;
+import javafx.fxml.LoadException;
+import javafx.scene.Node;
+import javafx.scene.layout.Pane;
+import javafx.scene.layout.VBox;
+import javafx.scene.shape.Rectangle;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.io.UncheckedIOException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FxmlProcessorTest {
+
+	@TempDir
+	Path dir;
+
+	@Test
+	void generatesFactoryThatInjectsController() throws Exception {
+		writeSource("Sample.java", """
+				package sample;
+				import javafx.fxml.FXML;
+				import javafx.scene.shape.Rectangle;
+				@onl.oss.javafx.fxml.CompileFxml
+				public class Sample {
+					@FXML public Rectangle rect;
+					@FXML Rectangle hidden;
+					public boolean initialized;
+					@FXML void initialize() { initialized = rect != null; }
+					public Rectangle getHidden() { return hidden; }
+				}
+				""");
+		writeSource("Sample.fxml", """
+				<?xml version="1.0" encoding="UTF-8"?>
+				<?import javafx.scene.layout.VBox?>
+				<?import javafx.scene.shape.Rectangle?>
+				<VBox xmlns:fx="http://javafx.com/fxml" spacing="4">
+					<Rectangle fx:id="rect" width="10" height="20"/>
+					<Rectangle fx:id="hidden" width="30"/>
+				</VBox>
+				""");
+
+		List<Diagnostic<? extends JavaFileObject>> diagnostics = compile("Sample.java");
+		assertTrue(warnings(diagnostics).isEmpty(), () -> warnings(diagnostics).toString());
+		assertTrue(Files.isRegularFile(dir.resolve("out/sample/SampleFxml.class")));
+
+		try(URLClassLoader classLoader = classLoader()) {
+			Object controller = classLoader.loadClass("sample.Sample").getDeclaredConstructor().newInstance();
+			Object root = factory(classLoader, "sample.SampleFxml").load(null, controller);
+
+			VBox vbox = assertInstanceOf(VBox.class, root);
+			assertEquals(4.0, vbox.getSpacing());
+			assertEquals(2, vbox.getChildren().size());
+			Rectangle rect = (Rectangle)controller.getClass().getField("rect").get(controller);
+			assertSame(vbox.getChildren().get(0), rect);
+			assertEquals(10.0, rect.getWidth());
+			assertEquals(20.0, rect.getHeight());
+			assertSame(vbox.getChildren().get(1), controller.getClass().getMethod("getHidden").invoke(controller));
+			assertTrue((Boolean)controller.getClass().getField("initialized").get(controller));
+		}
+	}
+
+	@Test
+	void generatesFactoryThatInjectsPrivateMembers() throws Exception {
+		writeSource("PrivateSample.java", """
+				package sample;
+				import javafx.fxml.FXML;
+				import javafx.scene.input.MouseEvent;
+				import javafx.scene.shape.Rectangle;
+				class PrivateBase {
+					@FXML Rectangle rect;
+					@FXML private Rectangle other;
+					public Rectangle getBaseRect() { return rect; }
+					public Rectangle getOther() { return other; }
+				}
+				@onl.oss.javafx.fxml.CompileFxml
+				public class PrivateSample extends PrivateBase {
+					@FXML private Rectangle rect;
+					private int clicks;
+					private boolean initialized;
+					@FXML private void clicked(MouseEvent event) { clicks++; }
+					@FXML private void initialize() { initialized = rect != null && getOther() != null; }
+					public Rectangle getRect() { return rect; }
+					public int getClicks() { return clicks; }
+					public boolean isInitialized() { return initialized; }
+				}
+				""");
+		writeSource("PrivateSample.fxml", """
+				<?xml version="1.0" encoding="UTF-8"?>
+				<?import javafx.scene.layout.VBox?>
+				<?import javafx.scene.shape.Rectangle?>
+				<VBox xmlns:fx="http://javafx.com/fxml">
+					<Rectangle fx:id="rect" width="10" onMouseClicked="#clicked"/>
+					<Rectangle fx:id="other" width="20"/>
+				</VBox>
+				""");
+
+		List<Diagnostic<? extends JavaFileObject>> diagnostics = compile("PrivateSample.java");
+		assertTrue(warnings(diagnostics).isEmpty(), () -> warnings(diagnostics).toString());
+		assertTrue(Files.isRegularFile(dir.resolve("out/sample/PrivateSampleFxml.class")));
+
+		try(URLClassLoader classLoader = classLoader()) {
+			Class<?> controllerClass = classLoader.loadClass("sample.PrivateSample");
+			Object controller = controllerClass.getDeclaredConstructor().newInstance();
+			VBox vbox = assertInstanceOf(VBox.class, factory(classLoader, "sample.PrivateSampleFxml").load(null, controller));
+
+			// 同じ名前のフィールドがスーパークラスにもある場合は、両方に注入されます。
+			Rectangle rect = (Rectangle)controllerClass.getMethod("getRect").invoke(controller);
+			assertSame(vbox.getChildren().get(0), rect);
+			assertSame(rect, controllerClass.getMethod("getBaseRect").invoke(controller));
+			assertSame(vbox.getChildren().get(1), controllerClass.getMethod("getOther").invoke(controller));
+			assertTrue((Boolean)controllerClass.getMethod("isInitialized").invoke(controller));
+
+			rect.getOnMouseClicked().handle(null);
+			assertEquals(1, controllerClass.getMethod("getClicks").invoke(controller));
+		}
+	}
+
+	@Test
+	void generatedFactoryRejectsMissingRoot() throws Exception {
+		writeSource("RootSample.java", """
+				package sample;
+				@onl.oss.javafx.fxml.CompileFxml
+				public class RootSample {
+				}
+				""");
+		writeSource("RootSample.fxml", """
+				<?xml version="1.0" encoding="UTF-8"?>
+				<?import javafx.scene.layout.Pane?>
+				<?import javafx.scene.shape.Rectangle?>
+				<fx:root type="javafx.scene.layout.Pane" xmlns:fx="http://javafx.com/fxml">
+					<Rectangle width="10"/>
+				</fx:root>
+				""");
+
+		List<Diagnostic<? extends JavaFileObject>> diagnostics = compile("RootSample.java");
+		assertTrue(warnings(diagnostics).isEmpty(), () -> warnings(diagnostics).toString());
+
+		try(URLClassLoader classLoader = classLoader()) {
+			Object controller = classLoader.loadClass("sample.RootSample").getDeclaredConstructor().newInstance();
+			FxmlFactory<Object> factory = factory(classLoader, "sample.RootSampleFxml");
+
+			Pane pane = new Pane();
+			assertSame(pane, factory.load(pane, controller));
+			assertEquals(1, pane.getChildren().size());
+
+			UncheckedIOException e = assertThrows(UncheckedIOException.class, () -> factory.load(null, controller));
+			assertInstanceOf(LoadException.class, e.getCause());
+
+			e = assertThrows(UncheckedIOException.class, () -> factory.load(new Rectangle(), controller));
+			assertInstanceOf(LoadException.class, e.getCause());
+		}
+	}
+
+	@Test
+	void skipsUnsupportedFxmlWithWarning() throws Exception {
+		writeSource("Unsupported.java", """
+				package sample;
+				@onl.oss.javafx.fxml.CompileFxml
+				public class Unsupported {
+				}
+				""");
+		writeSource("Unsupported.fxml", """
+				<?xml version="1.0" encoding="UTF-8"?>
+				<?import javafx.scene.layout.VBox?>
+				<VBox xmlns:fx="http://javafx.com/fxml">
+					<fx:include source="Other.fxml"/>
+				</VBox>
+				""");
+
+		List<Diagnostic<? extends JavaFileObject>> diagnostics = compile("Unsupported.java");
+		assertEquals(1, warnings(diagnostics).size(), () -> warnings(diagnostics).toString());
+		assertTrue(Files.isRegularFile(dir.resolve("out/sample/Unsupported.class")));
+		assertFalse(Files.exists(dir.resolve("out/sample/UnsupportedFxml.class")));
+	}
+
+	private void writeSource(String filename, String content) throws Exception {
+		Path file = dir.resolve("src/sample").resolve(filename);
+		Files.createDirectories(file.getParent());
+		Files.writeString(file, content, StandardCharsets.UTF_8);
+		if(filename.endsWith(".fxml")) {
+			Path resource = dir.resolve("out/sample").resolve(filename);
+			Files.createDirectories(resource.getParent());
+			Files.copy(file, resource);
+		}
+	}
+
+	private List<Diagnostic<? extends JavaFileObject>> compile(String filename) throws Exception {
+		JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+		DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+		Path out = dir.resolve("out");
+		Files.createDirectories(out);
+		try(StandardJavaFileManager fileManager = compiler.getStandardFileManager(diagnostics, Locale.ROOT, StandardCharsets.UTF_8)) {
+			Iterable<? extends JavaFileObject> units = fileManager.getJavaFileObjects(dir.resolve("src/sample").resolve(filename).toFile());
+			List<String> options = List.of(
+					"-classpath", classPath(),
+					"-d", out.toString(),
+					"-proc:full");
+			JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, diagnostics, options, null, units);
+			task.setProcessors(List.of(new FxmlProcessor()));
+			boolean success = task.call();
+			assertTrue(success, () -> diagnostics.getDiagnostics().toString());
+		}
+		return diagnostics.getDiagnostics();
+	}
+
+	/** テスト用のソースのコンパイルに必要な、このライブラリーと JavaFX のクラスパスを返します。
+	 */
+	private static String classPath() {
+		return Stream.of(FxmlProcessor.class, FXML.class, Node.class, ObservableList.class)
+				.map(cls -> {
+					try {
+						return Path.of(cls.getProtectionDomain().getCodeSource().getLocation().toURI()).toString();
+					} catch(URISyntaxException e) {
+						throw new IllegalStateException(e);
+					}
+				})
+				.distinct()
+				.collect(Collectors.joining(File.pathSeparator));
+	}
+
+	private static List<Diagnostic<? extends JavaFileObject>> warnings(List<Diagnostic<? extends JavaFileObject>> diagnostics) {
+		return diagnostics.stream()
+				.filter(d -> d.getKind() == Diagnostic.Kind.WARNING || d.getKind() == Diagnostic.Kind.MANDATORY_WARNING)
+				.toList();
+	}
+
+	private URLClassLoader classLoader() throws Exception {
+		return new URLClassLoader(new URL[] { dir.resolve("out").toUri().toURL() }, FxmlProcessorTest.class.getClassLoader());
+	}
+
+	@SuppressWarnings("unchecked")
+	private static FxmlFactory<Object> factory(ClassLoader classLoader, String name) throws Exception {
+		return (FxmlFactory<Object>)classLoader.loadClass(name).getDeclaredConstructor().newInstance();
+	}
+}
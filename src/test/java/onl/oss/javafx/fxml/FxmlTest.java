@@ -0,0 +1,26 @@
+package onl.oss.javafx.fxml;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FxmlTest {
+
+	@Test
+	void loadAsyncCompletes() throws Exception {
+		// JavaFX ランタイムが起動していなくても完了することを確認します。
+		assertEquals("loaded", Fxml.loadAsync(Fxml.getExecutor(), () -> "loaded").get(10, TimeUnit.SECONDS));
+	}
+
+	@Test
+	void loadAsyncCompletesExceptionally() {
+		IllegalStateException exception = new IllegalStateException("failed");
+		ExecutionException e = assertThrows(ExecutionException.class, () -> Fxml.loadAsync(Fxml.getExecutor(), () -> {
+			throw exception;
+		}).get(10, TimeUnit.SECONDS));
+		assertSame(exception, e.getCause());
+	}
+}
@@ -0,0 +1,112 @@
+package onl.oss.javafx.fxml;
+
+import javafx.application.Platform;
+import javafx.event.ActionEvent;
+import javafx.fxml.FXML;
+import javafx.scene.control.Button;
+import javafx.scene.control.Label;
+import javafx.scene.control.TextArea;
+import javafx.scene.control.TextField;
+import javafx.scene.layout.VBox;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 複数のスレッドから同時に FXML をロードして、ライブラリーの共有状態が競合しないことを確認します。
+ */
+class ParallelLoadTest {
+
+	private static final int THREADS = 8;
+	private static final int LOADS = 400;
+
+	public static class StressView {
+		@FXML Label label;
+		@FXML TextField name;
+		@FXML TextArea note;
+		@FXML Button ok;
+		int clicks;
+
+		@FXML
+		void onOk(ActionEvent event) {
+			clicks++;
+		}
+	}
+
+	/** 式バインディングを使用するため、バイナリー形式ではなく FXMLLoader でロードされるビューです。 */
+	public static class StressBindingView extends StressView {
+	}
+
+	@BeforeAll
+	static void startToolkit() throws InterruptedException {
+		CountDownLatch latch = new CountDownLatch(1);
+		try {
+			Platform.startup(latch::countDown);
+		} catch(IllegalStateException e) {
+			// 他のテストですでに起動しています。
+			latch.countDown();
+		}
+		assertTrue(latch.await(10, TimeUnit.SECONDS));
+	}
+
+	@Test
+	void loadsViewsInParallel() throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+		try {
+			CountDownLatch start = new CountDownLatch(1);
+			List<Future<VBox>> futures = new ArrayList<>();
+			for(int i = 0; i < LOADS; i++) {
+				int index = i;
+				futures.add(executor.submit(() -> {
+					start.await();
+					StressView controller = (index % 2 == 0) ? new StressView() : new StressBindingView();
+					VBox root = Fxml.load(controller);
+					assertEquals(controller instanceof StressBindingView ? "Name" : "", controller.label.getText());
+					assertNotNull(controller.note);
+					assertSame(root, controller.name.getParent());
+					controller.ok.fire();
+					assertEquals(1, controller.clicks);
+					return root;
+				}));
+			}
+			start.countDown();
+
+			Set<VBox> roots = Collections.newSetFromMap(new IdentityHashMap<>());
+			for(Future<VBox> future : futures) {
+				roots.add(future.get(60, TimeUnit.SECONDS));
+			}
+			assertEquals(LOADS, roots.size());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	void loadsViewsAsyncInParallel() throws Exception {
+		List<StressView> controllers = new ArrayList<>();
+		List<CompletableFuture<VBox>> futures = new ArrayList<>();
+		for(int i = 0; i < LOADS; i++) {
+			StressView controller = (i % 2 == 0) ? new StressView() : new StressBindingView();
+			controllers.add(controller);
+			futures.add(Fxml.loadAsync(controller));
+		}
+		for(int i = 0; i < LOADS; i++) {
+			VBox root = futures.get(i).get(60, TimeUnit.SECONDS);
+			assertSame(root, controllers.get(i).ok.getParent());
+			assertEquals(controllers.get(i) instanceof StressBindingView ? "Name" : "", controllers.get(i).label.getText());
+		}
+	}
+}
@@ -0,0 +1,83 @@
+package onl.oss.javafx.fxml;
+
+import javafx.fxml.FXML;
+import javafx.scene.Node;
+import javafx.scene.control.TextField;
+import javafx.scene.layout.StackPane;
+import onl.oss.javafx.TestToolkit;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ViewPoolTest {
+
+	public static class PooledView {
+		@FXML TextField name;
+	}
+
+	@BeforeAll
+	static void startToolkit() throws InterruptedException {
+		TestToolkit.start();
+	}
+
+	@Test
+	void reusesReleasedView() throws Exception {
+		ViewPool<PooledView> pool = new ViewPool<>(PooledView::new).onReset(view -> view.getController().name.clear());
+		ViewPool.View<PooledView> first = pool.acquire();
+		first.getController().name.setText("edited");
+		first.release();
+		assertFalse(first.isInUse());
+		assertEquals(1, pool.size());
+
+		ViewPool.View<PooledView> second = pool.acquire();
+		assertNotSame(first, second);
+		assertSame(first.getRoot(), second.getRoot());
+		assertEquals("", second.getController().name.getText());
+		assertEquals(1, pool.getCreatedCount());
+		assertEquals(1, pool.getReusedCount());
+	}
+
+	@Test
+	void staleHandleDoesNotReleaseNewOwner() throws Exception {
+		ViewPool<PooledView> pool = new ViewPool<>(PooledView::new);
+		StackPane container = new StackPane();
+		ViewPool.View<PooledView> first = pool.acquire();
+		TestToolkit.callAndWait(() -> container.getChildren().add(first.getRoot()));
+		// 親ノードから取り除かれると、JavaFX アプリケーション・スレッドで後から自動的に返却されます。
+		TestToolkit.callAndWait(() -> container.getChildren().remove(first.<Node>getRoot()));
+		TestToolkit.waitForFx();
+		assertEquals(1, pool.size());
+		assertFalse(first.isInUse());
+
+		ViewPool.View<PooledView> second = pool.acquire();
+		assertSame(first.getRoot(), second.getRoot());
+		TestToolkit.callAndWait(() -> container.getChildren().add(second.getRoot()));
+		TestToolkit.callAndWait(() -> {
+			first.release();
+			return null;
+		});
+		TestToolkit.waitForFx();
+		assertSame(container, second.<Node>getRoot().getParent());
+		assertTrue(second.isInUse());
+		assertEquals(0, pool.size());
+	}
+
+	@Test
+	void movingToAnotherParentDoesNotRelease() throws Exception {
+		ViewPool<PooledView> pool = new ViewPool<>(PooledView::new);
+		StackPane from = new StackPane();
+		StackPane to = new StackPane();
+		ViewPool.View<PooledView> view = pool.acquire();
+		TestToolkit.callAndWait(() -> from.getChildren().add(view.getRoot()));
+		TestToolkit.callAndWait(() -> {
+			from.getChildren().remove(view.<Node>getRoot());
+			return to.getChildren().add(view.getRoot());
+		});
+		TestToolkit.waitForFx();
+		assertTrue(view.isInUse());
+		assertSame(to, view.<Node>getRoot().getParent());
+		assertEquals(0, pool.size());
+	}
+
+}
@@ -0,0 +1,127 @@
+package onl.oss.javafx.scene;
+
+import javafx.animation.AnimationTimer;
+import javafx.application.Platform;
+import javafx.scene.Scene;
+import javafx.scene.layout.Pane;
+import javafx.stage.Stage;
+import javafx.util.Duration;
+import onl.oss.javafx.TestToolkit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FrameProfilerTest {
+
+	// シーンに変化がないとパルスが発生しないため、テスト中はアニメーションを実行し続けます。
+	private final AnimationTimer animation = new AnimationTimer() {
+		@Override
+		public void handle(long now) {
+		}
+	};
+	private Stage stage;
+	private Scene scene;
+
+	@BeforeAll
+	static void startToolkit() throws InterruptedException {
+		TestToolkit.start();
+	}
+
+	@BeforeEach
+	void showStage() throws Exception {
+		// 文字を描画するとフォントが必要になるため、空のペインを表示します。
+		scene = TestToolkit.callAndWait(() -> {
+			stage = new Stage();
+			Scene scene = new Scene(new Pane(), 100, 100);
+			stage.setScene(scene);
+			stage.show();
+			animation.start();
+			return scene;
+		});
+	}
+
+	@AfterEach
+	void hideStage() throws Exception {
+		TestToolkit.callAndWait(() -> {
+			animation.stop();
+			stage.hide();
+			return null;
+		});
+	}
+
+	@Test
+	void recordsFramesIntoRingBuffer() throws Exception {
+		FrameProfiler profiler = TestToolkit.callAndWait(() -> FrameProfiler.attach(scene, 8).updateInterval(Duration.millis(50)));
+		assertSame(profiler, TestToolkit.callAndWait(() -> FrameProfiler.attach(scene)));
+		TestToolkit.await(() -> {
+			try {
+				return TestToolkit.callAndWait(() -> profiler.snapshot().getTotalFrames() > 10 && profiler.getFps() > 0);
+			} catch(Exception e) {
+				throw new IllegalStateException(e);
+			}
+		});
+
+		FrameProfiler.Snapshot snapshot = TestToolkit.callAndWait(profiler::snapshot);
+		assertEquals(8, snapshot.getFrameCount());
+		assertTrue(snapshot.getFrameTime(50).greaterThan(Duration.ZERO), snapshot.toString());
+		assertTrue(snapshot.getMaxFrameTime().greaterThanOrEqualTo(snapshot.getFrameTime(99)), snapshot.toString());
+		assertTrue(snapshot.getMaxLayoutTime().greaterThanOrEqualTo(snapshot.getLayoutTime(50)), snapshot.toString());
+		assertTrue(TestToolkit.callAndWait(profiler::getFrameTimeP50).greaterThan(Duration.ZERO));
+	}
+
+	@Test
+	void countsDroppedFrames() throws Exception {
+		FrameProfiler profiler = TestToolkit.callAndWait(() -> FrameProfiler.attach(scene).updateInterval(Duration.millis(50)));
+		TestToolkit.await(() -> {
+			try {
+				return TestToolkit.callAndWait(() -> profiler.snapshot().getTotalFrames() > 2);
+			} catch(Exception e) {
+				throw new IllegalStateException(e);
+			}
+		});
+		TestToolkit.callAndWait(() -> {
+			profiler.reset();
+			// JavaFX アプリケーション・スレッドを止めて、約 12 フレーム分のパルスを遅らせます。
+			Thread.sleep(200);
+			return null;
+		});
+		TestToolkit.await(() -> {
+			try {
+				return TestToolkit.callAndWait(() -> profiler.getDroppedFrames() > 0);
+			} catch(Exception e) {
+				throw new IllegalStateException(e);
+			}
+		});
+		FrameProfiler.Snapshot snapshot = TestToolkit.callAndWait(profiler::snapshot);
+		assertTrue(snapshot.getDroppedFrames() >= 5, snapshot.toString());
+		assertTrue(snapshot.getMaxFrameTime().greaterThanOrEqualTo(Duration.millis(200)), snapshot.toString());
+	}
+
+	@Test
+	void detachStopsRecording() throws Exception {
+		FrameProfiler profiler = TestToolkit.callAndWait(() -> FrameProfiler.attach(scene));
+		TestToolkit.await(() -> {
+			try {
+				return TestToolkit.callAndWait(() -> profiler.snapshot().getTotalFrames() > 2);
+			} catch(Exception e) {
+				throw new IllegalStateException(e);
+			}
+		});
+		long totalFrames = TestToolkit.callAndWait(() -> {
+			profiler.detach();
+			assertNull(FrameProfiler.get(scene));
+			return profiler.snapshot().getTotalFrames();
+		});
+		Thread.sleep(100);
+		assertEquals(totalFrames, TestToolkit.callAndWait(() -> profiler.snapshot().getTotalFrames()));
+	}
+
+	@Test
+	void rejectsCallsOffFxApplicationThread() {
+		assertFalse(Platform.isFxApplicationThread());
+		assertThrows(IllegalStateException.class, () -> FrameProfiler.attach(scene));
+	}
+}